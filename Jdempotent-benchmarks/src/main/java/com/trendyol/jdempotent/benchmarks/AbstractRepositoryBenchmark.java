@@ -0,0 +1,147 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+
+/**
+ * Drives a repository with the calls the aspect makes for one request: a storeIfAbsent, and for a key not seen
+ * before a setResponse. {@code duplicateRatio} percent of the calls reuse a key that already has
+ * a response, the rest use a fresh key which is removed again afterwards, standing in for expiry so the
+ * backend stays the same size during the run.
+ *
+ * <p>Subclasses only provide the repository, every backend runs at 1, 4 and 16 threads.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractRepositoryBenchmark {
+
+    private static final int HOT_KEYS = 1024;
+    private static final int FRESH_KEYS = 1024;
+    private static final long TTL = 1L;
+
+    @Param({"0", "50", "90"})
+    private int duplicateRatio;
+
+    protected IdempotentRepository repository;
+    private IdempotencyKey[] hotKeys;
+    private IdempotentRequestWrapper request;
+    private IdempotentResponseWrapper response;
+
+    @Setup(Level.Trial)
+    public void setUpRepository() throws Exception {
+        repository = createRepository();
+        request = Payloads.flatRequest(8);
+        response = new IdempotentResponseWrapper("ok");
+        hotKeys = new IdempotencyKey[HOT_KEYS];
+        for (int i = 0; i < HOT_KEYS; i++) {
+            hotKeys[i] = new IdempotencyKey("hot-" + i);
+            repository.store(hotKeys[i], request, TTL, TimeUnit.HOURS);
+            repository.setResponse(hotKeys[i], request, response, TTL, TimeUnit.HOURS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownRepository() throws Exception {
+        closeRepository();
+    }
+
+    /**
+     * @return the repository under test
+     * @throws Exception
+     */
+    protected abstract IdempotentRepository createRepository() throws Exception;
+
+    /**
+     * Releases whatever backs the repository
+     *
+     * @throws Exception
+     */
+    protected void closeRepository() throws Exception {
+    }
+
+    /**
+     * Stores the request of a new key, or reads the stored request and response of a known one
+     *
+     * @param key
+     * @param request
+     * @return null when the key is new
+     * @throws RequestAlreadyExistsException
+     */
+    protected IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper request) throws RequestAlreadyExistsException {
+        return repository.storeIfAbsent(key, request, TTL, TimeUnit.HOURS);
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private IdempotencyKey[] freshKeys;
+        private int sequence;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            String prefix = UUID.randomUUID().toString();
+            freshKeys = new IdempotencyKey[FRESH_KEYS];
+            for (int i = 0; i < FRESH_KEYS; i++) {
+                freshKeys[i] = new IdempotencyKey(prefix + "-" + i);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object oneThread(Caller caller) throws RequestAlreadyExistsException {
+        return call(caller);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object fourThreads(Caller caller) throws RequestAlreadyExistsException {
+        return call(caller);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object sixteenThreads(Caller caller) throws RequestAlreadyExistsException {
+        return call(caller);
+    }
+
+    private Object call(Caller caller) throws RequestAlreadyExistsException {
+        int sequence = caller.sequence++;
+        IdempotencyKey key = Math.floorMod(sequence, 100) < duplicateRatio
+                ? hotKeys[sequence & (HOT_KEYS - 1)]
+                : caller.freshKeys[sequence & (FRESH_KEYS - 1)];
+
+        IdempotentRequestResponseWrapper existing = storeIfAbsent(key, request);
+        if (existing != null) {
+            return existing;
+        }
+        repository.setResponse(key, request, response, TTL, TimeUnit.HOURS);
+        repository.remove(key);
+        return key;
+    }
+}
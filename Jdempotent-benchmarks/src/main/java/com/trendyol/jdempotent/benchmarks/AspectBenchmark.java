@@ -0,0 +1,101 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.trendyol.jdempotent.core.annotation.JdempotentResource;
+import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
+import com.trendyol.jdempotent.core.datasource.InMemoryIdempotentRepository;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+
+/**
+ * Overhead of {@link IdempotentAspect#execute} around a trivial method compared with calling it directly
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AspectBenchmark {
+
+    @Param({"SMALL", "NESTED"})
+    private Payloads.Shape shape;
+
+    private OrderService target;
+    private OrderService cachedProxy;
+    private OrderService forgetfulProxy;
+    private Object payload;
+    private long nextId = 2;
+
+    @Setup
+    public void setUp() {
+        target = new OrderService();
+        cachedProxy = proxy(target, new IdempotentAspect(new InMemoryIdempotentRepository()));
+        forgetfulProxy = proxy(target, new IdempotentAspect(new ForgetfulRepository()));
+        payload = shape.newPayload(1L);
+        cachedProxy.handle(payload);
+    }
+
+    @Benchmark
+    public String bareCall() {
+        return target.handle(payload);
+    }
+
+    /**
+     * The same payload again, answered from the repository
+     */
+    @Benchmark
+    public String duplicateCall() {
+        return cachedProxy.handle(payload);
+    }
+
+    /**
+     * A payload never seen before, stored, executed and completed
+     */
+    @Benchmark
+    public String newCall() {
+        return forgetfulProxy.handle(shape.newPayload(nextId++));
+    }
+
+    private static OrderService proxy(OrderService target, IdempotentAspect aspect) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(aspect);
+        return proxyFactory.getProxy();
+    }
+
+    public static class OrderService {
+
+        @JdempotentResource
+        public String handle(Object payload) {
+            return "ok";
+        }
+    }
+
+    /**
+     * Drops every key as soon as its response is set, standing in for expiry so the map stays bounded
+     */
+    private static class ForgetfulRepository extends InMemoryIdempotentRepository {
+
+        @Override
+        public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper idempotentResponse,
+                                Long ttl, TimeUnit timeUnit) {
+            remove(key);
+        }
+    }
+}
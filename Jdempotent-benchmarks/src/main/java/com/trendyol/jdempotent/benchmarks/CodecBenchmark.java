@@ -0,0 +1,65 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.codec.Lz4CompressingCodec;
+import com.trendyol.jdempotent.core.constant.CodecType;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+
+/**
+ * Encoding and decoding a stored request with each codec, per number of payload fields
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"JAVA", "SMILE"})
+    private CodecType codecType;
+
+    /**
+     * LZ4 compression threshold in bytes, -1 to not compress
+     */
+    @Param({"-1", "512"})
+    private int compressionThresholdBytes;
+
+    @Param({"8", "64"})
+    private int fieldCount;
+
+    private IdempotentCodec codec;
+    private IdempotentRequestWrapper request;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        codec = compressionThresholdBytes < 0 ? codecType.newCodec() : new Lz4CompressingCodec(codecType.newCodec(), compressionThresholdBytes);
+        request = Payloads.flatRequest(fieldCount);
+        encoded = codec.encode(request);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(request);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return codec.decode(encoded);
+    }
+}
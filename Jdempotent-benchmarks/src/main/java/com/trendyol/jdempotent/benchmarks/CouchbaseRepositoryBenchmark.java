@@ -0,0 +1,24 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.couchbase.CouchbaseConfig;
+import com.trendyol.jdempotent.couchbase.CouchbaseIdempotentRepository;
+
+/**
+ * {@link CouchbaseIdempotentRepository} over {@link InMemoryCollection}
+ */
+@State(Scope.Benchmark)
+public class CouchbaseRepositoryBenchmark extends AbstractRepositoryBenchmark {
+
+    @Override
+    protected IdempotentRepository createRepository() {
+        CouchbaseConfig couchbaseConfig = new CouchbaseConfig();
+        couchbaseConfig.setPersistReqRes(true);
+        return new CouchbaseIdempotentRepository(couchbaseConfig, InMemoryCollection.create(new ObjectMapper()));
+    }
+
+}
@@ -0,0 +1,305 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objenesis.ObjenesisStd;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.Factory;
+import org.springframework.cglib.proxy.MethodInterceptor;
+
+import com.couchbase.client.core.CoreKeyspace;
+import com.couchbase.client.core.api.kv.CoreExistsResult;
+import com.couchbase.client.core.api.kv.CoreExpiry;
+import com.couchbase.client.core.api.kv.CoreKvResponseMetadata;
+import com.couchbase.client.core.api.kv.CoreMutationResult;
+import com.couchbase.client.core.api.kv.CoreSubdocGetCommand;
+import com.couchbase.client.core.api.kv.CoreSubdocGetResult;
+import com.couchbase.client.core.api.kv.CoreSubdocMutateCommand;
+import com.couchbase.client.core.api.kv.CoreSubdocMutateResult;
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.core.error.subdoc.PathNotFoundException;
+import com.couchbase.client.core.msg.kv.SubDocumentField;
+import com.couchbase.client.core.msg.kv.SubDocumentOpResponseStatus;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.codec.JacksonJsonSerializer;
+import com.couchbase.client.java.codec.JsonSerializer;
+import com.couchbase.client.java.codec.JsonTranscoder;
+import com.couchbase.client.java.codec.Transcoder;
+import com.couchbase.client.java.kv.ExistsResult;
+import com.couchbase.client.java.kv.GetOptions;
+import com.couchbase.client.java.kv.GetResult;
+import com.couchbase.client.java.kv.InsertOptions;
+import com.couchbase.client.java.kv.LookupInOptions;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+import com.couchbase.client.java.kv.MutateInOptions;
+import com.couchbase.client.java.kv.MutateInResult;
+import com.couchbase.client.java.kv.MutateInSpec;
+import com.couchbase.client.java.kv.MutationResult;
+import com.couchbase.client.java.kv.ReplaceOptions;
+import com.couchbase.client.java.kv.UpsertOptions;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Keeps encoded documents in a map behind a {@link Collection}, used as an in-process stand-in for a Couchbase bucket
+ * in the benchmarks. Documents go through the same Jackson JSON transcoder the starter configures, or the transcoder
+ * of the call's options, so the codec cost is part of the measurement, only the network round trip is missing.
+ *
+ * <p>The SDK only constructs collections from a live cluster and its constructor is package-private, so
+ * {@link #create} returns a CGLIB subclass of {@code Collection} instantiated with Objenesis, which never runs that
+ * constructor. The subclass hands the key-value operations the repository uses to the public methods of this class
+ * with the same signature, anything else throws {@link UnsupportedOperationException}. Sub-document operations only
+ * resolve top-level paths of JSON documents, the only ones the repository uses.</p>
+ */
+public final class InMemoryCollection {
+
+    private static final CoreKeyspace KEYSPACE = new CoreKeyspace("jdempotent", "_default", "_default");
+
+    private static final Class<?> COLLECTION_TYPE = collectionType();
+
+    private final ConcurrentMap<String, Document> documents = new ConcurrentHashMap<>();
+    private final AtomicLong casSequence = new AtomicLong();
+    private final ObjectMapper objectMapper;
+    private final JsonSerializer serializer;
+    private final Transcoder transcoder;
+
+    private InMemoryCollection(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.serializer = JacksonJsonSerializer.create(objectMapper);
+        this.transcoder = JsonTranscoder.create(serializer);
+    }
+
+    /**
+     * @param objectMapper
+     * @return an empty collection
+     */
+    public static Collection create(ObjectMapper objectMapper) {
+        InMemoryCollection target = new InMemoryCollection(objectMapper);
+        Map<Method, Method> operations = new HashMap<>();
+        for (Method method : InMemoryCollection.class.getDeclaredMethods()) {
+            if (Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())) {
+                try {
+                    operations.put(Collection.class.getMethod(method.getName(), method.getParameterTypes()), method);
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException("Collection has no " + method, e);
+                }
+            }
+        }
+
+        Factory collection = (Factory) new ObjenesisStd().newInstance(COLLECTION_TYPE);
+        collection.setCallback(0, (MethodInterceptor) (proxy, method, args, superMethod) -> {
+            Method operation = operations.get(method);
+            if (operation != null) {
+                try {
+                    return operation.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return superMethod.invokeSuper(proxy, args);
+            }
+            throw new UnsupportedOperationException(method.getName() + " is not supported by the in-memory collection");
+        });
+        return (Collection) collection;
+    }
+
+    /**
+     * Generated once, in the package of {@code Collection} so it can extend it
+     */
+    private static Class<?> collectionType() {
+        Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(Collection.class);
+        enhancer.setCallbackType(MethodInterceptor.class);
+        enhancer.setUseFactory(true);
+        return enhancer.createClass();
+    }
+
+    public ExistsResult exists(String id) {
+        Document document = documents.get(id);
+        return ExistsResult.from(new CoreExistsResult(CoreKvResponseMetadata.NONE, KEYSPACE, id, document != null ? document.cas : 0L, document != null));
+    }
+
+    public GetResult get(String id) {
+        return get(id, GetOptions.getOptions());
+    }
+
+    public GetResult get(String id, GetOptions options) {
+        Document document = documents.get(id);
+        if (document == null) {
+            throw new DocumentNotFoundException(null);
+        }
+        return new GetResult(document.content, document.flags, document.cas, Optional.ofNullable(document.expiry),
+                transcoderOf(options.build().transcoder()));
+    }
+
+    public MutationResult insert(String id, Object content) {
+        return insert(id, content, InsertOptions.insertOptions());
+    }
+
+    public MutationResult insert(String id, Object content, InsertOptions options) {
+        InsertOptions.Built built = options.build();
+        Document document = encode(content, transcoderOf(built.transcoder()), built.expiry().encode());
+        if (documents.putIfAbsent(id, document) != null) {
+            throw new DocumentExistsException(null);
+        }
+        return mutationResult(id, document);
+    }
+
+    public MutationResult upsert(String id, Object content) {
+        return upsert(id, content, UpsertOptions.upsertOptions());
+    }
+
+    public MutationResult upsert(String id, Object content, UpsertOptions options) {
+        UpsertOptions.Built built = options.build();
+        Document document = encode(content, transcoderOf(built.transcoder()), built.expiry().encode());
+        documents.put(id, document);
+        return mutationResult(id, document);
+    }
+
+    public MutationResult replace(String id, Object content) {
+        return replace(id, content, ReplaceOptions.replaceOptions());
+    }
+
+    public MutationResult replace(String id, Object content, ReplaceOptions options) {
+        ReplaceOptions.Built built = options.build();
+        Document stored = find(id);
+        Document document = encode(content, transcoderOf(built.transcoder()), built.expiry().encode());
+        document = built.preserveExpiry() ? document.withExpiry(stored.expiry) : document;
+        if (!documents.replace(id, stored, document)) {
+            throw new DocumentNotFoundException(null);
+        }
+        return mutationResult(id, document);
+    }
+
+    public LookupInResult lookupIn(String id, List<LookupInSpec> specs) {
+        return lookupIn(id, specs, LookupInOptions.lookupInOptions());
+    }
+
+    public LookupInResult lookupIn(String id, List<LookupInSpec> specs, LookupInOptions options) {
+        Document document = find(id);
+        JsonNode root = readTree(document.content);
+        List<SubDocumentField> fields = new ArrayList<>(specs.size());
+        for (LookupInSpec spec : specs) {
+            CoreSubdocGetCommand command = spec.toCore();
+            JsonNode value = root.get(command.path());
+            fields.add(value == null
+                    ? new SubDocumentField(SubDocumentOpResponseStatus.PATH_NOT_FOUND, Optional.of(new PathNotFoundException(null)),
+                    new byte[0], command.path(), command.type())
+                    : new SubDocumentField(SubDocumentOpResponseStatus.SUCCESS, Optional.empty(),
+                    writeTree(value), command.path(), command.type()));
+        }
+        return new LookupInResult(new CoreSubdocGetResult(KEYSPACE, id, CoreKvResponseMetadata.NONE, fields, document.cas, false),
+                serializer);
+    }
+
+    public MutateInResult mutateIn(String id, List<MutateInSpec> specs) {
+        return mutateIn(id, specs, MutateInOptions.mutateInOptions());
+    }
+
+    /**
+     * Sets the top-level field of every spec, whatever its kind, the document keeps its expiry only when asked to
+     */
+    public MutateInResult mutateIn(String id, List<MutateInSpec> specs, MutateInOptions options) {
+        MutateInOptions.Built built = options.build();
+        Document stored = find(id);
+        ObjectNode root = (ObjectNode) readTree(stored.content);
+        for (MutateInSpec spec : specs) {
+            CoreSubdocMutateCommand command = spec.toCore(serializer);
+            root.set(command.path(), readTree(command.fragment()));
+        }
+        Document document = new Document(writeTree(root), stored.flags, casSequence.incrementAndGet(),
+                built.preserveExpiry() ? stored.expiry : expiresAt(built.expiry().encode()));
+        if (!documents.replace(id, stored, document)) {
+            throw new DocumentNotFoundException(null);
+        }
+        return new MutateInResult(new CoreSubdocMutateResult(KEYSPACE, id, CoreKvResponseMetadata.NONE, document.cas,
+                Optional.empty(), List.of()), serializer);
+    }
+
+    public MutationResult remove(String id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            throw new DocumentNotFoundException(null);
+        }
+        return mutationResult(id, document);
+    }
+
+    private Document find(String id) {
+        Document document = documents.get(id);
+        if (document == null) {
+            throw new DocumentNotFoundException(null);
+        }
+        return document;
+    }
+
+    private JsonNode readTree(byte[] content) {
+        try {
+            return objectMapper.readTree(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] writeTree(JsonNode node) {
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Transcoder transcoderOf(Transcoder optionTranscoder) {
+        return optionTranscoder != null ? optionTranscoder : transcoder;
+    }
+
+    private Document encode(Object content, Transcoder transcoder, CoreExpiry expiry) {
+        Transcoder.EncodedValue encoded = transcoder.encode(content);
+        return new Document(encoded.encoded(), encoded.flags(), casSequence.incrementAndGet(), expiresAt(expiry));
+    }
+
+    private static Instant expiresAt(CoreExpiry expiry) {
+        if (expiry.isNone()) {
+            return null;
+        }
+        return expiry.absolute() != null ? expiry.absolute() : Instant.now().plus(expiry.relative());
+    }
+
+    private static MutationResult mutationResult(String id, Document document) {
+        return new MutationResult(new CoreMutationResult(CoreKvResponseMetadata.NONE, KEYSPACE, id, document.cas, Optional.empty()));
+    }
+
+    private static final class Document {
+        private final byte[] content;
+        private final int flags;
+        private final long cas;
+        private final Instant expiry;
+
+        private Document(byte[] content, int flags, long cas, Instant expiry) {
+            this.content = content;
+            this.flags = flags;
+            this.cas = cas;
+            this.expiry = expiry;
+        }
+
+        private Document withExpiry(Instant expiry) {
+            return new Document(content, flags, cas, expiry);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+
+/**
+ * A {@link RedisConnectionFactory} whose connections keep raw keys and hashes in a map, used as an in-process
+ * stand-in for Redis in the benchmarks. The real {@code RedisTemplate} and serializers run on top of it, only
+ * the network round trip is missing.
+ *
+ * <p>Only the commands the repository issues are understood, anything else throws so a repository change that
+ * needs a new command fails loudly instead of measuring nothing. Scripts are told apart by their number of
+ * arguments and run as the repository's scripts would. Expiration is accepted and ignored.</p>
+ */
+class InMemoryRedisConnectionFactory implements RedisConnectionFactory {
+
+    private final ConcurrentMap<ByteBuffer, ConcurrentMap<ByteBuffer, byte[]>> hashes = new ConcurrentHashMap<>();
+    private final RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(
+            RedisConnection.class.getClassLoader(), new Class<?>[]{RedisConnection.class}, new CommandHandler());
+
+    @Override
+    public RedisConnection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        throw new UnsupportedOperationException("Cluster connections are not supported by the in-memory stand-in");
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return true;
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        throw new UnsupportedOperationException("Sentinel connections are not supported by the in-memory stand-in");
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return null;
+    }
+
+    private static final byte[] REQUEST = "request".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESPONSE = "response".getBytes(StandardCharsets.US_ASCII);
+
+    private static ByteBuffer key(Object rawKey) {
+        return ByteBuffer.wrap((byte[]) rawKey);
+    }
+
+    private final class CommandHandler implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "hGet":
+                    return field(args[0], (byte[]) args[1]);
+                case "hMGet":
+                    List<byte[]> fields = new ArrayList<>();
+                    for (byte[] field : (byte[][]) args[1]) {
+                        fields.add(field(args[0], field));
+                    }
+                    return fields;
+                case "evalSha":
+                case "eval":
+                    return eval((byte[][]) args[3]);
+                case "del":
+                    long deleted = 0;
+                    for (byte[] rawKey : (byte[][]) args[0]) {
+                        deleted += hashes.remove(key(rawKey)) != null ? 1 : 0;
+                    }
+                    return deleted;
+                case "exists":
+                    return args[0] instanceof byte[][] ? (Object) (long) countExisting((byte[][]) args[0]) : hashes.containsKey(key(args[0]));
+                case "hashCommands":
+                case "keyCommands":
+                case "scriptingCommands":
+                    return proxy;
+                case "isPipelined":
+                case "isQueueing":
+                case "isClosed":
+                    return Boolean.FALSE;
+                case "close":
+                    return null;
+                case "getNativeConnection":
+                    return hashes;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "InMemoryRedisConnection";
+                default:
+                    throw new UnsupportedOperationException("The in-memory Redis stand-in does not support " + method.getName());
+            }
+        }
+
+        private byte[] field(Object rawKey, byte[] field) {
+            ConcurrentMap<ByteBuffer, byte[]> hash = hashes.get(key(rawKey));
+            return hash != null ? hash.get(key(field)) : null;
+        }
+
+        /**
+         * storeIfAbsent passes a key, the request and a ttl, setResponse a key and the response
+         */
+        private Object eval(byte[][] keysAndArgs) {
+            ByteBuffer rawKey = key(keysAndArgs[0]);
+            if (keysAndArgs.length == 3) {
+                ConcurrentMap<ByteBuffer, byte[]> hash = new ConcurrentHashMap<>();
+                hash.put(key(REQUEST), keysAndArgs[1]);
+                ConcurrentMap<ByteBuffer, byte[]> existing = hashes.putIfAbsent(rawKey, hash);
+                if (existing == null) {
+                    return null;
+                }
+                List<byte[]> fields = new ArrayList<>();
+                fields.add(existing.get(key(REQUEST)));
+                fields.add(existing.get(key(RESPONSE)));
+                return fields;
+            }
+            ConcurrentMap<ByteBuffer, byte[]> hash = hashes.get(rawKey);
+            if (hash == null) {
+                return -1L;
+            }
+            return hash.put(key(RESPONSE), keysAndArgs[1]) == null ? 1L : 0L;
+        }
+
+        private int countExisting(byte[][] rawKeys) {
+            int count = 0;
+            for (byte[] rawKey : rawKeys) {
+                count += hashes.containsKey(key(rawKey)) ? 1 : 0;
+            }
+            return count;
+        }
+    }
+}
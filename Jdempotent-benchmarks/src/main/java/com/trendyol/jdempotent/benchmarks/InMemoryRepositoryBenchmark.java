@@ -0,0 +1,16 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.InMemoryIdempotentRepository;
+
+@State(Scope.Benchmark)
+public class InMemoryRepositoryBenchmark extends AbstractRepositoryBenchmark {
+
+    @Override
+    protected IdempotentRepository createRepository() {
+        return new InMemoryIdempotentRepository();
+    }
+}
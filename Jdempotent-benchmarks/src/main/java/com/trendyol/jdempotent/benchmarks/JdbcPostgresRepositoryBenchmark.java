@@ -0,0 +1,64 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.postgres.JdbcPostgresIdempotentRepository;
+import com.trendyol.jdempotent.postgres.JdempotentPostgresProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * {@link JdbcPostgresIdempotentRepository} over the same H2 database and Hikari pool as
+ * {@link PostgresRepositoryBenchmark}, so the two show what the EntityManager and Hibernate cost per call.
+ */
+@State(Scope.Benchmark)
+public class JdbcPostgresRepositoryBenchmark extends AbstractRepositoryBenchmark {
+
+    private HikariDataSource dataSource;
+
+    @Override
+    protected IdempotentRepository createRepository() throws Exception {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl("jdbc:h2:mem:jdempotent-jdbc;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        hikariConfig.setMaximumPoolSize(16);
+        dataSource = new HikariDataSource(hikariConfig);
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS jdempotent");
+            statement.execute("CREATE TABLE jdempotent (idempotency_key VARCHAR(255) PRIMARY KEY, cache_prefix VARCHAR(255),"
+                    + " request_data BYTEA, response_data BYTEA, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, expires_at TIMESTAMP)");
+        }
+
+        JdempotentPostgresProperties postgresProperties = new JdempotentPostgresProperties();
+        postgresProperties.setPersistReqRes(true);
+        return new JdbcPostgresIdempotentRepository(PostgresOnH2.wrap(dataSource), postgresProperties);
+    }
+
+    /**
+     * H2 can't run the single statement of storeIfAbsent, see {@link PostgresRepositoryBenchmark#storeIfAbsent}
+     */
+    @Override
+    protected IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper request) throws RequestAlreadyExistsException {
+        IdempotentRequestResponseWrapper existing = repository.getRequestResponseWrapper(key);
+        if (existing != null) {
+            return existing;
+        }
+        repository.store(key, request, 1L, TimeUnit.HOURS);
+        return null;
+    }
+
+    @Override
+    protected void closeRepository() {
+        dataSource.close();
+    }
+}
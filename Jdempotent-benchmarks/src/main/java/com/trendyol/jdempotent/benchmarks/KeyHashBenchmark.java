@@ -0,0 +1,71 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.trendyol.jdempotent.core.constant.CryptographyAlgorithm;
+import com.trendyol.jdempotent.core.generator.DefaultKeyGenerator;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+
+/**
+ * Compares the key hash algorithms across payload sizes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyHashBenchmark {
+
+    @Param({"MD5", "SHA256", "MURMUR3_128"})
+    private String algorithm;
+
+    @Param({"4", "32", "256"})
+    private int fieldCount;
+
+    private final DefaultKeyGenerator keyGenerator = new DefaultKeyGenerator();
+    private final StringBuilder builder = new StringBuilder();
+    private MessageDigest messageDigest;
+    private IdempotentRequestWrapper request;
+    private byte[] encodedRequest;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        messageDigest = CryptographyAlgorithm.of(algorithm).newMessageDigest();
+        request = Payloads.flatRequest(fieldCount);
+        encodedRequest = request.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hashes a byte array of the payload size alone, isolating the algorithm from the payload encoding
+     *
+     * @return
+     */
+    @Benchmark
+    public byte[] digestOnly() {
+        return messageDigest.digest(encodedRequest);
+    }
+
+    @Benchmark
+    public IdempotencyKey generateKey() {
+        builder.setLength(0);
+        messageDigest.reset();
+        return keyGenerator.generateIdempotentKey(request, "", builder, messageDigest);
+    }
+}
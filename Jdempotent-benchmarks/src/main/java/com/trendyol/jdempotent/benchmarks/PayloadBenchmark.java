@@ -0,0 +1,65 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
+import com.trendyol.jdempotent.core.constant.CryptographyAlgorithm;
+import com.trendyol.jdempotent.core.generator.DefaultKeyGenerator;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+
+/**
+ * Snapshotting a payload into its non ignored fields and generating its key, per payload shape
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+
+    @Param({"SMALL", "WIDE", "NESTED"})
+    private Payloads.Shape shape;
+
+    private final IdempotentAspect aspect = new IdempotentAspect();
+    private final DefaultKeyGenerator keyGenerator = new DefaultKeyGenerator();
+    private final StringBuilder builder = new StringBuilder();
+    private MessageDigest messageDigest;
+    private Object payload;
+    private IdempotentRequestWrapper request;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException, IllegalAccessException {
+        messageDigest = CryptographyAlgorithm.MD5.newMessageDigest();
+        payload = shape.newPayload(1L);
+        request = new IdempotentRequestWrapper(aspect.getIdempotentNonIgnorableWrapper(payload));
+    }
+
+    @Benchmark
+    public IdempotentIgnorableWrapper snapshot() throws IllegalAccessException {
+        return aspect.getIdempotentNonIgnorableWrapper(payload);
+    }
+
+    @Benchmark
+    public IdempotencyKey generateKey() {
+        builder.setLength(0);
+        messageDigest.reset();
+        return keyGenerator.generateIdempotentKey(request, "", builder, messageDigest);
+    }
+}
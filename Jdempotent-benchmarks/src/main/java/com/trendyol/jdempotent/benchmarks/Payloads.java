@@ -0,0 +1,145 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.trendyol.jdempotent.core.annotation.JdempotentIgnore;
+import com.trendyol.jdempotent.core.annotation.JdempotentProperty;
+import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+
+/**
+ * Payload shapes shared by the benchmarks
+ */
+public final class Payloads {
+
+    /**
+     * Shapes of request payloads, from a typical small event to a large nested order
+     */
+    public enum Shape {
+        SMALL, WIDE, NESTED;
+
+        Object newPayload(long id) {
+            switch (this) {
+                case SMALL:
+                    return new SmallPayload(id);
+                case WIDE:
+                    return new WidePayload(id);
+                default:
+                    return new NestedPayload(id, 8);
+            }
+        }
+    }
+
+    private Payloads() {
+    }
+
+    /**
+     * Builds a flat request with the given number of fields, alternating text and numeric values
+     *
+     * @param fieldCount
+     * @return
+     */
+    static IdempotentRequestWrapper flatRequest(int fieldCount) {
+        IdempotentIgnorableWrapper wrapper = new IdempotentIgnorableWrapper(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            wrapper.getNonIgnoredFields().put("field" + i, i % 2 == 0 ? "value-of-field-" + i : (Object) (1_000_000L + i));
+        }
+        return new IdempotentRequestWrapper(wrapper);
+    }
+
+    public static class SmallPayload {
+        private final long eventId;
+        private final String name;
+        @JdempotentIgnore
+        private final long receivedAt;
+
+        public SmallPayload(long eventId) {
+            this.eventId = eventId;
+            this.name = "event-" + eventId;
+            this.receivedAt = System.nanoTime();
+        }
+    }
+
+    public static class WidePayload {
+        private final long id;
+        private final String field01 = "lorem";
+        private final String field02 = "ipsum dolor sit amet";
+        private final String field03 = "consectetur adipiscing";
+        private final String field04 = "elit sed do eiusmod";
+        private final String field05 = "tempor incididunt";
+        private final String field06 = "ut labore et dolore";
+        private final String field07 = "magna aliqua";
+        private final String field08 = "ut enim ad minim veniam";
+        private final int field09 = 9;
+        private final int field10 = 10;
+        private final long field11 = 11L;
+        private final long field12 = 12L;
+        private final double field13 = 13.5d;
+        private final double field14 = 14.25d;
+        private final boolean field15 = true;
+        private final boolean field16 = false;
+        private final Integer field17 = 17;
+        private final Long field18 = 18L;
+        private final BigDecimal field19 = new BigDecimal("19.99");
+        private final BigDecimal field20 = new BigDecimal("20.01");
+        @JdempotentProperty("renamedField21")
+        private final String field21 = "quis nostrud exercitation";
+        private final String field22 = "ullamco laboris nisi";
+        private final String field23 = "ut aliquip ex ea commodo";
+        @JdempotentIgnore
+        private final String field24 = "ignored";
+
+        public WidePayload(long id) {
+            this.id = id;
+        }
+    }
+
+    public static class NestedPayload {
+        private final long orderId;
+        private final Customer customer;
+        private final List<LineItem> lineItems;
+        private final Map<String, String> attributes;
+
+        public NestedPayload(long orderId, int lineItemCount) {
+            this.orderId = orderId;
+            this.customer = new Customer();
+            this.lineItems = new ArrayList<>(lineItemCount);
+            for (int i = 0; i < lineItemCount; i++) {
+                lineItems.add(new LineItem("sku-" + i, i + 1, new BigDecimal(i + ".99")));
+            }
+            this.attributes = new LinkedHashMap<>();
+            attributes.put("channel", "mobile");
+            attributes.put("campaign", "autumn-sale");
+            attributes.put("currency", "TRY");
+        }
+    }
+
+    public static class Customer {
+        private final long customerId = 42L;
+        private final String email = "customer@example.com";
+        private final Address address = new Address();
+    }
+
+    public static class Address {
+        private final String city = "Istanbul";
+        private final String district = "Kadikoy";
+        private final String line = "Caferaga Mah. Moda Cad. No:1";
+        private final String postalCode = "34710";
+    }
+
+    public static class LineItem {
+        private final String sku;
+        private final int quantity;
+        private final BigDecimal price;
+
+        public LineItem(String sku, int quantity, BigDecimal price) {
+            this.sku = sku;
+            this.quantity = quantity;
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+/**
+ * Lets the PostgreSQL statements of the repository run on H2 in PostgreSQL mode, which doesn't accept a
+ * conflict target in {@code ON CONFLICT (column) DO NOTHING}. The statement is rewritten to the untargeted
+ * form, which behaves the same on a table whose only unique constraint is the key.
+ *
+ * <p>H2 has no {@code RETURNING} either, an {@code UPDATE ... RETURNING columns} is rewritten to a select
+ * of the columns from the {@code FINAL TABLE} of the update, which returns the same rows.</p>
+ */
+final class PostgresOnH2 {
+
+    private static final Pattern CONFLICT_TARGET = Pattern.compile("ON CONFLICT \\([^)]*\\) DO NOTHING");
+    private static final Pattern UPDATE_RETURNING = Pattern.compile("^(UPDATE .*) RETURNING (.*)$", Pattern.DOTALL);
+
+    private PostgresOnH2() {
+    }
+
+    /**
+     * @param dataSource an H2 data source
+     * @return the data source, handing out connections that rewrite statements before preparing them
+     */
+    static DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = method.invoke(target, args);
+            return result instanceof Connection ? proxy(Connection.class, result, PostgresOnH2::prepare) : result;
+        });
+    }
+
+    private static Object prepare(Object connection, Method method, Object[] args) throws ReflectiveOperationException {
+        if (method.getName().startsWith("prepare") && args != null && args[0] instanceof String) {
+            String sql = CONFLICT_TARGET.matcher((String) args[0]).replaceAll("ON CONFLICT DO NOTHING");
+            args[0] = UPDATE_RETURNING.matcher(sql).replaceAll("SELECT $2 FROM FINAL TABLE ($1)");
+        }
+        return method.invoke(connection, args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, Forwarder forwarder) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return forwarder.forward(target, method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @FunctionalInterface
+    private interface Forwarder {
+        Object forward(Object target, Method method, Object[] args) throws ReflectiveOperationException;
+    }
+}
@@ -0,0 +1,75 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.postgres.JdempotentPostgresProperties;
+import com.trendyol.jdempotent.postgres.PostgresIdempotentRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+/**
+ * {@link PostgresIdempotentRepository} over an in-memory H2 database in PostgreSQL mode, through Hibernate
+ * and a Hikari pool like a Spring Boot application would have. See {@link PostgresOnH2} for the one statement
+ * H2 needs rewritten, storeIfAbsent runs as a read and an insert since H2 can't run its statement.
+ */
+@State(Scope.Benchmark)
+public class PostgresRepositoryBenchmark extends AbstractRepositoryBenchmark {
+
+    private HikariDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    protected IdempotentRepository createRepository() throws Exception {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl("jdbc:h2:mem:jdempotent;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        hikariConfig.setMaximumPoolSize(16);
+        dataSource = new HikariDataSource(hikariConfig);
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS jdempotent");
+            statement.execute("CREATE TABLE jdempotent (idempotency_key VARCHAR(255) PRIMARY KEY, cache_prefix VARCHAR(255),"
+                    + " request_data BYTEA, response_data BYTEA, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, expires_at TIMESTAMP)");
+        }
+
+        entityManagerFactory = Persistence.createEntityManagerFactory("jdempotent-benchmarks",
+                Map.of("jakarta.persistence.nonJtaDataSource", PostgresOnH2.wrap(dataSource)));
+
+        JdempotentPostgresProperties postgresProperties = new JdempotentPostgresProperties();
+        postgresProperties.setPersistReqRes(true);
+        return new PostgresIdempotentRepository(entityManagerFactory, postgresProperties);
+    }
+
+    /**
+     * H2 has no data-modifying common table expressions, so the single statement of storeIfAbsent can't
+     * run on it, read and insert with the two statements it replaces instead
+     */
+    @Override
+    protected IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper request) throws RequestAlreadyExistsException {
+        IdempotentRequestResponseWrapper existing = repository.getRequestResponseWrapper(key);
+        if (existing != null) {
+            return existing;
+        }
+        repository.store(key, request, 1L, TimeUnit.HOURS);
+        return null;
+    }
+
+    @Override
+    protected void closeRepository() {
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+}
@@ -0,0 +1,33 @@
+package com.trendyol.jdempotent.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.redis.RedisConfigProperties;
+import com.trendyol.jdempotent.redis.RedisIdempotentRepository;
+
+/**
+ * {@link RedisIdempotentRepository} with the starter's template and serializers over {@link InMemoryRedisConnectionFactory}
+ */
+@State(Scope.Benchmark)
+public class RedisRepositoryBenchmark extends AbstractRepositoryBenchmark {
+
+    @Override
+    protected IdempotentRepository createRepository() {
+        RedisTemplate<Object, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(new InMemoryRedisConnectionFactory());
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setDefaultSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        RedisConfigProperties redisProperties = new RedisConfigProperties();
+        redisProperties.setPersistReqRes(true);
+        redisProperties.setExpirationTimeHour(1L);
+        return new RedisIdempotentRepository(redisTemplate, redisProperties);
+    }
+
+}
@@ -4,6 +4,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.concurrent.TimeUnit;
 
+import com.trendyol.jdempotent.core.constant.CryptographyAlgorithm;
+
 /**
  * Add to the methods that need to be idempotent.
  *
@@ -31,4 +33,25 @@ public @interface JdempotentResource {
      * @return
      */
     TimeUnit ttlTimeUnit() default TimeUnit.HOURS;
-}
\ No newline at end of file
+
+    /**
+     * Hash algorithm of the generated key, e.g. {@code CryptographyAlgorithm.MURMUR3_128}. Empty uses the
+     * algorithm configured on the aspect, an annotation can't default to null so it takes at most one.
+     *
+     * @return
+     */
+    CryptographyAlgorithm[] cryptographyAlgorithm() default {};
+
+    /**
+     * Treats every element of the {@code List} payload as its own request, for batch listeners.
+     * Elements already stored are left out of the list the method is called with, and the method
+     * isn't called when none is left. Every element gets the key of its @JdempotentId field, or
+     * a generated one. Elements still held by another call, or stored with another payload, are left
+     * out too and reported with a SkippedBatchElementsException once the others are saved, retrying the
+     * batch then only processes the ones that were in flight. The list can't hold null elements, and
+     * the method can't return a CompletableFuture, a Mono or a Flux.
+     *
+     * @return
+     */
+    boolean batch() default false;
+}
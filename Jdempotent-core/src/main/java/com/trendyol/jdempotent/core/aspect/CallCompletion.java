@@ -0,0 +1,23 @@
+package com.trendyol.jdempotent.core.aspect;
+
+/**
+ * What the aspect does once an asynchronous idempotent call has finished, only the first call to
+ * either method takes effect
+ */
+interface CallCompletion {
+
+    /**
+     * Saves the value the call completed with, throws when the error callback rejects it or the save
+     * fails, in which case the key is released already
+     *
+     * @param value
+     */
+    void succeeded(Object value);
+
+    /**
+     * Releases the key of a call that failed or was cancelled
+     *
+     * @param error
+     */
+    void failed(Throwable error);
+}
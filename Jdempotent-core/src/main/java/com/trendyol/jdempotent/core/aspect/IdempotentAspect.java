@@ -1,11 +1,23 @@
 package com.trendyol.jdempotent.core.aspect;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -13,32 +25,31 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.StringUtils;
 
-import com.trendyol.jdempotent.core.annotation.JdempotentId;
-import com.trendyol.jdempotent.core.annotation.JdempotentIdTarget;
-import com.trendyol.jdempotent.core.annotation.JdempotentRequestPayload;
-import com.trendyol.jdempotent.core.annotation.JdempotentResource;
+import com.trendyol.jdempotent.core.aspect.IdempotentMethodPlan.ReturnKind;
+import com.trendyol.jdempotent.core.aspect.InFlightRequests.InFlightRequest;
 import com.trendyol.jdempotent.core.callback.ErrorConditionalCallback;
-import com.trendyol.jdempotent.core.chain.AnnotationChain;
-import com.trendyol.jdempotent.core.chain.JdempotentDefaultChain;
-import com.trendyol.jdempotent.core.chain.JdempotentIgnoreAnnotationChain;
-import com.trendyol.jdempotent.core.chain.JdempotentNoAnnotationChain;
-import com.trendyol.jdempotent.core.chain.JdempotentPropertyAnnotationChain;
+import com.trendyol.jdempotent.core.chain.PayloadFields;
 import com.trendyol.jdempotent.core.constant.CryptographyAlgorithm;
 import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.InFlightRequestFailedException;
 import com.trendyol.jdempotent.core.datasource.InMemoryIdempotentRepository;
 import com.trendyol.jdempotent.core.datasource.PayloadConflictException;
+import com.trendyol.jdempotent.core.datasource.ReactiveIdempotentRepository;
 import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
+import com.trendyol.jdempotent.core.datasource.SkippedBatchElementsException;
 import com.trendyol.jdempotent.core.generator.DefaultKeyGenerator;
+import com.trendyol.jdempotent.core.generator.FingerprintingMessageDigest;
 import com.trendyol.jdempotent.core.generator.KeyGenerator;
-import com.trendyol.jdempotent.core.model.ChainData;
+import com.trendyol.jdempotent.core.generator.PayloadFingerprint;
+import com.trendyol.jdempotent.core.metrics.IdempotentMetrics;
+import com.trendyol.jdempotent.core.metrics.IdempotentMetrics.Event;
+import com.trendyol.jdempotent.core.metrics.IdempotentMetrics.Operation;
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
 import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
 import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
 import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
 import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
-import com.trendyol.jdempotent.core.model.KeyValuePair;
 
 /**
  * An aspect that used along with the @IdempotentResource annotation
@@ -46,10 +57,21 @@ import com.trendyol.jdempotent.core.model.KeyValuePair;
 @Aspect
 public class IdempotentAspect {
     private static final Logger logger = LoggerFactory.getLogger(IdempotentAspect.class);
-    private AnnotationChain annotationChain;
     private KeyGenerator keyGenerator;
     private IdempotentRepository idempotentRepository;
+    private ReactiveIdempotentRepository reactiveIdempotentRepository;
     private ErrorConditionalCallback errorCallback;
+    private CryptographyAlgorithm cryptographyAlgorithm = CryptographyAlgorithm.MD5;
+    private volatile InFlightRequests inFlightRequests;
+    private volatile IdempotentMetrics metrics = IdempotentMetrics.NOOP;
+    private Executor completionExecutor = ForkJoinPool.commonPool();
+    // keyed by target class first, an interface method has a plan per implementation
+    private final ClassValue<ConcurrentMap<Method, IdempotentMethodPlan>> methodPlans = new ClassValue<>() {
+        @Override
+        protected ConcurrentMap<Method, IdempotentMethodPlan> computeValue(Class<?> targetClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
     private static final ThreadLocal<StringBuilder> stringBuilders =
             new ThreadLocal<>() {
                 @Override
@@ -66,70 +88,47 @@ public class IdempotentAspect {
             };
 
 
-    private static final ThreadLocal<MessageDigest> messageDigests =
-            new ThreadLocal<>() {
-                @Override
-                protected MessageDigest initialValue() {
-                    try {
-                        return MessageDigest.getInstance(CryptographyAlgorithm.MD5.value());
-                    } catch (NoSuchAlgorithmException e) {
-                        logger.warn("This algorithm not supported.", e);
-                    }
-                    return null;
-                }
-
-                @Override
-                public MessageDigest get() {
-                    MessageDigest messageDigest = super.get();
-                    messageDigest.reset();
-                    return messageDigest;
-                }
-            };
-
+    private static final ThreadLocal<MessageDigest[]> messageDigests =
+            ThreadLocal.withInitial(() -> new MessageDigest[CryptographyAlgorithm.values().length]);
+    private static final ThreadLocal<FingerprintingMessageDigest> fingerprintingDigests =
+            ThreadLocal.withInitial(FingerprintingMessageDigest::new);
     public IdempotentAspect() {
         this.idempotentRepository = new InMemoryIdempotentRepository();
         this.keyGenerator = new DefaultKeyGenerator();
-        this.annotationChain = fillChains();
     }
 
     public IdempotentAspect(ErrorConditionalCallback errorCallback) {
         this.errorCallback = errorCallback;
         this.idempotentRepository = new InMemoryIdempotentRepository();
         this.keyGenerator = new DefaultKeyGenerator();
-        this.annotationChain = fillChains();
     }
 
     public IdempotentAspect(IdempotentRepository idempotentRepository) {
         this.idempotentRepository = idempotentRepository;
         this.keyGenerator = new DefaultKeyGenerator();
-        this.annotationChain = fillChains();
     }
 
     public IdempotentAspect(IdempotentRepository idempotentRepository, ErrorConditionalCallback errorCallback) {
         this.idempotentRepository = idempotentRepository;
         this.errorCallback = errorCallback;
         this.keyGenerator = new DefaultKeyGenerator();
-        this.annotationChain = fillChains();
     }
 
     public IdempotentAspect(ErrorConditionalCallback errorCallback, DefaultKeyGenerator keyGenerator) {
         this.errorCallback = errorCallback;
         this.idempotentRepository = new InMemoryIdempotentRepository();
         this.keyGenerator = keyGenerator;
-        this.annotationChain = fillChains();
     }
 
     public IdempotentAspect(IdempotentRepository idempotentRepository, KeyGenerator keyGenerator) {
         this.idempotentRepository = idempotentRepository;
         this.keyGenerator = keyGenerator;
-        this.annotationChain = fillChains();
     }
 
     public IdempotentAspect(IdempotentRepository idempotentRepository, ErrorConditionalCallback errorCallback, DefaultKeyGenerator keyGenerator) {
         this.idempotentRepository = idempotentRepository;
         this.errorCallback = errorCallback;
         this.keyGenerator = keyGenerator;
-        this.annotationChain = fillChains();
     }
 
     /**
@@ -141,90 +140,576 @@ public class IdempotentAspect {
      */
     @Around("@annotation(com.trendyol.jdempotent.core.annotation.JdempotentResource)")
     public Object execute(ProceedingJoinPoint pjp) throws RequestAlreadyExistsException, PayloadConflictException, Throwable {
-        String classAndMethodName = generateLogPrefixForIncomingEvent(pjp);
-        IdempotentRequestWrapper requestObject = findIdempotentRequestArg(pjp);
-        String listenerName = ((MethodSignature) pjp.getSignature()).getMethod().getAnnotation(JdempotentResource.class).cachePrefix();
-        String annotatedIdValue = findIdempotentKeyFromAnnotations(pjp);
-        
-        IdempotencyKey idempotencyKey = (annotatedIdValue != null && !annotatedIdValue.isEmpty())
-                ? new IdempotencyKey(annotatedIdValue)
-                : keyGenerator.generateIdempotentKey(requestObject, listenerName, stringBuilders.get(), messageDigests.get());
-        
-        Long customTtl = ((MethodSignature) pjp.getSignature()).getMethod().getAnnotation(JdempotentResource.class).ttl();
-        TimeUnit timeUnit = ((MethodSignature) pjp.getSignature()).getMethod().getAnnotation(JdempotentResource.class).ttlTimeUnit();
-
-        logger.debug(classAndMethodName + "starting for {}", requestObject);
-
-        // Single call to get both request and response data
-        IdempotentRequestResponseWrapper existingWrapper = idempotentRepository.getRequestResponseWrapper(idempotencyKey);
-        
-        if (existingWrapper != null) {
-            // Check if the incoming request payload matches the stored payload
-            IdempotentRequestWrapper storedRequest = existingWrapper.getRequest();
-            
-            if (!requestObject.equals(storedRequest)) {
-                logger.warn(classAndMethodName + "payload conflict detected for key {} - incoming: {}, stored: {}", 
-                           idempotencyKey, requestObject, storedRequest);
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        Object target = pjp.getTarget();
+        Object[] args = pjp.getArgs();
+        if (args.length == 0) {
+            throw new IllegalStateException("Idempotent method not found");
+        }
+
+        IdempotentMethodPlan plan = getMethodPlan(signature, target);
+        if (plan.isBatch()) {
+            return proceedBatchIdempotently(pjp, plan, args);
+        }
+        String classAndMethodName = plan.getLogPrefix();
+        IdempotentIgnorableWrapper snapshot = snapshotRequestArg(plan, args);
+        KeyedRequest keyedRequest = newKeyedRequest(plan, snapshot, findIdempotentKeyFromAnnotations(plan, args));
+        IdempotentRequestWrapper requestObject = keyedRequest.request;
+        IdempotencyKey idempotencyKey = keyedRequest.key;
+
+        ReactiveIdempotentRepository reactiveIdempotentRepository = this.reactiveIdempotentRepository;
+        // reactive methods never block on the repository when a non-blocking one is set, a CompletionStage
+        // method keeps the blocking repository so duplicates and conflicts are still thrown from the call
+        if (reactiveIdempotentRepository != null
+                && (plan.getReturnKind() == ReturnKind.MONO || plan.getReturnKind() == ReturnKind.FLUX)) {
+            return new ReactiveIdempotentCall(this, reactiveIdempotentRepository, pjp, plan, args, requestObject,
+                    idempotencyKey, metrics).execute();
+        }
+
+        InFlightRequests inFlightRequests = this.inFlightRequests;
+        // asynchronous calls finish after the advice returns, there is nothing to wait for here
+        if (inFlightRequests == null || plan.getReturnKind() != ReturnKind.VALUE) {
+            return proceedIdempotently(pjp, plan, args, requestObject, idempotencyKey);
+        }
+
+        InFlightRequest inFlightRequest = inFlightRequests.start(idempotencyKey, requestObject);
+        if (inFlightRequest == null) {
+            return proceedIdempotently(pjp, plan, args, requestObject, idempotencyKey);
+        }
+        if (!inFlightRequest.isStartedByCurrentThread()) {
+            if (!requestObject.matches(inFlightRequest.getRequest())) {
+                logger.warn("{}payload conflict detected for in flight key {} - incoming: {}, in flight: {}",
+                           classAndMethodName, idempotencyKey, requestObject, inFlightRequest.getRequest());
+                metrics.increment(Event.PAYLOAD_CONFLICT, plan.getCachePrefix());
                 throw new PayloadConflictException("Request payload conflicts with stored payload for idempotency key: " + idempotencyKey.getKeyValue());
             }
+            if (inFlightRequest.await(inFlightRequests.getMaxWaitNanos())) {
+                // the payload of this call gets the key as if it had run the method itself
+                setJdempotentId(args, idempotencyKey.getKeyValue());
+                Object result = inFlightRequest.getResult();
+                logger.debug("{}ended up reusing the in flight result for {}", classAndMethodName, requestObject);
+                metrics.increment(Event.HIT, plan.getCachePrefix());
+                return result;
+            }
+            logger.debug("{}gave up waiting for in flight key {}", classAndMethodName, idempotencyKey);
+            return proceedIdempotently(pjp, plan, args, requestObject, idempotencyKey);
+        }
+
+        try {
+            Object result = proceedIdempotently(pjp, plan, args, requestObject, idempotencyKey);
+            inFlightRequest.complete(result);
+            return result;
+        } catch (Throwable e) {
+            inFlightRequest.fail(e);
+            throw e;
+        } finally {
+            inFlightRequests.finish(idempotencyKey, inFlightRequest);
+        }
+    }
 
-            // Get response from the same wrapper (no additional call needed)
-            IdempotentResponseWrapper responseWrapper = existingWrapper.getResponse();
-            Object response = responseWrapper != null ? responseWrapper.getResponse() : null;
-            logger.debug(classAndMethodName + "ended up reading from cache for {}", requestObject);
-            return response;
+    /**
+     * Reads the key from the repository, or stores it and proceeds with the intercepted method
+     *
+     * @param pjp
+     * @param plan
+     * @param args
+     * @param requestObject
+     * @param idempotencyKey
+     * @return
+     * @throws Throwable
+     */
+    private Object proceedIdempotently(ProceedingJoinPoint pjp, IdempotentMethodPlan plan, Object[] args,
+                                       IdempotentRequestWrapper requestObject, IdempotencyKey idempotencyKey) throws Throwable {
+        String classAndMethodName = plan.getLogPrefix();
+        String cachePrefix = plan.getCachePrefix();
+        IdempotentMetrics metrics = this.metrics;
+        Long customTtl = plan.getTtl();
+        TimeUnit timeUnit = plan.getTtlTimeUnit();
+
+        logger.debug("{}starting for {}", classAndMethodName, requestObject);
+
+        // Stores the request, or reads the call already stored, in a single round-trip
+        long start = metrics.startTime();
+        IdempotentRequestResponseWrapper existingWrapper;
+        try {
+            existingWrapper = idempotentRepository.storeIfAbsent(idempotencyKey, requestObject, customTtl, timeUnit);
+        } catch (RequestAlreadyExistsException e) {
+            logger.debug("Request already exists with {}", idempotencyKey);
+            metrics.increment(Event.REQUEST_ALREADY_EXISTS, cachePrefix);
+            throw e;
+        } finally {
+            metrics.recordTime(Operation.STORE_IF_ABSENT, cachePrefix, start);
         }
 
-        setJdempotentId(pjp.getArgs(), idempotencyKey.getKeyValue());
+        if (existingWrapper == IdempotentRepository.ALREADY_EXISTS) {
+            // the only place a duplicate becomes an exception, repositories report it as a value
+            logger.debug("Request already exists with {}", idempotencyKey);
+            metrics.increment(Event.REQUEST_ALREADY_EXISTS, cachePrefix);
+            throw new RequestAlreadyExistsException();
+        }
+        if (existingWrapper != null) {
+            return asReturnType(plan, readStoredResponse(plan, requestObject, idempotencyKey, existingWrapper, metrics));
+        }
+        metrics.increment(Event.MISS, cachePrefix);
+        logger.debug("{}saved to cache with {}", classAndMethodName, idempotencyKey);
 
         Object result;
 
         try {
-            idempotentRepository.store(idempotencyKey, requestObject, customTtl, timeUnit);
+            setJdempotentId(args, idempotencyKey.getKeyValue());
 
-            logger.debug(classAndMethodName + "saved to cache with {}", idempotencyKey);
+            long proceedStart = metrics.startTime();
+            try {
+                result = pjp.proceed();
+            } catch (Throwable e) {
+                metrics.recordTime(Operation.PROCEED, cachePrefix, proceedStart);
+                throw e;
+            }
 
-            result = pjp.proceed();
+            if (plan.getReturnKind() != ReturnKind.VALUE && result != null) {
+                return whenCompleted(plan, result, new ResponseCompletion(plan, requestObject, idempotencyKey, metrics, proceedStart));
+            }
+            metrics.recordTime(Operation.PROCEED, cachePrefix, proceedStart);
 
-            if (errorCallback != null && errorCallback.onErrorCondition(result)) {
-                idempotentRepository.remove(idempotencyKey);
-                throw errorCallback.onErrorCustomException();
+            saveResponse(plan, requestObject, idempotencyKey, result, metrics);
+        } catch (Exception e) {
+            removeFromRepository(idempotencyKey, cachePrefix, metrics);
+            logger.debug("{}deleted from cache with {} . Exception : {}", classAndMethodName, idempotencyKey, e);
+            throw e;
+        }
+
+        logger.debug("{}ended for {}", classAndMethodName, requestObject);
+
+        return result;
+    }
+
+    /**
+     * Stores every element of the payload list as a request of its own with a single repository call,
+     * and proceeds with the elements that were not stored before. Elements are saved without a response
+     * once the method returns, and all of them are removed again when it fails. Elements another call
+     * still holds, or stored with another payload, are reported with a {@link SkippedBatchElementsException}
+     * once the others are saved.
+     *
+     * @param pjp
+     * @param plan
+     * @param args
+     * @return the result of the method, null when every element was stored before
+     * @throws Throwable
+     */
+    private Object proceedBatchIdempotently(ProceedingJoinPoint pjp, IdempotentMethodPlan plan, Object[] args) throws Throwable {
+        String classAndMethodName = plan.getLogPrefix();
+        String cachePrefix = plan.getCachePrefix();
+        IdempotentMetrics metrics = this.metrics;
+        List<?> elements = (List<?>) args[plan.getPayloadIndex()];
+        if (elements == null || elements.isEmpty()) {
+            return pjp.proceed();
+        }
+
+        List<IdempotencyKey> elementKeys = new ArrayList<>(elements.size());
+        Map<IdempotencyKey, IdempotentRequestWrapper> requests = new LinkedHashMap<>();
+        for (int i = 0; i < elements.size(); i++) {
+            Object element = elements.get(i);
+            if (element == null) {
+                throw new IllegalArgumentException(classAndMethodName + "batch payload has a null element at index " + i);
             }
+            Object id = PayloadFields.hasId(element) ? PayloadFields.readId(element) : null;
+            KeyedRequest keyedRequest = newKeyedRequest(plan, getIdempotentNonIgnorableWrapper(element),
+                    id != null ? String.valueOf(id) : null);
+            elementKeys.add(keyedRequest.key);
+            requests.putIfAbsent(keyedRequest.key, keyedRequest.request);
+        }
+
+        long start = metrics.startTime();
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing;
+        try {
+            existing = idempotentRepository.storeAllIfAbsent(requests, plan.getTtl(), plan.getTtlTimeUnit());
+        } finally {
+            metrics.recordTime(Operation.STORE_IF_ABSENT, cachePrefix, start);
+        }
 
-            idempotentRepository.setResponse(idempotencyKey, requestObject, new IdempotentResponseWrapper(result), customTtl, timeUnit);    
+        // an element repeated within the batch is only processed once
+        Map<IdempotencyKey, IdempotentRequestWrapper> stored = new LinkedHashMap<>();
+        List<Object> freshElements = new ArrayList<>(elements.size());
+        // an element repeated within the batch is only reported once
+        Set<IdempotencyKey> inFlightKeys = new LinkedHashSet<>();
+        Set<IdempotencyKey> conflictingKeys = new LinkedHashSet<>();
+        for (int i = 0; i < elements.size(); i++) {
+            IdempotencyKey key = elementKeys.get(i);
+            IdempotentRequestResponseWrapper existingWrapper = existing.get(key);
+            if (existingWrapper != null || stored.containsKey(key)) {
+                IdempotentRequestWrapper storedRequest = existingWrapper != null ? existingWrapper.getRequest() : null;
+                if (existingWrapper == IdempotentRepository.ALREADY_EXISTS) {
+                    metrics.increment(Event.REQUEST_ALREADY_EXISTS, cachePrefix);
+                    inFlightKeys.add(key);
+                } else if (!requests.get(key).matches(storedRequest)) {
+                    logger.warn("{}payload conflict detected for key {}, leaving the element out", classAndMethodName, key);
+                    metrics.increment(Event.PAYLOAD_CONFLICT, cachePrefix);
+                    conflictingKeys.add(key);
+                } else {
+                    metrics.increment(Event.HIT, cachePrefix);
+                }
+                continue;
+            }
+            Object element = elements.get(i);
+            PayloadFields.writeIdTargets(element, key.getKeyValue());
+            stored.put(key, requests.get(key));
+            freshElements.add(element);
+            metrics.increment(Event.MISS, cachePrefix);
+        }
+        logger.debug("{}proceeding with {} of {} elements", classAndMethodName, freshElements.size(), elements.size());
+        if (freshElements.isEmpty()) {
+            return skipped(null, inFlightKeys, conflictingKeys);
+        }
 
-            logger.debug(classAndMethodName + "saved response to cache with {}", idempotencyKey);
-        } catch (RequestAlreadyExistsException e) {
-            logger.debug("Request already exists with {}", idempotencyKey);
+        Object[] freshArgs = args.clone();
+        freshArgs[plan.getPayloadIndex()] = freshElements;
+        Object result;
+        long proceedStart = metrics.startTime();
+        try {
+            result = pjp.proceed(freshArgs);
+        } catch (Throwable e) {
+            metrics.recordTime(Operation.PROCEED, cachePrefix, proceedStart);
+            removeAllFromRepository(stored.keySet(), cachePrefix, metrics);
+            logger.debug("{}deleted {} elements from cache. Exception : {}", classAndMethodName, stored.size(), e);
             throw e;
-        }catch (Exception e) {
-            idempotentRepository.remove(idempotencyKey);
-            logger.debug(classAndMethodName + "deleted from cache with {} . Exception : {}", idempotencyKey, e);
+        }
+        metrics.recordTime(Operation.PROCEED, cachePrefix, proceedStart);
+
+        RuntimeException rejection = rejectResponse(result);
+        if (rejection != null) {
+            removeAllFromRepository(stored.keySet(), cachePrefix, metrics);
+            metrics.increment(Event.ERROR_CALLBACK_REMOVAL, cachePrefix);
+            throw rejection;
+        }
+
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> calls = new LinkedHashMap<>();
+        stored.forEach((key, request) -> calls.put(key, new IdempotentRequestResponseWrapper(request, new IdempotentResponseWrapper(null))));
+        start = metrics.startTime();
+        try {
+            idempotentRepository.setResponses(calls, plan.getTtl(), plan.getTtlTimeUnit());
+        } catch (RuntimeException e) {
+            removeAllFromRepository(stored.keySet(), cachePrefix, metrics);
             throw e;
+        } finally {
+            metrics.recordTime(Operation.SET_RESPONSE, cachePrefix, start);
         }
+        logger.debug("{}ended for {} elements", classAndMethodName, stored.size());
+        return skipped(result, inFlightKeys, conflictingKeys);
+    }
 
-        logger.debug(classAndMethodName + "ended for {}", requestObject);
+    /**
+     * @param result
+     * @param inFlightKeys
+     * @param conflictingKeys
+     * @return the result when no element was skipped
+     * @throws SkippedBatchElementsException carrying the result otherwise
+     */
+    private static Object skipped(Object result, Set<IdempotencyKey> inFlightKeys, Set<IdempotencyKey> conflictingKeys) {
+        if (inFlightKeys.isEmpty() && conflictingKeys.isEmpty()) {
+            return result;
+        }
+        throw new SkippedBatchElementsException(result, inFlightKeys, conflictingKeys);
+    }
 
-        return result;
+    /**
+     * Returns the response of a stored call after checking its payload matches the incoming one
+     *
+     * @param plan
+     * @param requestObject
+     * @param idempotencyKey
+     * @param existingWrapper
+     * @param metrics
+     * @return
+     */
+    Object readStoredResponse(IdempotentMethodPlan plan, IdempotentRequestWrapper requestObject, IdempotencyKey idempotencyKey,
+                              IdempotentRequestResponseWrapper existingWrapper, IdempotentMetrics metrics) {
+        // Check if the incoming request payload matches the stored payload
+        IdempotentRequestWrapper storedRequest = existingWrapper.getRequest();
+
+        if (!requestObject.matches(storedRequest)) {
+            logger.warn("{}payload conflict detected for key {} - incoming: {}, stored: {}",
+                       plan.getLogPrefix(), idempotencyKey, requestObject, storedRequest);
+            metrics.increment(Event.PAYLOAD_CONFLICT, plan.getCachePrefix());
+            throw new PayloadConflictException("Request payload conflicts with stored payload for idempotency key: " + idempotencyKey.getKeyValue());
+        }
+
+        // Get response from the same wrapper (no additional call needed)
+        IdempotentResponseWrapper responseWrapper = existingWrapper.getResponse();
+        Object response = responseWrapper != null ? responseWrapper.getResponse() : null;
+        logger.debug("{}ended up reading from cache for {}", plan.getLogPrefix(), requestObject);
+        metrics.increment(Event.HIT, plan.getCachePrefix());
+        return response;
+    }
+
+    /**
+     * @param result
+     * @return the exception of the error callback when it rejects the result, otherwise null
+     */
+    RuntimeException rejectResponse(Object result) {
+        if (errorCallback != null && errorCallback.onErrorCondition(result)) {
+            return errorCallback.onErrorCustomException();
+        }
+        return null;
     }
 
     /**
-     * Generates log prefix for the incoming event
+     * Saves the response of a call, the caller removes its key when the error callback rejects it
      *
-     * @param pjp
+     * @param plan
+     * @param requestObject
+     * @param idempotencyKey
+     * @param result
+     * @param metrics
+     */
+    private void saveResponse(IdempotentMethodPlan plan, IdempotentRequestWrapper requestObject,
+                              IdempotencyKey idempotencyKey, Object result, IdempotentMetrics metrics) {
+        String cachePrefix = plan.getCachePrefix();
+        RuntimeException rejection = rejectResponse(result);
+        if (rejection != null) {
+            metrics.increment(Event.ERROR_CALLBACK_REMOVAL, cachePrefix);
+            throw rejection;
+        }
+
+        long start = metrics.startTime();
+        try {
+            idempotentRepository.setResponse(idempotencyKey, requestObject, new IdempotentResponseWrapper(result), plan.getTtl(), plan.getTtlTimeUnit());
+        } finally {
+            metrics.recordTime(Operation.SET_RESPONSE, cachePrefix, start);
+        }
+
+        logger.debug("{}saved response to cache with {}", plan.getLogPrefix(), idempotencyKey);
+    }
+
+    /**
+     * Returns a result of the method's type that completes once the completion has run,
+     * so callers only see the value after it is saved. The completion of a CompletionStage runs on
+     * the completion executor instead of the thread that completed the stage.
+     *
+     * @param plan
+     * @param result     the future or mono returned by the intercepted method
+     * @param completion
      * @return
      */
-    private String generateLogPrefixForIncomingEvent(ProceedingJoinPoint pjp) {
-        StringBuilder builder = stringBuilders.get();
-        String className = pjp.getTarget().getClass().getSimpleName();
-        String methodName = pjp.getSignature().getName();
-        builder.append(className);
-        builder.append(".");
-        builder.append(methodName);
-        builder.append("() ");
-        return builder.toString();
+    private Object whenCompleted(IdempotentMethodPlan plan, Object result, CallCompletion completion) {
+        if (plan.getReturnKind() == ReturnKind.MONO) {
+            return ReactorResults.whenTerminated(result, completion);
+        }
+        if (plan.getReturnKind() == ReturnKind.FLUX) {
+            return ReactorResults.whenTerminatedMany(result, completion);
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        ((CompletionStage<?>) result).whenCompleteAsync((value, error) -> {
+            if (error != null) {
+                completion.failed(error);
+                future.completeExceptionally(error);
+                return;
+            }
+            try {
+                completion.succeeded(value);
+                future.complete(value);
+            } catch (Throwable e) {
+                completion.failed(e);
+                future.completeExceptionally(e);
+            }
+        }, completionExecutor);
+        return future;
+    }
+
+    /**
+     * Wraps a cached response in the type the intercepted method returns
+     *
+     * @param plan
+     * @param response
+     * @return
+     */
+    private static Object asReturnType(IdempotentMethodPlan plan, Object response) {
+        switch (plan.getReturnKind()) {
+            case COMPLETION_STAGE:
+                return CompletableFuture.completedFuture(response);
+            case MONO:
+                return ReactorResults.just(response);
+            case FLUX:
+                return ReactorResults.fromIterable(response);
+            default:
+                return response;
+        }
     }
 
+    private void removeFromRepository(IdempotencyKey idempotencyKey, String cachePrefix, IdempotentMetrics metrics) {
+        long start = metrics.startTime();
+        try {
+            idempotentRepository.remove(idempotencyKey);
+        } finally {
+            metrics.recordTime(Operation.REMOVE, cachePrefix, start);
+        }
+    }
+
+    private void removeAllFromRepository(Collection<IdempotencyKey> idempotencyKeys, String cachePrefix, IdempotentMetrics metrics) {
+        long start = metrics.startTime();
+        try {
+            idempotentRepository.removeAll(idempotencyKeys);
+        } finally {
+            metrics.recordTime(Operation.REMOVE, cachePrefix, start);
+        }
+    }
+
+    /**
+     * Generates the key of a request with the hash algorithm of the method
+     *
+     * @param plan
+     * @param requestObject
+     * @return
+     */
+    private IdempotencyKey generateKey(IdempotentMethodPlan plan, IdempotentRequestWrapper requestObject) {
+        IdempotentMetrics metrics = this.metrics;
+        long keyGenerationStart = metrics.startTime();
+        IdempotencyKey idempotencyKey = keyGenerator.generateIdempotentKey(requestObject, plan.getCachePrefix(), stringBuilders.get(), getMessageDigest(plan));
+        metrics.recordTime(Operation.KEY_GENERATION, plan.getCachePrefix(), keyGenerationStart);
+        return idempotencyKey;
+    }
+
+    /**
+     * Wraps the payload and takes the given id as its key, or generates the key when there is none.
+     *
+     * <p>With the default key generator and a fingerprinted request, the canonical form of the payload
+     * is walked once and hashed into both the key and the fingerprint.</p>
+     *
+     * @param plan
+     * @param snapshot the non-ignored fields of the payload
+     * @param id       the value of the {@code @JdempotentId} of the call, null or empty to generate the key
+     * @return
+     */
+    private KeyedRequest newKeyedRequest(IdempotentMethodPlan plan, IdempotentIgnorableWrapper snapshot, String id) {
+        if (id != null && !id.isEmpty()) {
+            return new KeyedRequest(newRequestWrapper(snapshot), new IdempotencyKey(id));
+        }
+        // a subclass may hash the payload its own way, not the canonical form the fingerprint is taken of
+        if (!fingerprintsRequests() || keyGenerator.getClass() != DefaultKeyGenerator.class) {
+            IdempotentRequestWrapper requestObject = newRequestWrapper(snapshot);
+            return new KeyedRequest(requestObject, generateKey(plan, requestObject));
+        }
+
+        IdempotentMetrics metrics = this.metrics;
+        long keyGenerationStart = metrics.startTime();
+        FingerprintingMessageDigest messageDigest = fingerprintingDigests.get().wrap(getMessageDigest(plan));
+        IdempotencyKey idempotencyKey = keyGenerator.generateIdempotentKey(new IdempotentRequestWrapper(snapshot),
+                plan.getCachePrefix(), stringBuilders.get(), messageDigest);
+        // null when the generator didn't write the payload into the digest
+        byte[] fingerprint = messageDigest.fingerprint();
+        IdempotentRequestWrapper requestObject = new IdempotentRequestWrapper(snapshot,
+                fingerprint != null ? fingerprint : PayloadFingerprint.of(snapshot));
+        metrics.recordTime(Operation.KEY_GENERATION, plan.getCachePrefix(), keyGenerationStart);
+        return new KeyedRequest(requestObject, idempotencyKey);
+    }
+
+    /**
+     * A request wrapper and the key it is stored under
+     */
+    private static final class KeyedRequest {
+        private final IdempotentRequestWrapper request;
+        private final IdempotencyKey key;
+
+        private KeyedRequest(IdempotentRequestWrapper request, IdempotencyKey key) {
+            this.request = request;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Saves or releases the key of an asynchronous call once it has finished, only the first of
+     * succeeded and failed takes effect
+     */
+    private final class ResponseCompletion implements CallCompletion {
+        private final IdempotentMethodPlan plan;
+        private final IdempotentRequestWrapper requestObject;
+        private final IdempotencyKey idempotencyKey;
+        private final IdempotentMetrics metrics;
+        private final long proceedStart;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private ResponseCompletion(IdempotentMethodPlan plan, IdempotentRequestWrapper requestObject,
+                                   IdempotencyKey idempotencyKey, IdempotentMetrics metrics, long proceedStart) {
+            this.plan = plan;
+            this.requestObject = requestObject;
+            this.idempotencyKey = idempotencyKey;
+            this.metrics = metrics;
+            this.proceedStart = proceedStart;
+        }
+
+        @Override
+        public void succeeded(Object value) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            metrics.recordTime(Operation.PROCEED, plan.getCachePrefix(), proceedStart);
+            try {
+                saveResponse(plan, requestObject, idempotencyKey, value, metrics);
+            } catch (RuntimeException e) {
+                release(e);
+                throw e;
+            }
+            logger.debug("{}ended for {}", plan.getLogPrefix(), requestObject);
+        }
+
+        @Override
+        public void failed(Throwable error) {
+            if (!finished.compareAndSet(false, true)) {
+                // already saved, or released by a rejected or failed save
+                return;
+            }
+            metrics.recordTime(Operation.PROCEED, plan.getCachePrefix(), proceedStart);
+            release(error);
+        }
+
+        private void release(Throwable error) {
+            try {
+                removeFromRepository(idempotencyKey, plan.getCachePrefix(), metrics);
+            } catch (RuntimeException e) {
+                logger.warn("{}could not delete {} from cache", plan.getLogPrefix(), idempotencyKey, e);
+                return;
+            }
+            logger.debug("{}deleted from cache with {} . Exception : {}", plan.getLogPrefix(), idempotencyKey, error);
+        }
+    }
+
+    /**
+     * Returns the cached plan of the intercepted method, building it on the first call
+     *
+     * @param signature
+     * @param target
+     * @return
+     */
+    private IdempotentMethodPlan getMethodPlan(MethodSignature signature, Object target) {
+        Method method = signature.getMethod();
+        Class<?> targetClass = target.getClass();
+        ConcurrentMap<Method, IdempotentMethodPlan> plans = methodPlans.get(targetClass);
+        IdempotentMethodPlan plan = plans.get(method);
+        return plan != null ? plan : plans.computeIfAbsent(method, m -> IdempotentMethodPlan.of(m, targetClass));
+    }
+
+    /**
+     * Returns this thread's digest for the algorithm of the method, falling back to the aspect default
+     *
+     * @param plan
+     * @return
+     */
+    private MessageDigest getMessageDigest(IdempotentMethodPlan plan) {
+        CryptographyAlgorithm algorithm = plan.getCryptographyAlgorithm() != null ? plan.getCryptographyAlgorithm() : cryptographyAlgorithm;
+        MessageDigest[] digests = messageDigests.get();
+        MessageDigest messageDigest = digests[algorithm.ordinal()];
+        if (messageDigest == null) {
+            try {
+                messageDigest = algorithm.newMessageDigest();
+            } catch (NoSuchAlgorithmException e) {
+                logger.warn("This algorithm not supported.", e);
+                throw new IllegalStateException("Cryptography algorithm " + algorithm.value() + " is not supported", e);
+            }
+            digests[algorithm.ordinal()] = messageDigest;
+        } else {
+            messageDigest.reset();
+        }
+        return messageDigest;
+    }
 
     /**
      * Finds the idempotent object
@@ -236,27 +721,39 @@ public class IdempotentAspect {
         Object[] args = pjp.getArgs();
         if (args.length == 0) {
             throw new IllegalStateException("Idempotent method not found");
-        } else if (args.length == 1) {
-            return new IdempotentRequestWrapper(getIdempotentNonIgnorableWrapper(args[0]));
-        } else {
-            try {
-                MethodSignature signature = (MethodSignature) pjp.getSignature();
-                String methodName = signature.getMethod().getName();
-                Class<?>[] parameterTypes = signature.getMethod().getParameterTypes();
-                var method = pjp.getTarget().getClass().getMethod(methodName, parameterTypes);
-                Annotation[][] annotations = method.getParameterAnnotations();
-                for (int i = 0; i < args.length; i++) {
-                    for (Annotation annotation : annotations[i]) {
-                        if (annotation instanceof JdempotentRequestPayload) {
-                            return new IdempotentRequestWrapper(getIdempotentNonIgnorableWrapper(args[i]));
-                        }
-                    }
-                }
-            } catch (NoSuchMethodException | SecurityException e) {
-                throw new IllegalStateException("Idempotent method not found", e);
-            }
         }
-        throw new IllegalStateException("Idempotent method not found");
+        return findIdempotentRequestArg(getMethodPlan((MethodSignature) pjp.getSignature(), pjp.getTarget()), args);
+    }
+
+    private IdempotentRequestWrapper findIdempotentRequestArg(IdempotentMethodPlan plan, Object[] args) throws IllegalAccessException {
+        return newRequestWrapper(snapshotRequestArg(plan, args));
+    }
+
+    private IdempotentIgnorableWrapper snapshotRequestArg(IdempotentMethodPlan plan, Object[] args) throws IllegalAccessException {
+        int payloadIndex = plan.getPayloadIndex();
+        if (payloadIndex == IdempotentMethodPlan.NOT_FOUND) {
+            throw new IllegalStateException("Idempotent method not found");
+        }
+        return getIdempotentNonIgnorableWrapper(args[payloadIndex]);
+    }
+
+    /**
+     * @param snapshot the non-ignored fields of the payload
+     * @return a request wrapper carrying the fingerprint of the payload, unless the repositories persist requests
+     */
+    private IdempotentRequestWrapper newRequestWrapper(IdempotentIgnorableWrapper snapshot) {
+        return fingerprintsRequests()
+                ? new IdempotentRequestWrapper(snapshot, PayloadFingerprint.of(snapshot))
+                : new IdempotentRequestWrapper(snapshot);
+    }
+
+    /**
+     * @return false when every repository stores whole requests and compares payloads, so a fingerprint is never read
+     */
+    private boolean fingerprintsRequests() {
+        ReactiveIdempotentRepository reactiveIdempotentRepository = this.reactiveIdempotentRepository;
+        return !idempotentRepository.persistsRequests()
+                || reactiveIdempotentRepository != null && !reactiveIdempotentRepository.persistsRequests();
     }
 
     /**
@@ -267,13 +764,7 @@ public class IdempotentAspect {
      * @throws IllegalAccessException
      */
     public void setJdempotentId(Object[] args, String idempotencyKey) throws IllegalAccessException {
-        Field[] declaredFields = args[0].getClass().getDeclaredFields();
-        for (Field declaredField : declaredFields) {
-            if (declaredField.isAnnotationPresent(JdempotentIdTarget.class)) {
-                declaredField.setAccessible(true);
-                declaredField.set(args[0], idempotencyKey);
-            }
-        }
+        PayloadFields.writeIdTargets(args[0], idempotencyKey);
     }
 
     /**
@@ -283,37 +774,23 @@ public class IdempotentAspect {
      *    use that field's value
      * 3) Else, return null (caller should fallback to key generator)
      */
-    private String findIdempotentKeyFromAnnotations(ProceedingJoinPoint pjp) throws IllegalAccessException {
-        MethodSignature signature = (MethodSignature) pjp.getSignature();
-        Annotation[][] paramAnnotations = signature.getMethod().getParameterAnnotations();
-        Object[] args = pjp.getArgs();
-
+    private String findIdempotentKeyFromAnnotations(IdempotentMethodPlan plan, Object[] args) {
         // Rule 1: direct parameter annotated with @JdempotentId
-        for (int i = 0; i < args.length; i++) {
-            if (Arrays.stream(paramAnnotations[i]).anyMatch(a -> a instanceof JdempotentId)) {
-                Object arg = args[i];
-                return arg != null ? String.valueOf(arg) : null;
-            }
+        int idParameterIndex = plan.getIdParameterIndex();
+        if (idParameterIndex != IdempotentMethodPlan.NOT_FOUND) {
+            Object arg = args[idParameterIndex];
+            return arg != null ? String.valueOf(arg) : null;
         }
 
         // Rule 2: payload parameter with a field annotated with @JdempotentId
-        for (int i = 0; i < args.length; i++) {
-            boolean isPayload = Arrays.stream(paramAnnotations[i]).anyMatch(a -> a instanceof JdempotentRequestPayload);
-            if (!isPayload) continue;
-
-            Object payload = args[i];
+        for (int payloadIndex : plan.getAnnotatedPayloadIndexes()) {
+            Object payload = args[payloadIndex];
             if (payload == null) continue;
 
-            Field[] fields = payload.getClass().getDeclaredFields();
-            
-            for (Field field : fields) {
-                if (field.isAnnotationPresent(JdempotentId.class)) {
-                    field.setAccessible(true);
-                    Object value = field.get(payload);
-                    return value != null ? String.valueOf(value) : null;
-                }
+            if (PayloadFields.hasId(payload)) {
+                Object value = PayloadFields.readId(payload);
+                return value != null ? String.valueOf(value) : null;
             }
-
         }
 
         // Rule 3: fallback handled by caller
@@ -321,21 +798,12 @@ public class IdempotentAspect {
     }
 
     public IdempotentIgnorableWrapper getIdempotentNonIgnorableWrapper(Object args) throws IllegalAccessException {
-        var wrapper = new IdempotentIgnorableWrapper();
-        Field[] declaredFields = args.getClass().getDeclaredFields();
         if(args instanceof String){
+            var wrapper = new IdempotentIgnorableWrapper(1);
             wrapper.getNonIgnoredFields().put(args.toString(), args);
             return wrapper;
         }
-
-        for (Field declaredField : declaredFields) {
-            declaredField.setAccessible(true);
-            KeyValuePair keyValuePair = annotationChain.process(new ChainData(declaredField,args));
-            if (!StringUtils.isEmpty(keyValuePair.getKey())){
-                wrapper.getNonIgnoredFields().put(keyValuePair.getKey(), keyValuePair.getValue());
-            }
-        }
-        return wrapper;
+        return PayloadFields.snapshot(args);
     }
 
     /**
@@ -354,15 +822,90 @@ public class IdempotentAspect {
         return idempotentRepository;
     }
 
-    private AnnotationChain fillChains(){
-        JdempotentNoAnnotationChain jdempotentNoAnnotationChain = new JdempotentNoAnnotationChain();
-        JdempotentIgnoreAnnotationChain jdempotentIgnoreAnnotationChain = new JdempotentIgnoreAnnotationChain();
-        JdempotentDefaultChain jdempotentDefaultChain = new JdempotentDefaultChain();
-        JdempotentPropertyAnnotationChain jdempotentPropertyAnnotationChain = new JdempotentPropertyAnnotationChain();
+    /**
+     * Sets the non-blocking repository used for methods returning a Mono or a Flux, without one they go
+     * through the blocking repository. Methods returning a CompletionStage always use the blocking one.
+     *
+     * @param reactiveIdempotentRepository
+     */
+    public void setReactiveIdempotentRepository(ReactiveIdempotentRepository reactiveIdempotentRepository) {
+        this.reactiveIdempotentRepository = reactiveIdempotentRepository;
+    }
+
+    /**
+     * @return
+     */
+    public ReactiveIdempotentRepository getReactiveIdempotentRepository() {
+        return reactiveIdempotentRepository;
+    }
+
+    /**
+     * Sets the hash algorithm used for methods that don't choose one on {@code @JdempotentResource}
+     *
+     * @param cryptographyAlgorithm
+     */
+    public void setCryptographyAlgorithm(CryptographyAlgorithm cryptographyAlgorithm) {
+        this.cryptographyAlgorithm = cryptographyAlgorithm;
+    }
 
-        jdempotentNoAnnotationChain.next(jdempotentIgnoreAnnotationChain);
-        jdempotentIgnoreAnnotationChain.next(jdempotentPropertyAnnotationChain);
-        jdempotentPropertyAnnotationChain.next(jdempotentDefaultChain);
-        return jdempotentIgnoreAnnotationChain;
+    /**
+     * @return
+     */
+    public CryptographyAlgorithm getCryptographyAlgorithm() {
+        return cryptographyAlgorithm;
+    }
+
+    /**
+     * Sets where the aspect reports timings and outcomes, {@link IdempotentMetrics#NOOP} turns reporting off
+     *
+     * @param metrics
+     */
+    public void setMetrics(IdempotentMetrics metrics) {
+        this.metrics = metrics != null ? metrics : IdempotentMetrics.NOOP;
+    }
+
+    /**
+     * @return
+     */
+    public IdempotentMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets where the response of a method returning a CompletionStage is saved once the stage completes,
+     * the common pool by default. Repository calls block, a blocking repository shared by many
+     * such methods should get an executor of its own.
+     *
+     * @param completionExecutor
+     */
+    public void setCompletionExecutor(Executor completionExecutor) {
+        this.completionExecutor = completionExecutor != null ? completionExecutor : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Makes concurrent calls with the same idempotency key on this node wait for the first one
+     * and return its result instead of hitting the repository. When the first call fails, each waiting
+     * call throws an {@link InFlightRequestFailedException} caused by its exception.
+     * A call that waited longer than maxWait carries on without coalescing.
+     *
+     * @param maxWait
+     * @param timeUnit
+     */
+    public void enableRequestCoalescing(long maxWait, TimeUnit timeUnit) {
+        this.inFlightRequests = new InFlightRequests(maxWait, timeUnit);
+    }
+
+    /**
+     * Lets every concurrent call go to the repository, which is the default
+     */
+    public void disableRequestCoalescing() {
+        this.inFlightRequests = null;
+    }
+
+    /**
+     * @return
+     */
+    public boolean isRequestCoalescingEnabled() {
+        return inFlightRequests != null;
     }
 }
@@ -0,0 +1,193 @@
+package com.trendyol.jdempotent.core.aspect;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import com.trendyol.jdempotent.core.annotation.JdempotentId;
+import com.trendyol.jdempotent.core.annotation.JdempotentRequestPayload;
+import com.trendyol.jdempotent.core.annotation.JdempotentResource;
+import com.trendyol.jdempotent.core.constant.CryptographyAlgorithm;
+
+/**
+ * Everything the aspect needs to know about an {@code @JdempotentResource} method,
+ * resolved once with reflection and then only read on every invocation.
+ */
+final class IdempotentMethodPlan {
+
+    static final int NOT_FOUND = -1;
+    private static final String MONO = "reactor.core.publisher.Mono";
+    private static final String FLUX = "reactor.core.publisher.Flux";
+
+    /**
+     * How the intercepted method hands back its result
+     */
+    enum ReturnKind {
+        VALUE,
+        COMPLETION_STAGE,
+        MONO,
+        FLUX
+    }
+
+    private final String logPrefix;
+    private final String cachePrefix;
+    private final long ttl;
+    private final TimeUnit ttlTimeUnit;
+    private final CryptographyAlgorithm cryptographyAlgorithm;
+    private final int payloadIndex;
+    private final int idParameterIndex;
+    private final int[] annotatedPayloadIndexes;
+    private final ReturnKind returnKind;
+    private final boolean batch;
+
+    private IdempotentMethodPlan(String logPrefix, JdempotentResource resource,
+                                 int payloadIndex, int idParameterIndex, int[] annotatedPayloadIndexes, ReturnKind returnKind) {
+        this.logPrefix = logPrefix;
+        this.cachePrefix = resource != null ? resource.cachePrefix() : "";
+        this.ttl = resource != null ? resource.ttl() : 0L;
+        this.ttlTimeUnit = resource != null ? resource.ttlTimeUnit() : TimeUnit.HOURS;
+        this.cryptographyAlgorithm = resource != null && resource.cryptographyAlgorithm().length > 0
+                ? resource.cryptographyAlgorithm()[0] : null;
+        this.payloadIndex = payloadIndex;
+        this.idParameterIndex = idParameterIndex;
+        this.annotatedPayloadIndexes = annotatedPayloadIndexes;
+        this.returnKind = returnKind;
+        this.batch = resource != null && resource.batch();
+    }
+
+    /**
+     * Builds the plan of the intercepted method
+     *
+     * @param method      the method exposed by the join point signature
+     * @param targetClass the class of the proxied target
+     * @return
+     */
+    static IdempotentMethodPlan of(Method method, Class<?> targetClass) {
+        Method targetMethod = method;
+        if (method.getDeclaringClass() != targetClass) {
+            try {
+                targetMethod = targetClass.getMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException | SecurityException e) {
+                if (method.getParameterCount() > 1) {
+                    throw new IllegalStateException("Idempotent method not found", e);
+                }
+            }
+        }
+
+        JdempotentResource resource = method.getAnnotation(JdempotentResource.class);
+        if (resource == null) {
+            resource = targetMethod.getAnnotation(JdempotentResource.class);
+        }
+
+        // Payload annotations are read from the target class and @JdempotentId from the signature method
+        Annotation[][] targetAnnotations = targetMethod.getParameterAnnotations();
+        Annotation[][] signatureAnnotations = targetMethod == method ? targetAnnotations : method.getParameterAnnotations();
+
+        int payloadIndex = method.getParameterCount() == 1 ? 0 : indexOf(targetAnnotations, JdempotentRequestPayload.class);
+        int idParameterIndex = indexOf(signatureAnnotations, JdempotentId.class);
+
+        List<Integer> annotatedPayloads = new ArrayList<>();
+        for (int i = 0; i < signatureAnnotations.length; i++) {
+            if (isAnnotated(signatureAnnotations[i], JdempotentRequestPayload.class)) {
+                annotatedPayloads.add(i);
+            }
+        }
+
+        ReturnKind returnKind = returnKindOf(method.getReturnType());
+        if (resource != null && resource.batch()) {
+            if (payloadIndex == NOT_FOUND || !List.class.isAssignableFrom(method.getParameterTypes()[payloadIndex])) {
+                throw new IllegalStateException("Batch idempotent method " + method.getName() + " needs a List payload");
+            }
+            if (returnKind != ReturnKind.VALUE) {
+                throw new IllegalStateException("Batch idempotent method " + method.getName() + " can't be asynchronous");
+            }
+        }
+
+        String logPrefix = targetClass.getSimpleName() + "." + method.getName() + "() ";
+        return new IdempotentMethodPlan(logPrefix, resource, payloadIndex, idParameterIndex,
+                annotatedPayloads.stream().mapToInt(Integer::intValue).toArray(), returnKind);
+    }
+
+    private static ReturnKind returnKindOf(Class<?> returnType) {
+        // only types a CompletableFuture can be returned as, a subclass of it would not accept our future
+        if (CompletionStage.class.isAssignableFrom(returnType) && returnType.isAssignableFrom(CompletableFuture.class)) {
+            return ReturnKind.COMPLETION_STAGE;
+        }
+        // compared by name so Reactor stays optional
+        if (returnType.getName().equals(MONO)) {
+            return ReturnKind.MONO;
+        }
+        if (returnType.getName().equals(FLUX)) {
+            return ReturnKind.FLUX;
+        }
+        return ReturnKind.VALUE;
+    }
+
+    private static int indexOf(Annotation[][] parameterAnnotations, Class<? extends Annotation> annotationType) {
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            if (isAnnotated(parameterAnnotations[i], annotationType)) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private static boolean isAnnotated(Annotation[] annotations, Class<? extends Annotation> annotationType) {
+        for (Annotation annotation : annotations) {
+            if (annotationType.isInstance(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String getLogPrefix() {
+        return logPrefix;
+    }
+
+    String getCachePrefix() {
+        return cachePrefix;
+    }
+
+    long getTtl() {
+        return ttl;
+    }
+
+    TimeUnit getTtlTimeUnit() {
+        return ttlTimeUnit;
+    }
+
+    /**
+     * @return the algorithm chosen on the annotation, null to use the aspect default
+     */
+    CryptographyAlgorithm getCryptographyAlgorithm() {
+        return cryptographyAlgorithm;
+    }
+
+    int getPayloadIndex() {
+        return payloadIndex;
+    }
+
+    int getIdParameterIndex() {
+        return idParameterIndex;
+    }
+
+    int[] getAnnotatedPayloadIndexes() {
+        return annotatedPayloadIndexes;
+    }
+
+    ReturnKind getReturnKind() {
+        return returnKind;
+    }
+
+    /**
+     * @return whether every element of the payload list is a request of its own
+     */
+    boolean isBatch() {
+        return batch;
+    }
+}
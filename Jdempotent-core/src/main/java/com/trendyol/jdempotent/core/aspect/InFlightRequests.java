@@ -0,0 +1,115 @@
+package com.trendyol.jdempotent.core.aspect;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.trendyol.jdempotent.core.datasource.InFlightRequestFailedException;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+
+/**
+ * The idempotent calls currently executing on this node, keyed by idempotency key.
+ *
+ * <p>The first call of a key runs as usual, concurrent calls with the same key wait for it
+ * and reuse its outcome instead of going to the repository themselves.</p>
+ */
+final class InFlightRequests {
+
+    private final ConcurrentMap<IdempotencyKey, InFlightRequest> requests = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+
+    InFlightRequests(long maxWait, TimeUnit timeUnit) {
+        if (maxWait <= 0) {
+            throw new IllegalArgumentException("Max wait of coalesced requests must be positive");
+        }
+        this.maxWaitNanos = timeUnit.toNanos(maxWait);
+    }
+
+    /**
+     * Registers the call of the current thread unless the key is already in flight
+     *
+     * @param key
+     * @param request
+     * @return the registered call when the current thread has to execute it, the running call of
+     * another thread to wait on, or null when the current thread is already executing that key
+     */
+    InFlightRequest start(IdempotencyKey key, IdempotentRequestWrapper request) {
+        InFlightRequest started = new InFlightRequest(request);
+        InFlightRequest running = requests.putIfAbsent(key, started);
+        if (running == null) {
+            return started;
+        }
+        return running.isStartedByCurrentThread() ? null : running;
+    }
+
+    /**
+     * Unregisters a call started with {@link #start}, after its outcome was published
+     *
+     * @param key
+     * @param request
+     */
+    void finish(IdempotencyKey key, InFlightRequest request) {
+        requests.remove(key, request);
+    }
+
+    long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    static final class InFlightRequest {
+        private final Thread owner = Thread.currentThread();
+        private final IdempotentRequestWrapper request;
+        private final CountDownLatch done = new CountDownLatch(1);
+        // published through the latch
+        private Object result;
+        private Throwable failure;
+
+        private InFlightRequest(IdempotentRequestWrapper request) {
+            this.request = request;
+        }
+
+        boolean isStartedByCurrentThread() {
+            return owner == Thread.currentThread();
+        }
+
+        IdempotentRequestWrapper getRequest() {
+            return request;
+        }
+
+        void complete(Object result) {
+            this.result = result;
+            done.countDown();
+        }
+
+        void fail(Throwable failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        /**
+         * Waits for the outcome of the call
+         *
+         * @param nanos
+         * @return false when the call did not finish in time
+         * @throws InterruptedException
+         */
+        boolean await(long nanos) throws InterruptedException {
+            return done.await(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Each waiting call gets an exception of its own, the failure of the call is shared by all of them
+         *
+         * @return the value returned by the call
+         * @throws InFlightRequestFailedException caused by what the call threw instead
+         */
+        Object getResult() {
+            if (failure != null) {
+                throw new InFlightRequestFailedException(failure);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.trendyol.jdempotent.core.aspect;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.trendyol.jdempotent.core.aspect.IdempotentMethodPlan.ReturnKind;
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.ReactiveIdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
+import com.trendyol.jdempotent.core.metrics.IdempotentMetrics;
+import com.trendyol.jdempotent.core.metrics.IdempotentMetrics.Event;
+import com.trendyol.jdempotent.core.metrics.IdempotentMetrics.Operation;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * An idempotent call of a method returning a Mono or a Flux made against a {@link ReactiveIdempotentRepository},
+ * only loaded when such a repository is set so Reactor stays optional.
+ *
+ * <p>Nothing is stored until the returned publisher is subscribed, and no repository call blocks.
+ * A flux is collected into a list, the list is what gets saved.</p>
+ *
+ * <p>Repositories complete on the I/O threads of their client, so the call moves to the bounded elastic
+ * scheduler before it proceeds. The intercepted method never runs on an event loop, where a blocking
+ * call in its body could stall every other command of the client.</p>
+ */
+final class ReactiveIdempotentCall {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveIdempotentCall.class);
+
+    private final IdempotentAspect aspect;
+    private final ReactiveIdempotentRepository repository;
+    private final ProceedingJoinPoint pjp;
+    private final IdempotentMethodPlan plan;
+    private final Object[] args;
+    private final IdempotentRequestWrapper requestObject;
+    private final IdempotencyKey idempotencyKey;
+    private final IdempotentMetrics metrics;
+
+    ReactiveIdempotentCall(IdempotentAspect aspect, ReactiveIdempotentRepository repository, ProceedingJoinPoint pjp,
+                           IdempotentMethodPlan plan, Object[] args, IdempotentRequestWrapper requestObject,
+                           IdempotencyKey idempotencyKey, IdempotentMetrics metrics) {
+        this.aspect = aspect;
+        this.repository = repository;
+        this.pjp = pjp;
+        this.plan = plan;
+        this.args = args;
+        this.requestObject = requestObject;
+        this.idempotencyKey = idempotencyKey;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return a publisher of the method's type
+     */
+    @SuppressWarnings("unchecked")
+    Object execute() {
+        Mono<Optional<Object>> response = Mono.defer(this::storeIfAbsent)
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(existingWrapper -> existingWrapper == IdempotentRepository.ALREADY_EXISTS
+                        ? Mono.error(new RequestAlreadyExistsException())
+                        : Mono.just(Optional.ofNullable(
+                                aspect.readStoredResponse(plan, requestObject, idempotencyKey, existingWrapper, metrics))))
+                .switchIfEmpty(Mono.defer(this::proceed));
+        if (plan.getReturnKind() == ReturnKind.FLUX) {
+            return response.flatMapIterable(value -> value.map(list -> (List<Object>) list).orElse(List.of()));
+        }
+        return response.flatMap(Mono::justOrEmpty);
+    }
+
+    private Mono<IdempotentRequestResponseWrapper> storeIfAbsent() {
+        logger.debug("{}starting for {}", plan.getLogPrefix(), requestObject);
+        long start = metrics.startTime();
+        return repository.storeIfAbsent(idempotencyKey, requestObject, plan.getTtl(), plan.getTtlTimeUnit())
+                .doOnNext(existingWrapper -> {
+                    if (existingWrapper == IdempotentRepository.ALREADY_EXISTS) {
+                        alreadyExists();
+                    }
+                })
+                .doOnError(RequestAlreadyExistsException.class, e -> alreadyExists())
+                .doFinally(signal -> metrics.recordTime(Operation.STORE_IF_ABSENT, plan.getCachePrefix(), start));
+    }
+
+    private void alreadyExists() {
+        logger.debug("Request already exists with {}", idempotencyKey);
+        metrics.increment(Event.REQUEST_ALREADY_EXISTS, plan.getCachePrefix());
+    }
+
+    /**
+     * Proceeds with the intercepted method and saves what it emits, or releases the key when it fails
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<Optional<Object>> proceed() {
+        String cachePrefix = plan.getCachePrefix();
+        metrics.increment(Event.MISS, cachePrefix);
+        logger.debug("{}saved to cache with {}", plan.getLogPrefix(), idempotencyKey);
+
+        long proceedStart = metrics.startTime();
+        Object result;
+        try {
+            aspect.setJdempotentId(args, idempotencyKey.getKeyValue());
+            result = pjp.proceed();
+        } catch (Throwable e) {
+            metrics.recordTime(Operation.PROCEED, cachePrefix, proceedStart);
+            return release(e);
+        }
+
+        Mono<Optional<Object>> values;
+        if (result == null) {
+            values = Mono.just(Optional.empty());
+        } else if (plan.getReturnKind() == ReturnKind.FLUX) {
+            values = ((Flux<Object>) result).collectList().map(Optional::of);
+        } else {
+            values = ((Mono<Object>) result).map(Optional::of).defaultIfEmpty(Optional.empty());
+        }
+        return values
+                .onErrorResume(e -> {
+                    metrics.recordTime(Operation.PROCEED, cachePrefix, proceedStart);
+                    return release(e);
+                })
+                .flatMap(value -> {
+                    metrics.recordTime(Operation.PROCEED, cachePrefix, proceedStart);
+                    return saveResponse(value);
+                })
+                .doOnCancel(() -> remove().subscribe());
+    }
+
+    private Mono<Optional<Object>> saveResponse(Optional<Object> value) {
+        String cachePrefix = plan.getCachePrefix();
+        RuntimeException rejection = aspect.rejectResponse(value.orElse(null));
+        if (rejection != null) {
+            return remove()
+                    .doOnSuccess(ignored -> metrics.increment(Event.ERROR_CALLBACK_REMOVAL, cachePrefix))
+                    .then(Mono.error(rejection));
+        }
+
+        long start = metrics.startTime();
+        return repository.setResponse(idempotencyKey, requestObject, new IdempotentResponseWrapper(value.orElse(null)),
+                        plan.getTtl(), plan.getTtlTimeUnit())
+                .doFinally(signal -> metrics.recordTime(Operation.SET_RESPONSE, cachePrefix, start))
+                .doOnSuccess(ignored -> logger.debug("{}saved response to cache with {}", plan.getLogPrefix(), idempotencyKey))
+                .thenReturn(value)
+                .onErrorResume(this::release);
+    }
+
+    private <T> Mono<T> release(Throwable error) {
+        return remove()
+                .doOnSuccess(ignored -> logger.debug("{}deleted from cache with {} . Exception : {}",
+                        plan.getLogPrefix(), idempotencyKey, error))
+                .then(Mono.error(error));
+    }
+
+    private Mono<Void> remove() {
+        return Mono.defer(() -> {
+            long start = metrics.startTime();
+            return repository.remove(idempotencyKey)
+                    .doFinally(signal -> metrics.recordTime(Operation.REMOVE, plan.getCachePrefix(), start));
+        }).onErrorResume(e -> {
+            logger.warn("{}could not delete {} from cache", plan.getLogPrefix(), idempotencyKey, e);
+            return Mono.empty();
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.trendyol.jdempotent.core.aspect;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Adapts {@link Mono} and {@link Flux} results, only loaded for methods returning one so Reactor
+ * stays optional.
+ *
+ * <p>Repository calls are blocking, they run on the bounded elastic scheduler instead of the
+ * thread that emitted the value. A flux is collected into a list, the list is what gets saved.</p>
+ */
+final class ReactorResults {
+
+    private ReactorResults() {
+    }
+
+    /**
+     * @param value
+     * @return a mono of a cached response
+     */
+    static Object just(Object value) {
+        return Mono.justOrEmpty(value);
+    }
+
+    /**
+     * @param values
+     * @return a flux of a cached response
+     */
+    @SuppressWarnings("unchecked")
+    static Object fromIterable(Object values) {
+        return values != null ? Flux.fromIterable((Iterable<Object>) values) : Flux.empty();
+    }
+
+    /**
+     * Runs the completion when the mono returned by the method terminates, the returned mono
+     * only emits after the response is saved
+     *
+     * @param result     the mono returned by the intercepted method
+     * @param completion
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    static Object whenTerminated(Object result, CallCompletion completion) {
+        Mono<Object> mono = (Mono<Object>) result;
+        return mono
+                .flatMap(value -> Mono.fromCallable(() -> {
+                    completion.succeeded(value);
+                    return value;
+                }).subscribeOn(Schedulers.boundedElastic()))
+                .switchIfEmpty(Mono.<Object>fromRunnable(() -> completion.succeeded(null))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .onErrorResume(error -> Mono.fromRunnable(() -> completion.failed(error))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .then(Mono.error(error)))
+                .doOnCancel(() -> Schedulers.boundedElastic()
+                        .schedule(() -> completion.failed(new CancellationException("Idempotent call was cancelled"))));
+    }
+
+    /**
+     * Like {@link #whenTerminated(Object, CallCompletion)} for a flux, its elements are saved as a list
+     * and only emitted after the list is saved
+     *
+     * @param result     the flux returned by the intercepted method
+     * @param completion
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    static Object whenTerminatedMany(Object result, CallCompletion completion) {
+        Mono<Object> values = ((Flux<Object>) result).collectList().map(list -> (Object) list);
+        return ((Mono<Object>) whenTerminated(values, completion))
+                .flatMapIterable(list -> (List<Object>) list);
+    }
+}
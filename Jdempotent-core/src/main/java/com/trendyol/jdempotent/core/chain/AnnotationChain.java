@@ -3,6 +3,12 @@ package com.trendyol.jdempotent.core.chain;
 import com.trendyol.jdempotent.core.model.ChainData;
 import com.trendyol.jdempotent.core.model.KeyValuePair;
 
+/**
+ * Resolves the key and value of a payload field, handing it to the next chain when it does not apply
+ *
+ * @deprecated the aspect resolves payload fields once per class and no longer uses the chain
+ */
+@Deprecated
 public abstract class AnnotationChain {
     protected AnnotationChain nextChain;
 
@@ -0,0 +1,240 @@
+package com.trendyol.jdempotent.core.chain;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.trendyol.jdempotent.core.annotation.JdempotentId;
+import com.trendyol.jdempotent.core.annotation.JdempotentIdTarget;
+import com.trendyol.jdempotent.core.annotation.JdempotentIgnore;
+import com.trendyol.jdempotent.core.annotation.JdempotentProperty;
+import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+
+/**
+ * Compiled view of a payload class: the fields that take part in the idempotency check,
+ * the names they are exposed with and method handles to read them.
+ *
+ * <p>Built once per class, it applies the same rules as the annotation chain
+ * ({@code @JdempotentIgnore} skips a field, {@code @JdempotentProperty} renames it),
+ * covering superclass fields and record components. Static and synthetic fields are left out.</p>
+ */
+final class IdempotentPayloadPlan {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodHandle[] NO_HANDLES = new MethodHandle[0];
+    private static final ClassValue<IdempotentPayloadPlan> plans = new ClassValue<>() {
+        @Override
+        protected IdempotentPayloadPlan computeValue(Class<?> type) {
+            return build(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final String[] names;
+    private final MethodHandle[] getters;
+    private final MethodHandle idGetter;
+    private final MethodHandle[] idTargetSetters;
+    private final String inaccessibleField;
+
+    private IdempotentPayloadPlan(Class<?> type, String[] names, MethodHandle[] getters, MethodHandle idGetter,
+                                  MethodHandle[] idTargetSetters, String inaccessibleField) {
+        this.type = type;
+        this.names = names;
+        this.getters = getters;
+        this.idGetter = idGetter;
+        this.idTargetSetters = idTargetSetters;
+        this.inaccessibleField = inaccessibleField;
+    }
+
+    /**
+     * Returns the cached plan of the given payload class, building it on the first call
+     *
+     * @param type
+     * @return
+     */
+    static IdempotentPayloadPlan of(Class<?> type) {
+        return plans.get(type);
+    }
+
+    private static IdempotentPayloadPlan build(Class<?> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<String> names = new ArrayList<>();
+        List<MethodHandle> getters = new ArrayList<>();
+        List<MethodHandle> idTargetSetters = new ArrayList<>();
+        Set<String> seenFields = new HashSet<>();
+        MethodHandle idGetter = null;
+        String inaccessibleField = null;
+
+        try {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    // a field hidden by a subclass field of the same name is not visible to the payload
+                    if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || !seenFields.add(field.getName())) {
+                        continue;
+                    }
+                    boolean isId = field.isAnnotationPresent(JdempotentId.class);
+                    boolean isIdTarget = field.isAnnotationPresent(JdempotentIdTarget.class);
+                    String name = nameOf(field);
+
+                    // fields of platform classes such as String cannot be opened, that only matters once they are read
+                    if (!field.trySetAccessible()) {
+                        if (isId || isIdTarget) {
+                            field.setAccessible(true);
+                        }
+                        if (name != null && inaccessibleField == null) {
+                            inaccessibleField = field.getName();
+                        }
+                        continue;
+                    }
+                    MethodHandle getter = getterOf(lookup, current, field);
+
+                    if (idGetter == null && isId) {
+                        idGetter = getter;
+                    }
+                    if (isIdTarget) {
+                        idTargetSetters.add(lookup.unreflectSetter(field).asType(SETTER_TYPE));
+                    }
+                    if (name != null) {
+                        names.add(name);
+                        getters.add(getter);
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Payload fields of " + type.getName() + " are not accessible", e);
+        }
+
+        return new IdempotentPayloadPlan(type, names.toArray(new String[0]), getters.toArray(NO_HANDLES), idGetter,
+                idTargetSetters.isEmpty() ? NO_HANDLES : idTargetSetters.toArray(NO_HANDLES), inaccessibleField);
+    }
+
+    /**
+     * Record components are read through their accessor, other fields directly
+     */
+    private static MethodHandle getterOf(MethodHandles.Lookup lookup, Class<?> declaringClass, Field field) throws IllegalAccessException {
+        if (declaringClass.isRecord()) {
+            for (RecordComponent component : declaringClass.getRecordComponents()) {
+                if (component.getName().equals(field.getName())) {
+                    component.getAccessor().setAccessible(true);
+                    return lookup.unreflect(component.getAccessor()).asType(GETTER_TYPE);
+                }
+            }
+        }
+        return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+    }
+
+    /**
+     * The name a field is exposed with, or null when it does not take part in the idempotency check
+     */
+    private static String nameOf(Field field) {
+        if (field.isAnnotationPresent(JdempotentIgnore.class)) {
+            return null;
+        }
+        JdempotentProperty property = field.getAnnotation(JdempotentProperty.class);
+        String name = property != null ? property.value() : field.getName();
+        return name.isEmpty() ? null : name;
+    }
+
+    /**
+     * Copies the included field values of the payload into a new wrapper
+     *
+     * @param payload
+     * @return
+     */
+    IdempotentIgnorableWrapper snapshot(Object payload) {
+        if (inaccessibleField != null) {
+            throw new IllegalStateException("Payload field " + type.getName() + "." + inaccessibleField + " is not accessible");
+        }
+        IdempotentIgnorableWrapper wrapper = new IdempotentIgnorableWrapper(names.length);
+        for (int i = 0; i < names.length; i++) {
+            wrapper.getNonIgnoredFields().put(names[i], read(getters[i], payload));
+        }
+        return wrapper;
+    }
+
+    /**
+     * @return whether every included field can be read
+     */
+    boolean isReadable() {
+        return inaccessibleField == null;
+    }
+
+    /**
+     * @return the number of fields that take part in the idempotency check
+     */
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * @param index
+     * @return the name the included field at the given index is exposed with
+     */
+    String nameAt(int index) {
+        return names[index];
+    }
+
+    /**
+     * Reads the included field at the given index without copying the payload into a wrapper
+     *
+     * @param index
+     * @param payload
+     * @return
+     */
+    Object valueAt(int index, Object payload) {
+        return read(getters[index], payload);
+    }
+
+    /**
+     * @return whether the payload class has a field annotated with {@code @JdempotentId}
+     */
+    boolean hasId() {
+        return idGetter != null;
+    }
+
+    /**
+     * Reads the value of the field annotated with {@code @JdempotentId}
+     *
+     * @param payload
+     * @return
+     */
+    Object readId(Object payload) {
+        return read(idGetter, payload);
+    }
+
+    /**
+     * Writes the idempotency key into the fields annotated with {@code @JdempotentIdTarget}
+     *
+     * @param payload
+     * @param idempotencyKey
+     */
+    void writeIdTargets(Object payload, String idempotencyKey) {
+        for (MethodHandle setter : idTargetSetters) {
+            try {
+                setter.invokeExact(payload, (Object) idempotencyKey);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Object read(MethodHandle getter, Object payload) {
+        try {
+            return (Object) getter.invokeExact(payload);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -5,6 +5,12 @@ import com.trendyol.jdempotent.core.model.KeyValuePair;
 
 import java.lang.reflect.Field;
 
+/**
+ * Takes the field by its own name, the last chain
+ *
+ * @deprecated the aspect resolves payload fields once per class and no longer uses the chain
+ */
+@Deprecated
 public class JdempotentDefaultChain extends AnnotationChain {
 
     @Override
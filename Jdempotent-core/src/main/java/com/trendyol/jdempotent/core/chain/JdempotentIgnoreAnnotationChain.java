@@ -6,6 +6,12 @@ import com.trendyol.jdempotent.core.model.KeyValuePair;
 
 import java.lang.reflect.Field;
 
+/**
+ * Leaves out fields annotated with @JdempotentIgnore
+ *
+ * @deprecated the aspect resolves payload fields once per class and no longer uses the chain
+ */
+@Deprecated
 public class JdempotentIgnoreAnnotationChain extends AnnotationChain {
     @Override
     public KeyValuePair process(ChainData chainData) throws IllegalAccessException {
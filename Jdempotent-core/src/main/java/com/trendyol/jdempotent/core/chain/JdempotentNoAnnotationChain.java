@@ -5,6 +5,12 @@ import com.trendyol.jdempotent.core.model.KeyValuePair;
 
 import java.lang.reflect.Field;
 
+/**
+ * Takes a field without annotations by its own name
+ *
+ * @deprecated the aspect resolves payload fields once per class and no longer uses the chain
+ */
+@Deprecated
 public class JdempotentNoAnnotationChain extends AnnotationChain {
 
     @Override
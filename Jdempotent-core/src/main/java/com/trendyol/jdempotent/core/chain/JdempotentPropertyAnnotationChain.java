@@ -6,6 +6,12 @@ import com.trendyol.jdempotent.core.model.KeyValuePair;
 
 import java.lang.reflect.Field;
 
+/**
+ * Takes a field annotated with @JdempotentProperty by the annotation value
+ *
+ * @deprecated the aspect resolves payload fields once per class and no longer uses the chain
+ */
+@Deprecated
 public class JdempotentPropertyAnnotationChain extends AnnotationChain {
 
     @Override
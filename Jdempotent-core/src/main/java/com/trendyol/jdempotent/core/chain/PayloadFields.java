@@ -0,0 +1,90 @@
+package com.trendyol.jdempotent.core.chain;
+
+import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+
+/**
+ * Reads and writes the payload fields that take part in the idempotency check, with the same
+ * {@code @JdempotentIgnore}/{@code @JdempotentProperty}/{@code @JdempotentId} rules as the annotation chain.
+ *
+ * <p>The accessors of each payload class are compiled once and cached, so reading a field by index
+ * costs a method handle call.</p>
+ */
+public final class PayloadFields {
+
+    private PayloadFields() {
+    }
+
+    /**
+     * Copies the included field values of the payload into a new wrapper
+     *
+     * @param payload
+     * @return
+     */
+    public static IdempotentIgnorableWrapper snapshot(Object payload) {
+        return IdempotentPayloadPlan.of(payload.getClass()).snapshot(payload);
+    }
+
+    /**
+     * @param payload
+     * @return whether every included field of the payload can be read, platform classes usually can't
+     */
+    public static boolean isReadable(Object payload) {
+        return IdempotentPayloadPlan.of(payload.getClass()).isReadable();
+    }
+
+    /**
+     * @param payload
+     * @return the number of fields of the payload that take part in the idempotency check
+     */
+    public static int size(Object payload) {
+        return IdempotentPayloadPlan.of(payload.getClass()).size();
+    }
+
+    /**
+     * @param payload
+     * @param index
+     * @return the name the included field at the given index is exposed with
+     */
+    public static String nameAt(Object payload, int index) {
+        return IdempotentPayloadPlan.of(payload.getClass()).nameAt(index);
+    }
+
+    /**
+     * Reads the included field at the given index without copying the payload into a wrapper
+     *
+     * @param payload
+     * @param index
+     * @return
+     */
+    public static Object valueAt(Object payload, int index) {
+        return IdempotentPayloadPlan.of(payload.getClass()).valueAt(index, payload);
+    }
+
+    /**
+     * @param payload
+     * @return whether the payload class has a field annotated with {@code @JdempotentId}
+     */
+    public static boolean hasId(Object payload) {
+        return IdempotentPayloadPlan.of(payload.getClass()).hasId();
+    }
+
+    /**
+     * Reads the value of the field annotated with {@code @JdempotentId}
+     *
+     * @param payload
+     * @return
+     */
+    public static Object readId(Object payload) {
+        return IdempotentPayloadPlan.of(payload.getClass()).readId(payload);
+    }
+
+    /**
+     * Writes the idempotency key into the fields annotated with {@code @JdempotentIdTarget}
+     *
+     * @param payload
+     * @param idempotencyKey
+     */
+    public static void writeIdTargets(Object payload, String idempotencyKey) {
+        IdempotentPayloadPlan.of(payload.getClass()).writeIdTargets(payload, idempotencyKey);
+    }
+}
@@ -0,0 +1,11 @@
+package com.trendyol.jdempotent.core.codec;
+
+/**
+ * Thrown when a value can't be encoded or stored bytes can't be decoded
+ */
+public class CodecException extends RuntimeException {
+
+    public CodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,22 @@
+package com.trendyol.jdempotent.core.codec;
+
+/**
+ * Turns the stored request and response wrappers into bytes and back
+ *
+ * <p>A repository keeps reading what it wrote, so a codec must not be changed while calls
+ * written with another one may still be stored.</p>
+ */
+public interface IdempotentCodec {
+
+    /**
+     * @param value a request or response, or a wrapper of them, never null
+     * @return
+     */
+    byte[] encode(Object value);
+
+    /**
+     * @param bytes bytes written by {@link #encode(Object)}, never null or empty
+     * @return
+     */
+    Object decode(byte[] bytes);
+}
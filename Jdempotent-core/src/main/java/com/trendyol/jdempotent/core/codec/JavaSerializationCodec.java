@@ -0,0 +1,38 @@
+package com.trendyol.jdempotent.core.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Encodes with java serialization, payloads and responses must be {@link java.io.Serializable}
+ *
+ * <p>It needs no extra dependency and keeps the exact types, at the cost of the largest output
+ * and the slowest encoding of the provided codecs.</p>
+ */
+public class JavaSerializationCodec implements IdempotentCodec {
+
+    public static final JavaSerializationCodec INSTANCE = new JavaSerializationCodec();
+
+    @Override
+    public byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new CodecException("Failed to serialize " + value.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new CodecException("Failed to deserialize stored value", e);
+        }
+    }
+}
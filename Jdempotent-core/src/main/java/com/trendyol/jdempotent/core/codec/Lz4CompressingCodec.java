@@ -0,0 +1,84 @@
+package com.trendyol.jdempotent.core.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * Compresses the output of another codec with LZ4 when it is larger than a threshold
+ *
+ * <p>Every value gets a one byte header telling whether it is compressed, compressed values also
+ * carry their original length. Small values are left as they are, LZ4 rarely shrinks them and
+ * the round trip would only cost time. Turning compression on or off changes the stored format.
+ * Needs {@code org.lz4:lz4-java} on the classpath.</p>
+ */
+public class Lz4CompressingCodec implements IdempotentCodec {
+
+    private static final byte RAW = 0;
+    private static final byte LZ4 = 1;
+    private static final int LZ4_HEADER_LENGTH = 1 + Integer.BYTES;
+
+    private final IdempotentCodec delegate;
+    private final int thresholdBytes;
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+
+    /**
+     * @param delegate       the codec whose output is compressed
+     * @param thresholdBytes values whose encoded size is at least this are compressed
+     */
+    public Lz4CompressingCodec(IdempotentCodec delegate, int thresholdBytes) {
+        if (thresholdBytes < 0) {
+            throw new IllegalArgumentException("Compression threshold must not be negative");
+        }
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.delegate = delegate;
+        this.thresholdBytes = thresholdBytes;
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        byte[] encoded = delegate.encode(value);
+        if (encoded.length >= thresholdBytes) {
+            byte[] compressed = new byte[LZ4_HEADER_LENGTH + compressor.maxCompressedLength(encoded.length)];
+            int compressedLength = compressor.compress(encoded, 0, encoded.length, compressed, LZ4_HEADER_LENGTH);
+            // keep the raw bytes when compression doesn't pay for its header
+            if (LZ4_HEADER_LENGTH + compressedLength < encoded.length + 1) {
+                compressed[0] = LZ4;
+                ByteBuffer.wrap(compressed, 1, Integer.BYTES).putInt(encoded.length);
+                return Arrays.copyOf(compressed, LZ4_HEADER_LENGTH + compressedLength);
+            }
+        }
+        byte[] raw = new byte[encoded.length + 1];
+        raw[0] = RAW;
+        System.arraycopy(encoded, 0, raw, 1, encoded.length);
+        return raw;
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        if (bytes[0] == RAW) {
+            return delegate.decode(Arrays.copyOfRange(bytes, 1, bytes.length));
+        }
+        if (bytes[0] != LZ4 || bytes.length < LZ4_HEADER_LENGTH) {
+            throw new CodecException("Unknown compression header " + bytes[0], null);
+        }
+        int length = ByteBuffer.wrap(bytes, 1, Integer.BYTES).getInt();
+        byte[] decompressed = new byte[length];
+        try {
+            if (decompressor.decompress(bytes, LZ4_HEADER_LENGTH, bytes.length - LZ4_HEADER_LENGTH, decompressed, 0, length) != length) {
+                throw new CodecException("Stored value is shorter than its header says", null);
+            }
+        } catch (CodecException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new CodecException("Failed to decompress stored value", e);
+        }
+        return delegate.decode(decompressed);
+    }
+}
@@ -0,0 +1,101 @@
+package com.trendyol.jdempotent.core.codec;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+/**
+ * Encodes with Jackson Smile, a binary JSON that back-references repeated field names and short
+ * strings, so it is both smaller and faster than java serialization for typical payloads
+ *
+ * <p>Values are written with their class names and read back by their fields, so payloads and
+ * responses don't need to be {@link java.io.Serializable} but need a no-arg constructor. Only
+ * classes of the allowed packages, the wrappers and JDK value types and collections are read back,
+ * since the stored bytes name the classes to create.
+ * Needs {@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile} on the classpath.</p>
+ */
+public class SmileCodec implements IdempotentCodec {
+
+    private static final String MODEL_PACKAGE = "com.trendyol.jdempotent.core.model.";
+    private static final Pattern JDK_VALUE_TYPES = Pattern.compile("java\\.lang\\.(String|Boolean|Character|Byte|Short|Integer|Long|Float|Double)"
+            + "|java\\.math\\.(BigDecimal|BigInteger)"
+            + "|java\\.time\\.[A-Za-z]+"
+            + "|java\\.util\\.(UUID|Date|ArrayList|LinkedList|HashMap|LinkedHashMap|TreeMap|HashSet|LinkedHashSet|TreeSet"
+            + "|Arrays\\$ArrayList|Collections\\$[A-Za-z]+|ImmutableCollections\\$[A-Za-z0-9]+)");
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param allowedPackages the packages of the payloads and responses to read back, e.g. {@code com.example.orders},
+     *                        classes outside them fail to decode
+     */
+    public SmileCodec(String... allowedPackages) {
+        this(typeValidator(allowedPackages));
+    }
+
+    /**
+     * @param typeValidator the classes allowed to be read back
+     */
+    @SuppressWarnings("deprecation")
+    public SmileCodec(PolymorphicTypeValidator typeValidator) {
+        this(SmileMapper.builder()
+                .visibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .visibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                // every non-natural value keeps its type, so a Long in an ignorable wrapper is not read back as an Integer
+                .activateDefaultTyping(typeValidator, ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY)
+                .build());
+    }
+
+    /**
+     * @param objectMapper a mapper created on a Smile factory, it has to write type information
+     *                     of the wrappers' fields
+     */
+    public SmileCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param allowedPackages
+     * @return a validator allowing the classes of the packages, the wrappers and JDK value types and collections
+     */
+    public static PolymorphicTypeValidator typeValidator(String... allowedPackages) {
+        BasicPolymorphicTypeValidator.Builder builder = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType(MODEL_PACKAGE)
+                .allowIfSubType(JDK_VALUE_TYPES)
+                .allowIfSubTypeIsArray();
+        for (String allowedPackage : allowedPackages) {
+            String trimmed = allowedPackage.trim();
+            if (!trimmed.isEmpty()) {
+                builder.allowIfSubType(trimmed.endsWith(".") ? trimmed : trimmed + ".");
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new CodecException("Failed to serialize " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        try {
+            return objectMapper.readValue(bytes, Object.class);
+        } catch (IOException e) {
+            throw new CodecException("Failed to deserialize stored value", e);
+        }
+    }
+}
@@ -1,10 +1,115 @@
 package com.trendyol.jdempotent.core.config;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.codec.Lz4CompressingCodec;
+import com.trendyol.jdempotent.core.constant.CodecType;
+import com.trendyol.jdempotent.core.constant.CryptographyAlgorithm;
+import com.trendyol.jdempotent.core.datasource.NearCacheIdempotentRepository;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
 
 @Configuration
-public class ConfigUtility {
-    @Value("${jdempotent.cryptography.algorithm}")
+public class ConfigUtility implements BeanFactoryAware {
+    @Value("${jdempotent.cryptography.algorithm:MD5}")
     private String algorithm;
+
+    @Value("${jdempotent.coalescing.enable:false}")
+    private boolean coalescingEnabled;
+
+    @Value("${jdempotent.coalescing.max-wait-millis:10000}")
+    private long coalescingMaxWaitMillis;
+
+    @Value("${jdempotent.near-cache.enable:false}")
+    private boolean nearCacheEnabled;
+
+    @Value("${jdempotent.near-cache.maximum-size:10000}")
+    private long nearCacheMaximumSize;
+
+    @Value("${jdempotent.near-cache.max-ttl-seconds:300}")
+    private long nearCacheMaxTtlSeconds;
+
+    @Value("${jdempotent.codec.type:}")
+    private String codecType;
+
+    @Value("${jdempotent.codec.compression-threshold-bytes:-1}")
+    private int compressionThresholdBytes;
+
+    @Value("${jdempotent.codec.allowed-packages:}")
+    private String[] allowedPackages;
+
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * @return the application wide hash algorithm of generated idempotency keys
+     */
+    public CryptographyAlgorithm getCryptographyAlgorithm() {
+        return CryptographyAlgorithm.of(algorithm);
+    }
+
+    /**
+     * Resolves the codec a starter stores requests and responses with, the codec type replaces the
+     * starter's own serialization and a compression threshold wraps it with LZ4 compression
+     *
+     * @param defaultCodec the starter's own serialization, used when no codec type is configured
+     * @return
+     */
+    public IdempotentCodec getCodec(IdempotentCodec defaultCodec) {
+        IdempotentCodec codec = codecType == null || codecType.isBlank() ? defaultCodec : newCodec(CodecType.of(codecType));
+        return compressionThresholdBytes >= 0 ? new Lz4CompressingCodec(codec, compressionThresholdBytes) : codec;
+    }
+
+    /**
+     * @param codecType
+     * @return a new codec of the type, reading back the classes of the allowed packages
+     */
+    public IdempotentCodec newCodec(CodecType codecType) {
+        return codecType.newCodec(getAllowedPackages());
+    }
+
+    /**
+     * @return the packages a codec reads payloads and responses of, jdempotent.codec.allowed-packages when it
+     * is set, otherwise the packages of the Spring Boot application
+     */
+    public String[] getAllowedPackages() {
+        if (allowedPackages != null && allowedPackages.length > 0) {
+            return allowedPackages;
+        }
+        if (beanFactory != null && ClassUtils.isPresent("org.springframework.boot.autoconfigure.AutoConfigurationPackages", null)
+                && AutoConfigurationPackages.has(beanFactory)) {
+            List<String> packages = AutoConfigurationPackages.get(beanFactory);
+            return packages.toArray(new String[0]);
+        }
+        return new String[0];
+    }
+
+    /**
+     * Applies the application wide settings to an aspect created by a starter
+     *
+     * @param idempotentAspect
+     * @return the given aspect
+     */
+    public IdempotentAspect configure(IdempotentAspect idempotentAspect) {
+        idempotentAspect.setCryptographyAlgorithm(getCryptographyAlgorithm());
+        if (coalescingEnabled) {
+            idempotentAspect.enableRequestCoalescing(coalescingMaxWaitMillis, TimeUnit.MILLISECONDS);
+        }
+        if (nearCacheEnabled) {
+            idempotentAspect.setIdempotentRepository(new NearCacheIdempotentRepository(idempotentAspect.getIdempotentRepository(),
+                    nearCacheMaximumSize, nearCacheMaxTtlSeconds, TimeUnit.SECONDS));
+        }
+        return idempotentAspect;
+    }
 }
@@ -0,0 +1,47 @@
+package com.trendyol.jdempotent.core.constant;
+
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.codec.JavaSerializationCodec;
+import com.trendyol.jdempotent.core.codec.SmileCodec;
+
+/**
+ *
+ * Codecs a starter can be configured to store requests and responses with
+ *
+ */
+public enum CodecType {
+
+    /**
+     * use java serialization
+     */
+    JAVA,
+
+    /**
+     * use Jackson Smile, needs jackson-dataformat-smile
+     */
+    SMILE;
+
+    /**
+     * @param allowedPackages the packages of the payloads and responses a Smile codec reads back
+     * @return a new codec of this type
+     */
+    public IdempotentCodec newCodec(String... allowedPackages) {
+        return this == SMILE ? new SmileCodec(allowedPackages) : JavaSerializationCodec.INSTANCE;
+    }
+
+    /**
+     * Resolves a codec type by its name, e.g. {@code smile}
+     *
+     * @param name
+     * @return
+     */
+    public static CodecType of(String name) {
+        String trimmed = name == null ? "" : name.trim();
+        for (CodecType codecType : values()) {
+            if (codecType.name().equalsIgnoreCase(trimmed)) {
+                return codecType;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported codec: " + name);
+    }
+}
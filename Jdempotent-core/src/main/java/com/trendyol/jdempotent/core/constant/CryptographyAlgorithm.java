@@ -1,5 +1,10 @@
 package com.trendyol.jdempotent.core.constant;
 
+import com.trendyol.jdempotent.core.generator.Murmur3MessageDigest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 /**
  *
  * Supported hash algorithms to generate idempotency key
@@ -20,7 +25,12 @@ public enum CryptographyAlgorithm {
     /**
      * use SHA-1 hash algorithm
      */
-    SHA1("SHA-1");
+    SHA1("SHA-1"),
+
+    /**
+     * use non-cryptographic 128-bit MurmurHash3, fastest option when keys only need to be unique
+     */
+    MURMUR3_128(Murmur3MessageDigest.ALGORITHM);
 
     private String algorithm;
 
@@ -31,4 +41,33 @@ public enum CryptographyAlgorithm {
     public String value(){
         return algorithm;
     }
+
+    /**
+     * Creates a new digest instance of this algorithm
+     *
+     * @return
+     * @throws NoSuchAlgorithmException
+     */
+    public MessageDigest newMessageDigest() throws NoSuchAlgorithmException {
+        if (this == MURMUR3_128) {
+            return new Murmur3MessageDigest();
+        }
+        return MessageDigest.getInstance(algorithm);
+    }
+
+    /**
+     * Resolves an algorithm by its constant name or its digest name, e.g. {@code SHA256} or {@code SHA-256}
+     *
+     * @param name
+     * @return
+     */
+    public static CryptographyAlgorithm of(String name) {
+        String trimmed = name == null ? "" : name.trim();
+        for (CryptographyAlgorithm cryptographyAlgorithm : values()) {
+            if (cryptographyAlgorithm.name().equalsIgnoreCase(trimmed) || cryptographyAlgorithm.algorithm.equalsIgnoreCase(trimmed)) {
+                return cryptographyAlgorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported cryptography algorithm: " + name);
+    }
 }
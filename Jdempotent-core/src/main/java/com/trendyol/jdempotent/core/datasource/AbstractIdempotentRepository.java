@@ -47,6 +47,12 @@ public abstract class AbstractIdempotentRepository implements IdempotentReposito
         }
     }
 
+    @Override
+    public IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper request,
+                                                          Long ttl, TimeUnit timeUnit) {
+        return getMap().putIfAbsent(key, new IdempotentRequestResponseWrapper(request));
+    }
+
     @Override
     public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request,
                             IdempotentResponseWrapper idempotentResponse) {
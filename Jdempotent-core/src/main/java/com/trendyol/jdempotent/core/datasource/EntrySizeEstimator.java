@@ -0,0 +1,93 @@
+package com.trendyol.jdempotent.core.datasource;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.trendyol.jdempotent.core.chain.PayloadFields;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+
+/**
+ * Estimates the heap size of a stored request and response, cheap enough to run on every write.
+ *
+ * <p>Sizes follow a 64-bit JVM with compressed references closely enough to budget a cache,
+ * object graphs deeper than {@link #MAX_DEPTH} are counted as a single object.</p>
+ */
+final class EntrySizeEstimator {
+
+    private static final int MAX_DEPTH = 8;
+    private static final int OBJECT = 16;
+    private static final int REFERENCE = 4;
+    // map node, key and the request, response and wrapper objects around the payloads
+    private static final int ENTRY = 112;
+
+    private EntrySizeEstimator() {
+    }
+
+    static int estimate(IdempotencyKey key, IdempotentRequestResponseWrapper wrapper) {
+        long bytes = ENTRY + sizeOf(key.getKeyValue(), 0);
+        if (wrapper.getRequest() != null) {
+            bytes += sizeOf(wrapper.getRequest().getRequest(), 0);
+        }
+        if (wrapper.getResponse() != null) {
+            bytes += sizeOf(wrapper.getResponse().getResponse(), 0);
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long sizeOf(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 40 + ((String) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum) {
+            return OBJECT;
+        }
+        if (value instanceof byte[]) {
+            return OBJECT + ((byte[]) value).length;
+        }
+        if (depth >= MAX_DEPTH) {
+            return OBJECT;
+        }
+        if (value instanceof IdempotentIgnorableWrapper) {
+            return OBJECT + sizeOf(((IdempotentIgnorableWrapper) value).getNonIgnoredFields(), depth + 1);
+        }
+        if (value instanceof Map) {
+            long bytes = 64;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                bytes += 32 + sizeOf(entry.getKey(), depth + 1) + sizeOf(entry.getValue(), depth + 1);
+            }
+            return bytes;
+        }
+        if (value instanceof Collection) {
+            long bytes = 40;
+            for (Object element : (Collection<?>) value) {
+                bytes += REFERENCE + sizeOf(element, depth + 1);
+            }
+            return bytes;
+        }
+        if (value instanceof Object[]) {
+            long bytes = OBJECT;
+            for (Object element : (Object[]) value) {
+                bytes += REFERENCE + sizeOf(element, depth + 1);
+            }
+            return bytes;
+        }
+        if (value.getClass().isArray()) {
+            return OBJECT + 8L * java.lang.reflect.Array.getLength(value);
+        }
+
+        if (!PayloadFields.isReadable(value)) {
+            return 2 * OBJECT;
+        }
+        long bytes = OBJECT;
+        int size = PayloadFields.size(value);
+        for (int i = 0; i < size; i++) {
+            bytes += REFERENCE + sizeOf(PayloadFields.valueAt(value, i), depth + 1);
+        }
+        return bytes;
+    }
+}
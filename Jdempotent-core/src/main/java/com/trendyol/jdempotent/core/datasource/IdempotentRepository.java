@@ -1,5 +1,8 @@
 package com.trendyol.jdempotent.core.datasource;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
@@ -11,6 +14,18 @@ import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
  * an interface that the functionality required of a request store for idempotent method invocations.
  */
 public interface IdempotentRepository {
+
+    /**
+     * Returned by {@link #storeIfAbsent} when the key is taken by a call that could not be read, e.g. it
+     * was removed meanwhile or is not visible yet. Compared by identity, it can't be changed.
+     */
+    IdempotentRequestResponseWrapper ALREADY_EXISTS = new IdempotentRequestResponseWrapper() {
+        @Override
+        public void setResponse(IdempotentResponseWrapper response) {
+            throw new UnsupportedOperationException("ALREADY_EXISTS can't be changed");
+        }
+    };
+
     /**
      * @param key
      * @return
@@ -61,6 +76,103 @@ public interface IdempotentRepository {
      */
     void store(IdempotencyKey key, IdempotentRequestWrapper requestObject, String cachePrefix, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException;
 
+    /**
+     * Stores the request as in progress, or returns the call already stored with the key
+     * without changing it, in a single round-trip when the backend allows it
+     *
+     * <p>The default implementation reads before it stores, repositories should override it
+     * with an atomic operation of their backend.</p>
+     *
+     * <p>Both outcomes are return values, a duplicate is not an exception here. The aspect only
+     * throws a {@link RequestAlreadyExistsException} to its caller for {@link #ALREADY_EXISTS}.</p>
+     *
+     * @param key
+     * @param requestObject
+     * @param ttl
+     * @param timeUnit
+     * @return null when the request was stored, {@link #ALREADY_EXISTS} when the key is taken but its call
+     * could not be read, otherwise the stored request and response
+     * @throws RequestAlreadyExistsException only thrown by implementations written before {@link #ALREADY_EXISTS}
+     */
+    default IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper requestObject,
+                                                           Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
+        IdempotentRequestResponseWrapper existing = getRequestResponseWrapper(key);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            store(key, requestObject, ttl, timeUnit);
+        } catch (RequestAlreadyExistsException e) {
+            return ALREADY_EXISTS;
+        }
+        return null;
+    }
+
+
+    /**
+     * Stores every request whose key is absent, and reads the calls already stored with the others,
+     * in as few round-trips as the backend allows
+     *
+     * <p>The default implementation calls {@link #storeIfAbsent} for each key.</p>
+     *
+     * @param requests the requests by their key
+     * @param ttl
+     * @param timeUnit
+     * @return the stored calls by their key, keys that were stored by this call are not in it. A key
+     * taken by a call that could not be read maps to {@link #ALREADY_EXISTS}.
+     */
+    default Map<IdempotencyKey, IdempotentRequestResponseWrapper> storeAllIfAbsent(Map<IdempotencyKey, IdempotentRequestWrapper> requests,
+                                                                              Long ttl, TimeUnit timeUnit) {
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = new LinkedHashMap<>();
+        requests.forEach((key, request) -> {
+            try {
+                IdempotentRequestResponseWrapper wrapper = storeIfAbsent(key, request, ttl, timeUnit);
+                if (wrapper != null) {
+                    existing.put(key, wrapper);
+                }
+            } catch (RequestAlreadyExistsException e) {
+                existing.put(key, ALREADY_EXISTS);
+            }
+        });
+        return existing;
+    }
+
+    /**
+     * Sets the responses of several calls, in as few round-trips as the backend allows
+     *
+     * <p>The default implementation calls {@link #setResponse(IdempotencyKey, IdempotentRequestWrapper, IdempotentResponseWrapper, Long, TimeUnit)}
+     * for each key.</p>
+     *
+     * @param calls    the requests and their responses by their key
+     * @param ttl
+     * @param timeUnit
+     */
+    default void setResponses(Map<IdempotencyKey, IdempotentRequestResponseWrapper> calls, Long ttl, TimeUnit timeUnit) {
+        calls.forEach((key, call) -> setResponse(key, call.getRequest(), call.getResponse(), ttl, timeUnit));
+    }
+
+    /**
+     * Removes several keys, in as few round-trips as the backend allows
+     *
+     * <p>The default implementation calls {@link #remove} for each key.</p>
+     *
+     * @param keys
+     */
+    default void removeAll(Collection<IdempotencyKey> keys) {
+        keys.forEach(this::remove);
+    }
+
+    /**
+     * Whether stored calls keep the whole request. Payload conflicts are then found by comparing the
+     * payloads, and requests are not fingerprinted.
+     *
+     * <p>The default implementation returns false, so every request is fingerprinted.</p>
+     *
+     * @return true when the whole request is stored with each call
+     */
+    default boolean persistsRequests() {
+        return false;
+    }
 
     /**
      * @param key
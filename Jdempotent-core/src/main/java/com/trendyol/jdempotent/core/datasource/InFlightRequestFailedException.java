@@ -0,0 +1,19 @@
+package com.trendyol.jdempotent.core.datasource;
+
+/**
+ * Exception thrown to a call that waited for another call with the same idempotency key,
+ * when that call failed. The cause is what the other call threw.
+ */
+public class InFlightRequestFailedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new InFlightRequestFailedException with the specified cause.
+     *
+     * @param cause what the call that was waited for threw
+     */
+    public InFlightRequestFailedException(Throwable cause) {
+        super("The in flight call with the same idempotency key failed", cause);
+    }
+}
@@ -1,34 +1,180 @@
 package com.trendyol.jdempotent.core.datasource;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntBiFunction;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy.VarExpiration;
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
 import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
 import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
 
 /**
  * An implementation of the idempotent AbstractIdempotentRepository
- * that uses as a default map
+ * that keeps the requests in a local Caffeine cache
+ *
+ * <p>Entries expire after the ttl of their {@code @JdempotentResource}, or the default ttl when
+ * the resource has none, on a timer wheel swept during reads and writes rather than by scanning.
+ * The cache can be bounded by entry count or by an estimated size in bytes, then it evicts with
+ * W-TinyLFU so frequently repeated keys outlive one-off ones.</p>
  */
 public class InMemoryIdempotentRepository extends AbstractIdempotentRepository {
 
-    private final ConcurrentHashMap<IdempotencyKey, IdempotentRequestResponseWrapper> map;
+    private final ConcurrentMap<IdempotencyKey, IdempotentRequestResponseWrapper> map;
+    private final VarExpiration<IdempotencyKey, IdempotentRequestResponseWrapper> expiration;
 
+    /**
+     * Creates a repository without size bound whose entries only expire when their resource has a ttl
+     */
     public InMemoryIdempotentRepository() {
-        this.map = new ConcurrentHashMap<>();
+        this(Caffeine.newBuilder(), 0L, TimeUnit.HOURS);
+    }
+
+    /**
+     * @param maximumSize the number of entries kept at most
+     */
+    public InMemoryIdempotentRepository(long maximumSize) {
+        this(Caffeine.newBuilder().maximumSize(maximumSize), 0L, TimeUnit.HOURS);
+    }
+
+    /**
+     * @param maximumSize the number of entries kept at most
+     * @param defaultTtl  the ttl of entries whose resource has none, 0 to keep them until evicted
+     * @param timeUnit
+     */
+    public InMemoryIdempotentRepository(long maximumSize, long defaultTtl, TimeUnit timeUnit) {
+        this(Caffeine.newBuilder().maximumSize(maximumSize), defaultTtl, timeUnit);
+    }
+
+    private InMemoryIdempotentRepository(Caffeine<Object, Object> builder, long defaultTtl, TimeUnit timeUnit) {
+        if (defaultTtl < 0) {
+            throw new IllegalArgumentException("Default ttl must not be negative");
+        }
+        long defaultTtlNanos = defaultTtl == 0 ? Long.MAX_VALUE : timeUnit.toNanos(defaultTtl);
+        Cache<IdempotencyKey, IdempotentRequestResponseWrapper> cache = builder
+                .expireAfter(new DefaultExpiry(defaultTtlNanos))
+                // maintenance is short and amortized, running it on the caller avoids a hand-off per write
+                .executor(Runnable::run)
+                .build();
+        this.map = cache.asMap();
+        this.expiration = cache.policy().expireVariably().orElseThrow();
+    }
+
+    /**
+     * Creates a repository bounded by the estimated size of its entries
+     *
+     * @param maximumBytes the estimated heap size kept at most
+     * @param defaultTtl   the ttl of entries whose resource has none, 0 to keep them until evicted
+     * @param timeUnit
+     * @return
+     */
+    public static InMemoryIdempotentRepository withMaximumWeight(long maximumBytes, long defaultTtl, TimeUnit timeUnit) {
+        return withMaximumWeight(maximumBytes, EntrySizeEstimator::estimate, defaultTtl, timeUnit);
+    }
+
+    /**
+     * Creates a repository bounded by the total weight of its entries
+     *
+     * @param maximumWeight the total weight kept at most
+     * @param weigher       the weight of an entry, computed when it is stored and when its response is set
+     * @param defaultTtl    the ttl of entries whose resource has none, 0 to keep them until evicted
+     * @param timeUnit
+     * @return
+     */
+    public static InMemoryIdempotentRepository withMaximumWeight(long maximumWeight,
+                                                                 ToIntBiFunction<IdempotencyKey, IdempotentRequestResponseWrapper> weigher,
+                                                                 long defaultTtl, TimeUnit timeUnit) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Object key, Object value) -> weigher.applyAsInt((IdempotencyKey) key, (IdempotentRequestResponseWrapper) value));
+        return new InMemoryIdempotentRepository(builder, defaultTtl, timeUnit);
     }
 
     @Override
-    protected ConcurrentHashMap<IdempotencyKey, IdempotentRequestResponseWrapper> getMap() {
+    protected ConcurrentMap<IdempotencyKey, IdempotentRequestResponseWrapper> getMap() {
         return map;
     }
 
+    @Override
+    public void store(IdempotencyKey key, IdempotentRequestWrapper request, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
+        if (ttl == null || ttl <= 0) {
+            super.store(key, request);
+            return;
+        }
+        IdempotentRequestResponseWrapper existing = expiration.putIfAbsent(key, new IdempotentRequestResponseWrapper(request), ttl, timeUnit);
+        if (existing != null) {
+            throw new RequestAlreadyExistsException();
+        }
+    }
+
+    @Override
+    public IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper request,
+                                                          Long ttl, TimeUnit timeUnit) {
+        if (ttl == null || ttl <= 0) {
+            return super.storeIfAbsent(key, request, ttl, timeUnit);
+        }
+        return expiration.putIfAbsent(key, new IdempotentRequestResponseWrapper(request), ttl, timeUnit);
+    }
+
     @Override
     public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject,
             String cachePrefix, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'store'");
+        // the cache prefix is already part of generated keys, a local map has no use for it
+        store(key, requestObject, ttl, timeUnit);
     }
 
+    @Override
+    public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request,
+                            IdempotentResponseWrapper idempotentResponse, Long ttl, TimeUnit timeUnit) {
+        if (ttl == null || ttl <= 0) {
+            super.setResponse(key, request, idempotentResponse);
+            return;
+        }
+        // like the distributed repositories, the completed call is kept for a full ttl
+        expiration.compute(key, (k, wrapper) -> {
+            if (wrapper != null) {
+                wrapper.setResponse(idempotentResponse);
+            }
+            return wrapper;
+        }, Duration.ofNanos(timeUnit.toNanos(ttl)));
+    }
+
+    /**
+     * Calls are kept as they are, with the whole request
+     */
+    @Override
+    public boolean persistsRequests() {
+        return true;
+    }
+
+    /**
+     * Gives new entries the default ttl and keeps the remaining ttl on reads and updates
+     */
+    private static final class DefaultExpiry implements Expiry<IdempotencyKey, IdempotentRequestResponseWrapper> {
+        private final long defaultTtlNanos;
+
+        private DefaultExpiry(long defaultTtlNanos) {
+            this.defaultTtlNanos = defaultTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(IdempotencyKey key, IdempotentRequestResponseWrapper value, long currentTime) {
+            return defaultTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(IdempotencyKey key, IdempotentRequestResponseWrapper value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(IdempotencyKey key, IdempotentRequestResponseWrapper value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,272 @@
+package com.trendyol.jdempotent.core.datasource;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy.VarExpiration;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+
+/**
+ * An IdempotentRepository that keeps the calls completed on this node in a bounded local cache
+ * in front of a remote repository
+ *
+ * <p>Only completed calls are cached locally, they never change again, so duplicates of them are
+ * answered without a round-trip. The remote entry expires a ttl after the call was stored, a local
+ * entry lives until then at most, capped by the max ttl, so it never outlives the remote one. Stores
+ * and removals always go to the remote repository. A local entry only holds what the remote one does,
+ * the request fingerprint without a response when the remote doesn't persist requests.</p>
+ */
+public class NearCacheIdempotentRepository implements IdempotentRepository {
+
+    private final IdempotentRepository remote;
+    private final Cache<IdempotencyKey, IdempotentRequestResponseWrapper> completed;
+    private final VarExpiration<IdempotencyKey, IdempotentRequestResponseWrapper> expiration;
+    private final long maxTtlNanos;
+    // the System.nanoTime the remote entry of a call stored through this repository expires at,
+    // kept for a max ttl past it so a call that outlived its ttl is still recognized
+    private final Cache<IdempotencyKey, Long> deadlines;
+
+    /**
+     * @param remote      the repository shared by every node
+     * @param maximumSize the number of completed calls kept locally at most
+     * @param maxTtl      how long a completed call is kept locally at most, it should not exceed
+     *                    the default ttl of the remote repository
+     * @param timeUnit
+     */
+    public NearCacheIdempotentRepository(IdempotentRepository remote, long maximumSize, long maxTtl, TimeUnit timeUnit) {
+        if (maxTtl <= 0) {
+            throw new IllegalArgumentException("Max ttl of the near cache must be positive");
+        }
+        this.remote = remote;
+        this.maxTtlNanos = timeUnit.toNanos(maxTtl);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new FixedExpiry(maxTtlNanos))
+                .executor(Runnable::run)
+                .build();
+        this.expiration = completed.policy().expireVariably().orElseThrow();
+        this.deadlines = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PastDeadlineExpiry(maxTtlNanos))
+                .executor(Runnable::run)
+                .build();
+    }
+
+    @Override
+    public boolean contains(IdempotencyKey key) {
+        return completed.getIfPresent(key) != null || remote.contains(key);
+    }
+
+    @Override
+    public IdempotentResponseWrapper getResponse(IdempotencyKey key) {
+        IdempotentRequestResponseWrapper wrapper = completed.getIfPresent(key);
+        return wrapper != null ? wrapper.getResponse() : remote.getResponse(key);
+    }
+
+    @Override
+    public IdempotentRequestResponseWrapper getRequestResponseWrapper(IdempotencyKey key) {
+        IdempotentRequestResponseWrapper wrapper = completed.getIfPresent(key);
+        return wrapper != null ? wrapper : remote.getRequestResponseWrapper(key);
+    }
+
+    @Override
+    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject) throws RequestAlreadyExistsException {
+        long storedAt = System.nanoTime();
+        remote.store(key, requestObject);
+        stored(key, storedAt, null, null);
+    }
+
+    @Override
+    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
+        long storedAt = System.nanoTime();
+        remote.store(key, requestObject, ttl, timeUnit);
+        stored(key, storedAt, ttl, timeUnit);
+    }
+
+    @Override
+    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject, String cachePrefix, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
+        long storedAt = System.nanoTime();
+        remote.store(key, requestObject, cachePrefix, ttl, timeUnit);
+        stored(key, storedAt, ttl, timeUnit);
+    }
+
+    @Override
+    public IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper requestObject,
+                                                          Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
+        IdempotentRequestResponseWrapper wrapper = completed.getIfPresent(key);
+        if (wrapper != null) {
+            return wrapper;
+        }
+        long storedAt = System.nanoTime();
+        IdempotentRequestResponseWrapper existing = remote.storeIfAbsent(key, requestObject, ttl, timeUnit);
+        if (existing == null) {
+            stored(key, storedAt, ttl, timeUnit);
+        }
+        return existing;
+    }
+
+    @Override
+    public Map<IdempotencyKey, IdempotentRequestResponseWrapper> storeAllIfAbsent(Map<IdempotencyKey, IdempotentRequestWrapper> requests,
+                                                                              Long ttl, TimeUnit timeUnit) {
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = new LinkedHashMap<>();
+        Map<IdempotencyKey, IdempotentRequestWrapper> remaining = new LinkedHashMap<>();
+        requests.forEach((key, request) -> {
+            IdempotentRequestResponseWrapper wrapper = completed.getIfPresent(key);
+            if (wrapper != null) {
+                existing.put(key, wrapper);
+            } else {
+                remaining.put(key, request);
+            }
+        });
+        if (!remaining.isEmpty()) {
+            long storedAt = System.nanoTime();
+            Map<IdempotencyKey, IdempotentRequestResponseWrapper> stored = remote.storeAllIfAbsent(remaining, ttl, timeUnit);
+            remaining.keySet().forEach(key -> {
+                if (!stored.containsKey(key)) {
+                    stored(key, storedAt, ttl, timeUnit);
+                }
+            });
+            existing.putAll(stored);
+        }
+        return existing;
+    }
+
+    @Override
+    public void remove(IdempotencyKey key) {
+        completed.invalidate(key);
+        deadlines.invalidate(key);
+        remote.remove(key);
+    }
+
+    @Override
+    public void removeAll(Collection<IdempotencyKey> keys) {
+        completed.invalidateAll(keys);
+        deadlines.invalidateAll(keys);
+        remote.removeAll(keys);
+    }
+
+    @Override
+    public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper idempotentResponse) {
+        remote.setResponse(key, request, idempotentResponse);
+        complete(key, new IdempotentRequestResponseWrapper(request, idempotentResponse), maxTtlNanos);
+    }
+
+    @Override
+    public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper idempotentResponse, Long ttl, TimeUnit timeUnit) {
+        remote.setResponse(key, request, idempotentResponse, ttl, timeUnit);
+        complete(key, new IdempotentRequestResponseWrapper(request, idempotentResponse), ttlNanos(ttl, timeUnit));
+    }
+
+    @Override
+    public void setResponses(Map<IdempotencyKey, IdempotentRequestResponseWrapper> calls, Long ttl, TimeUnit timeUnit) {
+        remote.setResponses(calls, ttl, timeUnit);
+        long ttlNanos = ttlNanos(ttl, timeUnit);
+        calls.forEach((key, call) -> complete(key, new IdempotentRequestResponseWrapper(call.getRequest(), call.getResponse()), ttlNanos));
+    }
+
+    @Override
+    public boolean persistsRequests() {
+        return remote.persistsRequests();
+    }
+
+    /**
+     * @return the repository behind the near cache
+     */
+    public IdempotentRepository getRemote() {
+        return remote;
+    }
+
+    private long ttlNanos(Long ttl, TimeUnit timeUnit) {
+        return ttl != null && ttl > 0 ? Math.min(timeUnit.toNanos(ttl), maxTtlNanos) : maxTtlNanos;
+    }
+
+    /**
+     * Remembers when the remote entry of a call stored through this repository expires, without a ttl
+     * the remote default is assumed to be at least the max ttl
+     */
+    private void stored(IdempotencyKey key, long storedAt, Long ttl, TimeUnit timeUnit) {
+        long ttlNanos = ttl != null && ttl > 0 ? timeUnit.toNanos(ttl) : maxTtlNanos;
+        deadlines.put(key, storedAt + ttlNanos);
+    }
+
+    /**
+     * Caches a completed call locally until the remote entry expires, capped by the given ttl. A call
+     * stored elsewhere gets the given ttl, a call that outlived its remote entry is not cached. Only the
+     * fingerprint is kept when the remote doesn't persist requests.
+     */
+    private void complete(IdempotencyKey key, IdempotentRequestResponseWrapper call, long ttlNanos) {
+        if (!remote.persistsRequests()) {
+            IdempotentRequestWrapper request = call.getRequest();
+            call = new IdempotentRequestResponseWrapper(request != null ? request.fingerprintOnly() : null);
+        }
+        Long deadline = deadlines.getIfPresent(key);
+        if (deadline != null) {
+            deadlines.invalidate(key);
+            ttlNanos = Math.min(ttlNanos, deadline - System.nanoTime());
+            if (ttlNanos <= 0) {
+                return;
+            }
+        }
+        expiration.put(key, call, ttlNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gives entries put without a ttl the max ttl, reads never extend an entry
+     */
+    private static final class FixedExpiry implements Expiry<IdempotencyKey, IdempotentRequestResponseWrapper> {
+        private final long ttlNanos;
+
+        private FixedExpiry(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(IdempotencyKey key, IdempotentRequestResponseWrapper value, long currentTime) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(IdempotencyKey key, IdempotentRequestResponseWrapper value, long currentTime, long currentDuration) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(IdempotencyKey key, IdempotentRequestResponseWrapper value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * Keeps a deadline for a max ttl after it has passed, reads never extend an entry
+     */
+    private static final class PastDeadlineExpiry implements Expiry<IdempotencyKey, Long> {
+        private final long graceNanos;
+
+        private PastDeadlineExpiry(long graceNanos) {
+            this.graceNanos = graceNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(IdempotencyKey key, Long deadline, long currentTime) {
+            return Math.max(0, deadline - currentTime) + graceNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(IdempotencyKey key, Long deadline, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, deadline, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(IdempotencyKey key, Long deadline, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
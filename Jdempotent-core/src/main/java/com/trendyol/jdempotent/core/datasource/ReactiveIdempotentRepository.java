@@ -0,0 +1,60 @@
+package com.trendyol.jdempotent.core.datasource;
+
+import java.util.concurrent.TimeUnit;
+
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import reactor.core.publisher.Mono;
+
+/**
+ * A non-blocking request store, used by the aspect for methods returning a Mono or a Flux
+ * so their calls never block an event loop thread.
+ *
+ * <p>Nothing happens until the returned mono is subscribed.</p>
+ */
+public interface ReactiveIdempotentRepository {
+
+    /**
+     * Stores the request when the key doesn't exist yet, otherwise reads the stored call
+     *
+     * @param key
+     * @param requestObject
+     * @param ttl
+     * @param timeUnit
+     * @return the stored call, empty when the request was stored by this call
+     */
+    Mono<IdempotentRequestResponseWrapper> storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper requestObject,
+                                                         Long ttl, TimeUnit timeUnit);
+
+    /**
+     * @param key
+     * @return the stored call, empty when the key doesn't exist
+     */
+    Mono<IdempotentRequestResponseWrapper> getRequestResponseWrapper(IdempotencyKey key);
+
+    /**
+     * @param key
+     * @param request
+     * @param idempotentResponse
+     * @param ttl
+     * @param timeUnit
+     * @return
+     */
+    Mono<Void> setResponse(IdempotencyKey key, IdempotentRequestWrapper request,
+                           IdempotentResponseWrapper idempotentResponse, Long ttl, TimeUnit timeUnit);
+
+    /**
+     * @param key
+     * @return
+     */
+    Mono<Void> remove(IdempotencyKey key);
+
+    /**
+     * @return true when the whole request is stored with each call, see {@link IdempotentRepository#persistsRequests()}
+     */
+    default boolean persistsRequests() {
+        return false;
+    }
+}
@@ -3,6 +3,9 @@ package com.trendyol.jdempotent.core.datasource;
 /**
  * Exception thrown when attempting to store a request that already exists in the idempotent repository.
  * This typically occurs when a duplicate request is made with the same idempotency key.
+ *
+ * <p>It has no stack trace, it reports an outcome rather than a fault, so throwing one on every
+ * duplicate costs no more than allocating a small object.</p>
  */
 public class RequestAlreadyExistsException extends Exception {
 
@@ -10,7 +13,7 @@ public class RequestAlreadyExistsException extends Exception {
      * Constructs a new RequestAlreadyExistsException with no detail message.
      */
     public RequestAlreadyExistsException() {
-        super();
+        super(null, null, false, false);
     }
 
     /**
@@ -19,7 +22,7 @@ public class RequestAlreadyExistsException extends Exception {
      * @param message the detail message
      */
     public RequestAlreadyExistsException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     /**
@@ -29,7 +32,7 @@ public class RequestAlreadyExistsException extends Exception {
      * @param cause   the cause of the exception
      */
     public RequestAlreadyExistsException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 
     /**
@@ -38,6 +41,6 @@ public class RequestAlreadyExistsException extends Exception {
      * @param cause the cause of the exception
      */
     public RequestAlreadyExistsException(Throwable cause) {
-        super(cause);
+        super(cause == null ? null : cause.toString(), cause, false, false);
     }
 }
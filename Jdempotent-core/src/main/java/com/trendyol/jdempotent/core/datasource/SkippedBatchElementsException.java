@@ -0,0 +1,59 @@
+package com.trendyol.jdempotent.core.datasource;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+
+/**
+ * Exception thrown by a batch method when some of its elements were neither processed nor answered
+ * from the repository, because another call still holds their key or their payload conflicts with
+ * the stored one.
+ *
+ * <p>It is part of the contract of a batch method. Elements stored by an earlier call with the same
+ * payload never cause it, they are left out of the list without an error. The other elements were
+ * processed and saved before it is thrown, so retrying the whole batch only processes the elements
+ * that were in flight and returns normally once they are. Conflicting elements are reported again on
+ * every retry, a listener should drop them.</p>
+ */
+public class SkippedBatchElementsException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object result;
+    private final List<IdempotencyKey> inFlightKeys;
+    private final List<IdempotencyKey> conflictingKeys;
+
+    /**
+     * @param result          what the method returned for the processed elements, null when it wasn't called
+     * @param inFlightKeys    the keys held by calls that have not completed yet
+     * @param conflictingKeys the keys stored with another payload
+     */
+    public SkippedBatchElementsException(Object result, Collection<IdempotencyKey> inFlightKeys, Collection<IdempotencyKey> conflictingKeys) {
+        super("Batch elements were skipped, in flight: " + inFlightKeys + ", conflicting payload: " + conflictingKeys);
+        this.result = result;
+        this.inFlightKeys = List.copyOf(inFlightKeys);
+        this.conflictingKeys = List.copyOf(conflictingKeys);
+    }
+
+    /**
+     * @return what the method returned for the processed elements, null when it wasn't called
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    /**
+     * @return the keys held by calls that have not completed yet, retrying them later may process them
+     */
+    public List<IdempotencyKey> getInFlightKeys() {
+        return inFlightKeys;
+    }
+
+    /**
+     * @return the keys stored with another payload, retrying them fails again
+     */
+    public List<IdempotencyKey> getConflictingKeys() {
+        return conflictingKeys;
+    }
+}
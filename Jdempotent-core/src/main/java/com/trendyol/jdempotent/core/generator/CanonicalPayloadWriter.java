@@ -0,0 +1,366 @@
+package com.trendyol.jdempotent.core.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.trendyol.jdempotent.core.chain.PayloadFields;
+import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+
+/**
+ * Streams a canonical binary form of a request payload into a {@link MessageDigest}.
+ *
+ * <p>Every value is written as a type tag followed by a fixed width or length prefixed body,
+ * strings as UTF-8. Map entries are sorted by key and the elements of collections other than lists
+ * by their encoded bytes, so the same payload always produces the same bytes on every JVM whatever
+ * the iteration order of its maps and sets. Nested objects are written field by field with the same
+ * {@code @JdempotentIgnore}/{@code @JdempotentProperty} rules as the top level payload,
+ * platform classes that cannot be read that way fall back to their {@code toString()}. A value that
+ * encloses itself, such as a child pointing back to its parent, is written as a reference to the enclosing
+ * occurrence and a value nested deeper than 32 levels as its {@code toString()}, so no payload fails the call.</p>
+ *
+ * <p>Bytes are staged in a small reusable buffer, an instance must only be used by one thread at a time.</p>
+ */
+final class CanonicalPayloadWriter {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte CHAR = 5;
+    private static final byte DECIMAL = 6;
+    private static final byte ENUM = 7;
+    private static final byte MAP = 8;
+    private static final byte COLLECTION = 9;
+    private static final byte ARRAY = 10;
+    private static final byte OBJECT = 11;
+    private static final byte BYTES = 12;
+    private static final byte TEXT = 13;
+    private static final byte REFERENCE = 14;
+
+    private static final int MAX_DEPTH = 32;
+    private static final Comparator<Map.Entry<byte[], Object>> ENCODED_KEY_ORDER =
+            (left, right) -> Arrays.compareUnsigned(left.getKey(), right.getKey());
+
+    private final byte[] buffer = new byte[512];
+    private Object[][] sortedKeys = new Object[4][];
+    private int position;
+    private MessageDigest digest;
+    // set while a value is encoded to be sorted, the digest only sees it once it is in place
+    private ByteArrayOutputStream capture;
+    // the maps, collections, arrays and objects being written, by the depth they were reached at
+    private final IdentityHashMap<Object, Integer> ancestors = new IdentityHashMap<>();
+
+    /**
+     * Writes the canonical form of the value into the digest
+     *
+     * @param value
+     * @param messageDigest
+     */
+    void write(Object value, MessageDigest messageDigest) {
+        this.digest = messageDigest;
+        this.position = 0;
+        try {
+            writeValue(value, 0);
+            flush();
+        } finally {
+            this.digest = null;
+            this.capture = null;
+            this.ancestors.clear();
+        }
+    }
+
+    private void writeValue(Object value, int depth) {
+        if (value == null) {
+            writeByte(NULL);
+        } else if (value instanceof String) {
+            writeByte(STRING);
+            writeString((String) value);
+        } else if (value instanceof IdempotentRequestWrapper) {
+            writeValue(((IdempotentRequestWrapper) value).getRequest(), depth);
+        } else if (value instanceof IdempotentIgnorableWrapper) {
+            writeMap(((IdempotentIgnorableWrapper) value).getNonIgnoredFields(), depth);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeByte(LONG);
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeByte(DOUBLE);
+            writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Boolean) {
+            writeByte(BOOLEAN);
+            writeByte((Boolean) value ? (byte) 1 : (byte) 0);
+        } else if (value instanceof Character) {
+            writeByte(CHAR);
+            writeChar((Character) value);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            writeByte(DECIMAL);
+            writeString(value.toString());
+        } else if (value instanceof Enum) {
+            writeByte(ENUM);
+            writeString(((Enum<?>) value).name());
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            writeByte(BYTES);
+            writeInt(bytes.length);
+            writeBytes(bytes);
+        } else {
+            writeNested(value, depth);
+        }
+    }
+
+    /**
+     * Writes a value that may hold other values, see the class comment for cycles and deep nesting
+     */
+    private void writeNested(Object value, int depth) {
+        Integer ancestorDepth = ancestors.putIfAbsent(value, depth);
+        if (ancestorDepth != null) {
+            writeByte(REFERENCE);
+            writeInt(depth - ancestorDepth);
+            return;
+        }
+        try {
+            if (depth > MAX_DEPTH) {
+                writeByte(TEXT);
+                writeString(value.toString());
+            } else if (value instanceof Map) {
+                writeMap((Map<?, ?>) value, depth);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                writeByte(COLLECTION);
+                writeInt(list.size());
+                for (Object element : list) {
+                    writeValue(element, depth + 1);
+                }
+            } else if (value instanceof Collection) {
+                writeUnordered((Collection<?>) value, depth);
+            } else if (value.getClass().isArray()) {
+                writeArray(value, depth);
+            } else {
+                writeObject(value, depth);
+            }
+        } finally {
+            ancestors.remove(value);
+        }
+    }
+
+    private void writeMap(Map<?, ?> map, int depth) {
+        writeByte(MAP);
+        int size = map.size();
+        writeInt(size);
+        if (size == 0) {
+            return;
+        }
+
+        if (depth >= sortedKeys.length) {
+            sortedKeys = Arrays.copyOf(sortedKeys, depth + 1);
+        }
+        Object[] keys = sortedKeys[depth];
+        if (keys == null || keys.length < size) {
+            keys = new Object[Math.max(size, 8)];
+            sortedKeys[depth] = keys;
+        }
+        int count = 0;
+        boolean stringKeys = true;
+        for (Object key : map.keySet()) {
+            keys[count++] = key;
+            stringKeys &= key instanceof String;
+        }
+        if (!stringKeys) {
+            Arrays.fill(keys, 0, count, null);
+            writeEncodedKeyEntries(map, depth);
+            return;
+        }
+        Arrays.sort(keys, 0, count);
+
+        try {
+            for (int i = 0; i < count; i++) {
+                writeValue(keys[i], depth + 1);
+                writeValue(map.get(keys[i]), depth + 1);
+            }
+        } finally {
+            Arrays.fill(keys, 0, count, null);
+        }
+    }
+
+    /**
+     * Keys of different types have no common order, entries are written in the order of their encoded keys
+     */
+    private void writeEncodedKeyEntries(Map<?, ?> map, int depth) {
+        List<Map.Entry<byte[], Object>> entries = new ArrayList<>(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(encode(entry.getKey(), depth + 1), entry.getValue()));
+        }
+        entries.sort(ENCODED_KEY_ORDER);
+        for (Map.Entry<byte[], Object> entry : entries) {
+            writeBytes(entry.getKey());
+            writeValue(entry.getValue(), depth + 1);
+        }
+    }
+
+    /**
+     * Sets and other collections without a meaningful order are written sorted by the encoding of their elements
+     */
+    private void writeUnordered(Collection<?> collection, int depth) {
+        List<byte[]> elements = new ArrayList<>(collection.size());
+        for (Object element : collection) {
+            elements.add(encode(element, depth + 1));
+        }
+        elements.sort(Arrays::compareUnsigned);
+        writeByte(COLLECTION);
+        writeInt(elements.size());
+        for (byte[] element : elements) {
+            writeBytes(element);
+        }
+    }
+
+    /**
+     * Returns the canonical form of the value instead of writing it
+     */
+    private byte[] encode(Object value, int depth) {
+        flush();
+        ByteArrayOutputStream previous = capture;
+        capture = new ByteArrayOutputStream();
+        try {
+            writeValue(value, depth);
+            flush();
+            return capture.toByteArray();
+        } finally {
+            capture = previous;
+        }
+    }
+
+    private void writeArray(Object array, int depth) {
+        writeByte(ARRAY);
+        if (array instanceof Object[]) {
+            Object[] elements = (Object[]) array;
+            writeInt(elements.length);
+            for (Object element : elements) {
+                writeValue(element, depth + 1);
+            }
+        } else if (array instanceof long[]) {
+            long[] elements = (long[]) array;
+            writeInt(elements.length);
+            for (long element : elements) {
+                writeByte(LONG);
+                writeLong(element);
+            }
+        } else if (array instanceof int[]) {
+            int[] elements = (int[]) array;
+            writeInt(elements.length);
+            for (int element : elements) {
+                writeByte(LONG);
+                writeLong(element);
+            }
+        } else if (array instanceof char[]) {
+            char[] elements = (char[]) array;
+            writeInt(elements.length);
+            for (char element : elements) {
+                writeByte(CHAR);
+                writeChar(element);
+            }
+        } else {
+            int length = java.lang.reflect.Array.getLength(array);
+            writeInt(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(java.lang.reflect.Array.get(array, i), depth + 1);
+            }
+        }
+    }
+
+    private void writeObject(Object value, int depth) {
+        if (!PayloadFields.isReadable(value)) {
+            // platform types such as UUID or LocalDate, their text form is stable
+            writeByte(TEXT);
+            writeString(value.toString());
+            return;
+        }
+        writeByte(OBJECT);
+        writeString(value.getClass().getName());
+        int size = PayloadFields.size(value);
+        writeInt(size);
+        for (int i = 0; i < size; i++) {
+            writeString(PayloadFields.nameAt(value, i));
+            writeValue(PayloadFields.valueAt(value, i), depth + 1);
+        }
+    }
+
+    private void writeString(String value) {
+        int length = value.length();
+        writeInt(length);
+        for (int i = 0; i < length; i++) {
+            writeChar(value.charAt(i));
+        }
+    }
+
+    /**
+     * Writes a UTF-16 code unit as UTF-8, surrogates are written unit by unit which keeps the encoding injective
+     */
+    private void writeChar(char c) {
+        if (position + 3 > buffer.length) {
+            flush();
+        }
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeByte(byte value) {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = value;
+    }
+
+    private void writeInt(int value) {
+        if (position + 4 > buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void writeBytes(byte[] bytes) {
+        flush();
+        if (capture != null) {
+            capture.write(bytes, 0, bytes.length);
+        } else {
+            digest.update(bytes);
+        }
+    }
+
+    private void flush() {
+        if (position > 0) {
+            if (capture != null) {
+                capture.write(buffer, 0, position);
+            } else {
+                digest.update(buffer, 0, position);
+            }
+            position = 0;
+        }
+    }
+}
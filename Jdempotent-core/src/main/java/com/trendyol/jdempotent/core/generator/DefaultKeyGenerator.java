@@ -16,10 +16,23 @@ import java.security.MessageDigest;
 public class DefaultKeyGenerator implements KeyGenerator {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultKeyGenerator.class);
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<CanonicalPayloadWriter> payloadWriters =
+            ThreadLocal.withInitial(CanonicalPayloadWriter::new);
     private final String appName;
+    private final boolean hashTaggedPrefix;
 
     public DefaultKeyGenerator() {
-        appName = System.getenv(EnvironmentVariableUtils.APP_NAME);
+        this(false);
+    }
+
+    /**
+     * @param hashTaggedPrefix wraps the app name and listener name prefix in braces, a Redis Cluster
+     *                         hash tag, so every key of a listener maps to the same slot
+     */
+    public DefaultKeyGenerator(boolean hashTaggedPrefix) {
+        this.appName = System.getenv(EnvironmentVariableUtils.APP_NAME);
+        this.hashTaggedPrefix = hashTaggedPrefix;
     }
 
     /**
@@ -33,9 +46,14 @@ public class DefaultKeyGenerator implements KeyGenerator {
      * @return
      */
     public IdempotencyKey generateIdempotentKey(IdempotentRequestWrapper requestObject, String listenerName, StringBuilder builder, MessageDigest messageDigest) {
-        messageDigest.update(requestObject.toString().getBytes());
+        payloadWriters.get().write(requestObject, messageDigest);
         byte[] digest = messageDigest.digest();
 
+        boolean hashTagged = hashTaggedPrefix && (!StringUtils.isEmpty(appName) || !StringUtils.isEmpty(listenerName));
+        if (hashTagged) {
+            builder.append('{');
+        }
+
         if (!StringUtils.isEmpty(appName)) {
             builder.append(appName);
             builder.append("-");
@@ -46,8 +64,14 @@ public class DefaultKeyGenerator implements KeyGenerator {
             builder.append("-");
         }
 
+        if (hashTagged) {
+            builder.append('}');
+        }
+
+        builder.ensureCapacity(builder.length() + digest.length * 2);
         for (byte b : digest) {
-            builder.append(Integer.toHexString(0xFF & b));
+            builder.append(HEX_DIGITS[(b >> 4) & 0xF]);
+            builder.append(HEX_DIGITS[b & 0xF]);
         }
 
         return new IdempotencyKey(builder.toString());
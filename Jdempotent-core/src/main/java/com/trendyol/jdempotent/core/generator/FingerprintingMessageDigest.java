@@ -0,0 +1,77 @@
+package com.trendyol.jdempotent.core.generator;
+
+import java.security.MessageDigest;
+
+/**
+ * Passes every update to the digest of the key and to a MurmurHash3 digest, so the key generator
+ * walks the canonical form of a payload once and the {@link PayloadFingerprint} comes out of the same walk.
+ *
+ * <p>{@link #digest()} returns the hash of the key, the fingerprint is read with {@link #fingerprint()}.
+ * An instance must only be used by one thread at a time.</p>
+ */
+public final class FingerprintingMessageDigest extends MessageDigest {
+
+    private final Murmur3MessageDigest fingerprintDigest = new Murmur3MessageDigest();
+    private MessageDigest keyDigest;
+    private long length;
+
+    public FingerprintingMessageDigest() {
+        super("FINGERPRINTING");
+    }
+
+    /**
+     * Starts a new payload on top of the given digest
+     *
+     * @param keyDigest the digest the key is hashed with, reset by the caller
+     * @return this digest
+     */
+    public FingerprintingMessageDigest wrap(MessageDigest keyDigest) {
+        this.keyDigest = keyDigest;
+        fingerprintDigest.reset();
+        length = 0;
+        return this;
+    }
+
+    /**
+     * @return the fingerprint of what was written since {@link #wrap}, null when nothing was
+     */
+    public byte[] fingerprint() {
+        return length > 0 ? fingerprintDigest.digest() : null;
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return keyDigest.getDigestLength();
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        keyDigest.update(input);
+        fingerprintDigest.update(input);
+        length++;
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        keyDigest.update(input, offset, len);
+        fingerprintDigest.update(input, offset, len);
+        length += len;
+    }
+
+    /**
+     * Completes the hash of the key, the fingerprint is kept until it is read
+     */
+    @Override
+    protected byte[] engineDigest() {
+        return keyDigest.digest();
+    }
+
+    @Override
+    protected void engineReset() {
+        if (keyDigest != null) {
+            keyDigest.reset();
+        }
+        fingerprintDigest.reset();
+        length = 0;
+    }
+}
@@ -0,0 +1,171 @@
+package com.trendyol.jdempotent.core.generator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+
+/**
+ * MurmurHash3 x64 128-bit exposed as a {@link MessageDigest}, so it can be used wherever
+ * the key generator expects a digest.
+ *
+ * <p>It is not a cryptographic hash, it only spreads keys well and is several times cheaper
+ * than MD5 or SHA-256. Use it when the idempotency key doesn't have to resist deliberate collisions.</p>
+ */
+public final class Murmur3MessageDigest extends MessageDigest implements Cloneable {
+
+    public static final String ALGORITHM = "MURMUR3-128";
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final int BLOCK_SIZE = 16;
+    private static final VarHandle LITTLE_ENDIAN_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final long seed;
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private long length;
+    private long h1;
+    private long h2;
+
+    public Murmur3MessageDigest() {
+        this(0);
+    }
+
+    public Murmur3MessageDigest(int seed) {
+        super(ALGORITHM);
+        this.seed = seed & 0xFFFFFFFFL;
+        engineReset();
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        block[blockLength++] = input;
+        if (blockLength == BLOCK_SIZE) {
+            mix(getLong(block, 0), getLong(block, 8));
+            blockLength = 0;
+        }
+        length++;
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        length += len;
+        int end = offset + len;
+        if (blockLength > 0) {
+            int fill = Math.min(BLOCK_SIZE - blockLength, len);
+            System.arraycopy(input, offset, block, blockLength, fill);
+            blockLength += fill;
+            offset += fill;
+            if (blockLength < BLOCK_SIZE) {
+                return;
+            }
+            mix(getLong(block, 0), getLong(block, 8));
+            blockLength = 0;
+        }
+        while (end - offset >= BLOCK_SIZE) {
+            mix(getLong(input, offset), getLong(input, offset + 8));
+            offset += BLOCK_SIZE;
+        }
+        if (offset < end) {
+            blockLength = end - offset;
+            System.arraycopy(input, offset, block, 0, blockLength);
+        }
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = blockLength - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (block[i] & 0xFFL);
+        }
+        for (int i = Math.min(blockLength, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (block[i] & 0xFFL);
+        }
+        if (blockLength > 8) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+        }
+        if (blockLength > 0) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        byte[] digest = new byte[BLOCK_SIZE];
+        putLong(digest, 0, h1);
+        putLong(digest, 8, h2);
+        engineReset();
+        return digest;
+    }
+
+    @Override
+    protected void engineReset() {
+        h1 = seed;
+        h2 = seed;
+        blockLength = 0;
+        length = 0;
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        Murmur3MessageDigest copy = (Murmur3MessageDigest) super.clone();
+        copy.block = block.clone();
+        return copy;
+    }
+
+    private void mix(long k1, long k2) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        h2 ^= k2;
+
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        return (long) LITTLE_ENDIAN_LONG.get(bytes, offset);
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        LITTLE_ENDIAN_LONG.set(bytes, offset, value);
+    }
+}
@@ -0,0 +1,30 @@
+package com.trendyol.jdempotent.core.generator;
+
+/**
+ * Computes the fingerprint of a request payload, a 128-bit MurmurHash3 of the same canonical form
+ * the key generator hashes, so only the non-ignored fields count.
+ *
+ * <p>A fingerprint is stored with every call instead of comparing whole payloads, a duplicate
+ * with a different fingerprint is a payload conflict.</p>
+ */
+public final class PayloadFingerprint {
+
+    private static final ThreadLocal<CanonicalPayloadWriter> payloadWriters =
+            ThreadLocal.withInitial(CanonicalPayloadWriter::new);
+    private static final ThreadLocal<Murmur3MessageDigest> digests =
+            ThreadLocal.withInitial(Murmur3MessageDigest::new);
+
+    private PayloadFingerprint() {
+    }
+
+    /**
+     * @param payload
+     * @return the 16 bytes fingerprint
+     */
+    public static byte[] of(Object payload) {
+        Murmur3MessageDigest digest = digests.get();
+        digest.reset();
+        payloadWriters.get().write(payload, digest);
+        return digest.digest();
+    }
+}
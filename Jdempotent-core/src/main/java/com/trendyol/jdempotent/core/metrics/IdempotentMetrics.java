@@ -0,0 +1,92 @@
+package com.trendyol.jdempotent.core.metrics;
+
+/**
+ * Receives timings and outcomes of idempotent calls from the aspect.
+ *
+ * <p>The aspect holds {@link #NOOP} until metrics are set, so instrumentation costs nothing
+ * when no implementation is configured.</p>
+ */
+public interface IdempotentMetrics {
+
+    IdempotentMetrics NOOP = new IdempotentMetrics() {
+    };
+
+    /**
+     * @return the start time to pass to {@link #recordTime}
+     */
+    default long startTime() {
+        return 0L;
+    }
+
+    /**
+     * Records the time elapsed since startTime
+     *
+     * @param operation
+     * @param cachePrefix the cache prefix of the idempotent resource
+     * @param startTime   the value returned by {@link #startTime()}
+     */
+    default void recordTime(Operation operation, String cachePrefix, long startTime) {
+    }
+
+    /**
+     * Counts an outcome of an idempotent call
+     *
+     * @param event
+     * @param cachePrefix the cache prefix of the idempotent resource
+     */
+    default void increment(Event event, String cachePrefix) {
+    }
+
+    /**
+     * The timed steps of an idempotent call
+     */
+    enum Operation {
+        KEY_GENERATION("jdempotent.key.generation", null),
+        PROCEED("jdempotent.proceed", null),
+        GET_REQUEST_RESPONSE_WRAPPER("jdempotent.repository", "getRequestResponseWrapper"),
+        STORE("jdempotent.repository", "store"),
+        STORE_IF_ABSENT("jdempotent.repository", "storeIfAbsent"),
+        SET_RESPONSE("jdempotent.repository", "setResponse"),
+        REMOVE("jdempotent.repository", "remove");
+
+        private final String meterName;
+        private final String repositoryOperation;
+
+        Operation(String meterName, String repositoryOperation) {
+            this.meterName = meterName;
+            this.repositoryOperation = repositoryOperation;
+        }
+
+        public String meterName() {
+            return meterName;
+        }
+
+        /**
+         * @return the repository method, null when the step is not a repository call
+         */
+        public String repositoryOperation() {
+            return repositoryOperation;
+        }
+    }
+
+    /**
+     * The counted outcomes of an idempotent call
+     */
+    enum Event {
+        HIT("jdempotent.hits"),
+        MISS("jdempotent.misses"),
+        PAYLOAD_CONFLICT("jdempotent.payload.conflicts"),
+        REQUEST_ALREADY_EXISTS("jdempotent.request.already.exists"),
+        ERROR_CALLBACK_REMOVAL("jdempotent.error.callback.removals");
+
+        private final String meterName;
+
+        Event(String meterName) {
+            this.meterName = meterName;
+        }
+
+        public String meterName() {
+            return meterName;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.trendyol.jdempotent.core.metrics;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.NearCacheIdempotentRepository;
+
+/**
+ * Instruments every {@link IdempotentAspect} bean with Micrometer once the context is started,
+ * when Micrometer is on the classpath and a {@link MeterRegistry} bean exists.
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnProperty(prefix = "jdempotent.metrics", name = "enable", havingValue = "true", matchIfMissing = true)
+public class JdempotentMetricsConfiguration {
+
+    @Bean
+    public SmartInitializingSingleton jdempotentMetricsBinder(ObjectProvider<MeterRegistry> meterRegistry,
+                                                              ObjectProvider<IdempotentAspect> idempotentAspects,
+                                                              @Value("${jdempotent.metrics.percentiles:0.5,0.95,0.99}") String percentiles,
+                                                              @Value("${jdempotent.metrics.percentile-histogram:false}") boolean percentileHistogram) {
+        double[] timerPercentiles = parsePercentiles(percentiles);
+        return () -> meterRegistry.ifAvailable(registry -> idempotentAspects.orderedStream()
+                .filter(aspect -> aspect.getMetrics() == IdempotentMetrics.NOOP)
+                .forEach(aspect -> aspect.setMetrics(new MicrometerIdempotentMetrics(registry,
+                        repositoryType(aspect.getIdempotentRepository()), timerPercentiles, percentileHistogram))));
+    }
+
+    private static double[] parsePercentiles(String percentiles) {
+        return Arrays.stream(percentiles.split(","))
+                .map(String::trim)
+                .filter(percentile -> !percentile.isEmpty())
+                .mapToDouble(Double::parseDouble)
+                .toArray();
+    }
+
+    /**
+     * @param idempotentRepository
+     * @return the repository tag, e.g. redis for RedisIdempotentRepository with or without a near cache
+     */
+    static String repositoryType(IdempotentRepository idempotentRepository) {
+        if (idempotentRepository instanceof NearCacheIdempotentRepository) {
+            return repositoryType(((NearCacheIdempotentRepository) idempotentRepository).getRemote());
+        }
+        String name = idempotentRepository.getClass().getSimpleName();
+        if (name.endsWith("IdempotentRepository") && name.length() > "IdempotentRepository".length()) {
+            name = name.substring(0, name.length() - "IdempotentRepository".length());
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
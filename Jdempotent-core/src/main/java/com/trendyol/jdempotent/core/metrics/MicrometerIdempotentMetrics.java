@@ -0,0 +1,107 @@
+package com.trendyol.jdempotent.core.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Publishes the aspect metrics to a Micrometer {@link MeterRegistry}.
+ *
+ * <p>Every meter is tagged with {@code cache.prefix} and {@code repository}, repository timers also
+ * with {@code operation}. Meters are registered once per cache prefix and then looked up by
+ * ordinal, so recording doesn't allocate.</p>
+ */
+public class MicrometerIdempotentMetrics implements IdempotentMetrics {
+
+    public static final double[] DEFAULT_PERCENTILES = {0.5, 0.95, 0.99};
+    private static final String NO_CACHE_PREFIX = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final String repositoryType;
+    private final double[] percentiles;
+    private final boolean percentileHistogram;
+    private final ConcurrentMap<String, Meters> metersByCachePrefix = new ConcurrentHashMap<>();
+
+    public MicrometerIdempotentMetrics(MeterRegistry meterRegistry, String repositoryType) {
+        this(meterRegistry, repositoryType, DEFAULT_PERCENTILES, false);
+    }
+
+    /**
+     * @param meterRegistry
+     * @param repositoryType      the value of the repository tag, such as redis or couchbase
+     * @param percentiles         the percentiles computed on the timers, empty for none
+     * @param percentileHistogram whether timers publish histogram buckets for percentiles aggregated by the backend
+     */
+    public MicrometerIdempotentMetrics(MeterRegistry meterRegistry, String repositoryType,
+                                       double[] percentiles, boolean percentileHistogram) {
+        this.meterRegistry = meterRegistry;
+        this.repositoryType = repositoryType;
+        this.percentiles = percentiles.clone();
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    @Override
+    public long startTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void recordTime(Operation operation, String cachePrefix, long startTime) {
+        meters(cachePrefix).timers[operation.ordinal()].record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void increment(Event event, String cachePrefix) {
+        meters(cachePrefix).counters[event.ordinal()].increment();
+    }
+
+    private Meters meters(String cachePrefix) {
+        Meters meters = metersByCachePrefix.get(cachePrefix);
+        if (meters == null) {
+            meters = metersByCachePrefix.computeIfAbsent(cachePrefix, this::register);
+        }
+        return meters;
+    }
+
+    private Meters register(String cachePrefix) {
+        String cachePrefixTag = cachePrefix == null || cachePrefix.isEmpty() ? NO_CACHE_PREFIX : cachePrefix;
+
+        Operation[] operations = Operation.values();
+        Timer[] timers = new Timer[operations.length];
+        for (Operation operation : operations) {
+            Timer.Builder builder = Timer.builder(operation.meterName())
+                    .tag("cache.prefix", cachePrefixTag)
+                    .tag("repository", repositoryType)
+                    .publishPercentiles(percentiles)
+                    .publishPercentileHistogram(percentileHistogram);
+            if (operation.repositoryOperation() != null) {
+                builder.tag("operation", operation.repositoryOperation());
+            }
+            timers[operation.ordinal()] = builder.register(meterRegistry);
+        }
+
+        Event[] events = Event.values();
+        Counter[] counters = new Counter[events.length];
+        for (Event event : events) {
+            counters[event.ordinal()] = Counter.builder(event.meterName())
+                    .tag("cache.prefix", cachePrefixTag)
+                    .tag("repository", repositoryType)
+                    .register(meterRegistry);
+        }
+        return new Meters(timers, counters);
+    }
+
+    private static final class Meters {
+        private final Timer[] timers;
+        private final Counter[] counters;
+
+        private Meters(Timer[] timers, Counter[] counters) {
+            this.timers = timers;
+            this.counters = counters;
+        }
+    }
+}
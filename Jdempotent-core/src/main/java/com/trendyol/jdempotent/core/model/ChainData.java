@@ -2,6 +2,12 @@ package com.trendyol.jdempotent.core.model;
 
 import java.lang.reflect.Field;
 
+/**
+ * A payload field and the object it is read from, the input of an {@link com.trendyol.jdempotent.core.chain.AnnotationChain}
+ *
+ * @deprecated the aspect resolves payload fields once per class and no longer uses the chain
+ */
+@Deprecated
 public class ChainData {
     private Field declaredField;
     private Object args;
@@ -6,12 +6,24 @@ import java.util.Map;
 import java.util.Objects;
 
 public class IdempotentIgnorableWrapper implements Serializable {
+    // the computed value of the class before the sized constructor was added, rows stored with it still deserialize
+    private static final long serialVersionUID = -1010476681884823575L;
+
     private Map<String, Object> nonIgnoredFields;
 
     public IdempotentIgnorableWrapper() {
         nonIgnoredFields = new HashMap<>();
     }
 
+    /**
+     * Creates a wrapper sized for the given number of fields so it is not rehashed while filled
+     *
+     * @param expectedSize
+     */
+    public IdempotentIgnorableWrapper(int expectedSize) {
+        nonIgnoredFields = new HashMap<>((int) (expectedSize / 0.75f) + 1);
+    }
+
     public Map<String, Object> getNonIgnoredFields() {
         return nonIgnoredFields;
     }
@@ -1,15 +1,23 @@
 package com.trendyol.jdempotent.core.model;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  *
  * Wraps the incoming event value
  *
+ * <p>The fingerprint of the payload is kept next to it, and alone when the payload is not persisted,
+ * so a stored call can still be checked against an incoming one.</p>
+ *
  */
-@SuppressWarnings("serial")
 public class IdempotentRequestWrapper implements Serializable {
+    // the computed value of the class before the fingerprint was added, the bundled repositories didn't
+    // Java-serialize it then but a custom repository may have, such a wrapper still deserializes without a fingerprint
+    private static final long serialVersionUID = 7914832126439772817L;
+
     private Object request;
+    private byte[] fingerprint;
 
     public IdempotentRequestWrapper(){
     }
@@ -18,10 +26,47 @@ public class IdempotentRequestWrapper implements Serializable {
         this.request = request;
     }
 
+    /**
+     * @param request
+     * @param fingerprint the fingerprint of the request, see {@link com.trendyol.jdempotent.core.generator.PayloadFingerprint}
+     */
+    public IdempotentRequestWrapper(Object request, byte[] fingerprint) {
+        this.request = request;
+        this.fingerprint = fingerprint;
+    }
+
     public Object getRequest() {
         return request;
     }
 
+    public byte[] getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return a wrapper with only the fingerprint, to store when requests are not persisted
+     */
+    public IdempotentRequestWrapper fingerprintOnly() {
+        return new IdempotentRequestWrapper(null, fingerprint);
+    }
+
+    /**
+     * Checks a stored request against this one by their fingerprints, or by their payloads when
+     * one of them has no fingerprint
+     *
+     * @param stored
+     * @return true when they match, or when the stored request has neither to check against
+     */
+    public boolean matches(IdempotentRequestWrapper stored) {
+        if (stored == null) {
+            return true;
+        }
+        if (fingerprint != null && stored.fingerprint != null) {
+            return Arrays.equals(fingerprint, stored.fingerprint);
+        }
+        return stored.request == null || equals(stored);
+    }
+
     @Override
     public int hashCode() {
         return request == null ? 0 : request.hashCode();
@@ -31,7 +76,7 @@ public class IdempotentRequestWrapper implements Serializable {
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
-        
+
         IdempotentRequestWrapper that = (IdempotentRequestWrapper) obj;
         return request != null ? request.equals(that.request) : that.request == null;
     }
@@ -1,5 +1,11 @@
 package com.trendyol.jdempotent.core.model;
 
+/**
+ * A payload field resolved by an {@link com.trendyol.jdempotent.core.chain.AnnotationChain}
+ *
+ * @deprecated the aspect resolves payload fields once per class and no longer uses the chain
+ */
+@Deprecated
 public class KeyValuePair {
     private String key;
     private Object value;
@@ -0,0 +1,132 @@
+package aspect.codec;
+
+import aspect.core.IdempotentTestPayload;
+import com.trendyol.jdempotent.core.codec.CodecException;
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.codec.JavaSerializationCodec;
+import com.trendyol.jdempotent.core.codec.Lz4CompressingCodec;
+import com.trendyol.jdempotent.core.codec.SmileCodec;
+import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdempotentCodecTest {
+
+    @Test
+    public void given_ignorable_wrapper_when_smile_round_trip_then_request_is_equal() {
+        //given
+        IdempotentCodec codec = new SmileCodec();
+        IdempotentIgnorableWrapper payload = new IdempotentIgnorableWrapper();
+        payload.getNonIgnoredFields().put("name", "payload");
+        payload.getNonIgnoredFields().put("transactionId", 123L);
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(payload);
+
+        //when
+        Object decoded = codec.decode(codec.encode(request));
+
+        //then
+        assertEquals(request, decoded);
+    }
+
+    @Test
+    public void given_ignorable_wrapper_serialized_by_an_earlier_release_when_java_decode_then_fields_are_equal() {
+        //given
+        // {eventId=1, name=jdempotent} written with ObjectOutputStream by the release before the sized constructor
+        byte[] stored = Base64.getDecoder().decode(
+                "rO0ABXNyAD1jb20udHJlbmR5b2wuamRlbXBvdGVudC5jb3JlLm1vZGVsLklkZW1wb3RlbnRJZ25vcmFibGVXcmFwcGVy8foQz8Jwj+kCAAFM"
+                        + "ABBub25JZ25vcmVkRmllbGRzdAAPTGphdmEvdXRpbC9NYXA7eHBzcgARamF2YS51dGlsLkhhc2hNYXAFB9rBwxZg0QMAAkYACmxvYWRG"
+                        + "YWN0b3JJAAl0aHJlc2hvbGR4cD9AAAAAAAAMdwgAAAAQAAAAAnQAB2V2ZW50SWRzcgAOamF2YS5sYW5nLkxvbmc7i+SQzI8j3wIAAUoA"
+                        + "BXZhbHVleHIAEGphdmEubGFuZy5OdW1iZXKGrJUdC5TgiwIAAHhwAAAAAAAAAAF0AARuYW1ldAAKamRlbXBvdGVudHg=");
+        IdempotentIgnorableWrapper expected = new IdempotentIgnorableWrapper();
+        expected.getNonIgnoredFields().put("name", "jdempotent");
+        expected.getNonIgnoredFields().put("eventId", 1L);
+
+        //when
+        Object decoded = JavaSerializationCodec.INSTANCE.decode(stored);
+
+        //then
+        assertEquals(expected, decoded);
+    }
+
+    @Test
+    public void given_request_wrapper_serialized_by_an_earlier_release_when_java_decode_then_request_is_equal_without_fingerprint() {
+        //given
+        // a wrapper of {eventId=1, name=jdempotent} written with ObjectOutputStream by the release before fingerprints
+        byte[] stored = Base64.getDecoder().decode(
+                "rO0ABXNyADtjb20udHJlbmR5b2wuamRlbXBvdGVudC5jb3JlLm1vZGVsLklkZW1wb3RlbnRSZXF1ZXN0V3JhcHBlcm3XIeJpStKRAgABTAAH"
+                        + "cmVxdWVzdHQAEkxqYXZhL2xhbmcvT2JqZWN0O3hwc3IAPWNvbS50cmVuZHlvbC5qZGVtcG90ZW50LmNvcmUubW9kZWwuSWRlbXBvdGVudEln"
+                        + "bm9yYWJsZVdyYXBwZXLx+hDPwnCP6QIAAUwAEG5vbklnbm9yZWRGaWVsZHN0AA9MamF2YS91dGlsL01hcDt4cHNyABFqYXZhLnV0aWwuSGFz"
+                        + "aE1hcAUH2sHDFmDRAwACRgAKbG9hZEZhY3RvckkACXRocmVzaG9sZHhwP0AAAAAAAAx3CAAAABAAAAACdAAHZXZlbnRJZHNyAA5qYXZhLmxh"
+                        + "bmcuTG9uZzuL5JDMjyPfAgABSgAFdmFsdWV4cgAQamF2YS5sYW5nLk51bWJlcoaslR0LlOCLAgAAeHAAAAAAAAAAAXQABG5hbWV0AApqZGVt"
+                        + "cG90ZW50eA==");
+        IdempotentIgnorableWrapper payload = new IdempotentIgnorableWrapper();
+        payload.getNonIgnoredFields().put("name", "jdempotent");
+        payload.getNonIgnoredFields().put("eventId", 1L);
+
+        //when
+        IdempotentRequestWrapper decoded = (IdempotentRequestWrapper) JavaSerializationCodec.INSTANCE.decode(stored);
+
+        //then
+        assertEquals(new IdempotentRequestWrapper(payload), decoded);
+        assertNull(decoded.getFingerprint());
+    }
+
+    @Test
+    public void given_response_which_is_not_serializable_when_smile_round_trip_then_response_is_equal() {
+        //given
+        IdempotentCodec codec = new SmileCodec("aspect.core");
+        IdempotentResponseWrapper response = new IdempotentResponseWrapper(new IdempotentTestPayload("payload"));
+
+        //when
+        IdempotentResponseWrapper decoded = (IdempotentResponseWrapper) codec.decode(codec.encode(response));
+
+        //then
+        assertEquals(new IdempotentTestPayload("payload"), decoded.getResponse());
+    }
+
+    @Test
+    public void given_response_outside_allowed_packages_when_smile_decode_then_throw_codec_exception() {
+        //given
+        IdempotentCodec codec = new SmileCodec("com.example");
+        byte[] encoded = codec.encode(new IdempotentResponseWrapper(new IdempotentTestPayload("payload")));
+
+        //when & then
+        assertThrows(CodecException.class, () -> codec.decode(encoded));
+    }
+
+    @Test
+    public void given_value_above_threshold_when_encode_with_lz4_then_output_is_smaller_and_round_trips() {
+        //given
+        IdempotentCodec codec = new Lz4CompressingCodec(JavaSerializationCodec.INSTANCE, 64);
+        IdempotentResponseWrapper response = new IdempotentResponseWrapper("response".repeat(100));
+
+        //when
+        byte[] encoded = codec.encode(response);
+
+        //then
+        assertTrue(encoded.length < JavaSerializationCodec.INSTANCE.encode(response).length);
+        assertEquals("response".repeat(100), ((IdempotentResponseWrapper) codec.decode(encoded)).getResponse());
+    }
+
+    @Test
+    public void given_value_below_threshold_when_encode_with_lz4_then_only_header_is_added() {
+        //given
+        IdempotentCodec codec = new Lz4CompressingCodec(JavaSerializationCodec.INSTANCE, 1024);
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
+
+        //when
+        byte[] encoded = codec.encode(request);
+
+        //then
+        assertEquals(JavaSerializationCodec.INSTANCE.encode(request).length + 1, encoded.length);
+        assertEquals(request, codec.decode(encoded));
+    }
+}
@@ -3,7 +3,13 @@ package aspect.core;
 import com.trendyol.jdempotent.core.annotation.JdempotentId;
 import com.trendyol.jdempotent.core.annotation.JdempotentRequestPayload;
 import com.trendyol.jdempotent.core.annotation.JdempotentResource;
+import com.trendyol.jdempotent.core.constant.CryptographyAlgorithm;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class TestIdempotentResource {
@@ -15,6 +21,10 @@ public class TestIdempotentResource {
         inc++;
     }
 
+    @JdempotentResource(cryptographyAlgorithm = CryptographyAlgorithm.MURMUR3_128)
+    public void idempotentMethodWithMurmurHash(IdempotentTestPayload testObject) {
+    }
+
     @JdempotentResource(cachePrefix = "TestIdempotentResource")
     public void idempotentMethodThrowingARuntimeException(IdempotentTestPayload testObject) {
         throw new TestException();
@@ -55,4 +65,54 @@ public class TestIdempotentResource {
     public TestPayloadWithKey idempotentMethodWithPayloadId(@JdempotentRequestPayload TestPayloadWithKey testObject) {
         return testObject;
     }
+
+    @JdempotentResource
+    public CompletableFuture<IdempotentTestPayload> idempotentAsyncMethod(@JdempotentId String idempotencyKey, @JdempotentRequestPayload IdempotentTestPayload testObject) {
+        return CompletableFuture.supplyAsync(() -> new IdempotentTestPayload(testObject.getName()));
+    }
+
+    @JdempotentResource
+    public CompletableFuture<IdempotentTestPayload> idempotentAsyncMethodThrowingARuntimeException(@JdempotentId String idempotencyKey, @JdempotentRequestPayload IdempotentTestPayload testObject) {
+        return CompletableFuture.supplyAsync(() -> {
+            throw new TestException();
+        });
+    }
+
+    @JdempotentResource
+    public Mono<IdempotentTestPayload> idempotentMonoMethod(@JdempotentId String idempotencyKey, @JdempotentRequestPayload IdempotentTestPayload testObject) {
+        return Mono.fromSupplier(() -> new IdempotentTestPayload(testObject.getName()));
+    }
+
+    public static volatile String monoMethodThread;
+
+    @JdempotentResource
+    public Mono<IdempotentTestPayload> idempotentMonoMethodRecordingThread(@JdempotentId String idempotencyKey, @JdempotentRequestPayload IdempotentTestPayload testObject) {
+        monoMethodThread = Thread.currentThread().getName();
+        return Mono.just(new IdempotentTestPayload(testObject.getName()));
+    }
+
+    @JdempotentResource
+    public Mono<IdempotentTestPayload> idempotentMonoMethodThrowingARuntimeException(@JdempotentId String idempotencyKey, @JdempotentRequestPayload IdempotentTestPayload testObject) {
+        return Mono.error(new TestException());
+    }
+
+    @JdempotentResource
+    public Flux<IdempotentTestPayload> idempotentFluxMethod(@JdempotentId String idempotencyKey, @JdempotentRequestPayload IdempotentTestPayload testObject) {
+        return Flux.just(new IdempotentTestPayload(testObject.getName()), new IdempotentTestPayload(testObject.getName()));
+    }
+
+    @JdempotentResource(batch = true)
+    public Integer idempotentBatchMethod(@JdempotentRequestPayload List<IdempotentTestPayload> testObjects) {
+        return testObjects.size();
+    }
+
+    @JdempotentResource(batch = true, cachePrefix = "keyed-batch")
+    public Integer idempotentBatchMethodWithPayloadIds(@JdempotentRequestPayload List<TestPayloadWithKey> testObjects) {
+        return testObjects.size();
+    }
+
+    @JdempotentResource(batch = true, cachePrefix = "failing-batch")
+    public Integer idempotentBatchMethodThrowingARuntimeException(@JdempotentRequestPayload List<IdempotentTestPayload> testObjects) {
+        throw new TestException();
+    }
 }
@@ -0,0 +1,21 @@
+package aspect.core;
+
+import com.trendyol.jdempotent.core.annotation.JdempotentIdTarget;
+import com.trendyol.jdempotent.core.annotation.JdempotentIgnore;
+
+public class TestInheritedPayload extends IdempotentTestPayload {
+    private String category;
+
+    @JdempotentIgnore
+    @JdempotentIdTarget
+    private String idempotencyKey;
+
+    public TestInheritedPayload(String name, String category) {
+        super(name);
+        this.category = category;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
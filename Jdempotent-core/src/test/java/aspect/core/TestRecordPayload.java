@@ -0,0 +1,7 @@
+package aspect.core;
+
+import com.trendyol.jdempotent.core.annotation.JdempotentIgnore;
+import com.trendyol.jdempotent.core.annotation.JdempotentProperty;
+
+public record TestRecordPayload(String name, @JdempotentProperty("transactionId") Long eventId, @JdempotentIgnore Long age) {
+}
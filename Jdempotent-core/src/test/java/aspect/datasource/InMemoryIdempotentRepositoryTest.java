@@ -0,0 +1,130 @@
+package aspect.datasource;
+
+import com.trendyol.jdempotent.core.datasource.InMemoryIdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryIdempotentRepositoryTest {
+
+    @Test
+    public void given_stored_key_when_store_again_with_cache_prefix_then_throw_request_already_exists() throws Exception {
+        //given
+        InMemoryIdempotentRepository repository = new InMemoryIdempotentRepository();
+        IdempotencyKey key = new IdempotencyKey("key");
+        repository.store(key, new IdempotentRequestWrapper("request"), "prefix", 1L, TimeUnit.HOURS);
+
+        //when & then
+        assertThrows(RequestAlreadyExistsException.class,
+                () -> repository.store(key, new IdempotentRequestWrapper("request"), "prefix", 1L, TimeUnit.HOURS));
+        assertNotNull(repository.getRequestResponseWrapper(key));
+    }
+
+    @Test
+    public void given_stored_key_when_store_if_absent_then_return_stored_call_and_keep_it() throws Exception {
+        //given
+        InMemoryIdempotentRepository repository = new InMemoryIdempotentRepository();
+        IdempotencyKey key = new IdempotencyKey("key");
+        IdempotentRequestWrapper first = new IdempotentRequestWrapper("first");
+
+        //when
+        IdempotentRequestResponseWrapper stored = repository.storeIfAbsent(key, first, 1L, TimeUnit.HOURS);
+        IdempotentRequestResponseWrapper existing = repository.storeIfAbsent(key, new IdempotentRequestWrapper("second"), 1L, TimeUnit.HOURS);
+
+        //then
+        assertNull(stored);
+        assertEquals(first, existing.getRequest());
+        assertEquals(first, repository.getRequestResponseWrapper(key).getRequest());
+    }
+
+    @Test
+    public void given_ttl_when_it_elapses_then_entry_expires() throws Exception {
+        //given
+        InMemoryIdempotentRepository repository = new InMemoryIdempotentRepository();
+        IdempotencyKey shortLived = new IdempotencyKey("short");
+        IdempotencyKey longLived = new IdempotencyKey("long");
+
+        //when
+        repository.store(shortLived, new IdempotentRequestWrapper("request"), 50L, TimeUnit.MILLISECONDS);
+        repository.store(longLived, new IdempotentRequestWrapper("request"), 1L, TimeUnit.HOURS);
+
+        //then
+        assertTrue(eventually(() -> !repository.contains(shortLived)));
+        assertTrue(repository.contains(longLived));
+    }
+
+    @Test
+    public void given_response_with_ttl_when_set_then_entry_keeps_response() throws Exception {
+        //given
+        InMemoryIdempotentRepository repository = new InMemoryIdempotentRepository(100, 1L, TimeUnit.HOURS);
+        IdempotencyKey key = new IdempotencyKey("key");
+        repository.store(key, new IdempotentRequestWrapper("request"), 0L, TimeUnit.HOURS);
+
+        //when
+        repository.setResponse(key, new IdempotentRequestWrapper("request"), new IdempotentResponseWrapper("response"), 1L, TimeUnit.HOURS);
+
+        //then
+        assertEquals("response", repository.getResponse(key).getResponse());
+    }
+
+    @Test
+    public void given_maximum_size_when_more_keys_stored_then_evict_down_to_it() throws Exception {
+        //given
+        InMemoryIdempotentRepository repository = new InMemoryIdempotentRepository(100);
+
+        //when
+        for (int i = 0; i < 1000; i++) {
+            repository.store(new IdempotencyKey("key-" + i), new IdempotentRequestWrapper("request"), 1L, TimeUnit.HOURS);
+        }
+
+        //then
+        assertTrue(eventually(() -> count(repository, 1000) <= 100));
+    }
+
+    @Test
+    public void given_maximum_weight_when_more_bytes_stored_then_evict_down_to_it() throws Exception {
+        //given
+        InMemoryIdempotentRepository repository = InMemoryIdempotentRepository.withMaximumWeight(64 * 1024, 0L, TimeUnit.HOURS);
+        String request = "x".repeat(1024);
+
+        //when
+        for (int i = 0; i < 1000; i++) {
+            repository.store(new IdempotencyKey("key-" + i), new IdempotentRequestWrapper(request), 1L, TimeUnit.HOURS);
+        }
+
+        //then
+        assertTrue(eventually(() -> count(repository, 1000) < 64));
+    }
+
+    private static int count(InMemoryIdempotentRepository repository, int keys) {
+        int count = 0;
+        for (int i = 0; i < keys; i++) {
+            if (repository.contains(new IdempotencyKey("key-" + i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return condition.getAsBoolean();
+    }
+}
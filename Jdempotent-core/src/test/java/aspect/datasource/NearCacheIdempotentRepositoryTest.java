@@ -0,0 +1,148 @@
+package aspect.datasource;
+
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.NearCacheIdempotentRepository;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NearCacheIdempotentRepositoryTest {
+
+    private final IdempotentRepository remote = mock(IdempotentRepository.class);
+    private final IdempotencyKey key = new IdempotencyKey("key");
+    private final IdempotentRequestWrapper request = new IdempotentRequestWrapper("request");
+    private final IdempotentResponseWrapper response = new IdempotentResponseWrapper("response");
+
+    @BeforeEach
+    public void setUp() {
+        when(remote.persistsRequests()).thenReturn(true);
+    }
+
+    @Test
+    public void given_completed_call_when_read_again_then_answer_without_remote_call() throws Exception {
+        //given
+        NearCacheIdempotentRepository repository = new NearCacheIdempotentRepository(remote, 100, 1, TimeUnit.HOURS);
+        repository.store(key, request, 1L, TimeUnit.HOURS);
+
+        //when
+        repository.setResponse(key, request, response, 1L, TimeUnit.HOURS);
+        IdempotentRequestResponseWrapper wrapper = repository.getRequestResponseWrapper(key);
+
+        //then
+        assertEquals(request, wrapper.getRequest());
+        assertEquals("response", wrapper.getResponse().getResponse());
+        verify(remote, times(1)).store(key, request, 1L, TimeUnit.HOURS);
+        verify(remote, times(1)).setResponse(key, request, response, 1L, TimeUnit.HOURS);
+        verify(remote, times(0)).getRequestResponseWrapper(any());
+    }
+
+    @Test
+    public void given_remote_not_persisting_requests_when_call_completes_then_keep_only_the_fingerprint_locally() throws Exception {
+        //given
+        when(remote.persistsRequests()).thenReturn(false);
+        NearCacheIdempotentRepository repository = new NearCacheIdempotentRepository(remote, 100, 1, TimeUnit.HOURS);
+        repository.store(key, request, 1L, TimeUnit.HOURS);
+
+        //when
+        repository.setResponse(key, request, response, 1L, TimeUnit.HOURS);
+        IdempotentRequestResponseWrapper wrapper = repository.getRequestResponseWrapper(key);
+
+        //then
+        assertNull(wrapper.getRequest().getRequest());
+        assertEquals(request.getFingerprint(), wrapper.getRequest().getFingerprint());
+        assertNull(wrapper.getResponse());
+        verify(remote, times(0)).getRequestResponseWrapper(any());
+    }
+
+    @Test
+    public void given_call_in_progress_when_read_then_ask_remote() {
+        //given
+        NearCacheIdempotentRepository repository = new NearCacheIdempotentRepository(remote, 100, 1, TimeUnit.HOURS);
+        IdempotentRequestResponseWrapper inProgress = new IdempotentRequestResponseWrapper(request);
+        when(remote.getRequestResponseWrapper(key)).thenReturn(inProgress);
+
+        //when
+        IdempotentRequestResponseWrapper wrapper = repository.getRequestResponseWrapper(key);
+
+        //then
+        assertEquals(inProgress, wrapper);
+        verify(remote, times(1)).getRequestResponseWrapper(key);
+    }
+
+    @Test
+    public void given_completed_call_when_removed_then_drop_local_copy() {
+        //given
+        NearCacheIdempotentRepository repository = new NearCacheIdempotentRepository(remote, 100, 1, TimeUnit.HOURS);
+        repository.setResponse(key, request, response, 1L, TimeUnit.HOURS);
+
+        //when
+        repository.remove(key);
+
+        //then
+        assertNull(repository.getRequestResponseWrapper(key));
+        verify(remote, times(1)).remove(key);
+        verify(remote, times(1)).getRequestResponseWrapper(key);
+    }
+
+    @Test
+    public void given_call_ttl_shorter_than_max_ttl_when_it_elapses_then_local_copy_expires() throws Exception {
+        //given
+        NearCacheIdempotentRepository repository = new NearCacheIdempotentRepository(remote, 100, 1, TimeUnit.HOURS);
+        repository.setResponse(key, request, response, 20L, TimeUnit.MILLISECONDS);
+
+        //when
+        Thread.sleep(100);
+
+        //then
+        assertNull(repository.getRequestResponseWrapper(key));
+        verify(remote, times(1)).getRequestResponseWrapper(key);
+    }
+
+    @Test
+    public void given_call_stored_before_its_response_when_remote_ttl_elapses_then_local_copy_expires_with_it() throws Exception {
+        //given
+        NearCacheIdempotentRepository repository = new NearCacheIdempotentRepository(remote, 100, 1, TimeUnit.HOURS);
+        repository.storeIfAbsent(key, request, 200L, TimeUnit.MILLISECONDS);
+        Thread.sleep(150);
+        repository.setResponse(key, request, response, 200L, TimeUnit.MILLISECONDS);
+
+        //when
+        Thread.sleep(100);
+
+        //then
+        assertNull(repository.getRequestResponseWrapper(key));
+        verify(remote, times(1)).getRequestResponseWrapper(key);
+    }
+
+    @Test
+    public void given_completed_and_new_calls_when_store_all_if_absent_then_only_ask_remote_for_new_ones() {
+        //given
+        NearCacheIdempotentRepository repository = new NearCacheIdempotentRepository(remote, 100, 1, TimeUnit.HOURS);
+        IdempotencyKey newKey = new IdempotencyKey("new-key");
+        repository.setResponses(Map.of(key, new IdempotentRequestResponseWrapper(request, response)), 1L, TimeUnit.HOURS);
+        when(remote.storeAllIfAbsent(Map.of(newKey, request), 1L, TimeUnit.HOURS)).thenReturn(Map.of());
+
+        //when
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing =
+                repository.storeAllIfAbsent(Map.of(key, request, newKey, request), 1L, TimeUnit.HOURS);
+
+        //then
+        assertEquals(1, existing.size());
+        assertEquals("response", existing.get(key).getResponse().getResponse());
+        verify(remote, times(1)).storeAllIfAbsent(Map.of(newKey, request), 1L, TimeUnit.HOURS);
+    }
+}
@@ -0,0 +1,210 @@
+package aspect.generator;
+
+import com.trendyol.jdempotent.core.generator.DefaultKeyGenerator;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import org.junit.jupiter.api.Test;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DefaultKeyGeneratorTest {
+
+    private final DefaultKeyGenerator keyGenerator = new DefaultKeyGenerator();
+
+    @Test
+    public void given_payload_when_generate_key_then_hex_is_fixed_width() throws NoSuchAlgorithmException {
+        //given
+        IdempotentRequestWrapper request = wrap("name", "jdempotent");
+
+        //when
+        IdempotencyKey key = generate(request, "");
+
+        //then
+        assertEquals(32, key.getKeyValue().length());
+        assertTrue(key.getKeyValue().matches("[0-9a-f]{32}"));
+    }
+
+    @Test
+    public void given_same_fields_in_different_insertion_order_when_generate_key_then_keys_are_equal() throws NoSuchAlgorithmException {
+        //given
+        IdempotentIgnorableWrapper first = new IdempotentIgnorableWrapper();
+        first.getNonIgnoredFields().put("name", "jdempotent");
+        first.getNonIgnoredFields().put("eventId", 1L);
+        first.getNonIgnoredFields().put("tags", List.of("a", "b"));
+        IdempotentIgnorableWrapper second = new IdempotentIgnorableWrapper(64);
+        second.getNonIgnoredFields().put("tags", List.of("a", "b"));
+        second.getNonIgnoredFields().put("eventId", 1L);
+        second.getNonIgnoredFields().put("name", "jdempotent");
+
+        //when
+        IdempotencyKey firstKey = generate(new IdempotentRequestWrapper(first), "");
+        IdempotencyKey secondKey = generate(new IdempotentRequestWrapper(second), "");
+
+        //then
+        assertEquals(firstKey, secondKey);
+    }
+
+    @Test
+    public void given_same_set_elements_in_different_iteration_order_when_generate_key_then_keys_are_equal() throws NoSuchAlgorithmException {
+        //given
+        Set<Object> first = new LinkedHashSet<>(List.of("b", 2L, "a"));
+        Set<Object> second = new LinkedHashSet<>(List.of("a", "b", 2L));
+
+        //when
+        IdempotencyKey firstKey = generate(wrap("tags", first), "");
+        IdempotencyKey secondKey = generate(wrap("tags", second), "");
+
+        //then
+        assertEquals(firstKey, secondKey);
+    }
+
+    @Test
+    public void given_map_keys_of_different_types_with_same_text_when_generate_key_then_insertion_order_does_not_change_key() throws NoSuchAlgorithmException {
+        //given
+        Map<Object, Object> first = new LinkedHashMap<>();
+        first.put("1", "text");
+        first.put(1L, "number");
+        Map<Object, Object> second = new LinkedHashMap<>();
+        second.put(1L, "number");
+        second.put("1", "text");
+
+        //when
+        IdempotencyKey firstKey = generate(wrap("values", first), "");
+        IdempotencyKey secondKey = generate(wrap("values", second), "");
+
+        //then
+        assertEquals(firstKey, secondKey);
+    }
+
+    @Test
+    public void given_cyclic_payload_when_generate_key_then_keys_follow_the_fields() throws NoSuchAlgorithmException {
+        //given
+        TestParent first = new TestParent("parent");
+        first.children.add(new TestChild("child", first));
+        TestParent same = new TestParent("parent");
+        same.children.add(new TestChild("child", same));
+        TestParent other = new TestParent("parent");
+        other.children.add(new TestChild("other", other));
+
+        //when
+        IdempotencyKey firstKey = generate(wrap("parent", first), "");
+        IdempotencyKey sameKey = generate(wrap("parent", same), "");
+        IdempotencyKey otherKey = generate(wrap("parent", other), "");
+
+        //then
+        assertEquals(firstKey, sameKey);
+        assertNotEquals(firstKey, otherKey);
+    }
+
+    @Test
+    public void given_payload_nested_deeper_than_the_limit_when_generate_key_then_keys_follow_the_values() throws NoSuchAlgorithmException {
+        //given
+        List<Object> first = new ArrayList<>(List.of("first"));
+        List<Object> second = new ArrayList<>(List.of("second"));
+        for (int i = 0; i < 64; i++) {
+            first = new ArrayList<>(List.of(first));
+            second = new ArrayList<>(List.of(second));
+        }
+
+        //when
+        IdempotencyKey firstKey = generate(wrap("nested", first), "");
+        IdempotencyKey secondKey = generate(wrap("nested", second), "");
+
+        //then
+        assertNotEquals(firstKey, secondKey);
+    }
+
+    @Test
+    public void given_values_with_shifted_boundaries_when_generate_key_then_keys_differ() throws NoSuchAlgorithmException {
+        //given
+        IdempotentRequestWrapper first = wrap("a", "bc");
+        IdempotentRequestWrapper second = wrap("ab", "c");
+
+        //when
+        IdempotencyKey firstKey = generate(first, "");
+        IdempotencyKey secondKey = generate(second, "");
+
+        //then
+        assertNotEquals(firstKey, secondKey);
+    }
+
+    @Test
+    public void given_string_and_number_with_same_text_when_generate_key_then_keys_differ() throws NoSuchAlgorithmException {
+        //given
+        IdempotentRequestWrapper first = wrap("eventId", "1");
+        IdempotentRequestWrapper second = wrap("eventId", 1L);
+
+        //when
+        IdempotencyKey firstKey = generate(first, "");
+        IdempotencyKey secondKey = generate(second, "");
+
+        //then
+        assertNotEquals(firstKey, secondKey);
+    }
+
+    @Test
+    public void given_listener_name_when_generate_key_then_key_is_prefixed() throws NoSuchAlgorithmException {
+        //given
+        IdempotentRequestWrapper request = wrap("name", "jdempotent");
+
+        //when
+        IdempotencyKey key = generate(request, "orders");
+
+        //then
+        assertTrue(key.getKeyValue().startsWith("orders-"));
+        assertEquals(generate(request, "").getKeyValue(), key.getKeyValue().substring("orders-".length()));
+    }
+
+    @Test
+    public void given_hash_tagged_prefix_when_generate_key_then_listener_name_is_the_hash_tag() throws NoSuchAlgorithmException {
+        //given
+        IdempotentRequestWrapper request = wrap("name", "jdempotent");
+
+        //when
+        IdempotencyKey key = new DefaultKeyGenerator(true).generateIdempotentKey(request, "orders", new StringBuilder(), MessageDigest.getInstance("MD5"));
+
+        //then
+        assertEquals("{orders-}" + generate(request, "").getKeyValue(), key.getKeyValue());
+    }
+
+    private IdempotentRequestWrapper wrap(String name, Object value) {
+        IdempotentIgnorableWrapper wrapper = new IdempotentIgnorableWrapper();
+        wrapper.getNonIgnoredFields().put(name, value);
+        return new IdempotentRequestWrapper(wrapper);
+    }
+
+    private IdempotencyKey generate(IdempotentRequestWrapper request, String listenerName) throws NoSuchAlgorithmException {
+        return keyGenerator.generateIdempotentKey(request, listenerName, new StringBuilder(), MessageDigest.getInstance("MD5"));
+    }
+
+    static class TestParent {
+        private final String name;
+        private final List<TestChild> children = new ArrayList<>();
+
+        TestParent(String name) {
+            this.name = name;
+        }
+    }
+
+    static class TestChild {
+        private final String name;
+        private final TestParent parent;
+
+        TestChild(String name, TestParent parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package aspect.generator;
+
+import com.trendyol.jdempotent.core.constant.CryptographyAlgorithm;
+import com.trendyol.jdempotent.core.generator.Murmur3MessageDigest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class Murmur3MessageDigestTest {
+
+    @Test
+    public void given_reference_inputs_when_digest_then_match_murmur3_x64_128() {
+        //given
+        MessageDigest messageDigest = new Murmur3MessageDigest();
+
+        //when
+        String fox = HexFormat.of().formatHex(messageDigest.digest("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8)));
+        String hello = HexFormat.of().formatHex(messageDigest.digest("hello".getBytes(StandardCharsets.UTF_8)));
+        String empty = HexFormat.of().formatHex(messageDigest.digest(new byte[0]));
+
+        //then
+        assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", fox);
+        assertEquals("029bbd41b3a7d8cb191dae486a901e5b", hello);
+        assertEquals("00000000000000000000000000000000", empty);
+    }
+
+    @Test
+    public void given_input_split_in_chunks_when_digest_then_equal_to_single_update() {
+        //given
+        byte[] input = "idempotency keys are hashed in streamed chunks of any size".getBytes(StandardCharsets.UTF_8);
+        MessageDigest whole = new Murmur3MessageDigest();
+        MessageDigest chunked = new Murmur3MessageDigest();
+
+        //when
+        whole.update(input);
+        chunked.update(input, 0, 3);
+        chunked.update(input[3]);
+        chunked.update(input, 4, 20);
+        chunked.update(input, 24, input.length - 24);
+
+        //then
+        assertEquals(HexFormat.of().formatHex(whole.digest()), HexFormat.of().formatHex(chunked.digest()));
+    }
+
+    @Test
+    public void given_algorithm_names_when_resolve_then_return_cryptography_algorithm() throws NoSuchAlgorithmException {
+        //then
+        assertEquals(CryptographyAlgorithm.MURMUR3_128, CryptographyAlgorithm.of("MURMUR3_128"));
+        assertEquals(CryptographyAlgorithm.MURMUR3_128, CryptographyAlgorithm.of("murmur3-128"));
+        assertEquals(CryptographyAlgorithm.SHA256, CryptographyAlgorithm.of("SHA-256"));
+        assertInstanceOf(Murmur3MessageDigest.class, CryptographyAlgorithm.MURMUR3_128.newMessageDigest());
+        assertThrows(IllegalArgumentException.class, () -> CryptographyAlgorithm.of("CRC32"));
+    }
+}
@@ -0,0 +1,73 @@
+package aspect.generator;
+
+import com.trendyol.jdempotent.core.generator.DefaultKeyGenerator;
+import com.trendyol.jdempotent.core.generator.FingerprintingMessageDigest;
+import com.trendyol.jdempotent.core.generator.PayloadFingerprint;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+public class PayloadFingerprintTest {
+
+    @Test
+    public void given_same_fields_in_different_insertion_order_when_fingerprint_then_fingerprints_are_equal() {
+        //given
+        IdempotentIgnorableWrapper first = new IdempotentIgnorableWrapper();
+        first.getNonIgnoredFields().put("name", "jdempotent");
+        first.getNonIgnoredFields().put("eventId", 1L);
+        IdempotentIgnorableWrapper second = new IdempotentIgnorableWrapper();
+        second.getNonIgnoredFields().put("eventId", 1L);
+        second.getNonIgnoredFields().put("name", "jdempotent");
+
+        //when
+        byte[] firstFingerprint = PayloadFingerprint.of(first);
+        byte[] secondFingerprint = PayloadFingerprint.of(second);
+
+        //then
+        assertEquals(16, firstFingerprint.length);
+        assertArrayEquals(firstFingerprint, secondFingerprint);
+    }
+
+    @Test
+    public void given_different_field_values_when_fingerprint_then_fingerprints_differ() {
+        //given
+        IdempotentIgnorableWrapper first = new IdempotentIgnorableWrapper();
+        first.getNonIgnoredFields().put("name", "first");
+        IdempotentIgnorableWrapper second = new IdempotentIgnorableWrapper();
+        second.getNonIgnoredFields().put("name", "second");
+
+        //when
+        byte[] firstFingerprint = PayloadFingerprint.of(first);
+        byte[] secondFingerprint = PayloadFingerprint.of(second);
+
+        //then
+        assertFalse(Arrays.equals(firstFingerprint, secondFingerprint));
+    }
+
+    @Test
+    public void given_a_fingerprinting_digest_when_generate_key_then_hash_the_same_key_and_fingerprint_as_separate_walks() throws Exception {
+        //given
+        IdempotentIgnorableWrapper payload = new IdempotentIgnorableWrapper();
+        payload.getNonIgnoredFields().put("name", "jdempotent");
+        payload.getNonIgnoredFields().put("eventId", 1L);
+        DefaultKeyGenerator keyGenerator = new DefaultKeyGenerator();
+        FingerprintingMessageDigest messageDigest = new FingerprintingMessageDigest().wrap(MessageDigest.getInstance("MD5"));
+
+        //when
+        IdempotencyKey key = keyGenerator.generateIdempotentKey(new IdempotentRequestWrapper(payload), "listener",
+                new StringBuilder(), messageDigest);
+
+        //then
+        assertEquals(keyGenerator.generateIdempotentKey(new IdempotentRequestWrapper(payload), "listener",
+                new StringBuilder(), MessageDigest.getInstance("MD5")), key);
+        assertArrayEquals(PayloadFingerprint.of(payload), messageDigest.fingerprint());
+    }
+}
@@ -0,0 +1,124 @@
+package aspect.metrics;
+
+import aspect.core.IdempotentTestPayload;
+import aspect.core.TestException;
+import aspect.core.TestIdempotentResource;
+import aspect.errorcallback.TestCustomErrorCallback;
+import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
+import com.trendyol.jdempotent.core.datasource.InMemoryIdempotentRepository;
+import com.trendyol.jdempotent.core.metrics.MicrometerIdempotentMetrics;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MicrometerIdempotentMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void given_new_and_duplicate_payload_when_trigger_aspect_then_record_a_miss_and_a_hit() {
+        //given
+        IdempotentAspect aspect = new IdempotentAspect(new InMemoryIdempotentRepository());
+        aspect.setMetrics(new MicrometerIdempotentMetrics(meterRegistry, "inmemory"));
+        TestIdempotentResource resource = proxy(aspect);
+
+        //when
+        resource.idempotentMethodReturnArg(new IdempotentTestPayload("metrics"));
+        resource.idempotentMethodReturnArg(new IdempotentTestPayload("metrics"));
+
+        //then
+        assertEquals(1.0, meterRegistry.get("jdempotent.misses").tags("cache.prefix", "none", "repository", "inmemory").counter().count());
+        assertEquals(1.0, meterRegistry.get("jdempotent.hits").counter().count());
+        assertEquals(2L, meterRegistry.get("jdempotent.key.generation").timer().count());
+        assertEquals(1L, meterRegistry.get("jdempotent.proceed").timer().count());
+        assertEquals(2L, meterRegistry.get("jdempotent.repository").tag("operation", "storeIfAbsent").timer().count());
+        assertEquals(1L, meterRegistry.get("jdempotent.repository").tag("operation", "setResponse").timer().count());
+        assertEquals(0L, meterRegistry.get("jdempotent.repository").tag("operation", "remove").timer().count());
+    }
+
+    @Test
+    public void given_error_condition_when_trigger_aspect_then_count_error_callback_removal() {
+        //given
+        IdempotentAspect aspect = new IdempotentAspect(new InMemoryIdempotentRepository(), new TestCustomErrorCallback());
+        aspect.setMetrics(new MicrometerIdempotentMetrics(meterRegistry, "inmemory"));
+        TestIdempotentResource resource = proxy(aspect);
+
+        //when
+        assertThrows(TestException.class, () -> resource.idempotentMethodReturnArg(new IdempotentTestPayload("test")));
+
+        //then
+        assertEquals(1.0, meterRegistry.get("jdempotent.error.callback.removals").counter().count());
+        assertEquals(0.0, meterRegistry.get("jdempotent.hits").counter().count());
+    }
+
+    @Test
+    public void given_error_condition_when_async_method_completes_then_remove_key_and_record_proceed_once() {
+        //given
+        IdempotentAspect aspect = new IdempotentAspect(new InMemoryIdempotentRepository(), new TestCustomErrorCallback());
+        aspect.setMetrics(new MicrometerIdempotentMetrics(meterRegistry, "inmemory"));
+        TestIdempotentResource resource = proxy(aspect);
+
+        //when
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> resource.idempotentAsyncMethod("async-rejected", new IdempotentTestPayload("test")).join());
+
+        //then
+        assertEquals(TestException.class, exception.getCause().getClass());
+        assertEquals(1.0, meterRegistry.get("jdempotent.error.callback.removals").counter().count());
+        assertEquals(1L, meterRegistry.get("jdempotent.proceed").timer().count());
+        assertEquals(1L, meterRegistry.get("jdempotent.repository").tag("operation", "remove").timer().count());
+    }
+
+    @Test
+    public void given_error_condition_when_mono_method_completes_then_remove_key_and_record_proceed_once() {
+        //given
+        IdempotentAspect aspect = new IdempotentAspect(new InMemoryIdempotentRepository(), new TestCustomErrorCallback());
+        aspect.setMetrics(new MicrometerIdempotentMetrics(meterRegistry, "inmemory"));
+        TestIdempotentResource resource = proxy(aspect);
+
+        //when
+        assertThrows(TestException.class, () -> resource.idempotentMonoMethod("mono-rejected", new IdempotentTestPayload("test")).block());
+
+        //then
+        assertEquals(1.0, meterRegistry.get("jdempotent.error.callback.removals").counter().count());
+        assertEquals(1L, meterRegistry.get("jdempotent.proceed").timer().count());
+        assertEquals(1L, meterRegistry.get("jdempotent.repository").tag("operation", "remove").timer().count());
+    }
+
+    @Test
+    public void given_failing_set_response_when_trigger_aspect_then_record_set_response_time() {
+        //given
+        IdempotentAspect aspect = new IdempotentAspect(new InMemoryIdempotentRepository() {
+            @Override
+            public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request,
+                                    IdempotentResponseWrapper response, Long ttl, TimeUnit timeUnit) {
+                throw new IllegalStateException("repository is down");
+            }
+        });
+        aspect.setMetrics(new MicrometerIdempotentMetrics(meterRegistry, "inmemory"));
+        TestIdempotentResource resource = proxy(aspect);
+
+        //when
+        assertThrows(IllegalStateException.class, () -> resource.idempotentMethodReturnArg(new IdempotentTestPayload("failing")));
+
+        //then
+        assertEquals(1L, meterRegistry.get("jdempotent.repository").tag("operation", "setResponse").timer().count());
+        assertEquals(1L, meterRegistry.get("jdempotent.repository").tag("operation", "remove").timer().count());
+    }
+
+    private static TestIdempotentResource proxy(IdempotentAspect aspect) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new TestIdempotentResource());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(aspect);
+        return proxyFactory.getProxy();
+    }
+}
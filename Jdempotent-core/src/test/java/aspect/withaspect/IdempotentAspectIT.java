@@ -4,14 +4,23 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
@@ -24,19 +33,28 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.util.AopTestUtils;
 
 import com.trendyol.jdempotent.core.annotation.JdempotentResource;
+import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
 import com.trendyol.jdempotent.core.constant.CryptographyAlgorithm;
 import com.trendyol.jdempotent.core.datasource.InMemoryIdempotentRepository;
 import com.trendyol.jdempotent.core.datasource.PayloadConflictException;
+import com.trendyol.jdempotent.core.datasource.ReactiveIdempotentRepository;
 import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
+import com.trendyol.jdempotent.core.datasource.SkippedBatchElementsException;
 import com.trendyol.jdempotent.core.generator.DefaultKeyGenerator;
+import com.trendyol.jdempotent.core.generator.Murmur3MessageDigest;
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
 import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
 import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
 
 import aspect.core.IdempotentTestPayload;
 import aspect.core.TestException;
 import aspect.core.TestIdempotentResource;
 import aspect.core.TestPayloadWithKey;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {IdempotentAspectIT.class, TestAopContext.class, TestIdempotentResource.class, DefaultKeyGenerator.class, InMemoryIdempotentRepository.class})
@@ -51,6 +69,9 @@ public class IdempotentAspectIT {
     @Autowired
     private DefaultKeyGenerator defaultKeyGenerator;
 
+    @Autowired
+    private IdempotentAspect idempotentAspect;
+
 
     @Test
     public void given_aop_context_then_run_with_aop_context() {
@@ -83,6 +104,25 @@ public class IdempotentAspectIT {
         assertNotNull(idempotentRepository.getRequestResponseWrapper(idempotencyKey));
     }
 
+    @Test
+    public void given_resource_with_murmur_hash_when_trigger_aspect_then_key_is_hashed_with_murmur() throws NoSuchAlgorithmException {
+        //given
+        IdempotentTestPayload test = new IdempotentTestPayload("murmur");
+        IdempotentIgnorableWrapper wrapper = new IdempotentIgnorableWrapper();
+        wrapper.getNonIgnoredFields().put("name", "murmur");
+        wrapper.getNonIgnoredFields().put("transactionId", null);
+
+        IdempotencyKey murmurKey = defaultKeyGenerator.generateIdempotentKey(new IdempotentRequestWrapper(wrapper), "", new StringBuilder(), new Murmur3MessageDigest());
+        IdempotencyKey md5Key = defaultKeyGenerator.generateIdempotentKey(new IdempotentRequestWrapper(wrapper), "", new StringBuilder(), MessageDigest.getInstance(CryptographyAlgorithm.MD5.value()));
+
+        //when
+        testIdempotentResource.idempotentMethodWithMurmurHash(test);
+
+        //then
+        assertNotNull(idempotentRepository.getRequestResponseWrapper(murmurKey));
+        assertNull(idempotentRepository.getRequestResponseWrapper(md5Key));
+    }
+
     @Test
     public void given_new_multiple_payloads_when_trigger_aspect_then_that_will_be_available_in_repository() throws NoSuchAlgorithmException {
         //given
@@ -304,4 +344,357 @@ public class IdempotentAspectIT {
             testIdempotentResource.idempotentMethodWithPayloadId(secondPayload)
         );
     }
+
+    @Test
+    public void given_async_method_when_future_completes_then_response_is_saved_and_replayed() {
+        //given
+        IdempotencyKey idempotencyKey = new IdempotencyKey("async-key-1");
+        IdempotentTestPayload payload = new IdempotentTestPayload("async");
+
+        //when
+        IdempotentTestPayload firstResult = testIdempotentResource.idempotentAsyncMethod("async-key-1", payload).join();
+        CompletableFuture<IdempotentTestPayload> secondCall = testIdempotentResource.idempotentAsyncMethod("async-key-1", payload);
+
+        //then
+        assertSame(firstResult, idempotentRepository.getResponse(idempotencyKey).getResponse());
+        assertTrue(secondCall.isDone());
+        assertSame(firstResult, secondCall.join());
+    }
+
+    @Test
+    public void given_async_method_when_future_fails_then_repository_will_be_empty() {
+        //given
+        IdempotentTestPayload payload = new IdempotentTestPayload("async-failure");
+        CompletableFuture<IdempotentTestPayload> result = testIdempotentResource.idempotentAsyncMethodThrowingARuntimeException("async-key-2", payload);
+
+        //when
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+
+        //then
+        assertTrue(exception.getCause() instanceof TestException);
+        assertNull(idempotentRepository.getRequestResponseWrapper(new IdempotencyKey("async-key-2")));
+    }
+
+    @Test
+    public void given_mono_method_when_called_twice_then_second_subscription_replays_saved_response() {
+        //given
+        IdempotentTestPayload payload = new IdempotentTestPayload("mono");
+
+        //when
+        IdempotentTestPayload firstResult = testIdempotentResource.idempotentMonoMethod("mono-key-1", payload).block();
+        IdempotentTestPayload secondResult = testIdempotentResource.idempotentMonoMethod("mono-key-1", payload).block();
+
+        //then
+        assertNotNull(firstResult);
+        assertSame(firstResult, secondResult);
+        assertSame(firstResult, idempotentRepository.getResponse(new IdempotencyKey("mono-key-1")).getResponse());
+    }
+
+    @Test
+    public void given_flux_method_when_called_twice_then_second_subscription_replays_saved_elements() {
+        //given
+        IdempotentTestPayload payload = new IdempotentTestPayload("flux");
+
+        //when
+        List<IdempotentTestPayload> firstResult = testIdempotentResource.idempotentFluxMethod("flux-key-1", payload).collectList().block();
+        List<IdempotentTestPayload> secondResult = testIdempotentResource.idempotentFluxMethod("flux-key-1", payload).collectList().block();
+
+        //then
+        assertEquals(2, firstResult.size());
+        assertEquals(firstResult, secondResult);
+        assertEquals(firstResult, idempotentRepository.getResponse(new IdempotencyKey("flux-key-1")).getResponse());
+    }
+
+    @Test
+    public void given_reactive_repository_when_mono_method_called_twice_then_nothing_stored_before_subscription_and_response_replayed() {
+        //given
+        IdempotentTestPayload payload = new IdempotentTestPayload("reactive-mono");
+        idempotentAspect.setReactiveIdempotentRepository(new BlockingReactiveIdempotentRepository(idempotentRepository));
+
+        try {
+            //when
+            Mono<IdempotentTestPayload> firstCall = testIdempotentResource.idempotentMonoMethod("reactive-mono-key-1", payload);
+            boolean storedBeforeSubscription = idempotentRepository.contains(new IdempotencyKey("reactive-mono-key-1"));
+            IdempotentTestPayload firstResult = firstCall.block();
+            IdempotentTestPayload secondResult = testIdempotentResource.idempotentMonoMethod("reactive-mono-key-1", payload).block();
+
+            //then
+            assertTrue(!storedBeforeSubscription);
+            assertNotNull(firstResult);
+            assertSame(firstResult, secondResult);
+            assertSame(firstResult, idempotentRepository.getResponse(new IdempotencyKey("reactive-mono-key-1")).getResponse());
+        } finally {
+            idempotentAspect.setReactiveIdempotentRepository(null);
+        }
+    }
+
+    @Test
+    public void given_reactive_repository_when_mono_fails_then_repository_will_be_empty() {
+        //given
+        IdempotentTestPayload payload = new IdempotentTestPayload("reactive-failure");
+        idempotentAspect.setReactiveIdempotentRepository(new BlockingReactiveIdempotentRepository(idempotentRepository));
+
+        try {
+            //when
+            Mono<IdempotentTestPayload> result = testIdempotentResource.idempotentMonoMethodThrowingARuntimeException("reactive-mono-key-2", payload);
+
+            //then
+            assertThrows(TestException.class, result::block);
+            assertNull(idempotentRepository.getRequestResponseWrapper(new IdempotencyKey("reactive-mono-key-2")));
+        } finally {
+            idempotentAspect.setReactiveIdempotentRepository(null);
+        }
+    }
+
+    @Test
+    public void given_reactive_repository_when_flux_called_with_another_payload_then_throw_payload_conflict() {
+        //given
+        idempotentAspect.setReactiveIdempotentRepository(new BlockingReactiveIdempotentRepository(idempotentRepository));
+
+        try {
+            //when
+            List<IdempotentTestPayload> firstResult = testIdempotentResource.idempotentFluxMethod("reactive-flux-key-1", new IdempotentTestPayload("first")).collectList().block();
+
+            //then
+            assertEquals(2, firstResult.size());
+            assertThrows(PayloadConflictException.class,
+                    () -> testIdempotentResource.idempotentFluxMethod("reactive-flux-key-1", new IdempotentTestPayload("second")).blockLast());
+        } finally {
+            idempotentAspect.setReactiveIdempotentRepository(null);
+        }
+    }
+
+    @Test
+    public void given_reactive_repository_completing_on_another_thread_when_mono_method_called_then_method_does_not_run_on_that_thread() {
+        //given
+        IdempotentTestPayload payload = new IdempotentTestPayload("reactive-thread");
+        Scheduler repositoryThread = Schedulers.newSingle("repository-io");
+        idempotentAspect.setReactiveIdempotentRepository(new BlockingReactiveIdempotentRepository(idempotentRepository, repositoryThread));
+
+        try {
+            //when
+            IdempotentTestPayload result = testIdempotentResource.idempotentMonoMethodRecordingThread("reactive-thread-key-1", payload).block();
+
+            //then
+            assertNotNull(result);
+            assertTrue(TestIdempotentResource.monoMethodThread.startsWith("boundedElastic"), TestIdempotentResource.monoMethodThread);
+            assertSame(result, idempotentRepository.getResponse(new IdempotencyKey("reactive-thread-key-1")).getResponse());
+        } finally {
+            idempotentAspect.setReactiveIdempotentRepository(null);
+            repositoryThread.dispose();
+        }
+    }
+
+    @Test
+    public void given_reactive_repository_when_async_method_called_twice_then_blocking_repository_saves_and_replays_response() {
+        //given
+        IdempotentTestPayload payload = new IdempotentTestPayload("reactive-async");
+        idempotentAspect.setReactiveIdempotentRepository(new BlockingReactiveIdempotentRepository(new InMemoryIdempotentRepository()));
+
+        try {
+            //when
+            IdempotentTestPayload firstResult = testIdempotentResource.idempotentAsyncMethod("reactive-async-key-1", payload).join();
+            IdempotentTestPayload secondResult = testIdempotentResource.idempotentAsyncMethod("reactive-async-key-1", payload).join();
+
+            //then
+            assertSame(firstResult, secondResult);
+            assertSame(firstResult, idempotentRepository.getResponse(new IdempotencyKey("reactive-async-key-1")).getResponse());
+        } finally {
+            idempotentAspect.setReactiveIdempotentRepository(null);
+        }
+    }
+
+    @Test
+    public void given_reactive_repository_when_async_method_fails_then_blocking_repository_will_be_empty() {
+        //given
+        IdempotentTestPayload payload = new IdempotentTestPayload("reactive-async-failure");
+        idempotentAspect.setReactiveIdempotentRepository(new BlockingReactiveIdempotentRepository(idempotentRepository));
+
+        try {
+            //when
+            CompletableFuture<IdempotentTestPayload> result = testIdempotentResource.idempotentAsyncMethodThrowingARuntimeException("reactive-async-key-2", payload);
+            CompletionException exception = assertThrows(CompletionException.class, result::join);
+
+            //then
+            assertTrue(exception.getCause() instanceof TestException);
+            assertNull(idempotentRepository.getRequestResponseWrapper(new IdempotencyKey("reactive-async-key-2")));
+        } finally {
+            idempotentAspect.setReactiveIdempotentRepository(null);
+        }
+    }
+
+    @Test
+    public void given_batch_with_processed_elements_when_called_then_proceed_only_with_new_ones() {
+        //given
+        IdempotentTestPayload processed = new IdempotentTestPayload("batch-processed");
+        testIdempotentResource.idempotentBatchMethod(List.of(processed));
+
+        //when
+        Integer firstResult = testIdempotentResource.idempotentBatchMethod(List.of(
+                new IdempotentTestPayload("batch-processed"), new IdempotentTestPayload("batch-new-1"),
+                new IdempotentTestPayload("batch-new-2"), new IdempotentTestPayload("batch-new-2")));
+        Integer secondResult = testIdempotentResource.idempotentBatchMethod(List.of(
+                new IdempotentTestPayload("batch-new-1"), new IdempotentTestPayload("batch-new-2")));
+
+        //then
+        assertEquals(2, firstResult);
+        assertNull(secondResult);
+    }
+
+    @Test
+    public void given_batch_when_method_fails_then_every_new_element_will_be_removed() {
+        //given
+        List<IdempotentTestPayload> batch = List.of(new IdempotentTestPayload("failing-batch-1"), new IdempotentTestPayload("failing-batch-2"));
+
+        //when
+        assertThrows(TestException.class, () -> testIdempotentResource.idempotentBatchMethodThrowingARuntimeException(batch));
+
+        //then
+        assertThrows(TestException.class, () -> testIdempotentResource.idempotentBatchMethodThrowingARuntimeException(batch));
+    }
+
+    @Test
+    public void given_batch_with_conflicting_element_when_called_then_report_it_after_saving_the_others() {
+        //given
+        testIdempotentResource.idempotentBatchMethodWithPayloadIds(List.of(payloadWithKey("keyed-batch-1", "stored")));
+
+        //when
+        SkippedBatchElementsException exception = assertThrows(SkippedBatchElementsException.class,
+                () -> testIdempotentResource.idempotentBatchMethodWithPayloadIds(List.of(
+                        payloadWithKey("keyed-batch-1", "changed"), payloadWithKey("keyed-batch-2", "new"))));
+
+        //then
+        assertEquals(1, exception.getResult());
+        assertEquals(List.of(new IdempotencyKey("keyed-batch-1")), exception.getConflictingKeys());
+        assertTrue(exception.getInFlightKeys().isEmpty());
+        assertNull(testIdempotentResource.idempotentBatchMethodWithPayloadIds(List.of(payloadWithKey("keyed-batch-2", "new"))));
+    }
+
+    @Test
+    public void given_batch_with_element_held_by_another_call_when_called_then_report_it_as_in_flight() {
+        //given
+        idempotentAspect.setIdempotentRepository(new InMemoryIdempotentRepository() {
+            @Override
+            public Map<IdempotencyKey, IdempotentRequestResponseWrapper> storeAllIfAbsent(Map<IdempotencyKey, IdempotentRequestWrapper> requests,
+                                                                                      Long ttl, TimeUnit timeUnit) {
+                return Map.of(new IdempotencyKey("keyed-batch-in-flight"), ALREADY_EXISTS);
+            }
+        });
+
+        try {
+            //when
+            SkippedBatchElementsException exception = assertThrows(SkippedBatchElementsException.class,
+                    () -> testIdempotentResource.idempotentBatchMethodWithPayloadIds(List.of(
+                            payloadWithKey("keyed-batch-in-flight", "held"), payloadWithKey("keyed-batch-free", "free"))));
+
+            //then
+            assertEquals(1, exception.getResult());
+            assertEquals(List.of(new IdempotencyKey("keyed-batch-in-flight")), exception.getInFlightKeys());
+            assertTrue(exception.getConflictingKeys().isEmpty());
+        } finally {
+            idempotentAspect.setIdempotentRepository(idempotentRepository);
+        }
+    }
+
+    @Test
+    public void given_batch_skipped_for_an_element_in_flight_when_retried_then_proceed_only_with_that_element() {
+        //given
+        IdempotencyKey heldKey = new IdempotencyKey("keyed-batch-retried-held");
+        AtomicBoolean held = new AtomicBoolean(true);
+        idempotentAspect.setIdempotentRepository(new InMemoryIdempotentRepository() {
+            @Override
+            public Map<IdempotencyKey, IdempotentRequestResponseWrapper> storeAllIfAbsent(Map<IdempotencyKey, IdempotentRequestWrapper> requests,
+                                                                                      Long ttl, TimeUnit timeUnit) {
+                if (!held.get()) {
+                    return super.storeAllIfAbsent(requests, ttl, timeUnit);
+                }
+                Map<IdempotencyKey, IdempotentRequestWrapper> others = new LinkedHashMap<>(requests);
+                others.remove(heldKey);
+                Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = new LinkedHashMap<>(super.storeAllIfAbsent(others, ttl, timeUnit));
+                existing.put(heldKey, ALREADY_EXISTS);
+                return existing;
+            }
+        });
+        List<TestPayloadWithKey> batch = List.of(payloadWithKey("keyed-batch-retried-held", "held"),
+                payloadWithKey("keyed-batch-retried-free", "free"));
+
+        try {
+            SkippedBatchElementsException exception = assertThrows(SkippedBatchElementsException.class,
+                    () -> testIdempotentResource.idempotentBatchMethodWithPayloadIds(batch));
+            held.set(false);
+
+            //when
+            Integer retryResult = testIdempotentResource.idempotentBatchMethodWithPayloadIds(batch);
+            Integer secondRetryResult = testIdempotentResource.idempotentBatchMethodWithPayloadIds(batch);
+
+            //then
+            assertEquals(List.of(heldKey), exception.getInFlightKeys());
+            assertEquals(1, retryResult);
+            assertNull(secondRetryResult);
+        } finally {
+            idempotentAspect.setIdempotentRepository(idempotentRepository);
+        }
+    }
+
+    @Test
+    public void given_batch_with_null_element_when_called_then_throw_illegal_argument_exception() {
+        //given
+        List<IdempotentTestPayload> batch = Arrays.asList(new IdempotentTestPayload("batch-before-null"), null);
+
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> testIdempotentResource.idempotentBatchMethod(batch));
+
+        //then
+        assertTrue(exception.getMessage().contains("null element at index 1"));
+    }
+
+    private static TestPayloadWithKey payloadWithKey(String idempotencyKey, String name) {
+        TestPayloadWithKey payload = new TestPayloadWithKey();
+        payload.setIdempotencyKey(idempotencyKey);
+        payload.setName(name);
+        return payload;
+    }
+
+    /**
+     * A reactive repository over the in memory one
+     */
+    private static class BlockingReactiveIdempotentRepository implements ReactiveIdempotentRepository {
+        private final InMemoryIdempotentRepository repository;
+        private final Scheduler scheduler;
+
+        private BlockingReactiveIdempotentRepository(InMemoryIdempotentRepository repository) {
+            this(repository, null);
+        }
+
+        /**
+         * @param repository
+         * @param scheduler completes storeIfAbsent on its thread like a client event loop, null for the caller's thread
+         */
+        private BlockingReactiveIdempotentRepository(InMemoryIdempotentRepository repository, Scheduler scheduler) {
+            this.repository = repository;
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public Mono<IdempotentRequestResponseWrapper> storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper requestObject, Long ttl, TimeUnit timeUnit) {
+            Mono<IdempotentRequestResponseWrapper> stored = Mono.fromCallable(() -> repository.storeIfAbsent(key, requestObject, ttl, timeUnit));
+            return scheduler != null ? stored.subscribeOn(scheduler) : stored;
+        }
+
+        @Override
+        public Mono<IdempotentRequestResponseWrapper> getRequestResponseWrapper(IdempotencyKey key) {
+            return Mono.fromCallable(() -> repository.getRequestResponseWrapper(key));
+        }
+
+        @Override
+        public Mono<Void> setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper idempotentResponse, Long ttl, TimeUnit timeUnit) {
+            return Mono.fromRunnable(() -> repository.setResponse(key, request, idempotentResponse, ttl, timeUnit));
+        }
+
+        @Override
+        public Mono<Void> remove(IdempotencyKey key) {
+            return Mono.fromRunnable(() -> repository.remove(key));
+        }
+    }
 }
@@ -1,12 +1,18 @@
 package aspect.withaspect;
 
 import aspect.core.IdempotentTestPayload;
+import aspect.core.TestInheritedPayload;
+import aspect.core.TestRecordPayload;
 import aspect.core.TestIdempotentResource;
 import com.trendyol.jdempotent.core.annotation.JdempotentResource;
 import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
 import com.trendyol.jdempotent.core.callback.ErrorConditionalCallback;
 import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.InFlightRequestFailedException;
+import com.trendyol.jdempotent.core.datasource.PayloadConflictException;
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
 import com.trendyol.jdempotent.core.generator.DefaultKeyGenerator;
+import com.trendyol.jdempotent.core.generator.PayloadFingerprint;
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
 import com.trendyol.jdempotent.core.model.IdempotentIgnorableWrapper;
 import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
@@ -21,8 +27,17 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -58,16 +73,16 @@ public class IdempotentAspectUT {
         when(signature.getMethod()).thenReturn(method);
         when(joinPoint.getTarget()).thenReturn(testIdempotentResource);
         when(joinPoint.getTarget().getClass().getSimpleName()).thenReturn("TestIdempotentResource");
-        when(idempotentRepository.getRequestResponseWrapper(any())).thenReturn(null);
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(null);
 
         //when
         idempotentAspect.execute(joinPoint);
 
         //then
-        verify(joinPoint, times(5)).getSignature();
-        verify(signature, times(4)).getMethod();
+        verify(joinPoint, times(1)).getSignature();
+        verify(signature, times(1)).getMethod();
         verify(joinPoint).getTarget();
-        verify(idempotentRepository, times(1)).store(any(), any(), any(), any());
+        verify(idempotentRepository, times(1)).storeIfAbsent(any(), any(), any(), any());
         verify(joinPoint).proceed();
         verify(idempotentRepository, times(1)).setResponse(any(), any(), any(), any(), any());
     }
@@ -94,20 +109,137 @@ public class IdempotentAspectUT {
         when(signature.getMethod()).thenReturn(method);
         when(joinPoint.getTarget()).thenReturn(testIdempotentResource);
         when(joinPoint.getTarget().getClass().getSimpleName()).thenReturn("TestIdempotentResource");
-        when(idempotentRepository.getRequestResponseWrapper(any())).thenReturn(mockResponseWrapper);
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(mockResponseWrapper);
 
         //when
         idempotentAspect.execute(joinPoint);
 
         //then
-        verify(joinPoint, times(5)).getSignature();
-        verify(signature, times(4)).getMethod();
+        verify(joinPoint, times(1)).getSignature();
+        verify(signature, times(1)).getMethod();
         verify(joinPoint).getTarget();
         verify(idempotentRepository, times(0)).store(any(), any());
         verify(joinPoint, times(0)).proceed();
         verify(idempotentRepository, times(0)).setResponse(any(), any(), any());
     }
 
+    @Test
+    public void given_repository_reports_already_exists_when_execute_then_throw_stackless_request_already_exists() throws Throwable {
+        //given
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentResource.class.getMethod("idempotentMethod", IdempotentTestPayload.class);
+        IdempotentTestPayload payload = new IdempotentTestPayload("payload");
+
+        when(defaultKeyGenerator.generateIdempotentKey(any(),any(),any(),any())).thenReturn(new IdempotencyKey("123"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{payload});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(mock(TestIdempotentResource.class));
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(IdempotentRepository.ALREADY_EXISTS);
+
+        //when
+        RequestAlreadyExistsException exception = assertThrows(RequestAlreadyExistsException.class,
+                () -> idempotentAspect.execute(joinPoint));
+
+        //then
+        assertEquals(0, exception.getStackTrace().length);
+        verify(joinPoint, times(0)).proceed();
+        verify(idempotentRepository, times(0)).setResponse(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void given_a_stored_call_with_only_the_fingerprint_when_same_payload_then_return_without_proceeding() throws Throwable {
+        //given
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentResource.class.getMethod("idempotentMethod", IdempotentTestPayload.class);
+        IdempotentTestPayload payload = new IdempotentTestPayload("payload");
+        IdempotentRequestWrapper stored = new IdempotentRequestWrapper(null,
+                PayloadFingerprint.of(idempotentAspect.getIdempotentNonIgnorableWrapper(payload)));
+
+        when(defaultKeyGenerator.generateIdempotentKey(any(),any(),any(),any())).thenReturn(new IdempotencyKey("123"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{payload});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(mock(TestIdempotentResource.class));
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(new IdempotentRequestResponseWrapper(stored));
+
+        //when
+        idempotentAspect.execute(joinPoint);
+
+        //then
+        verify(joinPoint, times(0)).proceed();
+    }
+
+    @Test
+    public void given_a_repository_persisting_requests_when_trigger_aspect_then_store_the_request_without_fingerprint() throws Throwable {
+        //given
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentResource.class.getMethod("idempotentMethod", IdempotentTestPayload.class);
+
+        when(idempotentRepository.persistsRequests()).thenReturn(true);
+        when(defaultKeyGenerator.generateIdempotentKey(any(),any(),any(),any())).thenReturn(new IdempotencyKey("123"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new IdempotentTestPayload("payload")});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(mock(TestIdempotentResource.class));
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(null);
+
+        //when
+        idempotentAspect.execute(joinPoint);
+
+        //then
+        verify(idempotentRepository).storeIfAbsent(eq(new IdempotencyKey("123")),
+                argThat(request -> request.getRequest() != null && request.getFingerprint() == null), any(), any());
+    }
+
+    @Test
+    public void given_default_key_generator_when_trigger_aspect_then_store_the_fingerprint_hashed_with_the_key() throws Throwable {
+        //given
+        IdempotentRepository repository = mock(IdempotentRepository.class);
+        IdempotentAspect aspect = new IdempotentAspect(repository, new DefaultKeyGenerator());
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentResource.class.getMethod("idempotentMethod", IdempotentTestPayload.class);
+        IdempotentTestPayload payload = new IdempotentTestPayload("payload");
+        byte[] fingerprint = PayloadFingerprint.of(aspect.getIdempotentNonIgnorableWrapper(payload));
+
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{payload});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(mock(TestIdempotentResource.class));
+        when(repository.storeIfAbsent(any(), any(), any(), any())).thenReturn(null);
+
+        //when
+        aspect.execute(joinPoint);
+
+        //then
+        verify(repository).storeIfAbsent(any(), argThat(request -> Arrays.equals(fingerprint, request.getFingerprint())), any(), any());
+    }
+
+    @Test
+    public void given_a_stored_call_with_only_the_fingerprint_when_different_payload_then_throw_payload_conflict() throws Throwable {
+        //given
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentResource.class.getMethod("idempotentMethod", IdempotentTestPayload.class);
+        IdempotentRequestWrapper stored = new IdempotentRequestWrapper(null,
+                PayloadFingerprint.of(idempotentAspect.getIdempotentNonIgnorableWrapper(new IdempotentTestPayload("stored"))));
+
+        when(defaultKeyGenerator.generateIdempotentKey(any(),any(),any(),any())).thenReturn(new IdempotencyKey("123"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new IdempotentTestPayload("incoming")});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(mock(TestIdempotentResource.class));
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(new IdempotentRequestResponseWrapper(stored));
+
+        //when & then
+        assertThrows(PayloadConflictException.class, () -> idempotentAspect.execute(joinPoint));
+        verify(joinPoint, times(0)).proceed();
+    }
+
     @Test
     public void given_actual_payload_when_key_in_repository_and_method_has_one_arg_then_should_store_repository_before_should_be_delete() throws Throwable {
         //given
@@ -125,7 +257,7 @@ public class IdempotentAspectUT {
         when(joinPoint.getTarget()).thenReturn(testIdempotentResource);
         when(joinPoint.proceed()).thenThrow(new RuntimeException());
         when(joinPoint.getTarget().getClass().getSimpleName()).thenReturn("TestIdempotentResource");
-        when(idempotentRepository.getRequestResponseWrapper(any())).thenReturn(null);
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(null);
 
         //when & then
         assertThrows(RuntimeException.class, () -> 
@@ -133,11 +265,10 @@ public class IdempotentAspectUT {
         );
 
         // Verify interactions after exception
-        verify(joinPoint, times(5)).getSignature();
-        verify(signature, times(4)).getMethod();
+        verify(joinPoint, times(1)).getSignature();
+        verify(signature, times(1)).getMethod();
         verify(joinPoint).getTarget();
-        verify(idempotentRepository).getRequestResponseWrapper(idempotencyKey);
-        verify(idempotentRepository, times(1)).store(any(), any(), any(), any());
+        verify(idempotentRepository, times(1)).storeIfAbsent(eq(idempotencyKey), any(), any(), any());
         verify(joinPoint, times(1)).proceed();
         verify(idempotentRepository, times(1)).remove(any());
         verify(idempotentRepository, times(0)).setResponse(any(), any(), any());
@@ -159,7 +290,7 @@ public class IdempotentAspectUT {
         when(signature.getMethod()).thenReturn(method);
         when(joinPoint.getTarget()).thenReturn(testIdempotentResource);
         when(joinPoint.getTarget().getClass().getSimpleName()).thenReturn("TestIdempotentResource");
-        when(idempotentRepository.getRequestResponseWrapper(any())).thenReturn(null);
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(null);
 
         //when & then
         assertThrows(IllegalStateException.class, () -> 
@@ -192,7 +323,7 @@ public class IdempotentAspectUT {
         when(joinPoint.getTarget()).thenReturn(testIdempotentResource);
         when(joinPoint.proceed()).thenThrow(new RuntimeException());
         when(joinPoint.getTarget().getClass().getSimpleName()).thenReturn("TestIdempotentResource");
-        when(idempotentRepository.getRequestResponseWrapper(any())).thenReturn(null);
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(null);
         when(errorCallback.onErrorCondition(any())).thenReturn(true);
         when(errorCallback.onErrorCustomException()).thenReturn(new RuntimeException());
 
@@ -202,10 +333,10 @@ public class IdempotentAspectUT {
         );
 
         // Verify interactions after exception
-        verify(joinPoint, times(5)).getSignature();
-        verify(signature, times(4)).getMethod();
+        verify(joinPoint, times(1)).getSignature();
+        verify(signature, times(1)).getMethod();
         verify(joinPoint).getTarget();
-        verify(idempotentRepository, times(1)).store(any(), any(), any(), any());
+        verify(idempotentRepository, times(1)).storeIfAbsent(any(), any(), any(), any());
         verify(joinPoint).proceed();
         verify(idempotentRepository, times(0)).setResponse(any(), any(), any());
         verify(idempotentRepository, times(1)).remove(any());
@@ -226,7 +357,7 @@ public class IdempotentAspectUT {
         when(signature.getMethod()).thenReturn(method);
         when(joinPoint.getTarget()).thenReturn(testIdempotentResource);
         when(joinPoint.getTarget().getClass().getSimpleName()).thenReturn("TestIdempotentResource");
-        when(idempotentRepository.getRequestResponseWrapper(any())).thenReturn(null);
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(null);
 
         //when
         var idempotentRequestWrapper = idempotentAspect.findIdempotentRequestArg(joinPoint);
@@ -255,7 +386,7 @@ public class IdempotentAspectUT {
         when(signature.getMethod()).thenReturn(method);
         when(joinPoint.getTarget()).thenReturn(testIdempotentResource);
         when(joinPoint.getTarget().getClass().getSimpleName()).thenReturn("TestIdempotentResource");
-        when(idempotentRepository.getRequestResponseWrapper(any())).thenReturn(null);
+        when(idempotentRepository.storeIfAbsent(any(), any(), any(), any())).thenReturn(null);
 
         //when
         var idempotentRequestWrapper = idempotentAspect.findIdempotentRequestArg(joinPoint);
@@ -267,4 +398,304 @@ public class IdempotentAspectUT {
         assertEquals(requestWrapperRequest.getNonIgnoredFields().get("transactionId"), 1l);
         verify(joinPoint).getArgs();
     }
+
+    @Test
+    public void given_a_payload_extending_another_payload_when_get_non_ignorable_wrapper_then_include_superclass_fields() throws Throwable {
+        //given
+        TestInheritedPayload payload = new TestInheritedPayload("payload", "books");
+        payload.setEventId(1l);
+        payload.setAge(30l);
+
+        //when
+        IdempotentIgnorableWrapper wrapper = idempotentAspect.getIdempotentNonIgnorableWrapper(payload);
+
+        //then
+        assertEquals(wrapper.getNonIgnoredFields().size(), 3);
+        assertEquals(wrapper.getNonIgnoredFields().get("name"), "payload");
+        assertEquals(wrapper.getNonIgnoredFields().get("transactionId"), 1l);
+        assertEquals(wrapper.getNonIgnoredFields().get("category"), "books");
+    }
+
+    @Test
+    public void given_a_record_payload_when_get_non_ignorable_wrapper_then_read_record_components() throws Throwable {
+        //given
+        TestRecordPayload payload = new TestRecordPayload("payload", 1l, 30l);
+
+        //when
+        IdempotentIgnorableWrapper wrapper = idempotentAspect.getIdempotentNonIgnorableWrapper(payload);
+
+        //then
+        assertEquals(wrapper.getNonIgnoredFields().size(), 2);
+        assertEquals(wrapper.getNonIgnoredFields().get("name"), "payload");
+        assertEquals(wrapper.getNonIgnoredFields().get("transactionId"), 1l);
+    }
+
+    @Test
+    public void given_a_payload_with_jdempotent_id_target_when_set_jdempotent_id_then_write_key_into_field() throws Throwable {
+        //given
+        TestInheritedPayload payload = new TestInheritedPayload("payload", "books");
+
+        //when
+        idempotentAspect.setJdempotentId(new Object[]{payload}, "generated-key");
+
+        //then
+        assertEquals(payload.getIdempotencyKey(), "generated-key");
+    }
+
+    @Test
+    public void given_coalescing_enabled_when_same_key_called_concurrently_then_proceed_once_and_share_the_result() throws Throwable {
+        //given
+        IdempotentRepository repository = mock(IdempotentRepository.class);
+        DefaultKeyGenerator keyGenerator = mock(DefaultKeyGenerator.class);
+        IdempotentAspect aspect = new IdempotentAspect(repository, keyGenerator);
+        aspect.enableRequestCoalescing(5, TimeUnit.SECONDS);
+
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentResource.class.getMethod("idempotentMethodReturnArg", IdempotentTestPayload.class);
+        IdempotentTestPayload payload = new IdempotentTestPayload("payload");
+        IdempotentTestPayload response = new IdempotentTestPayload("response");
+        CountDownLatch proceeding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(keyGenerator.generateIdempotentKey(any(),any(),any(),any())).thenReturn(new IdempotencyKey("123"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{payload});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(mock(TestIdempotentResource.class));
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            proceeding.countDown();
+            release.await();
+            return response;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Object> first = executor.submit(() -> execute(aspect, joinPoint));
+        proceeding.await();
+        Future<Object> second = executor.submit(() -> execute(aspect, joinPoint));
+
+        //when
+        awaitWaiting(second);
+        release.countDown();
+
+        //then
+        assertSame(response, first.get(5, TimeUnit.SECONDS));
+        assertSame(response, second.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        verify(joinPoint, times(1)).proceed();
+        verify(repository, times(1)).storeIfAbsent(any(), any(), any(), any());
+        verify(repository, times(1)).setResponse(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void given_coalescing_enabled_when_duplicate_reuses_the_result_then_write_key_into_its_own_payload() throws Throwable {
+        //given
+        IdempotentRepository repository = mock(IdempotentRepository.class);
+        DefaultKeyGenerator keyGenerator = mock(DefaultKeyGenerator.class);
+        IdempotentAspect aspect = new IdempotentAspect(repository, keyGenerator);
+        aspect.enableRequestCoalescing(5, TimeUnit.SECONDS);
+
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentResource.class.getMethod("idempotentMethodReturnArg", IdempotentTestPayload.class);
+        TestInheritedPayload firstPayload = new TestInheritedPayload("payload", "books");
+        TestInheritedPayload secondPayload = new TestInheritedPayload("payload", "books");
+        CountDownLatch proceeding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(keyGenerator.generateIdempotentKey(any(),any(),any(),any())).thenReturn(new IdempotencyKey("123"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{firstPayload}, new Object[]{secondPayload});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(mock(TestIdempotentResource.class));
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            proceeding.countDown();
+            release.await();
+            return firstPayload;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Object> first = executor.submit(() -> execute(aspect, joinPoint));
+        proceeding.await();
+        Future<Object> second = executor.submit(() -> execute(aspect, joinPoint));
+
+        //when
+        awaitWaiting(second);
+        release.countDown();
+
+        //then
+        assertSame(firstPayload, second.get(5, TimeUnit.SECONDS));
+        first.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        verify(joinPoint, times(1)).proceed();
+        assertEquals("123", firstPayload.getIdempotencyKey());
+        assertEquals("123", secondPayload.getIdempotencyKey());
+    }
+
+    @Test
+    public void given_coalescing_enabled_when_first_call_fails_then_duplicate_throws_its_own_exception_caused_by_the_failure() throws Throwable {
+        //given
+        IdempotentRepository repository = mock(IdempotentRepository.class);
+        DefaultKeyGenerator keyGenerator = mock(DefaultKeyGenerator.class);
+        IdempotentAspect aspect = new IdempotentAspect(repository, keyGenerator);
+        aspect.enableRequestCoalescing(5, TimeUnit.SECONDS);
+
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentResource.class.getMethod("idempotentMethodReturnArg", IdempotentTestPayload.class);
+        IdempotentTestPayload payload = new IdempotentTestPayload("payload");
+        IllegalStateException failure = new IllegalStateException("failed");
+        CountDownLatch proceeding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(keyGenerator.generateIdempotentKey(any(),any(),any(),any())).thenReturn(new IdempotencyKey("123"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{payload});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(mock(TestIdempotentResource.class));
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            proceeding.countDown();
+            release.await();
+            throw failure;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        Future<Object> first = executor.submit(() -> execute(aspect, joinPoint));
+        proceeding.await();
+        Future<Object> second = executor.submit(() -> execute(aspect, joinPoint));
+        Future<Object> third = executor.submit(() -> execute(aspect, joinPoint));
+
+        //when
+        awaitWaiting(third, 2);
+        release.countDown();
+
+        //then
+        assertSame(failure, assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+        Throwable secondFailure = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause();
+        Throwable thirdFailure = assertThrows(ExecutionException.class, () -> third.get(5, TimeUnit.SECONDS)).getCause();
+        executor.shutdown();
+        assertEquals(InFlightRequestFailedException.class, secondFailure.getClass());
+        assertEquals(InFlightRequestFailedException.class, thirdFailure.getClass());
+        assertNotSame(secondFailure, thirdFailure);
+        assertSame(failure, secondFailure.getCause());
+        assertSame(failure, thirdFailure.getCause());
+        verify(joinPoint, times(1)).proceed();
+    }
+
+    @Test
+    public void given_coalescing_enabled_when_first_call_outlasts_max_wait_then_duplicate_goes_to_repository() throws Throwable {
+        //given
+        IdempotentRepository repository = mock(IdempotentRepository.class);
+        DefaultKeyGenerator keyGenerator = mock(DefaultKeyGenerator.class);
+        IdempotentAspect aspect = new IdempotentAspect(repository, keyGenerator);
+        aspect.enableRequestCoalescing(50, TimeUnit.MILLISECONDS);
+
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentResource.class.getMethod("idempotentMethodReturnArg", IdempotentTestPayload.class);
+        IdempotentTestPayload payload = new IdempotentTestPayload("payload");
+        CountDownLatch proceeding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(keyGenerator.generateIdempotentKey(any(),any(),any(),any())).thenReturn(new IdempotencyKey("123"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{payload});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(mock(TestIdempotentResource.class));
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            proceeding.countDown();
+            release.await();
+            return payload;
+        });
+        when(repository.storeIfAbsent(any(), any(), any(), any())).thenReturn(null).thenThrow(new RequestAlreadyExistsException());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Object> first = executor.submit(() -> execute(aspect, joinPoint));
+        proceeding.await();
+
+        //when & then
+        assertThrows(RequestAlreadyExistsException.class, () -> aspect.execute(joinPoint));
+        release.countDown();
+        assertSame(payload, first.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        verify(repository, times(2)).storeIfAbsent(any(), any(), any(), any());
+        verify(joinPoint, times(1)).proceed();
+    }
+
+    @Test
+    public void given_interface_method_with_two_implementations_when_called_alternately_then_use_the_plan_of_each_implementation() throws Throwable {
+        //given
+        IdempotentRepository repository = mock(IdempotentRepository.class);
+        DefaultKeyGenerator keyGenerator = mock(DefaultKeyGenerator.class);
+        IdempotentAspect aspect = new IdempotentAspect(repository, keyGenerator);
+
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        Method method = TestIdempotentService.class.getMethod("process", IdempotentTestPayload.class);
+
+        when(keyGenerator.generateIdempotentKey(any(),any(),any(),any())).thenReturn(new IdempotencyKey("123"));
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new IdempotentTestPayload("payload")});
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getTarget()).thenReturn(new FirstTestIdempotentService(), new SecondTestIdempotentService(),
+                new FirstTestIdempotentService(), new SecondTestIdempotentService());
+
+        //when
+        for (int i = 0; i < 4; i++) {
+            aspect.execute(joinPoint);
+        }
+
+        //then
+        verify(keyGenerator, times(2)).generateIdempotentKey(any(), eq("first"), any(), any());
+        verify(keyGenerator, times(2)).generateIdempotentKey(any(), eq("second"), any(), any());
+    }
+
+    interface TestIdempotentService {
+        Object process(IdempotentTestPayload payload);
+    }
+
+    static class FirstTestIdempotentService implements TestIdempotentService {
+        @Override
+        @JdempotentResource(cachePrefix = "first")
+        public Object process(IdempotentTestPayload payload) {
+            return payload;
+        }
+    }
+
+    static class SecondTestIdempotentService implements TestIdempotentService {
+        @Override
+        @JdempotentResource(cachePrefix = "second")
+        public Object process(IdempotentTestPayload payload) {
+            return payload;
+        }
+    }
+
+    private static Object execute(IdempotentAspect aspect, ProceedingJoinPoint joinPoint) throws Exception {
+        try {
+            return aspect.execute(joinPoint);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitWaiting(Future<Object> call) throws Exception {
+        awaitWaiting(call, 1);
+    }
+
+    private static void awaitWaiting(Future<Object> call, int calls) throws Exception {
+        // polls until threads park in InFlightRequest.await, the duplicate calls waiting on the first one
+        for (int i = 0; i < 500 && !call.isDone(); i++) {
+            long waiting = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getState() == Thread.State.TIMED_WAITING)
+                    .filter(thread -> Arrays.stream(thread.getStackTrace())
+                            .anyMatch(frame -> frame.getMethodName().equals("await") && frame.getClassName().endsWith("InFlightRequest")))
+                    .count();
+            if (waiting >= calls) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+    }
 }
@@ -3,12 +3,17 @@ package com.trendyol.jdempotent.couchbase;
 import com.couchbase.client.java.Collection;
 import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
 import com.trendyol.jdempotent.core.callback.ErrorConditionalCallback;
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.config.ConfigUtility;
+import com.trendyol.jdempotent.core.constant.CodecType;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
 @Configuration
+@Import(ConfigUtility.class)
 @ConditionalOnProperty(
         prefix="jdempotent", name = "enable",
         havingValue = "true",
@@ -16,9 +21,11 @@ import org.springframework.context.annotation.Configuration;
 public class ApplicationConfig {
 
     private final CouchbaseConfig couchbaseConfig;
+    private final ConfigUtility configUtility;
 
-    public ApplicationConfig(CouchbaseConfig couchbaseConfig) {
+    public ApplicationConfig(CouchbaseConfig couchbaseConfig, ConfigUtility configUtility) {
         this.couchbaseConfig = couchbaseConfig;
+        this.configUtility = configUtility;
     }
 
     @Bean
@@ -28,12 +35,29 @@ public class ApplicationConfig {
             matchIfMissing = true)
     @ConditionalOnClass(ErrorConditionalCallback.class)
     public IdempotentAspect getIdempotentAspect(Collection collection, ErrorConditionalCallback errorConditionalCallback) {
-        return new IdempotentAspect(new CouchbaseIdempotentRepository(couchbaseConfig, collection), errorConditionalCallback);
+        IdempotentCodec codec = createCodec();
+        IdempotentAspect aspect = configUtility.configure(new IdempotentAspect(
+                new CouchbaseIdempotentRepository(couchbaseConfig, collection, codec), errorConditionalCallback));
+        aspect.setReactiveIdempotentRepository(new ReactiveCouchbaseIdempotentRepository(couchbaseConfig, collection.reactive(), codec));
+        return aspect;
     }
 
     @Bean
     public IdempotentAspect getIdempotentAspect(Collection collection) {
-        return new IdempotentAspect(new CouchbaseIdempotentRepository(couchbaseConfig, collection));
+        IdempotentCodec codec = createCodec();
+        IdempotentAspect aspect = configUtility.configure(new IdempotentAspect(
+                new CouchbaseIdempotentRepository(couchbaseConfig, collection, codec)));
+        aspect.setReactiveIdempotentRepository(new ReactiveCouchbaseIdempotentRepository(couchbaseConfig, collection.reactive(), codec));
+        return aspect;
+    }
+
+    /**
+     * The blocking and reactive repositories share the codec so they read each other's calls, a
+     * configured codec type always writes binary documents
+     */
+    private IdempotentCodec createCodec() {
+        CodecType defaultCodecType = CouchbaseTranscoder.of(couchbaseConfig.getTranscoder()).defaultCodecType();
+        return configUtility.getCodec(defaultCodecType != null ? configUtility.newCodec(defaultCodecType) : null);
     }
 
 }
@@ -1,6 +1,5 @@
 package com.trendyol.jdempotent.couchbase;
 
-import com.couchbase.client.core.deps.io.netty.channel.epoll.EpollEventLoopGroup;
 import com.couchbase.client.core.env.*;
 import com.couchbase.client.java.Cluster;
 import com.couchbase.client.java.ClusterOptions;
@@ -8,7 +7,7 @@ import com.couchbase.client.java.Collection;
 import com.couchbase.client.java.codec.JacksonJsonSerializer;
 import com.couchbase.client.java.env.ClusterEnvironment;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.commons.lang3.SystemUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -29,29 +28,32 @@ public class CouchbaseBeanConfig {
         this.couchbaseConfig = couchbaseConfig;
     }
 
+    /**
+     * Connects with the environment set by the jdempotent.cache.couchbase properties, the SDK picks
+     * its native transport and sizes its event loops unless kv-event-loop-threads is set
+     *
+     * @param objectMapper the application's mapper for JSON documents, a plain one when there is none
+     * @return
+     */
     @Bean
     @Primary
-    public Cluster cluster(ObjectMapper objectMapper) {
+    public Cluster cluster(ObjectProvider<ObjectMapper> objectMapper) {
         var builder = ClusterEnvironment.builder();
-        if (SystemUtils.IS_OS_LINUX) {
-            builder.ioEnvironment(
-                    IoEnvironment.kvEventLoopGroup(
-                            new EpollEventLoopGroup(
-                                    Runtime.getRuntime().availableProcessors() * 2
-                            )
-                    )
-            )
-                    .ioConfig(IoConfig.configPollInterval(Duration.ofSeconds(10)))
-                    .securityConfig(SecurityConfig.enableNativeTls(false).enableTls(false));
+        if (couchbaseConfig.getKvEventLoopThreads() > 0) {
+            builder.ioEnvironment(IoEnvironment.eventLoopThreadCount(couchbaseConfig.getKvEventLoopThreads()));
         }
         var couchbaseEnvironment = builder
-                .jsonSerializer(JacksonJsonSerializer.create(objectMapper))
+                .ioConfig(IoConfig.configPollInterval(Duration.ofMillis(couchbaseConfig.getConfigPollInterval()))
+                        .numKvConnections(couchbaseConfig.getKvConnections()))
+                .jsonSerializer(JacksonJsonSerializer.create(objectMapper.getIfAvailable(ObjectMapper::new)))
                 .timeoutConfig(
                         TimeoutConfig.kvTimeout(Duration.ofMillis(couchbaseConfig.getKvTimeout()))
                                 .connectTimeout(Duration.ofMillis(couchbaseConfig.getConnectTimeout()))
                                 .queryTimeout(Duration.ofMillis(couchbaseConfig.getQueryTimeout()))
                 )
-                .compressionConfig(CompressionConfig.enable(true))
+                .compressionConfig(CompressionConfig.enable(couchbaseConfig.getCompressionEnabled())
+                        .minSize(couchbaseConfig.getCompressionMinSize())
+                        .minRatio(couchbaseConfig.getCompressionMinRatio()))
                 .loggerConfig(LoggerConfig.enableDiagnosticContext(false))
                 .build();
         return Cluster.connect(
@@ -63,12 +65,7 @@ public class CouchbaseBeanConfig {
 
     @Bean
     @Primary
-    public Collection collection(ObjectMapper objectMapper) {
-        return cluster(objectMapper).bucket(couchbaseConfig.getBucketName()).defaultCollection();
-    }
-
-    @Bean
-    public ObjectMapper objectMapper() {
-        return new ObjectMapper();
+    public Collection collection(Cluster cluster) {
+        return cluster.bucket(couchbaseConfig.getBucketName()).defaultCollection();
     }
 }
@@ -26,6 +26,20 @@ public class CouchbaseConfig {
     private Long kvTimeout;
     @Value("${jdempotent.cache.persistReqRes:false}")
     private Boolean persistReqRes;
+    @Value("${jdempotent.cache.couchbase.kv-event-loop-threads:0}")
+    private Integer kvEventLoopThreads;
+    @Value("${jdempotent.cache.couchbase.kv-connections:1}")
+    private Integer kvConnections;
+    @Value("${jdempotent.cache.couchbase.config-poll-interval:10000}")
+    private Long configPollInterval;
+    @Value("${jdempotent.cache.couchbase.compression.enable:true}")
+    private Boolean compressionEnabled;
+    @Value("${jdempotent.cache.couchbase.compression.min-size:32}")
+    private Integer compressionMinSize;
+    @Value("${jdempotent.cache.couchbase.compression.min-ratio:0.83}")
+    private Double compressionMinRatio;
+    @Value("${jdempotent.cache.couchbase.transcoder:json}")
+    private String transcoder;
 
     public String getConnectionString() {
         return connectionString;
@@ -90,4 +104,75 @@ public class CouchbaseConfig {
     public void setPersistReqRes(Boolean persistReqRes) {
         this.persistReqRes = persistReqRes;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the event loop threads of the SDK, 0 to let the SDK size them from the available processors
+     */
+    public Integer getKvEventLoopThreads() {
+        return kvEventLoopThreads;
+    }
+
+    public void setKvEventLoopThreads(Integer kvEventLoopThreads) {
+        this.kvEventLoopThreads = kvEventLoopThreads;
+    }
+
+    /**
+     * @return the KV connections opened to each node
+     */
+    public Integer getKvConnections() {
+        return kvConnections;
+    }
+
+    public void setKvConnections(Integer kvConnections) {
+        this.kvConnections = kvConnections;
+    }
+
+    public Long getConfigPollInterval() {
+        return configPollInterval;
+    }
+
+    public void setConfigPollInterval(Long configPollInterval) {
+        this.configPollInterval = configPollInterval;
+    }
+
+    public Boolean getCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    public void setCompressionEnabled(Boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
+
+    /**
+     * @return the size in bytes a document needs before the SDK tries to compress it
+     */
+    public Integer getCompressionMinSize() {
+        return compressionMinSize;
+    }
+
+    public void setCompressionMinSize(Integer compressionMinSize) {
+        this.compressionMinSize = compressionMinSize;
+    }
+
+    /**
+     * @return the compressed to original size ratio under which the compressed document is sent
+     */
+    public Double getCompressionMinRatio() {
+        return compressionMinRatio;
+    }
+
+    public void setCompressionMinRatio(Double compressionMinRatio) {
+        this.compressionMinRatio = compressionMinRatio;
+    }
+
+    /**
+     * @return json or binary, see {@link CouchbaseTranscoder}
+     */
+    public String getTranscoder() {
+        return transcoder;
+    }
+
+    public void setTranscoder(String transcoder) {
+        this.transcoder = transcoder;
+    }
+}
@@ -0,0 +1,149 @@
+package com.trendyol.jdempotent.couchbase;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.couchbase.client.java.codec.RawBinaryTranscoder;
+import com.couchbase.client.java.kv.GetOptions;
+import com.couchbase.client.java.kv.GetResult;
+import com.couchbase.client.java.kv.InsertOptions;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+import com.couchbase.client.java.kv.MutateInOptions;
+import com.couchbase.client.java.kv.MutateInSpec;
+import com.couchbase.client.java.kv.ReplaceOptions;
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+
+/**
+ * The document layout shared by the blocking and reactive repositories, so either one can serve a key
+ * <p>
+ * Documents are JSON written by the transcoder of the cluster unless a codec is given, then they
+ * are binary documents written by the codec. JSON documents are read by path with a lookupIn and
+ * completed with a mutateIn, binary ones can't be changed by path and are read and replaced whole.
+ */
+final class CouchbaseDocuments {
+    static final String REQUEST = "request";
+    static final String RESPONSE = "response";
+    static final List<LookupInSpec> CALL_SPECS = List.of(LookupInSpec.get(REQUEST), LookupInSpec.get(RESPONSE));
+    static final List<LookupInSpec> RESPONSE_SPECS = List.of(LookupInSpec.get(RESPONSE));
+
+    private static final Map<TimeUnit, Function<Long, Duration>> ttlConverter = new EnumMap<>(TimeUnit.class);
+
+    static {
+        ttlConverter.put(TimeUnit.DAYS, Duration::ofDays);
+        ttlConverter.put(TimeUnit.HOURS, Duration::ofHours);
+        ttlConverter.put(TimeUnit.MINUTES, Duration::ofMinutes);
+        ttlConverter.put(TimeUnit.SECONDS, Duration::ofSeconds);
+        ttlConverter.put(TimeUnit.MILLISECONDS, Duration::ofMillis);
+        ttlConverter.put(TimeUnit.MICROSECONDS, Duration::ofMillis);
+        ttlConverter.put(TimeUnit.NANOSECONDS, Duration::ofNanos);
+    }
+
+    private final CouchbaseConfig couchbaseConfig;
+    private final IdempotentCodec codec;
+
+    /**
+     * @param couchbaseConfig
+     * @param codec           encodes documents as binary, null to store them as JSON
+     */
+    CouchbaseDocuments(CouchbaseConfig couchbaseConfig, IdempotentCodec codec) {
+        this.couchbaseConfig = couchbaseConfig;
+        this.codec = codec;
+    }
+
+    boolean isBinary() {
+        return codec != null;
+    }
+
+    boolean persistsResponses() {
+        return couchbaseConfig.getPersistReqRes();
+    }
+
+    Duration expiry(Long ttl, TimeUnit timeUnit) {
+        return ttlConverter.get(timeUnit).apply(ttl);
+    }
+
+    /**
+     * Prepares the request value stored in couchbase
+     *
+     * if persistReqRes set to false,
+     * it does not persist related request and response values in couchbase,
+     * only the fingerprint of the request
+     * @param request
+     * @return the content of the document
+     */
+    Object requestContent(IdempotentRequestWrapper request) {
+        if (couchbaseConfig.getPersistReqRes() || request == null) {
+            return toContent(new IdempotentRequestResponseWrapper(request));
+        }
+        return toContent(new IdempotentRequestResponseWrapper(request.fingerprintOnly()));
+    }
+
+    /**
+     * Prepares the whole binary document of a completed call, only used when responses are persisted
+     *
+     * @param request
+     * @param idempotentResponse
+     * @return the content of the document
+     */
+    Object responseContent(IdempotentRequestWrapper request, IdempotentResponseWrapper idempotentResponse) {
+        return toContent(new IdempotentRequestResponseWrapper(request, idempotentResponse));
+    }
+
+    static List<MutateInSpec> responseSpecs(IdempotentResponseWrapper idempotentResponse) {
+        return List.of(MutateInSpec.upsert(RESPONSE, idempotentResponse));
+    }
+
+    static IdempotentRequestResponseWrapper fromLookupIn(LookupInResult result) {
+        return new IdempotentRequestResponseWrapper(
+                result.exists(0) ? result.contentAs(0, IdempotentRequestWrapper.class) : null,
+                result.exists(1) ? result.contentAs(1, IdempotentResponseWrapper.class) : null);
+    }
+
+    static IdempotentResponseWrapper responseFromLookupIn(LookupInResult result) {
+        return result.exists(0) ? result.contentAs(0, IdempotentResponseWrapper.class) : null;
+    }
+
+    IdempotentRequestResponseWrapper fromContent(GetResult result) {
+        if (codec == null) {
+            return result.contentAs(IdempotentRequestResponseWrapper.class);
+        }
+        return (IdempotentRequestResponseWrapper) codec.decode(result.contentAs(byte[].class));
+    }
+
+    /**
+     * @param wrapper
+     * @return the wrapper itself for the JSON transcoder, or its encoded bytes
+     */
+    private Object toContent(IdempotentRequestResponseWrapper wrapper) {
+        return codec == null ? wrapper : codec.encode(wrapper);
+    }
+
+    GetOptions getOptions() {
+        return codec == null ? GetOptions.getOptions() : GetOptions.getOptions().transcoder(RawBinaryTranscoder.INSTANCE);
+    }
+
+    InsertOptions insertOptions() {
+        return codec == null ? InsertOptions.insertOptions() : InsertOptions.insertOptions().transcoder(RawBinaryTranscoder.INSTANCE);
+    }
+
+    /**
+     * The expiry is preserved by the server, which needs Couchbase Server 7.0 or later
+     *
+     * @return
+     */
+    static MutateInOptions mutateInOptions() {
+        return MutateInOptions.mutateInOptions().preserveExpiry(true);
+    }
+
+    static ReplaceOptions replaceOptions() {
+        return ReplaceOptions.replaceOptions().preserveExpiry(true).transcoder(RawBinaryTranscoder.INSTANCE);
+    }
+}
@@ -1,15 +1,19 @@
 package com.trendyol.jdempotent.couchbase;
 
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
 
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.AsyncCollection;
 import com.couchbase.client.java.Collection;
-import com.couchbase.client.java.kv.GetOptions;
-import com.couchbase.client.java.kv.GetResult;
-import com.couchbase.client.java.kv.UpsertOptions;
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
 import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
 import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
@@ -22,127 +26,288 @@ import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
  * that uses a distributed hash map from Couchbase
  * <p>
  * That repository needs to store idempotent hash for idempotency check
+ * <p>
+ * Documents are JSON written by the transcoder of the cluster unless a codec is given, then they
+ * are binary documents written by the codec, see {@link CouchbaseDocuments}.
+ * <p>
+ * Batches go through the async collection, so all their documents are in flight at once.
+ * <p>
+ * Every phase of a call is a single KV operation: an insert with expiry to acquire the key, a
+ * lookupIn to read the stored call and a mutateIn to write the response into it. Binary documents
+ * can't be changed by path, their response is written with a replace of the whole document.
  */
 public class CouchbaseIdempotentRepository implements IdempotentRepository {
-    private final CouchbaseConfig couchbaseConfig;
     private final Collection collection;
-    private Map<TimeUnit, Function<Long, Duration>> ttlConverter = new HashMap<>();
+    private final CouchbaseDocuments documents;
 
     public CouchbaseIdempotentRepository(CouchbaseConfig couchbaseConfig, Collection collection) {
-        this.couchbaseConfig = couchbaseConfig;
+        this(couchbaseConfig, collection, null);
+    }
+
+    /**
+     * @param couchbaseConfig
+     * @param collection
+     * @param codec           encodes documents as binary, null to store them as JSON
+     */
+    public CouchbaseIdempotentRepository(CouchbaseConfig couchbaseConfig, Collection collection, IdempotentCodec codec) {
         this.collection = collection;
-        this.prepareTtlConverter();
+        this.documents = new CouchbaseDocuments(couchbaseConfig, codec);
     }
 
 
+    @Override
+    public boolean persistsRequests() {
+        return documents.persistsResponses();
+    }
+
     @Override
     public boolean contains(IdempotencyKey key) {
         return collection.exists(key.getKeyValue()).exists();
     }
 
+    /**
+     * Reads only the response of the stored call
+     *
+     * @param key
+     * @return the response, null when there is no stored call or no response yet
+     */
     @Override
     public IdempotentResponseWrapper getResponse(IdempotencyKey key) {
-        return collection.get(key.getKeyValue(), GetOptions.getOptions().withExpiry(true)).contentAs(IdempotentRequestResponseWrapper.class).getResponse();
+        try {
+            if (documents.isBinary()) {
+                return documents.fromContent(collection.get(key.getKeyValue(), documents.getOptions())).getResponse();
+            }
+            return CouchbaseDocuments.responseFromLookupIn(collection.lookupIn(key.getKeyValue(), CouchbaseDocuments.RESPONSE_SPECS));
+        } catch (DocumentNotFoundException e) {
+            return null;
+        }
     }
 
     @Override
-    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject) {
-        collection.insert(key.getKeyValue(), prepareRequestValue(requestObject));
+    public IdempotentRequestResponseWrapper getRequestResponseWrapper(IdempotencyKey key) {
+        try {
+            return read(key.getKeyValue());
+        } catch (DocumentNotFoundException e) {
+            return null;
+        }
     }
 
     @Override
-    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject, Long ttl, TimeUnit timeUnit) {
-        Duration ttlDuration = getDurationByTttlAndTimeUnit(ttl, timeUnit);
-        collection.upsert(
-                key.getKeyValue(), prepareRequestValue(requestObject),
-                UpsertOptions.upsertOptions().expiry(ttlDuration)
-        );
+    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject) throws RequestAlreadyExistsException {
+        try {
+            collection.insert(key.getKeyValue(), documents.requestContent(requestObject), documents.insertOptions());
+        } catch (DocumentExistsException e) {
+            throw new RequestAlreadyExistsException();
+        }
     }
 
+    /**
+     * Inserts the request with its expiry, which fails when the document exists, so concurrent
+     * duplicates can't overwrite each other
+     *
+     * @param key
+     * @param requestObject
+     * @param ttl
+     * @param timeUnit
+     * @throws RequestAlreadyExistsException
+     */
     @Override
-    public void remove(IdempotencyKey key) {
-        collection.remove(key.getKeyValue());
+    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
+        try {
+            collection.insert(
+                    key.getKeyValue(), documents.requestContent(requestObject),
+                    documents.insertOptions().expiry(documents.expiry(ttl, timeUnit))
+            );
+        } catch (DocumentExistsException e) {
+            throw new RequestAlreadyExistsException();
+        }
     }
 
     @Override
-    public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper idempotentResponse) {
-        if (contains(key)) {
-            GetResult getResult = collection.get(key.getKeyValue(), GetOptions.getOptions().withExpiry(true));
-            IdempotentRequestResponseWrapper requestResponseWrapper = prepareResponseValue(getResult,idempotentResponse);
-            collection.upsert(key.getKeyValue(), requestResponseWrapper);
-        }
+    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject,
+            String cachePrefix, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
+        // the cache prefix is already part of the generated key
+        store(key, requestObject, ttl, timeUnit);
     }
 
+    /**
+     * Inserts the request, which fails when the document exists, and only then reads the stored one
+     *
+     * @param key
+     * @param requestObject
+     * @param ttl
+     * @param timeUnit
+     * @return {@link #ALREADY_EXISTS} when the document was removed before it could be read
+     */
     @Override
-    public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper idempotentResponse, Long ttl, TimeUnit timeUnit) {
-        if (contains(key)) {
-            GetResult getResult = collection.get(key.getKeyValue(),GetOptions.getOptions().withExpiry(true));
-            IdempotentRequestResponseWrapper requestResponseWrapper = prepareResponseValue(getResult,idempotentResponse);
-            collection.upsert(
-                    key.getKeyValue(),
-                    requestResponseWrapper,
-                    UpsertOptions.upsertOptions().expiry(getResult.expiry().get()));
+    public IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper requestObject, Long ttl, TimeUnit timeUnit) {
+        try {
+            collection.insert(
+                    key.getKeyValue(), documents.requestContent(requestObject),
+                    documents.insertOptions().expiry(documents.expiry(ttl, timeUnit))
+            );
+            return null;
+        } catch (DocumentExistsException e) {
+            try {
+                return read(key.getKeyValue());
+            } catch (DocumentNotFoundException notFound) {
+                return ALREADY_EXISTS;
+            }
         }
     }
 
-    private Duration getDurationByTttlAndTimeUnit(Long ttl, TimeUnit timeUnit) {
-        return ttlConverter.get(timeUnit).apply(ttl);
+    @Override
+    public void remove(IdempotencyKey key) {
+        collection.remove(key.getKeyValue());
     }
 
-    private void prepareTtlConverter() {
-        ttlConverter.put(TimeUnit.DAYS, Duration::ofDays);
-        ttlConverter.put(TimeUnit.HOURS, Duration::ofHours);
-        ttlConverter.put(TimeUnit.MINUTES, Duration::ofMinutes);
-        ttlConverter.put(TimeUnit.SECONDS, Duration::ofSeconds);
-        ttlConverter.put(TimeUnit.MILLISECONDS, Duration::ofMillis);
-        ttlConverter.put(TimeUnit.MICROSECONDS, Duration::ofMillis);
-        ttlConverter.put(TimeUnit.NANOSECONDS, Duration::ofNanos);
+    @Override
+    public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper idempotentResponse) {
+        setResponse(key, request, idempotentResponse, null, null);
     }
 
     /**
-     * Prepares the request value stored in couchbase
+     * Writes the response into the stored document and keeps its expiry, nothing is written when
+     * responses are not persisted or the document is gone
      *
-     * if persistReqRes set to false,
-     * it does not persist related request and response values in couchbase
+     * @param key
      * @param request
-     * @return
+     * @param idempotentResponse
+     * @param ttl
+     * @param timeUnit
      */
-    private IdempotentRequestResponseWrapper prepareRequestValue(IdempotentRequestWrapper request) {
-        if (couchbaseConfig.getPersistReqRes()) {
-            return new IdempotentRequestResponseWrapper(request);
+    @Override
+    public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper idempotentResponse, Long ttl, TimeUnit timeUnit) {
+        if (!documents.persistsResponses()) {
+            return;
+        }
+        try {
+            if (documents.isBinary()) {
+                collection.replace(key.getKeyValue(), documents.responseContent(request, idempotentResponse),
+                        CouchbaseDocuments.replaceOptions());
+            } else {
+                collection.mutateIn(key.getKeyValue(), CouchbaseDocuments.responseSpecs(idempotentResponse),
+                        CouchbaseDocuments.mutateInOptions());
+            }
+        } catch (DocumentNotFoundException e) {
+            // the call expired or was removed while it was running
         }
-        return new IdempotentRequestResponseWrapper(null);
     }
 
     /**
-     * Prepares the response value stored in couchbase
+     * Sends all the inserts at once over the async collection, and reads the stored documents of
+     * the keys that already exist
      *
-     * if persistReqRes set to false,
-     * it does not persist related request and response values in redis
-     * @param result
-     * @param idempotentResponse
+     * @param requests
+     * @param ttl
+     * @param timeUnit
      * @return
      */
-    private IdempotentRequestResponseWrapper prepareResponseValue(GetResult result,IdempotentResponseWrapper idempotentResponse) {
-        IdempotentRequestResponseWrapper requestResponseWrapper = result.contentAs(IdempotentRequestResponseWrapper.class);
-        if (couchbaseConfig.getPersistReqRes()) {
-            requestResponseWrapper.setResponse(idempotentResponse);
-        }
-        return requestResponseWrapper;
+    @Override
+    public Map<IdempotencyKey, IdempotentRequestResponseWrapper> storeAllIfAbsent(Map<IdempotencyKey, IdempotentRequestWrapper> requests,
+                                                                                  Long ttl, TimeUnit timeUnit) {
+        AsyncCollection async = collection.async();
+        Duration expiry = documents.expiry(ttl, timeUnit);
+        Map<IdempotencyKey, CompletableFuture<IdempotentRequestResponseWrapper>> calls = new LinkedHashMap<>();
+        requests.forEach((key, request) -> calls.put(key, async
+                .insert(key.getKeyValue(), documents.requestContent(request), documents.insertOptions().expiry(expiry))
+                .<IdempotentRequestResponseWrapper>thenApply(inserted -> null)
+                .exceptionallyCompose(e -> {
+                    if (!(unwrap(e) instanceof DocumentExistsException)) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    return read(async, key.getKeyValue())
+                            .exceptionallyCompose(readError -> unwrap(readError) instanceof DocumentNotFoundException
+                                    ? CompletableFuture.completedFuture(ALREADY_EXISTS)
+                                    : CompletableFuture.failedFuture(readError));
+                })));
+        awaitAll(calls.values());
+
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = new LinkedHashMap<>();
+        calls.forEach((key, call) -> {
+            IdempotentRequestResponseWrapper wrapper = call.join();
+            if (wrapper != null) {
+                existing.put(key, wrapper);
+            }
+        });
+        return existing;
     }
 
+    /**
+     * Writes every response concurrently, each document keeps its expiry
+     *
+     * @param responses
+     * @param ttl
+     * @param timeUnit
+     */
+    @Override
+    public void setResponses(Map<IdempotencyKey, IdempotentRequestResponseWrapper> responses, Long ttl, TimeUnit timeUnit) {
+        if (!documents.persistsResponses()) {
+            return;
+        }
+        AsyncCollection async = collection.async();
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+        responses.forEach((key, call) -> calls.add((documents.isBinary()
+                ? async.replace(key.getKeyValue(), documents.responseContent(call.getRequest(), call.getResponse()),
+                        CouchbaseDocuments.replaceOptions())
+                : async.mutateIn(key.getKeyValue(), CouchbaseDocuments.responseSpecs(call.getResponse()),
+                        CouchbaseDocuments.mutateInOptions()))
+                .exceptionallyCompose(e -> unwrap(e) instanceof DocumentNotFoundException
+                        ? CompletableFuture.completedFuture(null)
+                        : CompletableFuture.failedFuture(e))));
+        awaitAll(calls);
+    }
 
     @Override
-    public IdempotentRequestResponseWrapper getRequestResponseWrapper(IdempotencyKey key) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getRequestResponseWrapper'");
+    public void removeAll(java.util.Collection<IdempotencyKey> keys) {
+        AsyncCollection async = collection.async();
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+        for (IdempotencyKey key : keys) {
+            calls.add(async.remove(key.getKeyValue())
+                    .exceptionallyCompose(e -> unwrap(e) instanceof DocumentNotFoundException
+                            ? CompletableFuture.completedFuture(null)
+                            : CompletableFuture.failedFuture(e)));
+        }
+        awaitAll(calls);
     }
 
+    /**
+     * Waits for every call to finish before failing, so none of them is still in flight when the caller cleans up
+     *
+     * @param calls
+     */
+    private static void awaitAll(java.util.Collection<? extends CompletableFuture<?>> calls) {
+        try {
+            CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 
-    @Override
-    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject,
-            String cachePrefix, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'store'");
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * Reads the stored call with a lookupIn of its request and response, or a get of the binary document
+     *
+     * @param id
+     * @return
+     */
+    private IdempotentRequestResponseWrapper read(String id) {
+        if (documents.isBinary()) {
+            return documents.fromContent(collection.get(id, documents.getOptions()));
+        }
+        return CouchbaseDocuments.fromLookupIn(collection.lookupIn(id, CouchbaseDocuments.CALL_SPECS));
+    }
+
+    private CompletableFuture<IdempotentRequestResponseWrapper> read(AsyncCollection async, String id) {
+        if (documents.isBinary()) {
+            return async.get(id, documents.getOptions()).thenApply(documents::fromContent);
+        }
+        return async.lookupIn(id, CouchbaseDocuments.CALL_SPECS).thenApply(CouchbaseDocuments::fromLookupIn);
     }
 }
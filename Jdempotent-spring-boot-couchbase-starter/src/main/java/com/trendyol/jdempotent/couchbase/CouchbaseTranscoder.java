@@ -0,0 +1,45 @@
+package com.trendyol.jdempotent.couchbase;
+
+import com.trendyol.jdempotent.core.constant.CodecType;
+
+/**
+ *
+ * How the starter writes its documents
+ *
+ */
+public enum CouchbaseTranscoder {
+
+    /**
+     * JSON documents written by the JSON serializer of the cluster, responses are written by path
+     */
+    JSON,
+
+    /**
+     * binary documents holding the bytes of a codec, written with the RawBinaryTranscoder so the
+     * SDK never builds a JSON tree, Smile unless jdempotent.codec.type says otherwise
+     */
+    BINARY;
+
+    /**
+     * @return the codec type documents are encoded with when no codec type is configured, null for JSON documents
+     */
+    CodecType defaultCodecType() {
+        return this == BINARY ? CodecType.SMILE : null;
+    }
+
+    /**
+     * Resolves a transcoder by its name, e.g. {@code binary}
+     *
+     * @param name
+     * @return
+     */
+    public static CouchbaseTranscoder of(String name) {
+        String trimmed = name == null ? "" : name.trim();
+        for (CouchbaseTranscoder transcoder : values()) {
+            if (transcoder.name().equalsIgnoreCase(trimmed)) {
+                return transcoder;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported couchbase transcoder: " + name);
+    }
+}
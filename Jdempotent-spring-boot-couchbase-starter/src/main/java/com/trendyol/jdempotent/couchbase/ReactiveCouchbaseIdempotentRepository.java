@@ -0,0 +1,118 @@
+package com.trendyol.jdempotent.couchbase;
+
+import java.util.concurrent.TimeUnit;
+
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.ReactiveCollection;
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.ReactiveIdempotentRepository;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import reactor.core.publisher.Mono;
+
+/**
+ * A non-blocking implementation of the ReactiveIdempotentRepository over the reactive collection,
+ * the KV operations run on the event loops of the SDK
+ *
+ * <p>Calls are stored with the same documents and operations as {@link CouchbaseIdempotentRepository},
+ * so both repositories can serve the same keys when they share a codec.</p>
+ */
+public class ReactiveCouchbaseIdempotentRepository implements ReactiveIdempotentRepository {
+    private final ReactiveCollection collection;
+    private final CouchbaseDocuments documents;
+
+    public ReactiveCouchbaseIdempotentRepository(CouchbaseConfig couchbaseConfig, ReactiveCollection collection) {
+        this(couchbaseConfig, collection, null);
+    }
+
+    /**
+     * @param couchbaseConfig
+     * @param collection
+     * @param codec           encodes documents as binary, null to store them as JSON
+     */
+    public ReactiveCouchbaseIdempotentRepository(CouchbaseConfig couchbaseConfig, ReactiveCollection collection,
+                                                 IdempotentCodec codec) {
+        this.collection = collection;
+        this.documents = new CouchbaseDocuments(couchbaseConfig, codec);
+    }
+
+    /**
+     * Inserts the request, which fails when the document exists, and only then reads the stored one
+     *
+     * @param key
+     * @param requestObject
+     * @param ttl
+     * @param timeUnit
+     * @return {@link IdempotentRepository#ALREADY_EXISTS} when the document was removed before it could be read
+     */
+    @Override
+    public Mono<IdempotentRequestResponseWrapper> storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper requestObject,
+                                                                Long ttl, TimeUnit timeUnit) {
+        return Mono.defer(() -> collection.insert(key.getKeyValue(), documents.requestContent(requestObject),
+                        documents.insertOptions().expiry(documents.expiry(ttl, timeUnit))))
+                .then(Mono.<IdempotentRequestResponseWrapper>empty())
+                .onErrorResume(DocumentExistsException.class, e -> read(key.getKeyValue())
+                        .defaultIfEmpty(IdempotentRepository.ALREADY_EXISTS));
+    }
+
+    @Override
+    public Mono<IdempotentRequestResponseWrapper> getRequestResponseWrapper(IdempotencyKey key) {
+        return read(key.getKeyValue());
+    }
+
+    /**
+     * Writes the response into the stored document and keeps its expiry, nothing is written when
+     * responses are not persisted or the document is gone
+     *
+     * @param key
+     * @param request
+     * @param idempotentResponse
+     * @param ttl
+     * @param timeUnit
+     * @return
+     */
+    @Override
+    public Mono<Void> setResponse(IdempotencyKey key, IdempotentRequestWrapper request,
+                                  IdempotentResponseWrapper idempotentResponse, Long ttl, TimeUnit timeUnit) {
+        return Mono.defer(() -> {
+            if (!documents.persistsResponses()) {
+                return Mono.<Void>empty();
+            }
+            if (documents.isBinary()) {
+                return collection.replace(key.getKeyValue(), documents.responseContent(request, idempotentResponse),
+                        CouchbaseDocuments.replaceOptions()).then();
+            }
+            return collection.mutateIn(key.getKeyValue(), CouchbaseDocuments.responseSpecs(idempotentResponse),
+                    CouchbaseDocuments.mutateInOptions()).then();
+        }).onErrorResume(DocumentNotFoundException.class, e -> Mono.empty());
+    }
+
+    @Override
+    public boolean persistsRequests() {
+        return documents.persistsResponses();
+    }
+
+    @Override
+    public Mono<Void> remove(IdempotencyKey key) {
+        return collection.remove(key.getKeyValue())
+                .then()
+                .onErrorResume(DocumentNotFoundException.class, e -> Mono.empty());
+    }
+
+    /**
+     * Reads the stored call with a lookupIn of its request and response, or a get of the binary document
+     *
+     * @param id
+     * @return empty when the document doesn't exist
+     */
+    private Mono<IdempotentRequestResponseWrapper> read(String id) {
+        Mono<IdempotentRequestResponseWrapper> call = documents.isBinary()
+                ? collection.get(id, documents.getOptions()).map(documents::fromContent)
+                : collection.lookupIn(id, CouchbaseDocuments.CALL_SPECS).map(CouchbaseDocuments::fromLookupIn);
+        return call.onErrorResume(DocumentNotFoundException.class, e -> Mono.empty());
+    }
+}
@@ -1,10 +1,20 @@
 package com.trendyol.jdempotent.couchbase;
 
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.AsyncCollection;
 import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.codec.RawBinaryTranscoder;
 import com.couchbase.client.java.kv.ExistsResult;
 import com.couchbase.client.java.kv.GetResult;
+import com.couchbase.client.java.kv.InsertOptions;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.MutateInOptions;
+import com.couchbase.client.java.kv.MutateInResult;
 import com.couchbase.client.java.kv.MutationResult;
-import com.couchbase.client.java.kv.UpsertOptions;
+import com.couchbase.client.java.kv.ReplaceOptions;
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
 import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
 import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
@@ -18,12 +28,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.time.Duration;
-import java.util.Optional;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -42,7 +57,16 @@ public class CouchbaseIdempotentRepositoryTest {
   private ArgumentCaptor<IdempotentRequestResponseWrapper> captor;
 
   @Captor
-  private ArgumentCaptor<UpsertOptions> upsertOptionCaptor;
+  private ArgumentCaptor<MutateInOptions> mutateInOptionCaptor;
+
+  @Captor
+  private ArgumentCaptor<ReplaceOptions> replaceOptionCaptor;
+
+  @Captor
+  private ArgumentCaptor<InsertOptions> insertOptionCaptor;
+
+  @Mock
+  private IdempotentCodec codec;
 
   @BeforeEach
   public void setUp() {
@@ -86,21 +110,36 @@ public class CouchbaseIdempotentRepositoryTest {
   public void given_an_available_object_when_couchbase_get_response_then_return_expected_idempotent_response_wrapper() {
     //Given
     IdempotencyKey idempotencyKey = new IdempotencyKey("key");
-    IdempotentRequestResponseWrapper wrapper = new IdempotentRequestResponseWrapper();
-    GetResult getResult = mock(GetResult.class);
-    when(getResult.contentAs(IdempotentRequestResponseWrapper.class)).thenReturn(wrapper);
-    when(collection.get(eq(idempotencyKey.getKeyValue()),any())).thenReturn(getResult);
+    IdempotentResponseWrapper response = new IdempotentResponseWrapper("response");
+    LookupInResult lookupInResult = mock(LookupInResult.class);
+    when(lookupInResult.exists(0)).thenReturn(true);
+    when(lookupInResult.contentAs(0, IdempotentResponseWrapper.class)).thenReturn(response);
+    when(collection.lookupIn(eq(idempotencyKey.getKeyValue()), anyList())).thenReturn(lookupInResult);
 
     //When
     IdempotentResponseWrapper result = couchbaseIdempotentRepository.getResponse(idempotencyKey);
 
     //Then
-    verify(collection, times(1)).get(eq(idempotencyKey.getKeyValue()),any());
-    assertEquals(result, wrapper.getResponse());
+    verify(collection, times(1)).lookupIn(eq(idempotencyKey.getKeyValue()), anyList());
+    verify(collection, times(0)).get(anyString(), any());
+    assertSame(response, result);
+  }
+
+  @Test
+  public void given_a_missing_document_when_get_request_response_wrapper_then_return_null() {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    when(collection.lookupIn(eq(idempotencyKey.getKeyValue()), anyList())).thenThrow(new DocumentNotFoundException(null));
+
+    //When
+    IdempotentRequestResponseWrapper result = couchbaseIdempotentRepository.getRequestResponseWrapper(idempotencyKey);
+
+    //Then
+    assertNull(result);
   }
 
   @Test
-  public void given_an_available_object_when_couchbase_store_then_collection_insert_once_time() {
+  public void given_an_available_object_when_couchbase_store_then_collection_insert_once_time() throws Exception {
     //Given
     IdempotencyKey idempotencyKey = new IdempotencyKey("key");
     IdempotentRequestWrapper wrapper = new IdempotentRequestWrapper();
@@ -110,13 +149,13 @@ public class CouchbaseIdempotentRepositoryTest {
     couchbaseIdempotentRepository.store(idempotencyKey, wrapper);
 
     //Then
-    verify(collection, times(1)).insert(eq(idempotencyKey.getKeyValue()), captor.capture());
+    verify(collection, times(1)).insert(eq(idempotencyKey.getKeyValue()), captor.capture(), any(InsertOptions.class));
     IdempotentRequestResponseWrapper idempotentRequestResponseWrapper = captor.getValue();
     assertEquals(idempotentRequestResponseWrapper.getResponse(), responseWrapper.getResponse());
   }
 
   @Test
-  public void given_an_available_object_when_couchbase_store_with_ttl_and_time_unit_is_days_then_collection_insert_once_time() {
+  public void given_an_available_object_when_couchbase_store_with_ttl_and_time_unit_is_days_then_collection_insert_once_time() throws Exception {
     //Given
     IdempotencyKey idempotencyKey = new IdempotencyKey("key");
     IdempotentRequestWrapper wrapper = new IdempotentRequestWrapper();
@@ -128,11 +167,23 @@ public class CouchbaseIdempotentRepositoryTest {
     couchbaseIdempotentRepository.store(idempotencyKey, wrapper, ttl, timeUnit);
 
     //Then
-    verify(collection, times(1)).upsert(eq(idempotencyKey.getKeyValue()),
+    verify(collection, times(1)).insert(eq(idempotencyKey.getKeyValue()),
         captor.capture(),
-        upsertOptionCaptor.capture());
+        insertOptionCaptor.capture());
     IdempotentRequestResponseWrapper idempotentRequestResponseWrapper = captor.getValue();
     assertEquals(idempotentRequestResponseWrapper.getResponse(), responseWrapper.getResponse());
+    verify(collection, times(0)).upsert(anyString(), any(), any());
+  }
+
+  @Test
+  public void given_a_stored_key_when_couchbase_store_with_ttl_then_throw_request_already_exists() {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    when(collection.insert(anyString(), any(), any(InsertOptions.class))).thenThrow(new DocumentExistsException(null));
+
+    //When & Then
+    assertThrows(RequestAlreadyExistsException.class,
+        () -> couchbaseIdempotentRepository.store(idempotencyKey, new IdempotentRequestWrapper(), 1L, TimeUnit.DAYS));
   }
 
 
@@ -140,41 +191,194 @@ public class CouchbaseIdempotentRepositoryTest {
   public void setResponse() {
     //Given
     IdempotencyKey idempotencyKey = new IdempotencyKey("key");
-    IdempotentRequestResponseWrapper wrapper = new IdempotentRequestResponseWrapper();
-    GetResult getResult = mock(GetResult.class);
-    ExistsResult existsResult = mock(ExistsResult.class);
-    when(existsResult.exists()).thenReturn(true);
-    when(getResult.contentAs(IdempotentRequestResponseWrapper.class)).thenReturn(wrapper);
-
-    when(collection.get(eq(idempotencyKey.getKeyValue()),any())).thenReturn(getResult);
-    when(collection.exists(idempotencyKey.getKeyValue())).thenReturn(existsResult);
-    when(collection.upsert(idempotencyKey.getKeyValue(),wrapper)).thenReturn(mock(MutationResult.class));
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(collection.mutateIn(eq(idempotencyKey.getKeyValue()), anyList(), any(MutateInOptions.class))).thenReturn(mock(MutateInResult.class));
     //When
     couchbaseIdempotentRepository.setResponse(idempotencyKey,mock(IdempotentRequestWrapper.class),
             mock(IdempotentResponseWrapper.class));
 
     //Then
-    verify(collection, times(1)).get(eq(idempotencyKey.getKeyValue()),any());
+    verify(collection, times(1)).mutateIn(eq(idempotencyKey.getKeyValue()), anyList(), any(MutateInOptions.class));
+    verify(collection, times(0)).get(anyString(), any());
+    verify(collection, times(0)).exists(anyString());
   }
 
   @Test
   public void setResponse_when_given_a_ttl() {
     //Given
     IdempotencyKey idempotencyKey = new IdempotencyKey("key");
-    IdempotentRequestResponseWrapper wrapper = new IdempotentRequestResponseWrapper();
-    GetResult getResult = mock(GetResult.class);
-    ExistsResult existsResult = mock(ExistsResult.class);
-    when(existsResult.exists()).thenReturn(true);
-    when(getResult.contentAs(IdempotentRequestResponseWrapper.class)).thenReturn(wrapper);
-    when(getResult.expiry()).thenReturn(Optional.of(Duration.ofDays(1)));
-    when(collection.get(eq(idempotencyKey.getKeyValue()),any())).thenReturn(getResult);
-    when(collection.exists(idempotencyKey.getKeyValue())).thenReturn(existsResult);
-    when(collection.upsert(eq(idempotencyKey.getKeyValue()),eq(wrapper),any())).thenReturn(mock(MutationResult.class));
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(collection.mutateIn(eq(idempotencyKey.getKeyValue()), anyList(), mutateInOptionCaptor.capture())).thenReturn(mock(MutateInResult.class));
     //When
     couchbaseIdempotentRepository.setResponse(idempotencyKey,mock(IdempotentRequestWrapper.class),
             mock(IdempotentResponseWrapper.class),5L,TimeUnit.DAYS);
 
     //Then
-    verify(collection, times(1)).get(eq(idempotencyKey.getKeyValue()),any());
+    assertTrue(mutateInOptionCaptor.getValue().build().preserveExpiry());
+    verify(collection, times(0)).upsert(anyString(), any(), any());
+  }
+
+  @Test
+  public void given_a_removed_document_when_set_response_then_ignore_it() {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(collection.mutateIn(eq(idempotencyKey.getKeyValue()), anyList(), any(MutateInOptions.class))).thenThrow(new DocumentNotFoundException(null));
+
+    //When
+    couchbaseIdempotentRepository.setResponse(idempotencyKey, new IdempotentRequestWrapper(123),
+            new IdempotentResponseWrapper("response"), 5L, TimeUnit.DAYS);
+
+    //Then
+    verify(collection, times(1)).mutateIn(eq(idempotencyKey.getKeyValue()), anyList(), any(MutateInOptions.class));
+  }
+
+  @Test
+  public void given_a_codec_when_set_response_then_replace_binary_document_keeping_its_expiry() {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    IdempotentRequestWrapper request = new IdempotentRequestWrapper(123);
+    IdempotentResponseWrapper response = new IdempotentResponseWrapper("response");
+    byte[] encoded = "encoded".getBytes();
+    couchbaseIdempotentRepository = new CouchbaseIdempotentRepository(couchbaseConfig, collection, codec);
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(codec.encode(captor.capture())).thenReturn(encoded);
+
+    //When
+    couchbaseIdempotentRepository.setResponse(idempotencyKey, request, response, 5L, TimeUnit.DAYS);
+
+    //Then
+    verify(collection, times(1)).replace(eq(idempotencyKey.getKeyValue()), eq(encoded), replaceOptionCaptor.capture());
+    assertTrue(replaceOptionCaptor.getValue().build().preserveExpiry());
+    assertSame(RawBinaryTranscoder.INSTANCE, replaceOptionCaptor.getValue().build().transcoder());
+    assertEquals(request, captor.getValue().getRequest());
+    assertSame(response, captor.getValue().getResponse());
+    verify(collection, times(0)).mutateIn(anyString(), anyList(), any(MutateInOptions.class));
+  }
+
+  @Test
+  public void given_new_key_when_store_if_absent_then_insert_without_reading() throws Exception {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    IdempotentRequestWrapper wrapper = new IdempotentRequestWrapper(123);
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+
+    //When
+    IdempotentRequestResponseWrapper existing = couchbaseIdempotentRepository.storeIfAbsent(idempotencyKey, wrapper, 1L, TimeUnit.HOURS);
+
+    //Then
+    assertNull(existing);
+    verify(collection, times(1)).insert(eq(idempotencyKey.getKeyValue()), captor.capture(), any(InsertOptions.class));
+    assertEquals(wrapper, captor.getValue().getRequest());
+    verify(collection, times(0)).lookupIn(anyString(), anyList());
+  }
+
+  @Test
+  public void given_stored_key_when_store_if_absent_then_return_stored_document() throws Exception {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    IdempotentRequestWrapper wrapper = new IdempotentRequestWrapper(123);
+    IdempotentResponseWrapper response = new IdempotentResponseWrapper("response");
+    LookupInResult lookupInResult = mock(LookupInResult.class);
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(collection.insert(anyString(), any(), any(InsertOptions.class))).thenThrow(new DocumentExistsException(null));
+    when(collection.lookupIn(eq(idempotencyKey.getKeyValue()), anyList())).thenReturn(lookupInResult);
+    when(lookupInResult.exists(anyInt())).thenReturn(true);
+    when(lookupInResult.contentAs(0, IdempotentRequestWrapper.class)).thenReturn(wrapper);
+    when(lookupInResult.contentAs(1, IdempotentResponseWrapper.class)).thenReturn(response);
+
+    //When
+    IdempotentRequestResponseWrapper existing = couchbaseIdempotentRepository.storeIfAbsent(idempotencyKey, wrapper, 1L, TimeUnit.HOURS);
+
+    //Then
+    assertSame(wrapper, existing.getRequest());
+    assertSame(response, existing.getResponse());
+    verify(collection, times(0)).get(anyString(), any());
+  }
+
+  @Test
+  public void given_a_codec_when_store_if_absent_then_insert_encoded_binary_document() throws Exception {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    IdempotentRequestWrapper wrapper = new IdempotentRequestWrapper(123);
+    byte[] encoded = "encoded".getBytes();
+    couchbaseIdempotentRepository = new CouchbaseIdempotentRepository(couchbaseConfig, collection, codec);
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(codec.encode(any(IdempotentRequestResponseWrapper.class))).thenReturn(encoded);
+
+    //When
+    couchbaseIdempotentRepository.storeIfAbsent(idempotencyKey, wrapper, 1L, TimeUnit.HOURS);
+
+    //Then
+    verify(collection, times(1)).insert(eq(idempotencyKey.getKeyValue()), eq(encoded), insertOptionCaptor.capture());
+    assertSame(RawBinaryTranscoder.INSTANCE, insertOptionCaptor.getValue().build().transcoder());
+  }
+
+  @Test
+  public void given_binary_transcoder_when_stored_call_is_read_then_smile_document_round_trips() throws Exception {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    IdempotentRequestWrapper wrapper = new IdempotentRequestWrapper("request");
+    ArgumentCaptor<Object> content = ArgumentCaptor.forClass(Object.class);
+    GetResult getResult = mock(GetResult.class);
+    couchbaseIdempotentRepository = new CouchbaseIdempotentRepository(couchbaseConfig, collection,
+        CouchbaseTranscoder.of("binary").defaultCodecType().newCodec());
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    couchbaseIdempotentRepository.store(idempotencyKey, wrapper, 1L, TimeUnit.HOURS);
+    verify(collection).insert(eq(idempotencyKey.getKeyValue()), content.capture(), any(InsertOptions.class));
+    when(collection.get(eq(idempotencyKey.getKeyValue()), any())).thenReturn(getResult);
+    when(getResult.contentAs(byte[].class)).thenReturn((byte[]) content.getValue());
+
+    //When
+    IdempotentRequestResponseWrapper stored = couchbaseIdempotentRepository.getRequestResponseWrapper(idempotencyKey);
+
+    //Then
+    assertEquals(wrapper, stored.getRequest());
+    verify(collection, times(0)).lookupIn(anyString(), anyList());
+  }
+
+  @Test
+  public void given_a_batch_with_a_stored_key_when_store_all_if_absent_then_return_only_the_stored_document() {
+    //Given
+    AsyncCollection async = mock(AsyncCollection.class);
+    IdempotentRequestWrapper stored = new IdempotentRequestWrapper(1);
+    LookupInResult lookupInResult = mock(LookupInResult.class);
+    Map<IdempotencyKey, IdempotentRequestWrapper> requests = new LinkedHashMap<>();
+    requests.put(new IdempotencyKey("stored"), new IdempotentRequestWrapper(1));
+    requests.put(new IdempotencyKey("fresh"), new IdempotentRequestWrapper(2));
+    when(collection.async()).thenReturn(async);
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(async.insert(eq("stored"), any(), any(InsertOptions.class)))
+        .thenReturn(CompletableFuture.failedFuture(new DocumentExistsException(null)));
+    when(async.insert(eq("fresh"), any(), any(InsertOptions.class)))
+        .thenReturn(CompletableFuture.completedFuture(mock(MutationResult.class)));
+    when(async.lookupIn(eq("stored"), anyList())).thenReturn(CompletableFuture.completedFuture(lookupInResult));
+    when(lookupInResult.exists(0)).thenReturn(true);
+    when(lookupInResult.contentAs(0, IdempotentRequestWrapper.class)).thenReturn(stored);
+
+    //When
+    Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = couchbaseIdempotentRepository.storeAllIfAbsent(requests, 1L, TimeUnit.HOURS);
+
+    //Then
+    assertEquals(1, existing.size());
+    assertSame(stored, existing.get(new IdempotencyKey("stored")).getRequest());
+    verify(async, times(1)).insert(eq("fresh"), any(), any(InsertOptions.class));
+    verify(collection, times(0)).insert(anyString(), any(), any(InsertOptions.class));
+  }
+
+  @Test
+  public void given_keys_with_a_missing_document_when_remove_all_then_remove_them_all_and_ignore_the_missing_one() {
+    //Given
+    AsyncCollection async = mock(AsyncCollection.class);
+    when(collection.async()).thenReturn(async);
+    when(async.remove("key1")).thenReturn(CompletableFuture.completedFuture(mock(MutationResult.class)));
+    when(async.remove("key2")).thenReturn(CompletableFuture.failedFuture(new DocumentNotFoundException(null)));
+
+    //When
+    couchbaseIdempotentRepository.removeAll(List.of(new IdempotencyKey("key1"), new IdempotencyKey("key2")));
+
+    //Then
+    verify(async, times(1)).remove("key1");
+    verify(async, times(1)).remove("key2");
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package com.trendyol.jdempotent.couchbase;
+
+import com.couchbase.client.core.error.DocumentExistsException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.kv.InsertOptions;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.MutateInOptions;
+import com.couchbase.client.java.kv.MutationResult;
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveCouchbaseIdempotentRepositoryTest {
+  private ReactiveCouchbaseIdempotentRepository repository;
+
+  @Mock
+  private CouchbaseConfig couchbaseConfig;
+
+  @Mock
+  private ReactiveCollection collection;
+
+  @BeforeEach
+  public void setUp() {
+    repository = new ReactiveCouchbaseIdempotentRepository(couchbaseConfig, collection);
+  }
+
+  @Test
+  public void given_new_key_when_store_if_absent_then_insert_only_on_subscription_and_return_empty() {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(collection.insert(eq("key"), any(), any(InsertOptions.class))).thenReturn(Mono.just(mock(MutationResult.class)));
+
+    //When
+    Mono<IdempotentRequestResponseWrapper> call = repository.storeIfAbsent(idempotencyKey, new IdempotentRequestWrapper(123), 1L, TimeUnit.HOURS);
+    verify(collection, times(0)).insert(anyString(), any(), any(InsertOptions.class));
+    IdempotentRequestResponseWrapper existing = call.block();
+
+    //Then
+    assertNull(existing);
+    verify(collection, times(1)).insert(eq("key"), any(), any(InsertOptions.class));
+    verify(collection, times(0)).lookupIn(anyString(), anyList());
+  }
+
+  @Test
+  public void given_stored_key_when_store_if_absent_then_return_stored_call() {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    IdempotentRequestWrapper request = new IdempotentRequestWrapper(123);
+    LookupInResult lookupInResult = mock(LookupInResult.class);
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(collection.insert(eq("key"), any(), any(InsertOptions.class))).thenReturn(Mono.error(new DocumentExistsException(null)));
+    when(collection.lookupIn(eq("key"), anyList())).thenReturn(Mono.just(lookupInResult));
+    when(lookupInResult.exists(0)).thenReturn(true);
+    when(lookupInResult.contentAs(0, IdempotentRequestWrapper.class)).thenReturn(request);
+
+    //When
+    IdempotentRequestResponseWrapper existing = repository.storeIfAbsent(idempotencyKey, request, 1L, TimeUnit.HOURS).block();
+
+    //Then
+    assertSame(request, existing.getRequest());
+  }
+
+  @Test
+  public void given_stored_key_removed_before_read_when_store_if_absent_then_return_already_exists() {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(collection.insert(eq("key"), any(), any(InsertOptions.class))).thenReturn(Mono.error(new DocumentExistsException(null)));
+    when(collection.lookupIn(eq("key"), anyList())).thenReturn(Mono.error(new DocumentNotFoundException(null)));
+
+    //When
+    IdempotentRequestResponseWrapper existing = repository.storeIfAbsent(idempotencyKey, new IdempotentRequestWrapper(123), 1L, TimeUnit.HOURS).block();
+
+    //Then
+    assertSame(IdempotentRepository.ALREADY_EXISTS, existing);
+  }
+
+  @Test
+  public void given_a_removed_document_when_set_response_then_complete_without_error() {
+    //Given
+    IdempotencyKey idempotencyKey = new IdempotencyKey("key");
+    when(couchbaseConfig.getPersistReqRes()).thenReturn(true);
+    when(collection.mutateIn(eq("key"), anyList(), any(MutateInOptions.class))).thenReturn(Mono.error(new DocumentNotFoundException(null)));
+
+    //When
+    repository.setResponse(idempotencyKey, new IdempotentRequestWrapper(123), new IdempotentResponseWrapper("response"), 1L, TimeUnit.HOURS).block();
+
+    //Then
+    verify(collection, times(1)).mutateIn(eq("key"), anyList(), any(MutateInOptions.class));
+  }
+}
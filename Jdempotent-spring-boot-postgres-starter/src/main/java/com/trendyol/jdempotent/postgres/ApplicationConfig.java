@@ -1,5 +1,7 @@
 package com.trendyol.jdempotent.postgres;
 
+import javax.sql.DataSource;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -9,15 +11,21 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.util.StringUtils;
 
 import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
 import com.trendyol.jdempotent.core.callback.ErrorConditionalCallback;
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.codec.JavaSerializationCodec;
+import com.trendyol.jdempotent.core.config.ConfigUtility;
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
 import com.trendyol.jdempotent.core.generator.KeyGenerator;
 
 import jakarta.persistence.EntityManagerFactory;
 
 @Configuration
+@Import(ConfigUtility.class)
 @ConditionalOnProperty(prefix = "jdempotent", name = "enable", havingValue = "true", matchIfMissing = true)
 public class ApplicationConfig {
 
@@ -25,10 +33,13 @@ public class ApplicationConfig {
 
     private final JdempotentPostgresProperties postgresProperties;
     private final ApplicationContext applicationContext;
+    private final ConfigUtility configUtility;
 
-    public ApplicationConfig(JdempotentPostgresProperties postgresProperties, ApplicationContext applicationContext) {
+    public ApplicationConfig(JdempotentPostgresProperties postgresProperties, ApplicationContext applicationContext,
+                             ConfigUtility configUtility) {
         this.postgresProperties = postgresProperties;
         this.applicationContext = applicationContext;
+        this.configUtility = configUtility;
     }
 
     /**
@@ -39,9 +50,7 @@ public class ApplicationConfig {
     @ConditionalOnClass(ErrorConditionalCallback.class)
     @ConditionalOnBean(ErrorConditionalCallback.class)
     public IdempotentAspect getIdempotentAspect(ErrorConditionalCallback errorConditionalCallback) {
-        EntityManagerFactory entityManagerFactory = resolveEntityManagerFactory();
-        return new IdempotentAspect(new PostgresIdempotentRepository(entityManagerFactory, postgresProperties),
-                errorConditionalCallback);
+        return configUtility.configure(new IdempotentAspect(createRepository(), errorConditionalCallback));
     }
 
     /**
@@ -50,8 +59,37 @@ public class ApplicationConfig {
     @Bean
     @ConditionalOnMissingBean({ IdempotentAspect.class, KeyGenerator.class })
     public IdempotentAspect defaultGetIdempotentAspect() {
-        EntityManagerFactory entityManagerFactory = resolveEntityManagerFactory();
-        return new IdempotentAspect(new PostgresIdempotentRepository(entityManagerFactory, postgresProperties));
+        return configUtility.configure(new IdempotentAspect(createRepository()));
+    }
+
+    /**
+     * Creates the repository of the configured access mode
+     */
+    private IdempotentRepository createRepository() {
+        IdempotentCodec codec = configUtility.getCodec(JavaSerializationCodec.INSTANCE);
+        if (postgresProperties.getAccessMode() == JdempotentPostgresProperties.AccessMode.JDBC) {
+            return new JdbcPostgresIdempotentRepository(resolveDataSource(), postgresProperties, codec);
+        }
+        return new PostgresIdempotentRepository(resolveEntityManagerFactory(), postgresProperties, codec);
+    }
+
+    /**
+     * Resolves the DataSource bean used by the JDBC access mode, the one named by dataSourceBeanName
+     * when it is set, otherwise the default DataSource bean.
+     */
+    private DataSource resolveDataSource() {
+        String beanName = postgresProperties.getDataSourceBeanName();
+
+        if (!StringUtils.hasText(beanName)) {
+            return applicationContext.getBean(DataSource.class);
+        }
+
+        try {
+            return applicationContext.getBean(beanName, DataSource.class);
+        } catch (Exception e) {
+            logger.error("Could not find DataSource with name '{}'.", beanName);
+            throw e;
+        }
     }
 
     /**
@@ -0,0 +1,416 @@
+package com.trendyol.jdempotent.postgres;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.codec.JavaSerializationCodec;
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+
+/**
+ * PostgreSQL implementation of the IdempotentRepository interface over plain JDBC, stores the same
+ * rows as {@link PostgresIdempotentRepository} without an EntityManager or Hibernate in between.
+ *
+ * <p>Every statement is built once for the configured table, so the driver sees the same SQL for
+ * each call and switches to a server-side prepared statement after a few executions on a connection.
+ * The request_data and response_data columns are bound as bytea with {@code setBytes}.</p>
+ *
+ * <p>Every call is a single statement run in autocommit on a connection of its own, so a row is committed
+ * before the call returns even when the caller is inside a transaction of its own, and rolling that
+ * transaction back does not take the row with it. Batches use one multi-row statement per
+ * {@value PostgresIdempotentRepository#BATCH_ROWS} keys.</p>
+ */
+public class JdbcPostgresIdempotentRepository implements IdempotentRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcPostgresIdempotentRepository.class);
+    private static final int BATCH_ROWS = PostgresIdempotentRepository.BATCH_ROWS;
+    private static final String STORE_ALL_ROW = "?, CAST(? AS BYTEA), CAST(? AS TIMESTAMP)";
+    private static final String SET_RESPONSES_ROW = "?, CAST(? AS BYTEA)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostgresRows postgresRows;
+    private final String tableName;
+
+    private final String containsSql;
+    private final String getResponseSql;
+    private final String getRequestResponseSql;
+    private final String storeSql;
+    private final String storeIfAbsentSql;
+    private final String setResponseSql;
+    private final String removeSql;
+    private final String removeAllSql;
+    private final String storeAllBatchSql;
+    private final String setResponsesBatchSql;
+
+    public JdbcPostgresIdempotentRepository(DataSource dataSource, JdempotentPostgresProperties postgresProperties) {
+        this(dataSource, postgresProperties, JavaSerializationCodec.INSTANCE);
+    }
+
+    /**
+     * @param dataSource
+     * @param postgresProperties
+     * @param codec              encodes the request_data and response_data columns
+     */
+    public JdbcPostgresIdempotentRepository(DataSource dataSource, JdempotentPostgresProperties postgresProperties,
+                                            IdempotentCodec codec) {
+        // a connection bound to a transaction of the caller is looked up by its DataSource,
+        // behind the wrapper this repository never sees it and always takes a connection of its own
+        this.jdbcTemplate = new JdbcTemplate(new AutoCommitDataSource(dataSource));
+        this.postgresRows = new PostgresRows(postgresProperties, codec);
+        this.tableName = postgresProperties.getTableName();
+
+        String live = " WHERE idempotency_key = ? AND (expires_at IS NULL OR expires_at > CURRENT_TIMESTAMP)";
+        this.containsSql = "SELECT 1 FROM " + tableName + live;
+        this.getResponseSql = "SELECT response_data FROM " + tableName + live;
+        this.getRequestResponseSql = "SELECT request_data, response_data FROM " + tableName + live;
+        this.storeSql = "INSERT INTO " + tableName + " (idempotency_key, cache_prefix, request_data, response_data, expires_at)" +
+                " VALUES (?, ?, ?, NULL, ?) ON CONFLICT (idempotency_key) DO NOTHING";
+        // see PostgresIdempotentRepository#storeIfAbsent, the key is bound twice since JDBC placeholders are positional
+        this.storeIfAbsentSql = "WITH inserted AS (" +
+                "INSERT INTO " + tableName + " AS stored (idempotency_key, cache_prefix, request_data, response_data, expires_at)" +
+                " VALUES (?, NULL, ?, NULL, ?)" +
+                " ON CONFLICT (idempotency_key) DO UPDATE SET cache_prefix = EXCLUDED.cache_prefix, request_data = EXCLUDED.request_data," +
+                " response_data = NULL, expires_at = EXCLUDED.expires_at, created_at = CURRENT_TIMESTAMP" +
+                " WHERE stored.expires_at IS NOT NULL AND stored.expires_at <= CURRENT_TIMESTAMP" +
+                " RETURNING idempotency_key)" +
+                " SELECT TRUE, NULL, NULL FROM inserted" +
+                " UNION ALL" +
+                " SELECT FALSE, request_data, response_data FROM " + tableName +
+                " WHERE idempotency_key = ? AND NOT EXISTS (SELECT 1 FROM inserted)";
+        this.setResponseSql = "UPDATE " + tableName + " SET response_data = ?" + live;
+        this.removeSql = "DELETE FROM " + tableName + " WHERE idempotency_key = ?";
+        this.removeAllSql = "DELETE FROM " + tableName + " WHERE idempotency_key = ANY (?)";
+        this.storeAllBatchSql = storeAllSql(BATCH_ROWS);
+        this.setResponsesBatchSql = setResponsesSql(BATCH_ROWS);
+    }
+
+    @Override
+    public boolean persistsRequests() {
+        return postgresRows.persistsRequests();
+    }
+
+    @Override
+    public boolean contains(IdempotencyKey key) {
+        try {
+            return Boolean.TRUE.equals(
+                    jdbcTemplate.query(containsSql, (ResultSetExtractor<Boolean>) rs -> rs.next(), key.getKeyValue()));
+        } catch (Exception e) {
+            logger.error("Error checking if key exists: {}", key.getKeyValue(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public IdempotentResponseWrapper getResponse(IdempotencyKey key) {
+        try {
+            return jdbcTemplate.query(getResponseSql,
+                    rs -> rs.next() ? postgresRows.toResponseWrapper(rs.getBytes(1)) : null, key.getKeyValue());
+        } catch (Exception e) {
+            logger.error("Error getting response for key: {}", key.getKeyValue(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public IdempotentRequestResponseWrapper getRequestResponseWrapper(IdempotencyKey key) {
+        try {
+            return jdbcTemplate.query(getRequestResponseSql,
+                    rs -> rs.next() ? postgresRows.toRequestResponseWrapper(rs.getBytes(1), rs.getBytes(2)) : null,
+                    key.getKeyValue());
+        } catch (Exception e) {
+            logger.error("Error getting request-response wrapper for key: {}", key.getKeyValue(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject) throws RequestAlreadyExistsException {
+        store(key, requestObject, 0L, TimeUnit.SECONDS); // No default TTL, will be handled by annotation
+    }
+
+    @Override
+    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
+        store(key, requestObject, null, ttl, timeUnit);
+    }
+
+    @Override
+    public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject, String cachePrefix, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
+        int rowsAffected;
+        try {
+            byte[] requestData = postgresRows.requestData(requestObject);
+            Timestamp expiresAt = PostgresRows.expiresAt(ttl, timeUnit);
+            rowsAffected = jdbcTemplate.update(storeSql, ps -> {
+                ps.setString(1, key.getKeyValue());
+                ps.setString(2, cachePrefix);
+                ps.setBytes(3, requestData);
+                ps.setTimestamp(4, expiresAt);
+            });
+        } catch (Exception e) {
+            logger.error("Error storing request for key: {}", key.getKeyValue(), e);
+            throw new RuntimeException("Failed to store idempotent request", e);
+        }
+        // If no rows were inserted, it means the key already exists
+        if (rowsAffected == 0) {
+            throw new RequestAlreadyExistsException();
+        }
+    }
+
+    /**
+     * Inserts the request or reads the stored row in one statement, like
+     * {@link PostgresIdempotentRepository#storeIfAbsent} a row past its expiry is taken over
+     *
+     * @param key
+     * @param requestObject
+     * @param ttl
+     * @param timeUnit
+     * @return {@link #ALREADY_EXISTS} when a concurrent insert is not visible to the statement yet
+     */
+    @Override
+    public IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper requestObject, Long ttl, TimeUnit timeUnit) {
+        StoreResult result;
+        try {
+            byte[] requestData = postgresRows.requestData(requestObject);
+            Timestamp expiresAt = PostgresRows.expiresAt(ttl, timeUnit);
+            result = jdbcTemplate.query(storeIfAbsentSql, ps -> {
+                ps.setString(1, key.getKeyValue());
+                ps.setBytes(2, requestData);
+                ps.setTimestamp(3, expiresAt);
+                ps.setString(4, key.getKeyValue());
+            }, rs -> {
+                if (!rs.next()) {
+                    return StoreResult.NONE;
+                }
+                if (rs.getBoolean(1)) {
+                    return StoreResult.INSERTED;
+                }
+                return new StoreResult(postgresRows.toRequestResponseWrapper(rs.getBytes(2), rs.getBytes(3)));
+            });
+        } catch (Exception e) {
+            logger.error("Error storing request for key: {}", key.getKeyValue(), e);
+            throw new RuntimeException("Failed to store idempotent request", e);
+        }
+
+        if (result == StoreResult.NONE) {
+            IdempotentRequestResponseWrapper existing = getRequestResponseWrapper(key);
+            return existing != null ? existing : ALREADY_EXISTS;
+        }
+        return result.existing;
+    }
+
+    /**
+     * Inserts every request or reads the stored rows with one statement per {@value #BATCH_ROWS} keys,
+     * like {@link #storeIfAbsent} a row past its expiry is taken over
+     *
+     * @param requests
+     * @param ttl
+     * @param timeUnit
+     * @return
+     */
+    @Override
+    public Map<IdempotencyKey, IdempotentRequestResponseWrapper> storeAllIfAbsent(Map<IdempotencyKey, IdempotentRequestWrapper> requests,
+                                                                              Long ttl, TimeUnit timeUnit) {
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = new LinkedHashMap<>();
+        List<IdempotencyKey> keys = new ArrayList<>(requests.keySet());
+        Timestamp expiresAt = PostgresRows.expiresAt(ttl, timeUnit);
+        for (int from = 0; from < keys.size(); from += BATCH_ROWS) {
+            List<IdempotencyKey> batch = keys.subList(from, Math.min(from + BATCH_ROWS, keys.size()));
+            String sql = batch.size() == BATCH_ROWS ? storeAllBatchSql : storeAllSql(batch.size());
+            Map<String, IdempotentRequestResponseWrapper> stored;
+            try {
+                stored = jdbcTemplate.query(sql, ps -> {
+                    int position = 1;
+                    for (IdempotencyKey key : batch) {
+                        ps.setString(position++, key.getKeyValue());
+                        ps.setBytes(position++, postgresRows.requestData(requests.get(key)));
+                        ps.setTimestamp(position++, expiresAt);
+                    }
+                }, (ResultSetExtractor<Map<String, IdempotentRequestResponseWrapper>>) rs -> {
+                    Map<String, IdempotentRequestResponseWrapper> rows = new LinkedHashMap<>();
+                    while (rs.next()) {
+                        rows.put(rs.getString(1), rs.getBoolean(2) ? null
+                                : postgresRows.toRequestResponseWrapper(rs.getBytes(3), rs.getBytes(4)));
+                    }
+                    return rows;
+                });
+            } catch (Exception e) {
+                logger.error("Error storing {} requests", batch.size(), e);
+                throw new RuntimeException("Failed to store idempotent requests", e);
+            }
+
+            for (IdempotencyKey key : batch) {
+                if (!stored.containsKey(key.getKeyValue())) {
+                    // a concurrent insert not visible to the statement yet
+                    existing.put(key, ALREADY_EXISTS);
+                } else if (stored.get(key.getKeyValue()) != null) {
+                    existing.put(key, stored.get(key.getKeyValue()));
+                }
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Sets the response of every stored row with one statement per {@value #BATCH_ROWS} keys, keys that are not
+     * stored are skipped, like {@link PostgresIdempotentRepository#setResponses} the stored request and expiry are kept
+     *
+     * @param calls
+     * @param ttl      unused, the rows expire a ttl after they were stored
+     * @param timeUnit
+     */
+    @Override
+    public void setResponses(Map<IdempotencyKey, IdempotentRequestResponseWrapper> calls, Long ttl, TimeUnit timeUnit) {
+        List<IdempotencyKey> keys = new ArrayList<>(calls.keySet());
+        for (int from = 0; from < keys.size(); from += BATCH_ROWS) {
+            List<IdempotencyKey> batch = keys.subList(from, Math.min(from + BATCH_ROWS, keys.size()));
+            String sql = batch.size() == BATCH_ROWS ? setResponsesBatchSql : setResponsesSql(batch.size());
+            jdbcTemplate.update(sql, ps -> {
+                int position = 1;
+                for (IdempotencyKey key : batch) {
+                    IdempotentRequestResponseWrapper call = calls.get(key);
+                    ps.setString(position++, key.getKeyValue());
+                    ps.setBytes(position++, postgresRows.responseData(call.getResponse()));
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes the keys with a single statement binding them as one array parameter
+     *
+     * @param keys
+     */
+    @Override
+    public void removeAll(Collection<IdempotencyKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        String[] keyValues = keys.stream().map(IdempotencyKey::getKeyValue).toArray(String[]::new);
+        jdbcTemplate.update(removeAllSql, ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", keyValues)));
+    }
+
+    @Override
+    public void remove(IdempotencyKey key) {
+        try {
+            jdbcTemplate.update(removeSql, key.getKeyValue());
+        } catch (Exception e) {
+            logger.error("Error removing key: {}", key.getKeyValue(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper response) {
+        setResponse(key, request, response, 0L, TimeUnit.SECONDS); // No default TTL, will be handled by annotation
+    }
+
+    /**
+     * Sets the response of the stored row with a single statement, a key that is not stored or already
+     * expired is skipped, like {@link #setResponses} the stored request and expiry are kept
+     *
+     * @param key
+     * @param request  unused, the request was stored with the key
+     * @param response
+     * @param ttl      unused, the row expires a ttl after it was stored
+     * @param timeUnit
+     */
+    @Override
+    public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper response, Long ttl, TimeUnit timeUnit) {
+        try {
+            byte[] responseData = postgresRows.responseData(response);
+            int rowsAffected = jdbcTemplate.update(setResponseSql, ps -> {
+                ps.setBytes(1, responseData);
+                ps.setString(2, key.getKeyValue());
+            });
+            if (rowsAffected == 0) {
+                logger.warn("Attempting to set response for non-existent key: {}", key.getKeyValue());
+            }
+        } catch (Exception e) {
+            logger.error("Error setting response for key: {}", key.getKeyValue(), e);
+            throw e;
+        }
+    }
+
+    private String storeAllSql(int rows) {
+        return "WITH requests (idempotency_key, request_data, expires_at) AS (VALUES " + PostgresRows.valuesRows(rows, STORE_ALL_ROW, false) + ")," +
+                " inserted AS (" +
+                "INSERT INTO " + tableName + " AS stored (idempotency_key, cache_prefix, request_data, response_data, expires_at)" +
+                " SELECT idempotency_key, CAST(NULL AS VARCHAR), request_data, CAST(NULL AS BYTEA), expires_at FROM requests" +
+                " ON CONFLICT (idempotency_key) DO UPDATE SET cache_prefix = EXCLUDED.cache_prefix, request_data = EXCLUDED.request_data," +
+                " response_data = NULL, expires_at = EXCLUDED.expires_at, created_at = CURRENT_TIMESTAMP" +
+                " WHERE stored.expires_at IS NOT NULL AND stored.expires_at <= CURRENT_TIMESTAMP" +
+                " RETURNING idempotency_key)" +
+                " SELECT idempotency_key, TRUE, NULL, NULL FROM inserted" +
+                " UNION ALL" +
+                " SELECT stored.idempotency_key, FALSE, stored.request_data, stored.response_data FROM " + tableName + " stored" +
+                " JOIN requests ON requests.idempotency_key = stored.idempotency_key" +
+                " WHERE NOT EXISTS (SELECT 1 FROM inserted WHERE inserted.idempotency_key = stored.idempotency_key)";
+    }
+
+    private String setResponsesSql(int rows) {
+        return "UPDATE " + tableName + " AS stored SET response_data = responses.response_data" +
+                " FROM (VALUES " + PostgresRows.valuesRows(rows, SET_RESPONSES_ROW, false) + ")" +
+                " AS responses (idempotency_key, response_data)" +
+                " WHERE stored.idempotency_key = responses.idempotency_key";
+    }
+
+    /**
+     * Hands out connections in autocommit even when the pool is configured without it, every call is a single statement
+     */
+    private static final class AutoCommitDataSource extends DelegatingDataSource {
+
+        private AutoCommitDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return autoCommit(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return autoCommit(super.getConnection(username, password));
+        }
+
+        private static Connection autoCommit(Connection connection) throws SQLException {
+            if (!connection.getAutoCommit()) {
+                connection.setAutoCommit(true);
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * The outcome of the storeIfAbsent statement
+     */
+    private static final class StoreResult {
+        private static final StoreResult INSERTED = new StoreResult(null);
+        private static final StoreResult NONE = new StoreResult(null);
+
+        private final IdempotentRequestResponseWrapper existing;
+
+        private StoreResult(IdempotentRequestResponseWrapper existing) {
+            this.existing = existing;
+        }
+    }
+}
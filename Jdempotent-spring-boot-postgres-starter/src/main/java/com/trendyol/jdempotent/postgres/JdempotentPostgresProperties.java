@@ -16,6 +16,8 @@ import org.springframework.context.annotation.Configuration;
  * <ul>
  *   <li><strong>jdempotent.postgres.tableName</strong> - Database table name for storing idempotent data</li>
  *   <li><strong>jdempotent.postgres.entityManagerBeanName</strong> - Specific EntityManager bean name for multi-database scenarios</li>
+ *   <li><strong>jdempotent.postgres.accessMode</strong> - Whether the repository goes through JPA or plain JDBC (JPA, JDBC)</li>
+ *   <li><strong>jdempotent.postgres.dataSourceBeanName</strong> - Specific DataSource bean name used by the JDBC access mode</li>
  *   <li><strong>jdempotent.cache.persistReqRes</strong> - Whether to persist request/response data as JSON</li>
  *   <li><strong>jdempotent.postgres.scheduler.enabled</strong> - Enable/disable the scheduled cleanup task</li>
  *   <li><strong>jdempotent.postgres.scheduler.batchSize</strong> - Number of records to delete in each cleanup batch</li>
@@ -31,6 +33,7 @@ import org.springframework.context.annotation.Configuration;
  * # application.properties
  * jdempotent.postgres.tableName=my_idempotent_table
  * jdempotent.postgres.entityManagerBeanName=myCustomEntityManager
+ * jdempotent.postgres.accessMode=JDBC
  * jdempotent.cache.persistReqRes=true
  * 
  * # Scheduler configuration
@@ -87,6 +90,32 @@ public class JdempotentPostgresProperties {
      */
     private String entityManagerBeanName = "";
 
+    /**
+     * How the repository talks to the database.
+     *
+     * <p>{@link AccessMode#JPA} runs native queries through an EntityManager created for each call,
+     * {@link AccessMode#JDBC} runs the same statements with a JdbcTemplate over the DataSource, skipping
+     * the EntityManager and Hibernate. Both store the same rows.</p>
+     *
+     * <p><strong>Default:</strong> JPA</p>
+     * <p><strong>Property:</strong> jdempotent.postgres.accessMode</p>
+     *
+     * @see #getAccessMode()
+     * @see #setAccessMode(AccessMode)
+     */
+    private AccessMode accessMode = AccessMode.JPA;
+
+    /**
+     * The name of a specific DataSource bean used by the JDBC access mode.
+     *
+     * <p><strong>Default:</strong> "" (empty - uses default DataSource)</p>
+     * <p><strong>Property:</strong> jdempotent.postgres.dataSourceBeanName</p>
+     *
+     * @see #getDataSourceBeanName()
+     * @see #setDataSourceBeanName(String)
+     */
+    private String dataSourceBeanName = "";
+
     /**
      * Whether to persist request and response data as byte arrays in the database.
      * 
@@ -94,8 +123,9 @@ public class JdempotentPostgresProperties {
      * Java serialization and stored in the request_data and response_data BYTEA columns. This 
      * allows for complete audit trails and debugging capabilities but increases storage requirements.</p>
      * 
-     * <p>When disabled, only the idempotency key and expiration information are stored,
-     * reducing storage overhead but limiting debugging capabilities.</p>
+     * <p>When disabled, only the idempotency key, expiration information and a 16 bytes fingerprint
+     * of the request are stored, reducing storage overhead but limiting debugging capabilities. The
+     * fingerprint is enough to detect a payload conflict.</p>
      * 
      * <p><strong>Default:</strong> true</p>
      * <p><strong>Property:</strong> jdempotent.cache.persistReqRes</p>
@@ -158,6 +188,43 @@ public class JdempotentPostgresProperties {
         this.entityManagerBeanName = entityManagerBeanName;
     }
 
+    /**
+     * Gets how the repository talks to the database.
+     *
+     * @return the access mode, defaults to JPA
+     */
+    public AccessMode getAccessMode() {
+        return accessMode;
+    }
+
+    /**
+     * Sets how the repository talks to the database.
+     *
+     * @param accessMode JPA to go through an EntityManager, JDBC to use a JdbcTemplate
+     */
+    public void setAccessMode(AccessMode accessMode) {
+        this.accessMode = accessMode;
+    }
+
+    /**
+     * Gets the configured DataSource bean name.
+     *
+     * @return the DataSource bean name, or empty string if default should be used
+     */
+    public String getDataSourceBeanName() {
+        return dataSourceBeanName;
+    }
+
+    /**
+     * Sets the DataSource bean name used by the JDBC access mode.
+     *
+     * @param dataSourceBeanName the bean name of the DataSource to use,
+     *                           or empty string to use the default DataSource
+     */
+    public void setDataSourceBeanName(String dataSourceBeanName) {
+        this.dataSourceBeanName = dataSourceBeanName;
+    }
+
     /**
      * Gets whether request/response data should be persisted as byte arrays.
      * 
@@ -372,6 +439,14 @@ public class JdempotentPostgresProperties {
         }
     }
 
+    /**
+     * Enumeration of supported repository access modes.
+     */
+    public enum AccessMode {
+        JPA,
+        JDBC
+    }
+
     /**
      * Enumeration of supported scheduling types.
      */
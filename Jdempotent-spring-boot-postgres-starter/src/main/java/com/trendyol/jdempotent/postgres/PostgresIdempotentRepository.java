@@ -1,16 +1,19 @@
 package com.trendyol.jdempotent.postgres;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.codec.JavaSerializationCodec;
 import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
 import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
@@ -28,18 +31,42 @@ import jakarta.persistence.Query;
  * This repository uses JPA EntityManager to store idempotent request-response data
  * in a PostgreSQL database with TTL support from @JdempotentResource annotation.
  * 
- * <p>Data is stored as byte arrays for efficiency and to avoid JSON encoding issues.</p>
+ * <p>Data is stored as byte arrays for efficiency and to avoid JSON encoding issues, encoded
+ * with java serialization unless another codec is given.</p>
+ *
+ * <p>Batches are written with one multi-row statement per {@value #BATCH_ROWS} keys.</p>
  */
 public class PostgresIdempotentRepository implements IdempotentRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(PostgresIdempotentRepository.class);
+    /**
+     * Rows of a multi-row statement, keeps the bind parameters of a statement well below the protocol limit
+     */
+    static final int BATCH_ROWS = 500;
 
     private final EntityManagerFactory entityManagerFactory;
     private final JdempotentPostgresProperties postgresProperties;
+    private final PostgresRows postgresRows;
 
     public PostgresIdempotentRepository(EntityManagerFactory entityManagerFactory, JdempotentPostgresProperties postgresProperties) {
+        this(entityManagerFactory, postgresProperties, JavaSerializationCodec.INSTANCE);
+    }
+
+    /**
+     * @param entityManagerFactory
+     * @param postgresProperties
+     * @param codec                encodes the request_data and response_data columns
+     */
+    public PostgresIdempotentRepository(EntityManagerFactory entityManagerFactory, JdempotentPostgresProperties postgresProperties,
+                                        IdempotentCodec codec) {
         this.entityManagerFactory = entityManagerFactory;
         this.postgresProperties = postgresProperties;
+        this.postgresRows = new PostgresRows(postgresProperties, codec);
+    }
+
+    @Override
+    public boolean persistsRequests() {
+        return postgresRows.persistsRequests();
     }
 
     @Override
@@ -69,14 +96,7 @@ public class PostgresIdempotentRepository implements IdempotentRepository {
                 Query query = entityManager.createNativeQuery(sql);
                 query.setParameter(1, key.getKeyValue());
                 
-                byte[] responseData = (byte[]) query.getSingleResult();
-                
-                if (responseData != null && responseData.length > 0) {
-                    Object responseObject = deserializeFromBytes(responseData);
-                    return new IdempotentResponseWrapper(responseObject);
-                }
-                
-                return null;
+                return postgresRows.toResponseWrapper((byte[]) query.getSingleResult());
             } catch (NoResultException e) {
                 return null;
             } catch (Exception e) {
@@ -96,23 +116,7 @@ public class PostgresIdempotentRepository implements IdempotentRepository {
                 query.setParameter(1, key.getKeyValue());
                 
                 Object[] result = (Object[]) query.getSingleResult();
-                byte[] requestData = (byte[]) result[0];
-                byte[] responseData = (byte[]) result[1];
-                
-                IdempotentRequestWrapper requestWrapper = null;
-                IdempotentResponseWrapper responseWrapper = null;
-                
-                if (requestData != null && requestData.length > 0) {
-                    Object requestObject = deserializeFromBytes(requestData);
-                    requestWrapper = new IdempotentRequestWrapper(requestObject);
-                }
-                
-                if (responseData != null && responseData.length > 0) {
-                    Object responseObject = deserializeFromBytes(responseData);
-                    responseWrapper = new IdempotentResponseWrapper(responseObject);
-                }
-                
-                return new IdempotentRequestResponseWrapper(requestWrapper, responseWrapper);
+                return postgresRows.toRequestResponseWrapper((byte[]) result[0], (byte[]) result[1]);
             } catch (NoResultException e) {
                 return null;
             } catch (Exception e) {
@@ -136,10 +140,7 @@ public class PostgresIdempotentRepository implements IdempotentRepository {
     public void store(IdempotencyKey key, IdempotentRequestWrapper requestObject, String cachePrefix, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
         try {
             executeWithTransactionForStore(entityManager -> {
-                byte[] requestData = null;
-                if (postgresProperties.getPersistReqRes() && requestObject != null && requestObject.getRequest() != null) {
-                    requestData = serializeToBytes(requestObject.getRequest());
-                }
+                byte[] requestData = postgresRows.requestData(requestObject);
 
                 Instant expiresAt = null;
                 if (ttl != null && ttl > 0) {
@@ -176,6 +177,191 @@ public class PostgresIdempotentRepository implements IdempotentRepository {
         }
     }
 
+    /**
+     * Inserts the request or reads the stored row in one statement. A row past its expiry that
+     * the cleanup has not deleted yet is taken over as if it was absent.
+     *
+     * @param key
+     * @param requestObject
+     * @param ttl
+     * @param timeUnit
+     * @return {@link #ALREADY_EXISTS} when a concurrent insert is not visible to the statement yet
+     */
+    @Override
+    public IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey key, IdempotentRequestWrapper requestObject, Long ttl, TimeUnit timeUnit) {
+        List<?> rows;
+        try {
+            rows = executeWithTransaction(entityManager -> {
+                byte[] requestData = postgresRows.requestData(requestObject);
+
+                Instant expiresAt = null;
+                if (ttl != null && ttl > 0) {
+                    long ttlSeconds = timeUnit.toSeconds(ttl);
+                    expiresAt = Instant.now().plusSeconds(ttlSeconds);
+                }
+
+                // The insert returns a row when it stored the request, otherwise the select returns the stored one.
+                // Both read the snapshot taken before the statement, so a row committed meanwhile is in neither.
+                String tableName = postgresProperties.getTableName();
+                String sql = "WITH inserted AS (" +
+                    "INSERT INTO " + tableName + " AS stored (idempotency_key, cache_prefix, request_data, response_data, expires_at)" +
+                    " VALUES (?1, NULL, ?2, NULL, ?3)" +
+                    " ON CONFLICT (idempotency_key) DO UPDATE SET cache_prefix = EXCLUDED.cache_prefix, request_data = EXCLUDED.request_data," +
+                    " response_data = NULL, expires_at = EXCLUDED.expires_at, created_at = CURRENT_TIMESTAMP" +
+                    " WHERE stored.expires_at IS NOT NULL AND stored.expires_at <= CURRENT_TIMESTAMP" +
+                    " RETURNING idempotency_key)" +
+                    " SELECT TRUE, NULL, NULL FROM inserted" +
+                    " UNION ALL" +
+                    " SELECT FALSE, request_data, response_data FROM " + tableName +
+                    " WHERE idempotency_key = ?1 AND NOT EXISTS (SELECT 1 FROM inserted)";
+
+                Query query = entityManager.createNativeQuery(sql);
+                query.setParameter(1, key.getKeyValue());
+                query.setParameter(2, requestData);
+                query.setParameter(3, expiresAt != null ? java.sql.Timestamp.from(expiresAt) : null);
+
+                return query.getResultList();
+            });
+        } catch (Exception e) {
+            logger.error("Error storing request for key: {}", key.getKeyValue(), e);
+            throw new RuntimeException("Failed to store idempotent request", e);
+        }
+
+        if (rows.isEmpty()) {
+            IdempotentRequestResponseWrapper existing = getRequestResponseWrapper(key);
+            return existing != null ? existing : ALREADY_EXISTS;
+        }
+        Object[] row = (Object[]) rows.get(0);
+        if (Boolean.TRUE.equals(row[0])) {
+            return null;
+        }
+        return postgresRows.toRequestResponseWrapper((byte[]) row[1], (byte[]) row[2]);
+    }
+
+    /**
+     * Inserts every request or reads the stored rows with one statement per {@value #BATCH_ROWS} keys,
+     * like {@link #storeIfAbsent} a row past its expiry is taken over
+     *
+     * @param requests
+     * @param ttl
+     * @param timeUnit
+     * @return
+     */
+    @Override
+    public Map<IdempotencyKey, IdempotentRequestResponseWrapper> storeAllIfAbsent(Map<IdempotencyKey, IdempotentRequestWrapper> requests,
+                                                                              Long ttl, TimeUnit timeUnit) {
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = new LinkedHashMap<>();
+        List<IdempotencyKey> keys = new ArrayList<>(requests.keySet());
+        Timestamp expiresAt = PostgresRows.expiresAt(ttl, timeUnit);
+        String tableName = postgresProperties.getTableName();
+        for (int from = 0; from < keys.size(); from += BATCH_ROWS) {
+            List<IdempotencyKey> batch = keys.subList(from, Math.min(from + BATCH_ROWS, keys.size()));
+            List<?> rows;
+            try {
+                rows = executeWithTransaction(entityManager -> {
+                    String sql = "WITH requests (idempotency_key, request_data, expires_at) AS (VALUES " + PostgresRows.valuesRows(batch.size(), "?, CAST(? AS BYTEA), CAST(? AS TIMESTAMP)", true) + ")," +
+                        " inserted AS (" +
+                        "INSERT INTO " + tableName + " AS stored (idempotency_key, cache_prefix, request_data, response_data, expires_at)" +
+                        " SELECT idempotency_key, CAST(NULL AS VARCHAR), request_data, CAST(NULL AS BYTEA), expires_at FROM requests" +
+                        " ON CONFLICT (idempotency_key) DO UPDATE SET cache_prefix = EXCLUDED.cache_prefix, request_data = EXCLUDED.request_data," +
+                        " response_data = NULL, expires_at = EXCLUDED.expires_at, created_at = CURRENT_TIMESTAMP" +
+                        " WHERE stored.expires_at IS NOT NULL AND stored.expires_at <= CURRENT_TIMESTAMP" +
+                        " RETURNING idempotency_key)" +
+                        " SELECT idempotency_key, TRUE, NULL, NULL FROM inserted" +
+                        " UNION ALL" +
+                        " SELECT stored.idempotency_key, FALSE, stored.request_data, stored.response_data FROM " + tableName + " stored" +
+                        " JOIN requests ON requests.idempotency_key = stored.idempotency_key" +
+                        " WHERE NOT EXISTS (SELECT 1 FROM inserted WHERE inserted.idempotency_key = stored.idempotency_key)";
+
+                    Query query = entityManager.createNativeQuery(sql);
+                    int position = 1;
+                    for (IdempotencyKey key : batch) {
+                        query.setParameter(position++, key.getKeyValue());
+                        query.setParameter(position++, postgresRows.requestData(requests.get(key)));
+                        query.setParameter(position++, expiresAt);
+                    }
+                    return query.getResultList();
+                });
+            } catch (Exception e) {
+                logger.error("Error storing {} requests", batch.size(), e);
+                throw new RuntimeException("Failed to store idempotent requests", e);
+            }
+
+            Map<String, Object[]> rowsByKey = new LinkedHashMap<>();
+            for (Object result : rows) {
+                Object[] row = (Object[]) result;
+                rowsByKey.put((String) row[0], row);
+            }
+            for (IdempotencyKey key : batch) {
+                Object[] row = rowsByKey.get(key.getKeyValue());
+                if (row == null) {
+                    // a concurrent insert not visible to the statement yet
+                    existing.put(key, ALREADY_EXISTS);
+                } else if (!Boolean.TRUE.equals(row[1])) {
+                    existing.put(key, postgresRows.toRequestResponseWrapper((byte[]) row[2], (byte[]) row[3]));
+                }
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Sets the response of every stored row with one statement per {@value #BATCH_ROWS} keys, keys that are not
+     * stored are skipped. The request and the expiry stored with the row are kept, like a Couchbase
+     * document keeps its expiry.
+     *
+     * @param calls
+     * @param ttl      unused, the rows expire a ttl after they were stored
+     * @param timeUnit
+     */
+    @Override
+    public void setResponses(Map<IdempotencyKey, IdempotentRequestResponseWrapper> calls, Long ttl, TimeUnit timeUnit) {
+        List<IdempotencyKey> keys = new ArrayList<>(calls.keySet());
+        String tableName = postgresProperties.getTableName();
+        for (int from = 0; from < keys.size(); from += BATCH_ROWS) {
+            List<IdempotencyKey> batch = keys.subList(from, Math.min(from + BATCH_ROWS, keys.size()));
+            executeWithTransaction(entityManager -> {
+                String sql = "UPDATE " + tableName + " AS stored SET response_data = responses.response_data" +
+                    " FROM (VALUES " + PostgresRows.valuesRows(batch.size(), "?, CAST(? AS BYTEA)", true) + ")" +
+                    " AS responses (idempotency_key, response_data)" +
+                    " WHERE stored.idempotency_key = responses.idempotency_key";
+
+                Query query = entityManager.createNativeQuery(sql);
+                int position = 1;
+                for (IdempotencyKey key : batch) {
+                    IdempotentRequestResponseWrapper call = calls.get(key);
+                    query.setParameter(position++, key.getKeyValue());
+                    query.setParameter(position++, postgresRows.responseData(call.getResponse()));
+                }
+                query.executeUpdate();
+                return null; // Void operation
+            });
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<IdempotencyKey> keys) {
+        List<IdempotencyKey> keyList = new ArrayList<>(keys);
+        for (int from = 0; from < keyList.size(); from += BATCH_ROWS) {
+            List<IdempotencyKey> batch = keyList.subList(from, Math.min(from + BATCH_ROWS, keyList.size()));
+            executeWithTransaction(entityManager -> {
+                StringBuilder sql = new StringBuilder("DELETE FROM ").append(postgresProperties.getTableName()).append(" WHERE idempotency_key IN (");
+                for (int position = 1; position <= batch.size(); position++) {
+                    sql.append(position > 1 ? ", ?" : "?").append(position);
+                }
+                sql.append(')');
+
+                Query query = entityManager.createNativeQuery(sql.toString());
+                int position = 1;
+                for (IdempotencyKey key : batch) {
+                    query.setParameter(position++, key.getKeyValue());
+                }
+                query.executeUpdate();
+                return null; // Void operation
+            });
+        }
+    }
+
     @Override
     public void remove(IdempotencyKey key) {
         executeWithTransaction(entityManager -> {
@@ -199,84 +385,41 @@ public class PostgresIdempotentRepository implements IdempotentRepository {
         setResponse(key, request, response, 0L, TimeUnit.SECONDS); // No default TTL, will be handled by annotation
     }
 
+    /**
+     * Sets the response of the stored row with a single statement on one connection, a key that is not stored
+     * or already expired updates no row and is skipped. Like {@link #setResponses} the request and the expiry
+     * stored with the row are kept.
+     *
+     * @param key
+     * @param request  unused, the request was stored with the key
+     * @param response
+     * @param ttl      unused, the row expires a ttl after it was stored
+     * @param timeUnit
+     */
     @Override
     public void setResponse(IdempotencyKey key, IdempotentRequestWrapper request, IdempotentResponseWrapper response, Long ttl, TimeUnit timeUnit) {
-        executeWithTransaction(entityManager -> {
+        List<?> updated = executeWithTransaction(entityManager -> {
             try {
-                if (!contains(key)) {
-                    logger.warn("Attempting to set response for non-existent key: {}", key.getKeyValue());
-                    return null;
-                }
-
-                byte[] requestData = null;
-                byte[] responseData = null;
+                byte[] responseData = postgresRows.responseData(response);
 
                 logger.debug("PostgresIdempotentRepository.setResponse() - persistReqRes setting: {}", postgresProperties.getPersistReqRes());
-                
-                if (postgresProperties.getPersistReqRes()) {
-                    if (request != null && request.getRequest() != null) {
-                        requestData = serializeToBytes(request.getRequest());
-                    }
-                    if (response != null && response.getResponse() != null) {
-                        responseData = serializeToBytes(response.getResponse());
-                    }
-                }
 
-                Instant expiresAt = null;
-                if (ttl != null && ttl > 0) {
-                    long ttlSeconds = timeUnit.toSeconds(ttl);
-                    expiresAt = Instant.now().plusSeconds(ttlSeconds);
-                }
-
-                String sql = "UPDATE " + postgresProperties.getTableName() + " SET request_data = ?1, response_data = ?2, expires_at = ?3 WHERE idempotency_key = ?4";
+                String sql = "UPDATE " + postgresProperties.getTableName() + " SET response_data = ?1" +
+                    " WHERE idempotency_key = ?2 AND (expires_at IS NULL OR expires_at > CURRENT_TIMESTAMP)" +
+                    " RETURNING idempotency_key";
 
                 Query query = entityManager.createNativeQuery(sql);
-                query.setParameter(1, requestData);
-                query.setParameter(2, responseData);
-                query.setParameter(3, expiresAt != null ? java.sql.Timestamp.from(expiresAt) : null);
-                query.setParameter(4, key.getKeyValue());
+                query.setParameter(1, responseData);
+                query.setParameter(2, key.getKeyValue());
 
-                query.executeUpdate();
-                return null; // Void operation
+                return query.getResultList();
             } catch (Exception e) {
                 logger.error("Error setting response for key: {}", key.getKeyValue(), e);
                 throw e;
             }
         });
-    }
-
-    /**
-     * Serializes an object to byte array using Java serialization.
-     * 
-     * @param object the object to serialize
-     * @return byte array representation of the object
-     * @throws RuntimeException if serialization fails
-     */
-    private byte[] serializeToBytes(Object object) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             ObjectOutputStream oos = new ObjectOutputStream(baos)) {
-            oos.writeObject(object);
-            return baos.toByteArray();
-        } catch (IOException e) {
-            logger.error("Error serializing object to bytes", e);
-            throw new RuntimeException("Failed to serialize object", e);
-        }
-    }
-
-    /**
-     * Deserializes a byte array back to an object using Java deserialization.
-     * 
-     * @param bytes the byte array to deserialize
-     * @return the deserialized object
-     * @throws RuntimeException if deserialization fails
-     */
-    private Object deserializeFromBytes(byte[] bytes) {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-             ObjectInputStream ois = new ObjectInputStream(bais)) {
-            return ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            logger.error("Error deserializing object from bytes", e);
-            throw new RuntimeException("Failed to deserialize object", e);
+        if (updated.isEmpty()) {
+            logger.warn("Attempting to set response for non-existent key: {}", key.getKeyValue());
         }
     }
 
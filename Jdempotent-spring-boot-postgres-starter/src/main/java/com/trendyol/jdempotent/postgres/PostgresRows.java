@@ -0,0 +1,114 @@
+package com.trendyol.jdempotent.postgres;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+
+/**
+ * The row layout shared by the JPA and JDBC repositories, so either one can serve a key
+ * <p>
+ * The request_data and response_data columns hold the wrappers encoded by the codec, the
+ * request_data column only the fingerprint of the request when persistReqRes is off.
+ */
+final class PostgresRows {
+
+    private final JdempotentPostgresProperties postgresProperties;
+    private final IdempotentCodec codec;
+
+    /**
+     * @param postgresProperties
+     * @param codec              encodes the request_data and response_data columns
+     */
+    PostgresRows(JdempotentPostgresProperties postgresProperties, IdempotentCodec codec) {
+        this.postgresProperties = postgresProperties;
+        this.codec = codec;
+    }
+
+    /**
+     * @return whether the request_data column holds the whole request
+     */
+    boolean persistsRequests() {
+        return Boolean.TRUE.equals(postgresProperties.getPersistReqRes());
+    }
+
+    /**
+     * @param requestObject
+     * @return the encoded request wrapper, only its fingerprint when persistReqRes is off
+     */
+    byte[] requestData(IdempotentRequestWrapper requestObject) {
+        if (requestObject == null) {
+            return null;
+        }
+        return codec.encode(postgresProperties.getPersistReqRes() ? requestObject : requestObject.fingerprintOnly());
+    }
+
+    /**
+     * @param response
+     * @return the encoded response, null when persistReqRes is off or there is no response
+     */
+    byte[] responseData(IdempotentResponseWrapper response) {
+        if (postgresProperties.getPersistReqRes() && response != null && response.getResponse() != null) {
+            return codec.encode(response.getResponse());
+        }
+        return null;
+    }
+
+    IdempotentResponseWrapper toResponseWrapper(byte[] responseData) {
+        if (responseData != null && responseData.length > 0) {
+            return new IdempotentResponseWrapper(codec.decode(responseData));
+        }
+        return null;
+    }
+
+    IdempotentRequestResponseWrapper toRequestResponseWrapper(byte[] requestData, byte[] responseData) {
+        IdempotentRequestWrapper requestWrapper = null;
+
+        if (requestData != null && requestData.length > 0) {
+            Object requestObject = codec.decode(requestData);
+            // rows stored before fingerprints hold the bare payload
+            requestWrapper = requestObject instanceof IdempotentRequestWrapper
+                    ? (IdempotentRequestWrapper) requestObject
+                    : new IdempotentRequestWrapper(requestObject);
+        }
+
+        return new IdempotentRequestResponseWrapper(requestWrapper, toResponseWrapper(responseData));
+    }
+
+    static Timestamp expiresAt(Long ttl, TimeUnit timeUnit) {
+        if (ttl != null && ttl > 0) {
+            return Timestamp.from(Instant.now().plusSeconds(timeUnit.toSeconds(ttl)));
+        }
+        return null;
+    }
+
+    /**
+     * @param rows
+     * @param columns the placeholders of a row with a ? for each parameter
+     * @param numbered whether the placeholders are numbered like {@code ?1}, as JPA native queries take them
+     * @return the rows of a VALUES list, e.g. {@code (?1, ?2), (?3, ?4)}
+     */
+    static String valuesRows(int rows, String columns, boolean numbered) {
+        StringBuilder sql = new StringBuilder();
+        int position = 1;
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            sql.append('(');
+            for (int i = 0; i < columns.length(); i++) {
+                char c = columns.charAt(i);
+                sql.append(c);
+                if (c == '?' && numbered) {
+                    sql.append(position++);
+                }
+            }
+            sql.append(')');
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package jdempotent.postgres;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
+import com.trendyol.jdempotent.core.codec.JavaSerializationCodec;
+import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import com.trendyol.jdempotent.postgres.ApplicationConfig;
+import com.trendyol.jdempotent.postgres.JdbcPostgresIdempotentRepository;
+import com.trendyol.jdempotent.postgres.JdempotentPostgresProperties;
+import com.trendyol.jdempotent.postgres.PostgresIdempotentRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests the repository ApplicationConfig creates for each access mode, on an in-memory H2 database
+ */
+class ApplicationConfigTest {
+
+    private static final String H2_URL = "jdbc:h2:mem:jdempotent-application-config;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(PropertyPlaceholderAutoConfiguration.class))
+            .withUserConfiguration(TestConfiguration.class, ApplicationConfig.class);
+
+    @Test
+    void test_default_access_mode_creates_jpa_repository() {
+        contextRunner.run(context -> assertInstanceOf(PostgresIdempotentRepository.class,
+                context.getBean(IdempotentAspect.class).getIdempotentRepository()));
+    }
+
+    @Test
+    void test_jdbc_access_mode_creates_jdbc_repository() {
+        contextRunner
+                .withPropertyValues("jdempotent.postgres.accessMode=JDBC")
+                .run(context -> assertInstanceOf(JdbcPostgresIdempotentRepository.class,
+                        context.getBean(IdempotentAspect.class).getIdempotentRepository()));
+    }
+
+    @Test
+    void test_jdbc_repository_writes_outside_the_transaction_of_the_caller() {
+        contextRunner
+                .withPropertyValues("jdempotent.postgres.accessMode=JDBC")
+                .run(context -> {
+                    DataSource dataSource = context.getBean(DataSource.class);
+                    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                    createTable(jdbcTemplate);
+                    jdbcTemplate.update("INSERT INTO jdempotent (idempotency_key) VALUES ('stored-key'), ('removed-key')");
+                    IdempotentRepository repository = context.getBean(IdempotentAspect.class).getIdempotentRepository();
+                    IdempotentRequestWrapper request = new IdempotentRequestWrapper("request");
+
+                    TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+                    transactionTemplate.executeWithoutResult(status -> {
+                        repository.setResponse(new IdempotencyKey("stored-key"), request,
+                                new IdempotentResponseWrapper("response"), 1L, TimeUnit.HOURS);
+                        repository.remove(new IdempotencyKey("removed-key"));
+                        status.setRollbackOnly();
+                    });
+
+                    assertEquals("response", repository.getResponse(new IdempotencyKey("stored-key")).getResponse());
+                    assertFalse(repository.contains(new IdempotencyKey("removed-key")));
+                });
+    }
+
+    @Test
+    void test_jdbc_repository_set_response_keeps_the_stored_request_and_expiry() {
+        contextRunner
+                .withPropertyValues("jdempotent.postgres.accessMode=JDBC")
+                .run(context -> {
+                    JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+                    createTable(jdbcTemplate);
+                    IdempotentRepository repository = context.getBean(IdempotentAspect.class).getIdempotentRepository();
+                    IdempotencyKey key = new IdempotencyKey("set-response-key");
+                    Timestamp expiresAt = Timestamp.from(Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS));
+                    jdbcTemplate.update("INSERT INTO jdempotent (idempotency_key, request_data, expires_at) VALUES ('set-response-key', ?, ?)",
+                            JavaSerializationCodec.INSTANCE.encode(new IdempotentRequestWrapper("request")), expiresAt);
+
+                    repository.setResponse(key, new IdempotentRequestWrapper("other"),
+                            new IdempotentResponseWrapper("response"), 5L, TimeUnit.HOURS);
+
+                    IdempotentRequestResponseWrapper stored = repository.getRequestResponseWrapper(key);
+                    assertEquals("request", stored.getRequest().getRequest());
+                    assertEquals("response", stored.getResponse().getResponse());
+                    assertEquals(expiresAt, jdbcTemplate.queryForObject(
+                            "SELECT expires_at FROM jdempotent WHERE idempotency_key = 'set-response-key'", Timestamp.class));
+                });
+    }
+
+    @Test
+    void test_jdbc_repository_commits_on_a_pool_without_autocommit() {
+        DataSource dataSource = new DriverManagerDataSource(H2_URL);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        createTable(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO jdempotent (idempotency_key) VALUES ('autocommit-key')");
+        IdempotentRepository repository = new JdbcPostgresIdempotentRepository(new DriverManagerDataSource(H2_URL) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                connection.setAutoCommit(false);
+                return connection;
+            }
+        }, new JdempotentPostgresProperties());
+
+        repository.remove(new IdempotencyKey("autocommit-key"));
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM jdempotent WHERE idempotency_key = 'autocommit-key'", Integer.class));
+    }
+
+    private static void createTable(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS jdempotent (idempotency_key VARCHAR(255) PRIMARY KEY, cache_prefix VARCHAR(255),"
+                + " request_data BYTEA, response_data BYTEA, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, expires_at TIMESTAMP)");
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(JdempotentPostgresProperties.class)
+    static class TestConfiguration {
+
+        @Bean
+        public DataSource dataSource() {
+            return new DriverManagerDataSource(H2_URL);
+        }
+
+        @Bean
+        public EntityManagerFactory entityManagerFactory() {
+            return mock(EntityManagerFactory.class);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package jdempotent.postgres;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import com.trendyol.jdempotent.postgres.JdbcPostgresIdempotentRepository;
+import com.trendyol.jdempotent.postgres.JdempotentPostgresProperties;
+import com.trendyol.jdempotent.postgres.PostgresIdempotentRepository;
+
+import jdempotent.postgres.config.TestPostgresConfig;
+import jdempotent.postgres.support.AbstractPostgresStarterIntegrationTest;
+import jdempotent.postgres.support.TestData;
+
+@SpringBootTest(classes = {TestPostgresConfig.class})
+class JdbcPostgresIdempotentRepositoryIT extends AbstractPostgresStarterIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdempotentPostgresProperties properties;
+
+    @Autowired
+    private PostgresIdempotentRepository jpaRepository;
+
+    private JdbcPostgresIdempotentRepository repository;
+
+    @BeforeEach
+    void createRepository() {
+        properties.setPersistReqRes(true);
+        repository = new JdbcPostgresIdempotentRepository(dataSource, properties);
+    }
+
+    @Test
+    void test_store_when_key_exists_throws_exception() throws RequestAlreadyExistsException {
+        IdempotencyKey key = new IdempotencyKey("jdbc-duplicate-key");
+        repository.store(key, new IdempotentRequestWrapper(new TestData("request-1")));
+
+        assertTrue(repository.contains(key));
+        assertThrows(RequestAlreadyExistsException.class,
+                () -> repository.store(key, new IdempotentRequestWrapper(new TestData("request-2"))));
+    }
+
+    @Test
+    void test_store_if_absent_when_key_exists_returns_stored_request_and_response() {
+        IdempotencyKey key = new IdempotencyKey("jdbc-store-if-absent-key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(new TestData("request-1"));
+
+        assertNull(repository.storeIfAbsent(key, request, 1L, TimeUnit.HOURS));
+        repository.setResponse(key, request, new IdempotentResponseWrapper(new TestData("response-1")), 1L, TimeUnit.HOURS);
+
+        IdempotentRequestResponseWrapper existing = repository.storeIfAbsent(key, new IdempotentRequestWrapper(new TestData("request-2")), 1L, TimeUnit.HOURS);
+
+        assertNotNull(existing);
+        assertEquals(new TestData("request-1"), existing.getRequest().getRequest());
+        assertEquals(new TestData("response-1"), existing.getResponse().getResponse());
+    }
+
+    @Test
+    void test_rows_written_by_jdbc_are_read_by_jpa() throws RequestAlreadyExistsException {
+        IdempotencyKey key = new IdempotencyKey("jdbc-shared-key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(new TestData("request"));
+        repository.store(key, request, 1L, TimeUnit.HOURS);
+        repository.setResponse(key, request, new IdempotentResponseWrapper(new TestData("response")), 1L, TimeUnit.HOURS);
+
+        IdempotentRequestResponseWrapper wrapper = jpaRepository.getRequestResponseWrapper(key);
+
+        assertEquals(new TestData("request"), wrapper.getRequest().getRequest());
+        assertEquals(new TestData("response"), wrapper.getResponse().getResponse());
+    }
+
+    @Test
+    void test_set_response_when_key_does_not_exist_does_not_store_it() {
+        IdempotencyKey key = new IdempotencyKey("jdbc-missing-key");
+
+        repository.setResponse(key, new IdempotentRequestWrapper(new TestData("request")),
+                new IdempotentResponseWrapper(new TestData("response")), 1L, TimeUnit.HOURS);
+
+        assertFalse(repository.contains(key));
+        assertNull(repository.getResponse(key));
+    }
+
+    @Test
+    void test_batch_calls_store_update_and_delete_every_key() throws RequestAlreadyExistsException {
+        IdempotencyKey storedKey = new IdempotencyKey("jdbc-batch-stored-key");
+        IdempotencyKey newKey = new IdempotencyKey("jdbc-batch-new-key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(new TestData("request"));
+        repository.store(storedKey, new IdempotentRequestWrapper(new TestData("stored")), 1L, TimeUnit.HOURS);
+        Map<IdempotencyKey, IdempotentRequestWrapper> requests = new LinkedHashMap<>();
+        requests.put(storedKey, request);
+        requests.put(newKey, request);
+
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = repository.storeAllIfAbsent(requests, 1L, TimeUnit.HOURS);
+
+        assertEquals(1, existing.size());
+        assertEquals(new TestData("stored"), existing.get(storedKey).getRequest().getRequest());
+
+        repository.setResponses(Map.of(newKey, new IdempotentRequestResponseWrapper(request,
+                new IdempotentResponseWrapper(new TestData("new")))), 1L, TimeUnit.HOURS);
+        assertEquals(new TestData("new"), repository.getResponse(newKey).getResponse());
+
+        repository.removeAll(List.of(storedKey, newKey));
+
+        assertFalse(repository.contains(storedKey));
+        assertFalse(repository.contains(newKey));
+    }
+}
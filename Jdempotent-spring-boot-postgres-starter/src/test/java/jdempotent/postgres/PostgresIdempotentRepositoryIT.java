@@ -10,6 +10,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -75,6 +78,103 @@ class PostgresIdempotentRepositoryIT extends AbstractPostgresStarterIntegrationT
                 () -> repository.store(key, new IdempotentRequestWrapper(new TestData("request-2"))));
     }
 
+    @Test
+    void test_store_if_absent_when_key_does_not_exist_stores_and_returns_null() throws RequestAlreadyExistsException {
+        IdempotencyKey key = new IdempotencyKey("store-if-absent-new-key");
+
+        IdempotentRequestResponseWrapper existing = repository.storeIfAbsent(key, new IdempotentRequestWrapper(new TestData("request")), 1L, TimeUnit.HOURS);
+
+        assertNull(existing);
+        assertTrue(repository.contains(key));
+    }
+
+    @Test
+    void test_store_if_absent_when_key_exists_returns_stored_request_and_response() throws RequestAlreadyExistsException {
+        IdempotencyKey key = new IdempotencyKey("store-if-absent-existing-key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(new TestData("request-1"));
+        repository.store(key, request, 1L, TimeUnit.HOURS);
+        repository.setResponse(key, request, new IdempotentResponseWrapper(new TestData("response-1")), 1L, TimeUnit.HOURS);
+
+        IdempotentRequestResponseWrapper existing = repository.storeIfAbsent(key, new IdempotentRequestWrapper(new TestData("request-2")), 1L, TimeUnit.HOURS);
+
+        assertNotNull(existing);
+        assertEquals(new TestData("request-1"), existing.getRequest().getRequest());
+        assertEquals(new TestData("response-1"), existing.getResponse().getResponse());
+    }
+
+    @Test
+    void test_store_if_absent_when_stored_row_expired_takes_it_over() throws Exception {
+        IdempotencyKey key = new IdempotencyKey("store-if-absent-expired-key");
+        repository.store(key, new IdempotentRequestWrapper(new TestData("expired")), 1L, TimeUnit.SECONDS);
+        Thread.sleep(1100);
+
+        IdempotentRequestResponseWrapper existing = repository.storeIfAbsent(key, new IdempotentRequestWrapper(new TestData("fresh")), 1L, TimeUnit.HOURS);
+
+        assertNull(existing);
+        assertEquals(new TestData("fresh"), repository.getRequestResponseWrapper(key).getRequest().getRequest());
+    }
+
+    @Test
+    void test_store_all_if_absent_stores_new_keys_and_returns_stored_ones() throws RequestAlreadyExistsException {
+        IdempotencyKey storedKey = new IdempotencyKey("store-all-stored-key");
+        IdempotencyKey newKey = new IdempotencyKey("store-all-new-key");
+        repository.store(storedKey, new IdempotentRequestWrapper(new TestData("stored")), 1L, TimeUnit.HOURS);
+        Map<IdempotencyKey, IdempotentRequestWrapper> requests = new LinkedHashMap<>();
+        requests.put(storedKey, new IdempotentRequestWrapper(new TestData("stored-again")));
+        requests.put(newKey, new IdempotentRequestWrapper(new TestData("new")));
+
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = repository.storeAllIfAbsent(requests, 1L, TimeUnit.HOURS);
+
+        assertEquals(1, existing.size());
+        assertEquals(new TestData("stored"), existing.get(storedKey).getRequest().getRequest());
+        assertEquals(new TestData("new"), repository.getRequestResponseWrapper(newKey).getRequest().getRequest());
+    }
+
+    @Test
+    void test_set_responses_and_remove_all_update_and_delete_every_key() {
+        IdempotencyKey firstKey = new IdempotencyKey("batch-first-key");
+        IdempotencyKey secondKey = new IdempotencyKey("batch-second-key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(new TestData("request"));
+        repository.storeAllIfAbsent(Map.of(firstKey, request, secondKey, request), 1L, TimeUnit.HOURS);
+
+        repository.setResponses(Map.of(
+                firstKey, new IdempotentRequestResponseWrapper(request, new IdempotentResponseWrapper(new TestData("first"))),
+                secondKey, new IdempotentRequestResponseWrapper(request, new IdempotentResponseWrapper(new TestData("second")))), 1L, TimeUnit.HOURS);
+
+        assertEquals(new TestData("first"), repository.getResponse(firstKey).getResponse());
+        assertEquals(new TestData("second"), repository.getResponse(secondKey).getResponse());
+
+        repository.removeAll(List.of(firstKey, secondKey));
+
+        assertFalse(repository.contains(firstKey));
+        assertFalse(repository.contains(secondKey));
+    }
+
+    @Test
+    void test_set_responses_keeps_the_stored_expiry() throws Exception {
+        IdempotencyKey key = new IdempotencyKey("batch-expiring-key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(new TestData("request"));
+        repository.storeAllIfAbsent(Map.of(key, request), 1L, TimeUnit.SECONDS);
+
+        repository.setResponses(Map.of(key, new IdempotentRequestResponseWrapper(request,
+                new IdempotentResponseWrapper(new TestData("response")))), 1L, TimeUnit.HOURS);
+        Thread.sleep(1100);
+
+        assertFalse(repository.contains(key));
+    }
+
+    @Test
+    void test_set_response_keeps_the_stored_expiry() throws Exception {
+        IdempotencyKey key = new IdempotencyKey("single-expiring-key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(new TestData("request"));
+        repository.store(key, request, 1L, TimeUnit.SECONDS);
+
+        repository.setResponse(key, request, new IdempotentResponseWrapper(new TestData("response")), 1L, TimeUnit.HOURS);
+        Thread.sleep(1100);
+
+        assertFalse(repository.contains(key));
+    }
+
     @Test
     void test_contains_when_key_exists_returns_true() throws RequestAlreadyExistsException {
         IdempotencyKey key = new IdempotencyKey("existing-key");
@@ -142,6 +242,21 @@ class PostgresIdempotentRepositoryIT extends AbstractPostgresStarterIntegrationT
         assertEquals("updated-response", ((TestData) result.getResponse()).getValue());
     }
 
+    @Test
+    void test_set_response_when_key_is_missing_or_expired_updates_nothing() throws Exception {
+        IdempotencyKey missingKey = new IdempotencyKey("set-response-missing-key");
+        IdempotencyKey expiredKey = new IdempotencyKey("set-response-expired-key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(new TestData("test-request"));
+        repository.store(expiredKey, request, 1L, TimeUnit.SECONDS);
+        Thread.sleep(1100);
+
+        repository.setResponse(missingKey, request, new IdempotentResponseWrapper(new TestData("response")), 1L, TimeUnit.HOURS);
+        repository.setResponse(expiredKey, request, new IdempotentResponseWrapper(new TestData("response")), 1L, TimeUnit.HOURS);
+
+        assertFalse(repository.contains(missingKey));
+        assertFalse(repository.contains(expiredKey));
+    }
+
     @Test
     void test_remove_removes_key_successfully() throws RequestAlreadyExistsException {
         IdempotencyKey key = new IdempotencyKey("remove-key");
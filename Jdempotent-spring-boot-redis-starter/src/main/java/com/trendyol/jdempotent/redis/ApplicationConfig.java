@@ -2,8 +2,12 @@ package com.trendyol.jdempotent.redis;
 
 import com.trendyol.jdempotent.core.aspect.IdempotentAspect;
 import com.trendyol.jdempotent.core.callback.ErrorConditionalCallback;
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.config.ConfigUtility;
+import com.trendyol.jdempotent.core.generator.DefaultKeyGenerator;
 import com.trendyol.jdempotent.core.generator.KeyGenerator;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -11,16 +15,21 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 
 @Configuration
+@Import(ConfigUtility.class)
 @ConditionalOnProperty(prefix = "jdempotent", name = "enable", havingValue = "true", matchIfMissing = true)
 public class ApplicationConfig {
 
     private final RedisConfigProperties redisProperties;
+    private final ConfigUtility configUtility;
 
-    public ApplicationConfig(RedisConfigProperties redisProperties) {
+    public ApplicationConfig(RedisConfigProperties redisProperties, ConfigUtility configUtility) {
         this.redisProperties = redisProperties;
+        this.configUtility = configUtility;
     }
 
     @Bean
@@ -28,15 +37,41 @@ public class ApplicationConfig {
     @ConditionalOnClass(ErrorConditionalCallback.class)
     @ConditionalOnBean(ErrorConditionalCallback.class)
     public IdempotentAspect getIdempotentAspect(@Qualifier("trandyolRedisTemplate") RedisTemplate redisTemplate,
+            @Qualifier("trandyolReactiveRedisTemplate") ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate,
+            ObjectProvider<RedisClientSideCache> clientSideCache,
             ErrorConditionalCallback errorConditionalCallback) {
-        return new IdempotentAspect(new RedisIdempotentRepository(redisTemplate, redisProperties),
-                errorConditionalCallback);
+        IdempotentCodec codec = createCodec(redisTemplate);
+        IdempotentAspect aspect = configUtility.configure(new IdempotentAspect(createRepository(redisTemplate, codec, clientSideCache),
+                errorConditionalCallback, new DefaultKeyGenerator(Boolean.TRUE.equals(redisProperties.getHashTagKeys()))));
+        aspect.setReactiveIdempotentRepository(new ReactiveRedisIdempotentRepository(reactiveRedisTemplate, redisProperties, codec));
+        return aspect;
     }
 
     @Bean
     @ConditionalOnMissingBean({ IdempotentAspect.class, KeyGenerator.class })
     public IdempotentAspect defaultGetIdempotentAspect(
-            @Qualifier("trandyolRedisTemplate") RedisTemplate redisTemplate) {
-        return new IdempotentAspect(new RedisIdempotentRepository(redisTemplate, redisProperties));
+            @Qualifier("trandyolRedisTemplate") RedisTemplate redisTemplate,
+            @Qualifier("trandyolReactiveRedisTemplate") ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate,
+            ObjectProvider<RedisClientSideCache> clientSideCache) {
+        IdempotentCodec codec = createCodec(redisTemplate);
+        IdempotentAspect aspect = configUtility.configure(new IdempotentAspect(createRepository(redisTemplate, codec, clientSideCache),
+                new DefaultKeyGenerator(Boolean.TRUE.equals(redisProperties.getHashTagKeys()))));
+        aspect.setReactiveIdempotentRepository(new ReactiveRedisIdempotentRepository(reactiveRedisTemplate, redisProperties, codec));
+        return aspect;
     }
+
+    private RedisIdempotentRepository createRepository(RedisTemplate redisTemplate, IdempotentCodec codec,
+                                                       ObjectProvider<RedisClientSideCache> clientSideCache) {
+        RedisIdempotentRepository repository = new RedisIdempotentRepository(redisTemplate, redisProperties, codec);
+        repository.setClientSideCache(clientSideCache.getIfAvailable());
+        return repository;
+    }
+
+    /**
+     * The blocking and reactive repositories share the codec so they read each other's calls
+     */
+    private IdempotentCodec createCodec(RedisTemplate redisTemplate) {
+        return configUtility.getCodec(new RedisSerializerCodec(redisTemplate.getHashValueSerializer()));
+    }
+
 }
@@ -0,0 +1,211 @@
+package com.trendyol.jdempotent.redis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.datasource.ReactiveIdempotentRepository;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * A non-blocking implementation of the ReactiveIdempotentRepository over the reactive Lettuce connection
+ *
+ * <p>Calls are stored with the same hash layout and scripts as {@link RedisIdempotentRepository},
+ * so both repositories can serve the same keys when they share a codec. A call an earlier release
+ * stored as a plain string is treated as an existing call.</p>
+ *
+ * <p>Lookups are retried up to maxRetryCount times when they time out or can't connect. Stores
+ * and responses are not, a script that timed out may still have run.</p>
+ */
+public class ReactiveRedisIdempotentRepository implements ReactiveIdempotentRepository {
+
+    private static final ByteBuffer REQUEST = ByteBuffer.wrap("request".getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+    private static final ByteBuffer RESPONSE = ByteBuffer.wrap("response".getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+    private static final byte[] EMPTY = new byte[0];
+    private static final RedisElementWriter<byte[]> ARGS_WRITER = RedisElementWriter.from(RedisSerializer.byteArray());
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisElementReader<Object> RESULT_READER = RedisElementReader.from((RedisSerializer) RedisSerializer.byteArray());
+
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final RedisConfigProperties redisProperties;
+    private final IdempotentCodec codec;
+    private final int maxRetryCount;
+
+    /**
+     * @param redisTemplate   a template with string keys
+     * @param redisProperties
+     * @param codec           encodes the request and response fields
+     */
+    public ReactiveRedisIdempotentRepository(ReactiveRedisTemplate<String, byte[]> redisTemplate,
+                                             RedisConfigProperties redisProperties, IdempotentCodec codec) {
+        this.redisTemplate = redisTemplate;
+        this.redisProperties = redisProperties;
+        this.codec = codec;
+        String maxRetryCount = redisProperties.getMaxRetryCount();
+        this.maxRetryCount = maxRetryCount == null || maxRetryCount.isBlank() ? 0 : Integer.parseInt(maxRetryCount.trim());
+    }
+
+    /**
+     * Stores the request or reads the stored call with a single script call
+     *
+     * @param idempotencyKey
+     * @param request
+     * @param ttl
+     * @param timeUnit
+     * @return
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Mono<IdempotentRequestResponseWrapper> storeIfAbsent(IdempotencyKey idempotencyKey, IdempotentRequestWrapper request,
+                                                                Long ttl, TimeUnit timeUnit) {
+        return Mono.defer(() -> {
+            Flux<Object> fields = redisTemplate.execute(
+                    (RedisScript) RedisIdempotentRepository.STORE_IF_ABSENT,
+                    List.of(idempotencyKey.getKeyValue()),
+                    List.of(requestField(request),
+                            RedisIdempotentRepository.ttlMillis(ttl, timeUnit, redisProperties)),
+                    ARGS_WRITER,
+                    RESULT_READER);
+            return fields.collectList().flatMap(values -> Mono.justOrEmpty(toRequestResponseWrapper(values)));
+        });
+    }
+
+    @Override
+    public Mono<IdempotentRequestResponseWrapper> getRequestResponseWrapper(IdempotencyKey idempotencyKey) {
+        ByteBuffer rawKey = rawKey(idempotencyKey);
+        return redisTemplate.execute(connection -> connection.hashCommands().hMGet(rawKey, List.of(REQUEST.duplicate(), RESPONSE.duplicate())))
+                .next()
+                .retryWhen(retries())
+                .flatMap(values -> Mono.justOrEmpty(toRequestResponseWrapper(new ArrayList<>(values))));
+    }
+
+    /**
+     * Writes only the response field, the key keeps the expiry it got when the request was stored
+     *
+     * @param idempotencyKey
+     * @param request
+     * @param response
+     * @param ttl
+     * @param timeUnit
+     * @return
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Mono<Void> setResponse(IdempotencyKey idempotencyKey, IdempotentRequestWrapper request,
+                                  IdempotentResponseWrapper response, Long ttl, TimeUnit timeUnit) {
+        return Mono.defer(() -> redisTemplate.execute(
+                (RedisScript) RedisIdempotentRepository.SET_RESPONSE,
+                List.of(idempotencyKey.getKeyValue()),
+                List.of(redisProperties.getPersistReqRes() ? serialize(response) : EMPTY),
+                ARGS_WRITER,
+                RESULT_READER).then());
+    }
+
+    @Override
+    public boolean persistsRequests() {
+        return Boolean.TRUE.equals(redisProperties.getPersistReqRes());
+    }
+
+    @Override
+    public Mono<Void> remove(IdempotencyKey idempotencyKey) {
+        return redisTemplate.delete(idempotencyKey.getKeyValue()).then();
+    }
+
+    /**
+     * Builds the stored call from the request and response fields
+     *
+     * @param fields the fields as byte arrays or buffers, a script reply may come as a single nested list
+     * @return null when the key doesn't exist
+     */
+    @SuppressWarnings("unchecked")
+    private IdempotentRequestResponseWrapper toRequestResponseWrapper(List<Object> fields) {
+        if (fields.size() == 1 && fields.get(0) instanceof List) {
+            fields = (List<Object>) fields.get(0);
+        }
+        if (fields.size() == 1) {
+            return toLegacyRequestResponseWrapper(fields.get(0));
+        }
+        if (fields.size() < 2 || (fields.get(0) == null && fields.get(1) == null)) {
+            return null;
+        }
+        return new IdempotentRequestResponseWrapper(
+                (IdempotentRequestWrapper) deserialize(fields.get(0)),
+                (IdempotentResponseWrapper) deserialize(fields.get(1))
+        );
+    }
+
+    /**
+     * Reads a call an earlier release stored as a string value, decoded with the codec
+     *
+     * @param value
+     * @return the stored call, without request and response when the codec can't read the value
+     */
+    private IdempotentRequestResponseWrapper toLegacyRequestResponseWrapper(Object value) {
+        try {
+            Object stored = deserialize(value);
+            if (stored instanceof IdempotentRequestResponseWrapper) {
+                return (IdempotentRequestResponseWrapper) stored;
+            }
+        } catch (RuntimeException e) {
+            // still an existing call, only its fields are lost
+        }
+        return new IdempotentRequestResponseWrapper();
+    }
+
+    private Retry retries() {
+        return Retry.max(maxRetryCount)
+                .filter(e -> e instanceof QueryTimeoutException || e instanceof RedisConnectionFailureException)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private ByteBuffer rawKey(IdempotencyKey idempotencyKey) {
+        return redisTemplate.getSerializationContext().getKeySerializationPair().write(idempotencyKey.getKeyValue());
+    }
+
+    /**
+     * @param request
+     * @return the encoded request, only its fingerprint when persistReqRes is off
+     */
+    private byte[] requestField(IdempotentRequestWrapper request) {
+        if (request == null) {
+            return EMPTY;
+        }
+        return serialize(redisProperties.getPersistReqRes() ? request : request.fingerprintOnly());
+    }
+
+    private byte[] serialize(Object value) {
+        return codec.encode(value);
+    }
+
+    private Object deserialize(Object field) {
+        byte[] bytes;
+        if (field instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) field).duplicate();
+            bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+        } else {
+            bytes = (byte[]) field;
+        }
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return codec.decode(bytes);
+    }
+}
@@ -0,0 +1,156 @@
+package com.trendyol.jdempotent.redis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+
+/**
+ * A local copy of completed calls kept coherent by Redis server-assisted client-side caching
+ *
+ * <p>Calls are read over a dedicated RESP3 connection with CLIENT TRACKING on, so Redis sends an
+ * invalidation for every key read on it once the key is changed, deleted or expires, and the key
+ * is dropped from the local copy. Only completed calls are kept, a call still in progress
+ * changes when its response is set. Once the copy is full, the calls least likely to be read again
+ * are evicted to make room. Everything is dropped when the connection is lost, since the
+ * invalidations sent meanwhile are lost with it.</p>
+ *
+ * <p>Needs Redis 6 or later. A Redis Cluster is not supported, keys live on different nodes.</p>
+ */
+public class RedisClientSideCache implements AutoCloseable {
+
+    private static final String REQUEST = "request";
+    private static final String RESPONSE = "response";
+
+    private final StatefulRedisConnection<String, byte[]> connection;
+    private final ConcurrentMap<String, Object> calls;
+    private final AtomicLong connectionEpoch = new AtomicLong();
+    private volatile boolean tracking;
+
+    /**
+     * @param connection a RESP3 connection only used for tracked reads
+     * @param maxSize    the number of calls kept
+     */
+    public RedisClientSideCache(StatefulRedisConnection<String, byte[]> connection, int maxSize) {
+        this.connection = connection;
+        this.calls = Caffeine.newBuilder().maximumSize(maxSize).<String, Object>build().asMap();
+        connection.addListener(this::onPushMessage);
+        connection.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> disconnected) {
+                connectionEpoch.incrementAndGet();
+                tracking = false;
+                calls.clear();
+            }
+        });
+        enableTracking();
+    }
+
+    /**
+     * Opens the tracking connection on the server the client points at
+     *
+     * @param client
+     * @param maxSize
+     * @return
+     */
+    public static RedisClientSideCache connect(RedisClient client, int maxSize) {
+        return new RedisClientSideCache(client.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE)), maxSize);
+    }
+
+    /**
+     * @param key
+     * @return the request and response fields of the completed call, null when it isn't kept
+     */
+    @SuppressWarnings("unchecked")
+    public List<byte[]> get(String key) {
+        Object fields = calls.get(key);
+        return fields instanceof List ? (List<byte[]>) fields : null;
+    }
+
+    /**
+     * Reads the fields of the key over the tracking connection, and keeps them when the call is completed
+     *
+     * @param key
+     * @return the request and response fields, both null when the key doesn't exist
+     */
+    public List<byte[]> read(String key) {
+        long epoch = connectionEpoch.get();
+        if (!tracking) {
+            enableTracking();
+        }
+        // an invalidation arriving while the read is in flight removes the placeholder, so the read is not kept
+        Object placeholder = new Object();
+        boolean reserved = calls.putIfAbsent(key, placeholder) == null;
+        List<byte[]> fields;
+        try {
+            fields = new ArrayList<>(2);
+            for (KeyValue<String, byte[]> field : connection.sync().hmget(key, REQUEST, RESPONSE)) {
+                fields.add(field.getValueOrElse(null));
+            }
+        } catch (RuntimeException e) {
+            if (reserved) {
+                calls.remove(key, placeholder);
+            }
+            throw e;
+        }
+        if (reserved) {
+            if (fields.get(1) != null && epoch == connectionEpoch.get()) {
+                calls.replace(key, placeholder, fields);
+            } else {
+                calls.remove(key, placeholder);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Drops the key right away, without waiting for the invalidation of Redis
+     *
+     * @param key
+     */
+    public void invalidate(String key) {
+        calls.remove(key);
+    }
+
+    @Override
+    public void close() {
+        calls.clear();
+        connection.close();
+    }
+
+    private synchronized void enableTracking() {
+        if (!tracking) {
+            connection.sync().clientTracking(TrackingArgs.Builder.enabled());
+            tracking = true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onPushMessage(PushMessage message) {
+        if (!"invalidate".equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        // no keys means the whole database was flushed
+        if (content.size() < 2 || content.get(1) == null) {
+            calls.clear();
+            return;
+        }
+        for (Object key : (List<Object>) content.get(1)) {
+            calls.remove(key);
+        }
+    }
+}
@@ -17,36 +17,90 @@ import java.util.List;
         matchIfMissing = true)
 public class RedisConfigProperties {
 
+    @Value("${jdempotent.cache.redis.mode:sentinel}")
+    private String mode;
+
     @Value("${jdempotent.cache.redis.database:0}")
     private Integer database;
 
-    @Value("${jdempotent.cache.redis.sentinelPort}")
+    @Value("${jdempotent.cache.redis.sentinelPort:26379}")
     private Integer sentinelPort;
 
-    @Value("${jdempotent.cache.redis.password}")
+    @Value("${jdempotent.cache.redis.password:}")
     private String password;
 
-    @Value("${jdempotent.cache.redis.sentinelMasterName}")
+    @Value("${jdempotent.cache.redis.sentinelMasterName:}")
     private String sentinelMasterName;
 
-    @Value("${jdempotent.cache.redis.sentinelHostList}")
+    @Value("${jdempotent.cache.redis.sentinelHostList:}")
     private List<String> sentinelHostList;
 
+    @Value("${jdempotent.cache.redis.host:localhost}")
+    private String host;
+
+    @Value("${jdempotent.cache.redis.port:6379}")
+    private Integer port;
+
+    @Value("${jdempotent.cache.redis.clusterNodes:}")
+    private List<String> clusterNodes;
+
+    @Value("${jdempotent.cache.redis.clusterMaxRedirects:3}")
+    private Integer clusterMaxRedirects;
+
+    @Value("${jdempotent.cache.redis.readFrom:}")
+    private String readFrom;
+
+    @Value("${jdempotent.cache.redis.hashTagKeys:false}")
+    private Boolean hashTagKeys;
+
     @Value("${jdempotent.cache.redis.expirationTimeHour}")
     private Long expirationTimeHour;
 
-    @Value("${jdempotent.cache.redis.dialTimeoutSecond}")
+    @Value("${jdempotent.cache.redis.dialTimeoutSecond:10}")
     private String dialTimeoutSecond;
 
-    @Value("${jdempotent.cache.redis.readTimeoutSecond}")
+    @Value("${jdempotent.cache.redis.readTimeoutSecond:5}")
     private String readTimeoutSecond;
 
-    @Value("${jdempotent.cache.redis.writeTimeoutSecond}")
+    @Value("${jdempotent.cache.redis.writeTimeoutSecond:5}")
     private String writeTimeoutSecond;
 
-    @Value("${jdempotent.cache.redis.maxRetryCount}")
+    @Value("${jdempotent.cache.redis.maxRetryCount:0}")
     private String maxRetryCount;
 
+    @Value("${jdempotent.cache.redis.ioThreadPoolSize:0}")
+    private Integer ioThreadPoolSize;
+
+    @Value("${jdempotent.cache.redis.computationThreadPoolSize:0}")
+    private Integer computationThreadPoolSize;
+
+    @Value("${jdempotent.cache.redis.tcpKeepAlive:false}")
+    private Boolean tcpKeepAlive;
+
+    @Value("${jdempotent.cache.redis.tcpNoDelay:true}")
+    private Boolean tcpNoDelay;
+
+    @Value("${jdempotent.cache.redis.pool.enabled:false}")
+    private Boolean poolEnabled;
+
+    @Value("${jdempotent.cache.redis.pool.maxTotal:8}")
+    private Integer poolMaxTotal;
+
+    @Value("${jdempotent.cache.redis.pool.maxIdle:8}")
+    private Integer poolMaxIdle;
+
+    @Value("${jdempotent.cache.redis.pool.minIdle:0}")
+    private Integer poolMinIdle;
+
+    @Value("${jdempotent.cache.redis.pipeliningFlushSize:0}")
+    private Integer pipeliningFlushSize;
+
+    @Value("${jdempotent.cache.redis.clientSideCaching:false}")
+    private Boolean clientSideCaching;
+
+    @Value("${jdempotent.cache.redis.clientSideCacheMaxSize:10000}")
+    private Integer clientSideCacheMaxSize;
+
     @Value("${jdempotent.cache.persistReqRes:true}")
     private Boolean persistReqRes;
 
@@ -98,6 +152,90 @@ public class RedisConfigProperties {
         this.expirationTimeHour = expirationTimeHour;
     }
 
+    /**
+     * @return the number of Lettuce I/O threads, 0 for the Lettuce default
+     */
+    public Integer getIoThreadPoolSize() {
+        return ioThreadPoolSize;
+    }
+
+    public void setIoThreadPoolSize(Integer ioThreadPoolSize) {
+        this.ioThreadPoolSize = ioThreadPoolSize;
+    }
+
+    /**
+     * @return the number of Lettuce computation threads, 0 for the Lettuce default
+     */
+    public Integer getComputationThreadPoolSize() {
+        return computationThreadPoolSize;
+    }
+
+    public void setComputationThreadPoolSize(Integer computationThreadPoolSize) {
+        this.computationThreadPoolSize = computationThreadPoolSize;
+    }
+
+    public Boolean getTcpKeepAlive() {
+        return tcpKeepAlive;
+    }
+
+    public void setTcpKeepAlive(Boolean tcpKeepAlive) {
+        this.tcpKeepAlive = tcpKeepAlive;
+    }
+
+    public Boolean getTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(Boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    /**
+     * @return whether commands run on pooled connections instead of one shared connection, needs commons-pool2
+     */
+    public Boolean getPoolEnabled() {
+        return poolEnabled;
+    }
+
+    public void setPoolEnabled(Boolean poolEnabled) {
+        this.poolEnabled = poolEnabled;
+    }
+
+    public Integer getPoolMaxTotal() {
+        return poolMaxTotal;
+    }
+
+    public void setPoolMaxTotal(Integer poolMaxTotal) {
+        this.poolMaxTotal = poolMaxTotal;
+    }
+
+    public Integer getPoolMaxIdle() {
+        return poolMaxIdle;
+    }
+
+    public void setPoolMaxIdle(Integer poolMaxIdle) {
+        this.poolMaxIdle = poolMaxIdle;
+    }
+
+    public Integer getPoolMinIdle() {
+        return poolMinIdle;
+    }
+
+    public void setPoolMinIdle(Integer poolMinIdle) {
+        this.poolMinIdle = poolMinIdle;
+    }
+
+    /**
+     * @return the number of pipelined commands buffered before they are flushed, 0 to flush each command
+     */
+    public Integer getPipeliningFlushSize() {
+        return pipeliningFlushSize;
+    }
+
+    public void setPipeliningFlushSize(Integer pipeliningFlushSize) {
+        this.pipeliningFlushSize = pipeliningFlushSize;
+    }
+
     public String getDialTimeoutSecond() {
         return dialTimeoutSecond;
     }
@@ -130,6 +268,80 @@ public class RedisConfigProperties {
         this.maxRetryCount = maxRetryCount;
     }
 
+    /**
+     * @return the topology to connect to, sentinel, standalone or cluster
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return the host of a standalone server
+     */
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    /**
+     * @return the port of a standalone server
+     */
+    public Integer getPort() {
+        return port;
+    }
+
+    public void setPort(Integer port) {
+        this.port = port;
+    }
+
+    /**
+     * @return the cluster nodes to discover the cluster from, as host:port
+     */
+    public List<String> getClusterNodes() {
+        return clusterNodes;
+    }
+
+    public void setClusterNodes(List<String> clusterNodes) {
+        this.clusterNodes = clusterNodes;
+    }
+
+    public Integer getClusterMaxRedirects() {
+        return clusterMaxRedirects;
+    }
+
+    public void setClusterMaxRedirects(Integer clusterMaxRedirects) {
+        this.clusterMaxRedirects = clusterMaxRedirects;
+    }
+
+    /**
+     * @return the Lettuce ReadFrom setting of read-only commands, e.g. replicaPreferred, empty to read from the master
+     */
+    public String getReadFrom() {
+        return readFrom;
+    }
+
+    public void setReadFrom(String readFrom) {
+        this.readFrom = readFrom;
+    }
+
+    /**
+     * @return whether key prefixes are Redis Cluster hash tags
+     */
+    public Boolean getHashTagKeys() {
+        return hashTagKeys;
+    }
+
+    public void setHashTagKeys(Boolean hashTagKeys) {
+        this.hashTagKeys = hashTagKeys;
+    }
+
     public Integer getDatabase() {
         return database;
     }
@@ -137,4 +349,26 @@ public class RedisConfigProperties {
     public void setDatabase(Integer database) {
         this.database = database;
     }
+
+    /**
+     * @return whether completed calls are kept locally with Redis client-side caching, needs Redis 6 and RESP3
+     */
+    public Boolean getClientSideCaching() {
+        return clientSideCaching;
+    }
+
+    public void setClientSideCaching(Boolean clientSideCaching) {
+        this.clientSideCaching = clientSideCaching;
+    }
+
+    /**
+     * @return the number of completed calls kept locally
+     */
+    public Integer getClientSideCacheMaxSize() {
+        return clientSideCacheMaxSize;
+    }
+
+    public void setClientSideCacheMaxSize(Integer clientSideCacheMaxSize) {
+        this.clientSideCacheMaxSize = clientSideCacheMaxSize;
+    }
 }
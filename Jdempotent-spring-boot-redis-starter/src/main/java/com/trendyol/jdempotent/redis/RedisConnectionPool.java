@@ -0,0 +1,44 @@
+package com.trendyol.jdempotent.redis;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Keeps every reference to commons-pool2, which is optional, out of {@link RedisSentinelConfiguration},
+ * so the configuration loads without it and this class is only loaded when the pool is enabled
+ */
+final class RedisConnectionPool {
+
+    private static final String POOL_CONFIG_CLASS = "org.apache.commons.pool2.impl.GenericObjectPoolConfig";
+
+    private RedisConnectionPool() {
+    }
+
+    /**
+     * @param redisProperties
+     * @return a pooling client configuration builder sized by the pool properties
+     * @throws IllegalStateException when commons-pool2 is not on the classpath
+     */
+    static LettuceClientConfiguration.LettuceClientConfigurationBuilder clientConfiguration(RedisConfigProperties redisProperties) {
+        if (!ClassUtils.isPresent(POOL_CONFIG_CLASS, RedisConnectionPool.class.getClassLoader())) {
+            throw new IllegalStateException("jdempotent.cache.redis.poolEnabled needs org.apache.commons:commons-pool2 on the classpath");
+        }
+        return Pool.clientConfiguration(redisProperties);
+    }
+
+    /**
+     * Only loaded once commons-pool2 is known to be present
+     */
+    private static final class Pool {
+
+        static LettuceClientConfiguration.LettuceClientConfigurationBuilder clientConfiguration(RedisConfigProperties redisProperties) {
+            GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+            poolConfig.setMaxTotal(redisProperties.getPoolMaxTotal());
+            poolConfig.setMaxIdle(redisProperties.getPoolMaxIdle());
+            poolConfig.setMinIdle(redisProperties.getPoolMinIdle());
+            return LettucePoolingClientConfiguration.builder().poolConfig(poolConfig);
+        }
+    }
+}
@@ -1,10 +1,28 @@
 package com.trendyol.jdempotent.redis;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
 import com.trendyol.jdempotent.core.datasource.IdempotentRepository;
 import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
@@ -19,43 +37,117 @@ import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
  *
  * That repository needs to store idempotent hash for idempotency check
  *
+ * <p>Every call is a Redis hash with a request and a response field. The request field is
+ * written when the call is stored, the response field when it completes, so reads take one
+ * HMGET and completing a call writes only the response and keeps the expiry set on store.
+ * When persistReqRes is off the request field only holds the payload fingerprint and the response
+ * field is empty. Fields are encoded with the hash value serializer
+ * of the template unless another codec is given.</p>
+ *
+ * <p>A call an earlier release stored as a plain string is still found by the store script and
+ * read with the value serializer of the template until it expires, no migration is needed.</p>
+ *
+ * <p>Lookups are retried up to maxRetryCount times when they time out or can't connect. Stores
+ * and responses are not, a script that timed out may still have run.</p>
+ *
+ * <p>Batches are sent as one pipeline, except on a Redis Cluster where keys of a batch live on
+ * different shards, there every key takes its own round-trip.</p>
+ *
+ * <p>With a {@link RedisClientSideCache}, completed calls read once are served from local memory
+ * until Redis invalidates them, so repeated duplicates don't reach Redis.</p>
  */
 public class RedisIdempotentRepository implements IdempotentRepository {
 
-    private final ValueOperations<String, IdempotentRequestResponseWrapper> valueOperations;
+    private static final byte[] REQUEST = "request".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESPONSE = "response".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Returns the request and response fields of the key, or stores the request field with a ttl
+     * in milliseconds when the key doesn't exist and returns no fields. A missing field is returned
+     * empty, reactive clients can't emit a nil element. A key written as a plain string by an earlier
+     * release is returned as its single value, the ttl is only set when it is positive as a zero or
+     * negative PEXPIRE deletes the key.
+     */
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> STORE_IF_ABSENT = new DefaultRedisScript<>(
+            "local keyType = redis.call('TYPE', KEYS[1])['ok'] "
+                    + "if keyType == 'string' then return {redis.call('GET', KEYS[1])} end "
+                    + "if keyType ~= 'none' then "
+                    + "local fields = redis.call('HMGET', KEYS[1], 'request', 'response') "
+                    + "return {fields[1] or '', fields[2] or ''} end "
+                    + "redis.call('HSET', KEYS[1], 'request', ARGV[1]) "
+                    + "if tonumber(ARGV[2]) > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end "
+                    + "return {}",
+            List.class);
+
+    /**
+     * Sets the response field of the key when it is a stored call, so an expired call is not stored
+     * again without a ttl and a call stored as a string by an earlier release is left as it is
+     */
+    static final RedisScript<Long> SET_RESPONSE = new DefaultRedisScript<>(
+            "if redis.call('TYPE', KEYS[1])['ok'] == 'hash' then "
+                    + "return redis.call('HSET', KEYS[1], 'response', ARGV[1]) end "
+                    + "return -1",
+            Long.class);
+
     private final RedisTemplate redisTemplate;
     private final RedisConfigProperties redisProperties;
+    private final IdempotentCodec codec;
+    private final int maxRetryCount;
+    private final boolean pipelining;
+    private RedisClientSideCache clientSideCache;
 
 
     public RedisIdempotentRepository(RedisTemplate redisTemplate, RedisConfigProperties redisProperties) {
-        valueOperations = redisTemplate.opsForValue();
+        this(redisTemplate, redisProperties, new RedisSerializerCodec(redisTemplate.getHashValueSerializer()));
+    }
+
+    /**
+     * @param redisTemplate
+     * @param redisProperties
+     * @param codec           encodes the request and response fields
+     */
+    public RedisIdempotentRepository(RedisTemplate redisTemplate, RedisConfigProperties redisProperties, IdempotentCodec codec) {
         this.redisTemplate = redisTemplate;
         this.redisProperties = redisProperties;
+        this.codec = codec;
+        String maxRetryCount = redisProperties.getMaxRetryCount();
+        this.maxRetryCount = maxRetryCount == null || maxRetryCount.isBlank() ? 0 : Integer.parseInt(maxRetryCount.trim());
+        this.pipelining = redisProperties.getMode() == null || RedisMode.of(redisProperties.getMode()) != RedisMode.CLUSTER;
+    }
+
+    @Override
+    public boolean persistsRequests() {
+        return Boolean.TRUE.equals(redisProperties.getPersistReqRes());
     }
 
     @Override
     public boolean contains(IdempotencyKey idempotencyKey) {
-        return valueOperations.get(idempotencyKey.getKeyValue()) != null;
+        byte[] rawKey = rawKey(idempotencyKey);
+        return Boolean.TRUE.equals(execute(connection -> connection.keyCommands().exists(rawKey)));
     }
 
     @Override
     public IdempotentResponseWrapper getResponse(IdempotencyKey idempotencyKey) {
-        IdempotentRequestResponseWrapper wrapper = valueOperations.get(idempotencyKey.getKeyValue());
-        return wrapper != null ? wrapper.getResponse() : null;
+        byte[] rawKey = rawKey(idempotencyKey);
+        return (IdempotentResponseWrapper) deserialize(execute(connection -> connection.hashCommands().hGet(rawKey, RESPONSE)));
+    }
+
+    @Override
+    public IdempotentRequestResponseWrapper getRequestResponseWrapper(IdempotencyKey key) {
+        if (clientSideCache != null) {
+            List<byte[]> cached = clientSideCache.get(key.getKeyValue());
+            return toRequestResponseWrapper(cached != null ? cached : clientSideCache.read(key.getKeyValue()));
+        }
+        byte[] rawKey = rawKey(key);
+        return toRequestResponseWrapper(execute(connection -> connection.hashCommands().hMGet(rawKey, REQUEST, RESPONSE)));
     }
 
     @Override
     @Deprecated
     public void store(IdempotencyKey idempotencyKey, IdempotentRequestWrapper request) throws RequestAlreadyExistsException {
-        Boolean set = valueOperations.setIfAbsent(
-                idempotencyKey.getKeyValue(),
-                prepareValue(request),
-                redisProperties.getExpirationTimeHour(),
-                TimeUnit.HOURS
-        );
-        if (Boolean.FALSE.equals(set)) {
-            throw new RequestAlreadyExistsException();
-        }
+        store(idempotencyKey, request, redisProperties.getExpirationTimeHour(), TimeUnit.HOURS);
     }
 
     @Override
@@ -65,40 +157,133 @@ public class RedisIdempotentRepository implements IdempotentRepository {
 
     @Override
     public void store(IdempotencyKey idempotencyKey, IdempotentRequestWrapper request, String cachePrefix, Long ttl, TimeUnit timeUnit) throws RequestAlreadyExistsException {
-        ttl = ttl == 0 ? redisProperties.getExpirationTimeHour() : ttl;
-        
-        // For Redis, we store the cache prefix as part of the value since Redis is key-value based
+        // For Redis, the cache prefix is already part of generated keys
         // The cache prefix is mainly for PostgreSQL where we can store it as a separate column
-        Boolean set = valueOperations.setIfAbsent(
-                idempotencyKey.getKeyValue(),
-                prepareValue(request),
-                ttl,
-                timeUnit
-        );
-        if (Boolean.FALSE.equals(set)) {
+        if (storeIfAbsent(idempotencyKey, request, ttl, timeUnit) != null) {
             throw new RequestAlreadyExistsException();
         }
     }
 
+    /**
+     * Stores the request or reads the stored call with a single script call, the script is sent
+     * once and then invoked by its digest
+     *
+     * <p>A completed call kept by the client-side cache is returned without calling Redis. Any other
+     * stored call is read again over the tracking connection, so it is kept once it completes.</p>
+     *
+     * @param idempotencyKey
+     * @param request
+     * @param ttl
+     * @param timeUnit
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public IdempotentRequestResponseWrapper storeIfAbsent(IdempotencyKey idempotencyKey, IdempotentRequestWrapper request, Long ttl, TimeUnit timeUnit) {
+        if (clientSideCache != null) {
+            List<byte[]> cached = clientSideCache.get(idempotencyKey.getKeyValue());
+            if (cached != null) {
+                return toRequestResponseWrapper(cached);
+            }
+        }
+        List<byte[]> fields = (List<byte[]>) redisTemplate.execute(
+                STORE_IF_ABSENT,
+                RedisSerializer.byteArray(),
+                RedisSerializer.byteArray(),
+                Collections.singletonList(idempotencyKey.getKeyValue()),
+                requestField(request),
+                ttlMillis(ttl, timeUnit, redisProperties)
+        );
+        IdempotentRequestResponseWrapper existing = toRequestResponseWrapper(fields);
+        if (existing != null && clientSideCache != null && fields.size() > 1) {
+            clientSideCache.read(idempotencyKey.getKeyValue());
+        }
+        return existing;
+    }
+
+    /**
+     * Runs the store script of every key in one pipeline
+     *
+     * @param requests
+     * @param ttl
+     * @param timeUnit
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<IdempotencyKey, IdempotentRequestResponseWrapper> storeAllIfAbsent(Map<IdempotencyKey, IdempotentRequestWrapper> requests,
+                                                                              Long ttl, TimeUnit timeUnit) {
+        if (!pipelining || requests.isEmpty()) {
+            return IdempotentRepository.super.storeAllIfAbsent(requests, ttl, timeUnit);
+        }
+        List<IdempotencyKey> keys = new ArrayList<>(requests.keySet());
+        byte[] ttlMillis = ttlMillis(ttl, timeUnit, redisProperties);
+        List<Object> results = executePipelined(STORE_IF_ABSENT, connection -> {
+            for (IdempotencyKey key : keys) {
+                connection.scriptingCommands().evalSha(STORE_IF_ABSENT.getSha1(), ReturnType.MULTI, 1, rawKey(key),
+                        requestField(requests.get(key)), ttlMillis);
+            }
+        });
+
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            IdempotentRequestResponseWrapper wrapper = toRequestResponseWrapper((List<byte[]>) results.get(i));
+            if (wrapper != null) {
+                existing.put(keys.get(i), wrapper);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Runs the response script of every key in one pipeline
+     *
+     * @param calls
+     * @param ttl
+     * @param timeUnit
+     */
+    @Override
+    public void setResponses(Map<IdempotencyKey, IdempotentRequestResponseWrapper> calls, Long ttl, TimeUnit timeUnit) {
+        if (!pipelining || calls.isEmpty()) {
+            IdempotentRepository.super.setResponses(calls, ttl, timeUnit);
+            return;
+        }
+        executePipelined(SET_RESPONSE, connection -> calls.forEach((key, call) ->
+                connection.scriptingCommands().evalSha(SET_RESPONSE.getSha1(), ReturnType.INTEGER, 1, rawKey(key),
+                        redisProperties.getPersistReqRes() ? serialize(call.getResponse()) : EMPTY)));
+    }
+
     @Override
     public void remove(IdempotencyKey idempotencyKey) {
         redisTemplate.delete(idempotencyKey.getKeyValue());
+        if (clientSideCache != null) {
+            clientSideCache.invalidate(idempotencyKey.getKeyValue());
+        }
+    }
+
+    /**
+     * Deletes every key with one command, split by slot on a Redis Cluster
+     *
+     * @param idempotencyKeys
+     */
+    @Override
+    public void removeAll(Collection<IdempotencyKey> idempotencyKeys) {
+        if (!idempotencyKeys.isEmpty()) {
+            redisTemplate.delete(idempotencyKeys.stream().map(IdempotencyKey::getKeyValue).collect(Collectors.toList()));
+        }
+        if (clientSideCache != null) {
+            idempotencyKeys.forEach(key -> clientSideCache.invalidate(key.getKeyValue()));
+        }
     }
 
     @Override
     @Deprecated
     public void setResponse(IdempotencyKey idempotencyKey, IdempotentRequestWrapper request, IdempotentResponseWrapper response) {
-        if (contains(idempotencyKey)) {
-            IdempotentRequestResponseWrapper requestResponseWrapper = valueOperations.get(idempotencyKey.getKeyValue());
-            if (requestResponseWrapper != null) {
-                requestResponseWrapper.setResponse(response);
-                valueOperations.set(idempotencyKey.getKeyValue(), prepareValue(request), redisProperties.getExpirationTimeHour(), TimeUnit.HOURS);
-            }
-        }
+        setResponse(idempotencyKey, request, response, redisProperties.getExpirationTimeHour(), TimeUnit.HOURS);
     }
 
     /**
-     * ttl describe
+     * Writes only the response field, the key keeps the expiry it got when the request was stored
      *
      * @param idempotencyKey
      * @param request
@@ -107,50 +292,125 @@ public class RedisIdempotentRepository implements IdempotentRepository {
      */
     @Override
     public void setResponse(IdempotencyKey idempotencyKey, IdempotentRequestWrapper request, IdempotentResponseWrapper response, Long ttl, TimeUnit timeUnit) {
-        if (contains(idempotencyKey)) {
-            ttl = ttl == 0 ? redisProperties.getExpirationTimeHour() : ttl;
-            IdempotentRequestResponseWrapper requestResponseWrapper = valueOperations.get(idempotencyKey.getKeyValue());
-            if (requestResponseWrapper != null) {
-                requestResponseWrapper.setResponse(response);
-                valueOperations.set(idempotencyKey.getKeyValue(), prepareValue(request, response), ttl, timeUnit);
-            }
-        }
+        redisTemplate.execute(
+                SET_RESPONSE,
+                RedisSerializer.byteArray(),
+                null,
+                Collections.singletonList(idempotencyKey.getKeyValue()),
+                redisProperties.getPersistReqRes() ? serialize(response) : EMPTY
+        );
+    }
+
+    /**
+     * @param clientSideCache keeps completed calls locally, null to always read from Redis
+     */
+    public void setClientSideCache(RedisClientSideCache clientSideCache) {
+        this.clientSideCache = clientSideCache;
+    }
+
+    /**
+     * @param ttl
+     * @param timeUnit
+     * @param redisProperties
+     * @return the ttl argument of the store script, the default expiration when the call has no positive ttl
+     */
+    static byte[] ttlMillis(Long ttl, TimeUnit timeUnit, RedisConfigProperties redisProperties) {
+        long ttlMillis = ttl == null || ttl <= 0
+                ? TimeUnit.HOURS.toMillis(redisProperties.getExpirationTimeHour())
+                : Math.max(1, timeUnit.toMillis(ttl));
+        return Long.toString(ttlMillis).getBytes(StandardCharsets.US_ASCII);
     }
 
     /**
-     * Prepares the value stored in redis
+     * Builds the stored call from the request and response fields
      *
-     * if persistReqRes set to false,
-     * it does not persist related request values in redis
-     * @param request
+     * @param fields the fields read with HMGET, null or empty when the key doesn't exist
      * @return
      */
-    private IdempotentRequestResponseWrapper prepareValue(IdempotentRequestWrapper request) {
-        if (redisProperties.getPersistReqRes()) {
-            return new IdempotentRequestResponseWrapper(request);
+    private IdempotentRequestResponseWrapper toRequestResponseWrapper(List<byte[]> fields) {
+        if (fields != null && fields.size() == 1) {
+            return toLegacyRequestResponseWrapper(fields.get(0));
+        }
+        if (fields == null || fields.size() < 2 || (fields.get(0) == null && fields.get(1) == null)) {
+            return null;
+        }
+        return new IdempotentRequestResponseWrapper(
+                (IdempotentRequestWrapper) deserialize(fields.get(0)),
+                (IdempotentResponseWrapper) deserialize(fields.get(1))
+        );
+    }
+
+    /**
+     * Reads a call an earlier release stored as a string value with the value serializer of the template
+     *
+     * @param value
+     * @return the stored call, without request and response when the value can't be read
+     */
+    private IdempotentRequestResponseWrapper toLegacyRequestResponseWrapper(byte[] value) {
+        RedisSerializer<?> valueSerializer = redisTemplate.getValueSerializer();
+        try {
+            Object stored = valueSerializer == null ? null : valueSerializer.deserialize(value);
+            if (stored instanceof IdempotentRequestResponseWrapper) {
+                return (IdempotentRequestResponseWrapper) stored;
+            }
+        } catch (SerializationException e) {
+            // still an existing call, only its fields are lost
         }
-        return new IdempotentRequestResponseWrapper(null);
+        return new IdempotentRequestResponseWrapper();
     }
 
     /**
-     * Prepares the value stored in redis
+     * Sends the commands as one pipeline, after loading the script on the same connection so
+     * calling it by its digest can't miss
      *
-     * if persistReqRes set to false,
-     * it does not persist related request and response values in redis
+     * @param script
+     * @param commands
+     * @return the result of every command
+     */
+    private List<Object> executePipelined(RedisScript<?> script, Consumer<RedisConnection> commands) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+            commands.accept(connection);
+            return null;
+        }, RedisSerializer.byteArray());
+        return results.subList(1, results.size());
+    }
+
+    private <T> T execute(RedisCallback<T> callback) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return (T) redisTemplate.execute(callback);
+            } catch (QueryTimeoutException | RedisConnectionFailureException e) {
+                if (attempt >= maxRetryCount) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private byte[] rawKey(IdempotencyKey idempotencyKey) {
+        return ((RedisSerializer<Object>) redisTemplate.getKeySerializer()).serialize(idempotencyKey.getKeyValue());
+    }
+
+    /**
      * @param request
-     * @param response
-     * @return
+     * @return the encoded request, only its fingerprint when persistReqRes is off
      */
-    private IdempotentRequestResponseWrapper prepareValue(IdempotentRequestWrapper request, IdempotentResponseWrapper response) {
-        if (redisProperties.getPersistReqRes()) {
-            return new IdempotentRequestResponseWrapper(request, response);
+    private byte[] requestField(IdempotentRequestWrapper request) {
+        if (request == null) {
+            return EMPTY;
         }
-        return new IdempotentRequestResponseWrapper(null);
+        return serialize(redisProperties.getPersistReqRes() ? request : request.fingerprintOnly());
     }
 
-    @Override
-    public IdempotentRequestResponseWrapper getRequestResponseWrapper(IdempotencyKey key) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getRequestResponseWrapper'");
+    private byte[] serialize(Object value) {
+        return codec.encode(value);
+    }
+
+    private Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return codec.decode(bytes);
     }
 }
@@ -0,0 +1,40 @@
+package com.trendyol.jdempotent.redis;
+
+/**
+ *
+ * Redis topologies the starter can connect to
+ *
+ */
+public enum RedisMode {
+
+    /**
+     * a master monitored by sentinels
+     */
+    SENTINEL,
+
+    /**
+     * a single server, with replicas discovered from it when reading from replicas
+     */
+    STANDALONE,
+
+    /**
+     * a Redis Cluster, keys are spread over the shards by their slot
+     */
+    CLUSTER;
+
+    /**
+     * Resolves a mode by its name, e.g. {@code cluster}
+     *
+     * @param name
+     * @return
+     */
+    public static RedisMode of(String name) {
+        String trimmed = name == null ? "" : name.trim();
+        for (RedisMode redisMode : values()) {
+            if (redisMode.name().equalsIgnoreCase(trimmed)) {
+                return redisMode;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported redis mode: " + name);
+    }
+}
@@ -1,16 +1,53 @@
 package com.trendyol.jdempotent.redis;
 
 
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.StringUtils;
 
+/**
+ * Connects to Redis in the topology of {@code jdempotent.cache.redis.mode}, a sentinel monitored
+ * master by default, a standalone server or a Redis Cluster
+ *
+ * <p>With {@code readFrom} set, read-only commands such as the lookups of stored calls may be
+ * served by replicas, while the scripts that store calls and set responses always run on the
+ * master. A replica can lag behind, so a lookup may miss a call stored a moment ago.</p>
+ *
+ * <p>Commands time out after the larger of the read and write timeouts, including commands
+ * queued while the connection is re-established, so a slow or unreachable Redis fails calls
+ * instead of stalling them. Connections are shared by default, with the pool enabled every
+ * command borrows its own connection from a commons-pool2 pool, see {@link RedisConnectionPool}.</p>
+ *
+ * <p>With {@code clientSideCaching} on, completed calls are also read over one more connection
+ * tracked by Redis, see {@link RedisClientSideCache}.</p>
+ */
 @Configuration
 @ConditionalOnProperty(
         prefix="jdempotent", name = "enable",
@@ -26,19 +63,128 @@ public class RedisSentinelConfiguration {
 
     @Bean
     public LettuceConnectionFactory lettuceConnectionFactory() {
-        org.springframework.data.redis.connection.RedisSentinelConfiguration sentinelConfiguration = new org.springframework.data.redis.connection.RedisSentinelConfiguration().master(redisProperties.getSentinelMasterName());
-        
-        redisProperties.getSentinelHostList().forEach(host -> {
-                sentinelConfiguration.sentinel(host, redisProperties.getSentinelPort());
-        });
+        RedisMode mode = RedisMode.of(redisProperties.getMode());
+        boolean pooled = Boolean.TRUE.equals(redisProperties.getPoolEnabled());
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder clientConfiguration = pooled
+                ? RedisConnectionPool.clientConfiguration(redisProperties)
+                : LettuceClientConfiguration.builder();
+        clientConfiguration.clientOptions(clientOptions(mode));
+        Duration commandTimeout = max(seconds(redisProperties.getReadTimeoutSecond()), seconds(redisProperties.getWriteTimeoutSecond()));
+        if (commandTimeout != null) {
+            clientConfiguration.commandTimeout(commandTimeout);
+        }
+        if (StringUtils.hasText(redisProperties.getReadFrom())) {
+            clientConfiguration.readFrom(ReadFrom.valueOf(redisProperties.getReadFrom()));
+        }
+        ClientResources clientResources = clientResources();
+        LettuceConnectionFactory connectionFactory;
+        if (clientResources == null) {
+            connectionFactory = new LettuceConnectionFactory(redisConfiguration(), clientConfiguration.build());
+        } else {
+            clientConfiguration.clientResources(clientResources);
+            // the factory only shuts down resources it created itself
+            connectionFactory = new LettuceConnectionFactory(redisConfiguration(), clientConfiguration.build()) {
+                @Override
+                public void destroy() {
+                    super.destroy();
+                    clientResources.shutdown();
+                }
+            };
+        }
+        connectionFactory.setShareNativeConnection(!pooled);
+        Integer pipeliningFlushSize = redisProperties.getPipeliningFlushSize();
+        if (pipeliningFlushSize != null && pipeliningFlushSize > 0) {
+            connectionFactory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.buffered(pipeliningFlushSize));
+        }
+        return connectionFactory;
+    }
 
-        sentinelConfiguration.setPassword(redisProperties.getPassword());
-        sentinelConfiguration.setDatabase(redisProperties.getDatabase());
+    private ClientOptions clientOptions(RedisMode mode) {
+        SocketOptions.Builder socketOptions = SocketOptions.builder()
+                .keepAlive(Boolean.TRUE.equals(redisProperties.getTcpKeepAlive()))
+                .tcpNoDelay(!Boolean.FALSE.equals(redisProperties.getTcpNoDelay()));
+        Duration connectTimeout = seconds(redisProperties.getDialTimeoutSecond());
+        if (connectTimeout != null) {
+            socketOptions.connectTimeout(connectTimeout);
+        }
+        if (mode == RedisMode.CLUSTER) {
+            return ClusterClientOptions.builder()
+                    .socketOptions(socketOptions.build())
+                    .timeoutOptions(TimeoutOptions.enabled())
+                    // follows failovers and resharding without waiting for a periodic refresh
+                    .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder().enableAllAdaptiveRefreshTriggers().build())
+                    .build();
+        }
+        return ClientOptions.builder()
+                .socketOptions(socketOptions.build())
+                .timeoutOptions(TimeoutOptions.enabled())
+                .build();
+    }
+
+    private ClientResources clientResources() {
+        Integer ioThreadPoolSize = redisProperties.getIoThreadPoolSize();
+        Integer computationThreadPoolSize = redisProperties.getComputationThreadPoolSize();
+        boolean customIo = ioThreadPoolSize != null && ioThreadPoolSize > 0;
+        boolean customComputation = computationThreadPoolSize != null && computationThreadPoolSize > 0;
+        if (!customIo && !customComputation) {
+            return null;
+        }
+        DefaultClientResources.Builder builder = DefaultClientResources.builder();
+        if (customIo) {
+            builder.ioThreadPoolSize(ioThreadPoolSize);
+        }
+        if (customComputation) {
+            builder.computationThreadPoolSize(computationThreadPoolSize);
+        }
+        return builder.build();
+    }
 
-        return new LettuceConnectionFactory(
-                sentinelConfiguration,
-                LettuceClientConfiguration.defaultConfiguration()
-                );
+    /**
+     * @param seconds a number of seconds, fractions allowed
+     * @return null when not set
+     */
+    private static Duration seconds(String seconds) {
+        if (!StringUtils.hasText(seconds)) {
+            return null;
+        }
+        return Duration.ofMillis(Math.round(Double.parseDouble(seconds.trim()) * 1000));
+    }
+
+    private static Duration max(Duration first, Duration second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        return first.compareTo(second) >= 0 ? first : second;
+    }
+
+    private RedisConfiguration redisConfiguration() {
+        switch (RedisMode.of(redisProperties.getMode())) {
+            case STANDALONE:
+                RedisStandaloneConfiguration standaloneConfiguration =
+                        new RedisStandaloneConfiguration(redisProperties.getHost(), redisProperties.getPort());
+                standaloneConfiguration.setPassword(redisProperties.getPassword());
+                standaloneConfiguration.setDatabase(redisProperties.getDatabase());
+                return standaloneConfiguration;
+            case CLUSTER:
+                RedisClusterConfiguration clusterConfiguration = new RedisClusterConfiguration(nonBlank(redisProperties.getClusterNodes()));
+                clusterConfiguration.setMaxRedirects(redisProperties.getClusterMaxRedirects());
+                clusterConfiguration.setPassword(redisProperties.getPassword());
+                return clusterConfiguration;
+            default:
+                org.springframework.data.redis.connection.RedisSentinelConfiguration sentinelConfiguration = new org.springframework.data.redis.connection.RedisSentinelConfiguration().master(redisProperties.getSentinelMasterName());
+
+                nonBlank(redisProperties.getSentinelHostList()).forEach(host -> {
+                        sentinelConfiguration.sentinel(host, redisProperties.getSentinelPort());
+                });
+
+                sentinelConfiguration.setPassword(redisProperties.getPassword());
+                sentinelConfiguration.setDatabase(redisProperties.getDatabase());
+                return sentinelConfiguration;
+        }
+    }
+
+    private static List<String> nonBlank(List<String> values) {
+        return values == null ? List.of() : values.stream().filter(StringUtils::hasText).map(String::trim).collect(Collectors.toList());
     }
 
     @Bean(name = "trandyolRedisTemplate")
@@ -50,4 +196,36 @@ public class RedisSentinelConfiguration {
         redisTemplate.setDefaultSerializer(new GenericJackson2JsonRedisSerializer());
         return redisTemplate;
     }
+
+    /**
+     * A template over the same connection factory with string keys and raw values, the values
+     * are encoded by the repository codec
+     *
+     * @return
+     */
+    @Bean(name = "trandyolReactiveRedisTemplate")
+    public ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate() {
+        RedisSerializationContext<String, byte[]> serializationContext = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.byteArray())
+                .key(new StringRedisSerializer())
+                .hashKey(new StringRedisSerializer())
+                .build();
+        return new ReactiveRedisTemplate<>(lettuceConnectionFactory(), serializationContext);
+    }
+
+    /**
+     * A tracking connection on the client of the connection factory, so it follows the same
+     * sentinel master or standalone server
+     *
+     * @return
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "jdempotent.cache.redis", name = "clientSideCaching", havingValue = "true")
+    public RedisClientSideCache redisClientSideCache() {
+        if (RedisMode.of(redisProperties.getMode()) == RedisMode.CLUSTER) {
+            throw new IllegalStateException("jdempotent.cache.redis.clientSideCaching is not supported in cluster mode");
+        }
+        return RedisClientSideCache.connect((RedisClient) lettuceConnectionFactory().getNativeClient(),
+                redisProperties.getClientSideCacheMaxSize());
+    }
 }
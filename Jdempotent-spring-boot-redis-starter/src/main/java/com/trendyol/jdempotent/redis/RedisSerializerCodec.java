@@ -0,0 +1,28 @@
+package com.trendyol.jdempotent.redis;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+
+/**
+ * Encodes with a serializer of the redis template, the default of the redis repository
+ */
+public class RedisSerializerCodec implements IdempotentCodec {
+
+    private final RedisSerializer<Object> serializer;
+
+    @SuppressWarnings("unchecked")
+    public RedisSerializerCodec(RedisSerializer<?> serializer) {
+        this.serializer = (RedisSerializer<Object>) serializer;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return serializer.serialize(value);
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        return serializer.deserialize(bytes);
+    }
+}
@@ -0,0 +1,167 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.ReactiveRedisCallback;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.model.IdempotencyKey;
+import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
+import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import com.trendyol.jdempotent.redis.ReactiveRedisIdempotentRepository;
+import com.trendyol.jdempotent.redis.RedisConfigProperties;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveRedisIdempotentRepositoryTest {
+
+    private static final byte[] REQUEST = "request".getBytes();
+    private static final byte[] RESPONSE = "response".getBytes();
+
+    private ReactiveRedisIdempotentRepository repository;
+
+    @Mock
+    private ReactiveRedisTemplate<String, byte[]> redisTemplate;
+
+    @Mock
+    private RedisConfigProperties redisConfigProperties;
+
+    @Mock
+    private IdempotentCodec codec;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(redisTemplate.getSerializationContext()).thenReturn(RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.byteArray())
+                .key(new StringRedisSerializer())
+                .build());
+        lenient().when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
+        lenient().when(redisConfigProperties.getMaxRetryCount()).thenReturn("1");
+        repository = new ReactiveRedisIdempotentRepository(redisTemplate, redisConfigProperties, codec);
+    }
+
+    @Test
+    public void given_new_key_when_store_if_absent_then_store_request_with_ttl_and_return_empty() {
+        //Given
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123);
+        when(codec.encode(request)).thenReturn(REQUEST);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList(), any(), any())).thenReturn(Flux.empty());
+
+        //When
+        IdempotentRequestResponseWrapper wrapper = repository.storeIfAbsent(new IdempotencyKey("key"), request, 30L, TimeUnit.SECONDS).block();
+
+        //Then
+        ArgumentCaptor<List> args = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(List.of("key")), args.capture(), any(), any());
+        assertNull(wrapper);
+        assertArrayEquals(REQUEST, (byte[]) args.getValue().get(0));
+        assertArrayEquals("30000".getBytes(), (byte[]) args.getValue().get(1));
+    }
+
+    @Test
+    public void given_existing_key_when_store_if_absent_then_return_stored_call_with_empty_field_as_null() {
+        //Given
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123);
+        when(codec.encode(request)).thenReturn(REQUEST);
+        when(codec.decode(REQUEST)).thenReturn(request);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList(), any(), any()))
+                .thenReturn(Flux.just(REQUEST, new byte[0]));
+
+        //When
+        IdempotentRequestResponseWrapper wrapper = repository.storeIfAbsent(new IdempotencyKey("key"), request, 30L, TimeUnit.SECONDS).block();
+
+        //Then
+        assertSame(request, wrapper.getRequest());
+        assertNull(wrapper.getResponse());
+    }
+
+    @Test
+    public void given_a_call_stored_as_a_string_by_an_earlier_release_when_store_if_absent_then_return_the_stored_call() {
+        //Given
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123);
+        IdempotentRequestResponseWrapper legacy = new IdempotentRequestResponseWrapper(request, new IdempotentResponseWrapper("response"));
+        when(codec.encode(request)).thenReturn(REQUEST);
+        when(codec.decode(RESPONSE)).thenReturn(legacy);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList(), any(), any())).thenReturn(Flux.just(RESPONSE));
+
+        //When
+        IdempotentRequestResponseWrapper wrapper = repository.storeIfAbsent(new IdempotencyKey("key"), request, 30L, TimeUnit.SECONDS).block();
+
+        //Then
+        assertSame(legacy, wrapper);
+    }
+
+    @Test
+    public void given_lookup_timing_out_once_when_get_request_response_wrapper_then_retry_and_read_both_fields() {
+        //Given
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123);
+        IdempotentResponseWrapper response = new IdempotentResponseWrapper("response");
+        when(codec.decode(REQUEST)).thenReturn(request);
+        when(codec.decode(RESPONSE)).thenReturn(response);
+        AtomicInteger attempts = new AtomicInteger();
+        when(redisTemplate.execute(any(ReactiveRedisCallback.class))).thenReturn(Flux.defer(() -> attempts.incrementAndGet() == 1
+                ? Flux.error(new QueryTimeoutException("timeout"))
+                : Flux.just(Arrays.asList(ByteBuffer.wrap(REQUEST), ByteBuffer.wrap(RESPONSE)))));
+
+        //When
+        IdempotentRequestResponseWrapper wrapper = repository.getRequestResponseWrapper(new IdempotencyKey("key")).block();
+
+        //Then
+        assertEquals(2, attempts.get());
+        assertSame(request, wrapper.getRequest());
+        assertSame(response, wrapper.getResponse());
+    }
+
+    @Test
+    public void given_missing_key_when_get_request_response_wrapper_then_return_empty() {
+        //Given
+        when(redisTemplate.execute(any(ReactiveRedisCallback.class))).thenReturn(Flux.just(Arrays.asList(null, null)));
+
+        //When
+        IdempotentRequestResponseWrapper wrapper = repository.getRequestResponseWrapper(new IdempotencyKey("key")).block();
+
+        //Then
+        assertNull(wrapper);
+    }
+
+    @Test
+    public void given_key_when_remove_then_delete_it() {
+        //Given
+        when(redisTemplate.delete("key")).thenReturn(Mono.just(1L));
+
+        //When
+        repository.remove(new IdempotencyKey("key")).block();
+
+        //Then
+        verify(redisTemplate, times(1)).delete("key");
+    }
+}
@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.trendyol.jdempotent.redis.RedisClientSideCache;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.api.sync.RedisCommands;
+
+@ExtendWith(MockitoExtension.class)
+public class RedisClientSideCacheTest {
+
+    private static final byte[] REQUEST = "request".getBytes();
+    private static final byte[] RESPONSE = "response".getBytes();
+
+    @Mock
+    private StatefulRedisConnection<String, byte[]> connection;
+
+    @Mock
+    private RedisCommands<String, byte[]> commands;
+
+    private RedisClientSideCache cache;
+
+    private PushListener pushListener;
+
+    private RedisConnectionStateListener stateListener;
+
+    @BeforeEach
+    public void setUp() {
+        when(connection.sync()).thenReturn(commands);
+        cache = new RedisClientSideCache(connection, 10);
+        ArgumentCaptor<PushListener> pushListeners = ArgumentCaptor.forClass(PushListener.class);
+        ArgumentCaptor<RedisConnectionStateListener> stateListeners = ArgumentCaptor.forClass(RedisConnectionStateListener.class);
+        verify(connection).addListener(pushListeners.capture());
+        verify(connection).addListener(stateListeners.capture());
+        pushListener = pushListeners.getValue();
+        stateListener = stateListeners.getValue();
+    }
+
+    @Test
+    public void given_a_completed_call_when_read_then_keep_it_until_redis_invalidates_it() {
+        //given
+        when(commands.hmget("key", "request", "response"))
+                .thenReturn(List.of(KeyValue.just("request", REQUEST), KeyValue.just("response", RESPONSE)));
+        PushMessage invalidation = mock(PushMessage.class);
+        when(invalidation.getType()).thenReturn("invalidate");
+        when(invalidation.getContent(any())).thenReturn(List.of("invalidate", List.of("key")));
+
+        //when
+        cache.read("key");
+        List<byte[]> kept = cache.get("key");
+        pushListener.onPushMessage(invalidation);
+
+        //then
+        verify(commands, times(1)).clientTracking(any(TrackingArgs.class));
+        assertArrayEquals(RESPONSE, kept.get(1));
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void given_a_full_cache_when_read_another_completed_call_then_keep_it() {
+        //given
+        when(commands.hmget(anyString(), eq("request"), eq("response")))
+                .thenReturn(List.of(KeyValue.just("request", REQUEST), KeyValue.just("response", RESPONSE)));
+        for (int i = 0; i < 10; i++) {
+            cache.read("key-" + i);
+        }
+
+        //when
+        cache.read("new-key");
+
+        //then
+        assertNotNull(cache.get("new-key"));
+    }
+
+    @Test
+    public void given_a_call_in_progress_when_read_then_do_not_keep_it() {
+        //given
+        when(commands.hmget("key", "request", "response"))
+                .thenReturn(List.of(KeyValue.just("request", REQUEST), KeyValue.empty("response")));
+
+        //when
+        List<byte[]> fields = cache.read("key");
+
+        //then
+        assertArrayEquals(REQUEST, fields.get(0));
+        assertNull(fields.get(1));
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void given_a_lost_connection_when_read_again_then_drop_kept_calls_and_track_again() {
+        //given
+        when(commands.hmget("key", "request", "response"))
+                .thenReturn(List.of(KeyValue.just("request", REQUEST), KeyValue.just("response", RESPONSE)));
+        cache.read("key");
+
+        //when
+        stateListener.onRedisDisconnected(null);
+        List<byte[]> afterDisconnect = cache.get("key");
+        cache.read("key");
+
+        //then
+        assertNull(afterDisconnect);
+        verify(commands, times(2)).clientTracking(any(TrackingArgs.class));
+    }
+}
@@ -1,41 +1,60 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import com.trendyol.jdempotent.core.codec.IdempotentCodec;
+import com.trendyol.jdempotent.core.datasource.RequestAlreadyExistsException;
 import com.trendyol.jdempotent.core.model.IdempotencyKey;
 import com.trendyol.jdempotent.core.model.IdempotentRequestResponseWrapper;
 import com.trendyol.jdempotent.core.model.IdempotentRequestWrapper;
 import com.trendyol.jdempotent.core.model.IdempotentResponseWrapper;
+import com.trendyol.jdempotent.redis.RedisClientSideCache;
 import com.trendyol.jdempotent.redis.RedisConfigProperties;
 import com.trendyol.jdempotent.redis.RedisIdempotentRepository;
 
 @ExtendWith(MockitoExtension.class)
 public class RedisIdempotentRepositoryTest {
 
+    private static final byte[] REQUEST = "request".getBytes();
+    private static final byte[] RESPONSE = "response".getBytes();
 
-    @InjectMocks
     private RedisIdempotentRepository redisIdempotentRepository;
 
     @Mock
@@ -45,32 +64,44 @@ public class RedisIdempotentRepositoryTest {
     private RedisConfigProperties redisConfigProperties;
 
     @Mock
-    private ValueOperations<String, IdempotentRequestResponseWrapper> valueOperations;
+    private RedisConnection connection;
 
-    @Captor
-    private ArgumentCaptor<IdempotentRequestResponseWrapper> captor;
+    @Mock
+    private RedisHashCommands hashCommands;
+
+    @Mock
+    private RedisKeyCommands keyCommands;
+
+    @Mock
+    private RedisScriptingCommands scriptingCommands;
+
+    @Mock
+    private IdempotentCodec codec;
+
+    private final RedisSerializer<Object> valueSerializer = new JdkSerializationRedisSerializer();
 
     @BeforeEach
     public void setUp() {
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-        redisIdempotentRepository = new RedisIdempotentRepository(redisTemplate,
-                redisConfigProperties);
+        lenient().when(redisTemplate.getKeySerializer()).thenReturn(new StringRedisSerializer());
+        lenient().when(redisTemplate.getHashValueSerializer()).thenReturn(valueSerializer);
+        lenient().when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, RedisCallback.class).doInRedis(connection));
+        lenient().when(connection.hashCommands()).thenReturn(hashCommands);
+        lenient().when(connection.keyCommands()).thenReturn(keyCommands);
+        redisIdempotentRepository = new RedisIdempotentRepository(redisTemplate, redisConfigProperties);
     }
 
     @Test
     public void given_an_available_object_when_redis_contains_then_return_true() {
         //Given
         IdempotencyKey idempotencyKey = new IdempotencyKey("key");
-        var key = new IdempotencyKey("key");
-        var wrapper = new IdempotentRequestResponseWrapper(
-                new IdempotentRequestWrapper(new Object()));
-        when(valueOperations.get(key.getKeyValue())).thenReturn(wrapper);
+        when(keyCommands.exists(aryEq("key".getBytes()))).thenReturn(true);
 
         //When
         Boolean isContain = redisIdempotentRepository.contains(idempotencyKey);
 
         //Then
-        verify(valueOperations, times(1)).get(idempotencyKey.getKeyValue());
+        verify(keyCommands, times(1)).exists(aryEq("key".getBytes()));
         assertTrue(isContain);
     }
 
@@ -83,62 +114,206 @@ public class RedisIdempotentRepositoryTest {
         Boolean isContain = redisIdempotentRepository.contains(idempotencyKey);
 
         //Then
-        verify(valueOperations, times(1)).get(idempotencyKey.getKeyValue());
+        verify(keyCommands, times(1)).exists(aryEq("key1".getBytes()));
         assertFalse(isContain);
     }
 
     @Test
-    public void given_an_available_object_when_get_response_then_return_response() {
+    public void given_an_available_object_when_get_response_then_read_only_the_response_field() {
         //Given
         var key = new IdempotencyKey("key");
-        var wrapper = new IdempotentRequestResponseWrapper(
-                new IdempotentRequestWrapper(new Object()));
-        when(valueOperations.get(key.getKeyValue())).thenReturn(wrapper);
-        var t = mock(IdempotentRequestResponseWrapper.class);
-
-        IdempotentResponseWrapper expected = new IdempotentResponseWrapper("testt");
-        when(t.getResponse()).thenReturn(expected);
-        when(valueOperations.get(key.getKeyValue())).thenReturn(t);
+        when(hashCommands.hGet(aryEq("key".getBytes()), aryEq(RESPONSE)))
+                .thenReturn(valueSerializer.serialize(new IdempotentResponseWrapper("testt")));
 
         //When
         IdempotentResponseWrapper response = redisIdempotentRepository.getResponse(key);
 
         //Then
-        verify(t).getResponse();
         assertEquals(response.getResponse(), "testt");
     }
 
     @Test
-    public void given_idempotency_key_and_request_object_when_store_then_set_value_to_redis() throws Exception{
+    public void given_a_completed_call_when_get_request_response_wrapper_then_read_both_fields_with_one_command() {
+        //Given
+        var key = new IdempotencyKey("key");
+        when(hashCommands.hMGet(aryEq("key".getBytes()), aryEq(REQUEST), aryEq(RESPONSE))).thenReturn(Arrays.asList(
+                valueSerializer.serialize(new IdempotentRequestWrapper(123L)),
+                valueSerializer.serialize(new IdempotentResponseWrapper("response"))));
+
+        //When
+        IdempotentRequestResponseWrapper wrapper = redisIdempotentRepository.getRequestResponseWrapper(key);
+
+        //Then
+        assertEquals(wrapper.getRequest().getRequest(), 123L);
+        assertEquals(wrapper.getResponse().getResponse(), "response");
+    }
+
+    @Test
+    public void given_a_missing_key_when_get_request_response_wrapper_then_return_null() {
+        //Given
+        var key = new IdempotencyKey("key");
+        when(hashCommands.hMGet(aryEq("key".getBytes()), aryEq(REQUEST), aryEq(RESPONSE))).thenReturn(Arrays.asList(null, null));
+
+        //When
+        IdempotentRequestResponseWrapper wrapper = redisIdempotentRepository.getRequestResponseWrapper(key);
+
+        //Then
+        assertNull(wrapper);
+    }
+
+    @Test
+    public void given_idempotency_key_and_request_object_when_store_then_write_request_field_with_ttl() throws Exception {
         //Given
         IdempotencyKey key = new IdempotencyKey("key");
         IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
         when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
-        when(valueOperations.setIfAbsent(anyString(), any(IdempotentRequestResponseWrapper.class), anyLong(), any(TimeUnit.class))).thenReturn(true);
 
         //When
         redisIdempotentRepository.store(key, request, 1L, TimeUnit.HOURS);
 
         //Then
-        var argumentCaptor = ArgumentCaptor.forClass(IdempotentRequestResponseWrapper.class);
-        verify(valueOperations).setIfAbsent(eq(key.getKeyValue()), argumentCaptor.capture(), eq(1L), eq(TimeUnit.HOURS));
-        IdempotentRequestResponseWrapper value = argumentCaptor.getValue();
-        assertEquals(value.getRequest().getRequest(), 123L);
+        var argumentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("key")), argumentCaptor.capture(), aryEq("3600000".getBytes()));
+        assertEquals(request, valueSerializer.deserialize(argumentCaptor.getValue()));
     }
 
     @Test
-    public void given_ttl_zero_when_store_then_set_value_to_redis_with_property_ttl() throws Exception{
+    public void given_ttl_zero_when_store_then_expire_after_property_ttl() throws Exception {
         //Given
         IdempotencyKey key = new IdempotencyKey("key");
         IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
         when(redisConfigProperties.getExpirationTimeHour()).thenReturn(99L);
-        when(valueOperations.setIfAbsent(anyString(), any(IdempotentRequestResponseWrapper.class), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
 
         //When
-        redisIdempotentRepository.store(key, request, 0L, TimeUnit.HOURS);
+        redisIdempotentRepository.store(key, request, 0L, TimeUnit.SECONDS);
 
         //Then
-        verify(valueOperations).setIfAbsent(eq(key.getKeyValue()), any(), eq(99L), eq(TimeUnit.HOURS));
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("key")), any(), aryEq(Long.toString(TimeUnit.HOURS.toMillis(99)).getBytes()));
+    }
+
+    @Test
+    public void given_negative_ttl_when_store_then_expire_after_property_ttl_instead_of_deleting_the_key() throws Exception {
+        //Given
+        IdempotencyKey key = new IdempotencyKey("key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
+        when(redisConfigProperties.getExpirationTimeHour()).thenReturn(99L);
+        when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
+
+        //When
+        redisIdempotentRepository.store(key, request, -1L, TimeUnit.SECONDS);
+
+        //Then
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("key")), any(), aryEq(Long.toString(TimeUnit.HOURS.toMillis(99)).getBytes()));
+    }
+
+    @Test
+    public void given_a_call_stored_as_a_string_by_an_earlier_release_when_store_if_absent_then_return_the_stored_call() {
+        //Given
+        IdempotencyKey key = new IdempotencyKey("key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
+        IdempotentRequestResponseWrapper legacy = new IdempotentRequestResponseWrapper(request, new IdempotentResponseWrapper("response"));
+        when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
+        when(redisTemplate.getValueSerializer()).thenReturn(valueSerializer);
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class), anyList(), any(), any()))
+                .thenReturn(List.of(valueSerializer.serialize(legacy)));
+
+        //When
+        IdempotentRequestResponseWrapper existing = redisIdempotentRepository.storeIfAbsent(key, request, 1L, TimeUnit.HOURS);
+
+        //Then
+        assertEquals(request, existing.getRequest());
+        assertEquals("response", existing.getResponse().getResponse());
+    }
+
+    @Test
+    public void given_a_string_value_that_can_not_be_read_when_store_if_absent_then_return_an_existing_call() {
+        //Given
+        IdempotencyKey key = new IdempotencyKey("key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
+        when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
+        when(redisTemplate.getValueSerializer()).thenReturn(valueSerializer);
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class), anyList(), any(), any()))
+                .thenReturn(List.of("not serialized".getBytes()));
+
+        //When
+        IdempotentRequestResponseWrapper existing = redisIdempotentRepository.storeIfAbsent(key, request, 1L, TimeUnit.HOURS);
+
+        //Then
+        assertNull(existing.getRequest());
+        assertNull(existing.getResponse());
+    }
+
+    @Test
+    public void given_stored_key_when_store_then_throw_request_already_exists() {
+        //Given
+        IdempotencyKey key = new IdempotencyKey("key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
+        when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class), anyList(), any(), any()))
+                .thenReturn(Arrays.asList(valueSerializer.serialize(request), null));
+
+        //When & Then
+        assertThrows(RequestAlreadyExistsException.class, () -> redisIdempotentRepository.store(key, request, 1L, TimeUnit.HOURS));
+    }
+
+    @Test
+    public void given_stored_key_when_store_if_absent_then_return_stored_call_from_one_script_call() throws Exception {
+        //Given
+        IdempotencyKey key = new IdempotencyKey("key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
+        when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class), anyList(), any(), any()))
+                .thenReturn(Arrays.asList(valueSerializer.serialize(request), valueSerializer.serialize(new IdempotentResponseWrapper("response"))));
+
+        //When
+        IdempotentRequestResponseWrapper existing = redisIdempotentRepository.storeIfAbsent(key, request, 1L, TimeUnit.HOURS);
+
+        //Then
+        assertEquals(request, existing.getRequest());
+        assertEquals("response", existing.getResponse().getResponse());
+        verify(redisTemplate, times(0)).execute(any(RedisCallback.class));
+    }
+
+    @Test
+    public void given_a_completed_call_kept_by_the_client_side_cache_when_store_if_absent_then_do_not_call_redis() {
+        //Given
+        IdempotencyKey key = new IdempotencyKey("key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
+        RedisClientSideCache clientSideCache = mock(RedisClientSideCache.class);
+        when(clientSideCache.get("key"))
+                .thenReturn(Arrays.asList(valueSerializer.serialize(request), valueSerializer.serialize(new IdempotentResponseWrapper("response"))));
+        redisIdempotentRepository.setClientSideCache(clientSideCache);
+
+        //When
+        IdempotentRequestResponseWrapper existing = redisIdempotentRepository.storeIfAbsent(key, request, 1L, TimeUnit.HOURS);
+        redisIdempotentRepository.remove(key);
+
+        //Then
+        assertEquals("response", existing.getResponse().getResponse());
+        verify(redisTemplate, times(0)).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class), anyList(), any(), any());
+        verify(clientSideCache, times(1)).invalidate("key");
+    }
+
+    @Test
+    public void given_persist_req_res_off_when_store_if_absent_then_write_only_the_request_fingerprint() {
+        //Given
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L, new byte[]{1, 2});
+        when(redisConfigProperties.getPersistReqRes()).thenReturn(false);
+
+        //When
+        redisIdempotentRepository.storeIfAbsent(new IdempotencyKey("key"), request, 1L, TimeUnit.HOURS);
+
+        //Then
+        var argumentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class), eq(List.of("key")),
+                argumentCaptor.capture(), any());
+        IdempotentRequestWrapper stored = (IdempotentRequestWrapper) valueSerializer.deserialize(argumentCaptor.getValue());
+        assertNull(stored.getRequest());
+        assertArrayEquals(new byte[]{1, 2}, stored.getFingerprint());
     }
 
     @Test
@@ -154,27 +329,22 @@ public class RedisIdempotentRepositoryTest {
     }
 
     @Test
-    public void given_idempotency_key_and_request_and_response_objects_when_set_response_then_set_response_to_key() {
+    public void given_idempotency_key_and_request_and_response_objects_when_set_response_then_write_only_the_response_field() {
         //Given
         IdempotencyKey key = new IdempotencyKey("key");
         IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
         IdempotentResponseWrapper response = new IdempotentResponseWrapper("response");
-        var wrapper = new IdempotentRequestResponseWrapper(
-                new IdempotentRequestWrapper(new Object()));
-        when(valueOperations.get(key.getKeyValue())).thenReturn(wrapper);
-        assertNull(wrapper.getResponse());
         when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
 
         //When
         redisIdempotentRepository.setResponse(key, request, response, 1L, TimeUnit.HOURS);
 
         //Then
-        var argumentCaptor = ArgumentCaptor.forClass(IdempotentRequestResponseWrapper.class);
-        verify(valueOperations).set(eq(key.getKeyValue()), argumentCaptor.capture(), eq(1L), eq(TimeUnit.HOURS));
-        IdempotentRequestResponseWrapper value = argumentCaptor.getValue();
-        assertEquals(value.getRequest().getRequest(), 123L);
-        assertEquals(value.getResponse().getResponse(), "response");
-        assertEquals(wrapper.getResponse().getResponse(), "response");
+        var argumentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(), eq(List.of("key")), argumentCaptor.capture());
+        IdempotentResponseWrapper value = (IdempotentResponseWrapper) valueSerializer.deserialize(argumentCaptor.getValue());
+        assertEquals(value.getResponse(), "response");
+        verify(redisTemplate, times(0)).execute(any(RedisCallback.class));
     }
 
     @Test
@@ -183,21 +353,100 @@ public class RedisIdempotentRepositoryTest {
         IdempotencyKey key = new IdempotencyKey("key");
         IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
         IdempotentResponseWrapper response = new IdempotentResponseWrapper("response");
-        var wrapper = new IdempotentRequestResponseWrapper(
-                new IdempotentRequestWrapper(new Object()));
-        when(valueOperations.get(key.getKeyValue())).thenReturn(wrapper);
-        assertNull(wrapper.getResponse());
         when(redisConfigProperties.getPersistReqRes()).thenReturn(false);
 
         //When
         redisIdempotentRepository.setResponse(key, request, response, 1L, TimeUnit.HOURS);
 
         //Then
-        var argumentCaptor = ArgumentCaptor.forClass(IdempotentRequestResponseWrapper.class);
-        verify(valueOperations).set(eq(key.getKeyValue()), argumentCaptor.capture(), eq(1L), eq(TimeUnit.HOURS));
-        IdempotentRequestResponseWrapper value = argumentCaptor.getValue();
-        assertNull(value.getRequest());
-        assertNull(value.getResponse());
-        assertEquals(wrapper.getResponse().getResponse(), "response");
+        var argumentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(), eq(List.of("key")), argumentCaptor.capture());
+        assertArrayEquals(new byte[0], argumentCaptor.getValue());
+    }
+
+    @Test
+    public void given_a_codec_when_store_and_read_then_fields_are_encoded_with_the_codec() throws Exception {
+        //Given
+        IdempotencyKey key = new IdempotencyKey("key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123L);
+        IdempotentResponseWrapper response = new IdempotentResponseWrapper("response");
+        redisIdempotentRepository = new RedisIdempotentRepository(redisTemplate, redisConfigProperties, codec);
+        when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
+        when(codec.encode(request)).thenReturn(REQUEST);
+        when(codec.decode(aryEq(RESPONSE))).thenReturn(response);
+        when(hashCommands.hGet(aryEq("key".getBytes()), aryEq(RESPONSE))).thenReturn(RESPONSE);
+
+        //When
+        redisIdempotentRepository.store(key, request, 1L, TimeUnit.HOURS);
+        IdempotentResponseWrapper stored = redisIdempotentRepository.getResponse(key);
+
+        //Then
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("key")), aryEq(REQUEST), any());
+        assertSame(response, stored);
+    }
+
+    @Test
+    public void given_max_retry_count_when_lookup_times_out_then_retry_it() {
+        //Given
+        IdempotencyKey key = new IdempotencyKey("key");
+        when(redisConfigProperties.getMaxRetryCount()).thenReturn("1");
+        redisIdempotentRepository = new RedisIdempotentRepository(redisTemplate, redisConfigProperties);
+        when(keyCommands.exists(aryEq("key".getBytes()))).thenThrow(new QueryTimeoutException("timeout")).thenReturn(true);
+
+        //When
+        boolean isContain = redisIdempotentRepository.contains(key);
+
+        //Then
+        assertTrue(isContain);
+        verify(keyCommands, times(2)).exists(aryEq("key".getBytes()));
+    }
+
+    @Test
+    public void given_no_retries_left_when_lookup_times_out_then_throw() {
+        //Given
+        IdempotencyKey key = new IdempotencyKey("key");
+        when(keyCommands.exists(aryEq("key".getBytes()))).thenThrow(new QueryTimeoutException("timeout"));
+
+        //When & Then
+        assertThrows(QueryTimeoutException.class, () -> redisIdempotentRepository.contains(key));
+        verify(keyCommands, times(1)).exists(aryEq("key".getBytes()));
+    }
+
+    @Test
+    public void given_batch_when_store_all_if_absent_then_send_every_script_in_one_pipeline() {
+        //Given
+        IdempotencyKey newKey = new IdempotencyKey("new-key");
+        IdempotencyKey storedKey = new IdempotencyKey("stored-key");
+        IdempotentRequestWrapper request = new IdempotentRequestWrapper(123);
+        Map<IdempotencyKey, IdempotentRequestWrapper> requests = new LinkedHashMap<>();
+        requests.put(newKey, request);
+        requests.put(storedKey, request);
+        when(redisConfigProperties.getPersistReqRes()).thenReturn(true);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return Arrays.asList("sha", List.of(), Arrays.asList(valueSerializer.serialize(request), new byte[0]));
+        });
+
+        //When
+        Map<IdempotencyKey, IdempotentRequestResponseWrapper> existing =
+                redisIdempotentRepository.storeAllIfAbsent(requests, 1L, TimeUnit.HOURS);
+
+        //Then
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+        verify(scriptingCommands, times(1)).scriptLoad(any(byte[].class));
+        assertEquals(1, existing.size());
+        assertEquals(request, existing.get(storedKey).getRequest());
+        assertNull(existing.get(storedKey).getResponse());
+    }
+
+    @Test
+    public void given_batch_when_remove_all_then_delete_every_key_with_one_command() {
+        //When
+        redisIdempotentRepository.removeAll(List.of(new IdempotencyKey("key-1"), new IdempotencyKey("key-2")));
+
+        //Then
+        verify(redisTemplate, times(1)).delete(List.of("key-1", "key-2"));
     }
 }
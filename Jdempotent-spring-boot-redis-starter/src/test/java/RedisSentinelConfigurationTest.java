@@ -0,0 +1,145 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+
+import com.trendyol.jdempotent.redis.RedisConfigProperties;
+import com.trendyol.jdempotent.redis.RedisSentinelConfiguration;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.cluster.ClusterClientOptions;
+
+public class RedisSentinelConfigurationTest {
+
+    @Test
+    public void given_sentinel_mode_when_create_connection_factory_then_connect_through_sentinels() {
+        //Given
+        RedisConfigProperties properties = properties("sentinel");
+        properties.setSentinelMasterName("master");
+        properties.setSentinelHostList(List.of("sentinel-1", "sentinel-2"));
+
+        //When
+        LettuceConnectionFactory connectionFactory = new RedisSentinelConfiguration(properties).lettuceConnectionFactory();
+
+        //Then
+        assertEquals("master", connectionFactory.getSentinelConfiguration().getMaster().getName());
+        assertEquals(2, connectionFactory.getSentinelConfiguration().getSentinels().size());
+        assertNull(connectionFactory.getClientConfiguration().getReadFrom().orElse(null));
+    }
+
+    @Test
+    public void given_standalone_mode_when_create_connection_factory_then_connect_to_the_server() {
+        //Given
+        RedisConfigProperties properties = properties("standalone");
+
+        //When
+        LettuceConnectionFactory connectionFactory = new RedisSentinelConfiguration(properties).lettuceConnectionFactory();
+
+        //Then
+        assertNull(connectionFactory.getSentinelConfiguration());
+        assertNull(connectionFactory.getClusterConfiguration());
+        assertEquals("redis-host", connectionFactory.getHostName());
+        assertEquals(6380, connectionFactory.getPort());
+    }
+
+    @Test
+    public void given_cluster_mode_and_read_from_replicas_when_create_connection_factory_then_connect_to_the_cluster() {
+        //Given
+        RedisConfigProperties properties = properties("cluster");
+        properties.setClusterNodes(List.of("node-1:7000", "node-2:7001", ""));
+        properties.setReadFrom("replicaPreferred");
+
+        //When
+        LettuceConnectionFactory connectionFactory = new RedisSentinelConfiguration(properties).lettuceConnectionFactory();
+
+        //Then
+        assertNotNull(connectionFactory.getClusterConfiguration());
+        assertEquals(2, connectionFactory.getClusterConfiguration().getClusterNodes().size());
+        assertEquals(5, connectionFactory.getClusterConfiguration().getMaxRedirects());
+        assertEquals(ReadFrom.REPLICA_PREFERRED, connectionFactory.getClientConfiguration().getReadFrom().orElse(null));
+        assertFalse(connectionFactory.isRunning());
+        assertTrue(connectionFactory.getClientConfiguration().getClientOptions().orElseThrow() instanceof ClusterClientOptions);
+    }
+
+    @Test
+    public void given_timeouts_and_pool_when_create_connection_factory_then_apply_them() {
+        //Given
+        RedisConfigProperties properties = properties("standalone");
+        properties.setDialTimeoutSecond("2");
+        properties.setReadTimeoutSecond("0.5");
+        properties.setWriteTimeoutSecond("1.5");
+        properties.setTcpKeepAlive(true);
+        properties.setPoolEnabled(true);
+        properties.setPoolMaxTotal(16);
+        properties.setPoolMaxIdle(8);
+        properties.setPoolMinIdle(2);
+
+        //When
+        LettuceConnectionFactory connectionFactory = new RedisSentinelConfiguration(properties).lettuceConnectionFactory();
+
+        //Then
+        ClientOptions clientOptions = connectionFactory.getClientConfiguration().getClientOptions().orElseThrow();
+        assertEquals(Duration.ofMillis(1500), connectionFactory.getClientConfiguration().getCommandTimeout());
+        assertEquals(Duration.ofSeconds(2), clientOptions.getSocketOptions().getConnectTimeout());
+        assertTrue(clientOptions.getSocketOptions().isKeepAlive());
+        assertTrue(clientOptions.getTimeoutOptions().isTimeoutCommands());
+        assertEquals(16, ((LettucePoolingClientConfiguration) connectionFactory.getClientConfiguration()).getPoolConfig().getMaxTotal());
+        assertFalse(connectionFactory.getShareNativeConnection());
+    }
+
+    @Test
+    public void given_no_commons_pool2_on_classpath_when_introspect_configuration_then_load_it() throws Exception {
+        //Given
+        ClassLoader withoutPool = new URLClassLoader(classpath(), ClassLoader.getPlatformClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (name.startsWith("org.apache.commons.pool2.")) {
+                    throw new ClassNotFoundException(name);
+                }
+                return super.loadClass(name, resolve);
+            }
+        };
+
+        //When
+        Class<?> configuration = Class.forName(RedisSentinelConfiguration.class.getName(), false, withoutPool);
+
+        //Then
+        assertTrue(configuration.getDeclaredMethods().length > 0);
+    }
+
+    private static URL[] classpath() throws Exception {
+        String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+        URL[] urls = new URL[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            urls[i] = new File(entries[i]).toURI().toURL();
+        }
+        return urls;
+    }
+
+    private RedisConfigProperties properties(String mode) {
+        RedisConfigProperties properties = new RedisConfigProperties();
+        properties.setMode(mode);
+        properties.setHost("redis-host");
+        properties.setPort(6380);
+        properties.setDatabase(0);
+        properties.setSentinelPort(26379);
+        properties.setPassword("");
+        properties.setClusterMaxRedirects(5);
+        properties.setPoolMaxTotal(8);
+        properties.setPoolMaxIdle(8);
+        properties.setPoolMinIdle(0);
+        return properties;
+    }
+}